@@ -92,6 +92,27 @@ ALTER TABLE picture
 -- 创建索引
 CREATE INDEX idx_spaceId ON picture (space_id);
 
+-- 图片内容哈希，上传相同内容时复用已有对象存储文件
+ALTER TABLE picture
+    ADD COLUMN pic_hash CHAR(64) NULL COMMENT '原图内容 SHA-256 哈希';
+
+CREATE INDEX idx_pic_hash ON picture (pic_hash);
+
+-- 图片感知哈希（dHash），近似重复检测在内存多索引汉明查询中完成
+ALTER TABLE picture
+    ADD COLUMN pic_phash BIGINT NULL COMMENT '感知哈希（dHash）';
+
+-- 图片特征向量，本地以图搜图在内存中完成
+ALTER TABLE picture
+    ADD COLUMN pic_feature VARBINARY(512) NULL COMMENT '图片特征向量（float32 小端）';
+
+-- 主色调的 CIELAB 值与调色板，感知颜色搜索在内存中完成
+ALTER TABLE picture
+    ADD COLUMN pic_lab_l FLOAT NULL COMMENT '主色调 CIELAB L',
+    ADD COLUMN pic_lab_a FLOAT NULL COMMENT '主色调 CIELAB a',
+    ADD COLUMN pic_lab_b FLOAT NULL COMMENT '主色调 CIELAB b',
+    ADD COLUMN pic_palette VARCHAR(128) NULL COMMENT '调色板（主要颜色，逗号分隔的十六进制）';
+
 
 
 -- 用户点赞表
@@ -148,6 +169,15 @@ CREATE TABLE fetched_images (
                                 create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- 已抓取图片按 URL 哈希去重：唯一索引从 image_url 改为定长的 url_hash，URL 长度不再受索引限制
+ALTER TABLE fetched_images ADD COLUMN url_hash CHAR(32) NULL COMMENT 'URL 的 MD5 哈希' AFTER image_url;
+UPDATE fetched_images SET url_hash = MD5(image_url) WHERE url_hash IS NULL;
+ALTER TABLE fetched_images
+    MODIFY COLUMN url_hash CHAR(32) NOT NULL COMMENT 'URL 的 MD5 哈希',
+    ADD UNIQUE KEY uk_url_hash (url_hash),
+    DROP INDEX image_url,
+    MODIFY COLUMN image_url VARCHAR(1024) NOT NULL;
+
 
 
 -- 标签表
@@ -188,4 +218,46 @@ CREATE TABLE IF NOT EXISTS space
     INDEX idx_user_id (user_id),          -- 提升基于用户的查询效率
     INDEX idx_space_name (space_name),   -- 提升基于空间名称的查询效率
     INDEX idx_space_level (space_level)  -- 提升按空间级别查询的效率
-) COMMENT '空间' COLLATE = utf8mb4_unicode_ci;
\ No newline at end of file
+) COMMENT '空间' COLLATE = utf8mb4_unicode_ci;
+
+-- 全文索引（ngram 分词，支持中文），用于名称、简介、标签搜索，需 MySQL 5.7.6+
+ALTER TABLE picture
+    ADD FULLTEXT INDEX ft_picture_text (name, introduction, tags) WITH PARSER ngram;
+
+
+-- 图片标签关联表（标签倒排索引），多标签查询按 (tag, picture_id) 索引求交集，替代 tags JSON 的 LIKE 匹配
+CREATE TABLE IF NOT EXISTS picture_tag
+(
+    id         BIGINT      NOT NULL COMMENT 'id' PRIMARY KEY,
+    tag        VARCHAR(64) NOT NULL COMMENT '标签',
+    picture_id BIGINT      NOT NULL COMMENT '图片 id',
+    UNIQUE KEY uk_tag_picture (tag, picture_id), -- 标签的倒排列表
+    INDEX idx_picture_id (picture_id)           -- 编辑、删除图片时按图片维护
+) COMMENT '图片标签关联' COLLATE = utf8mb4_unicode_ci;
+
+-- 由 tags JSON 回填（MySQL 8.0+）；MySQL 5.7 下应用启动时发现表为空会自动回填，也可调用 /picture/search/index/rebuild
+INSERT IGNORE INTO picture_tag (id, tag, picture_id)
+SELECT UUID_SHORT(), jt.tag, p.id
+FROM picture p,
+     JSON_TABLE(p.tags, '$[*]' COLUMNS (tag VARCHAR(64) PATH '$')) jt
+WHERE p.is_delete = 0
+  AND JSON_VALID(p.tags)
+  AND jt.tag IS NOT NULL
+  AND jt.tag <> '';
+
+
+-- 信息流游标分页：键集条件 (排序列, id) 需要复合索引支撑，InnoDB 二级索引末尾隐含主键 id
+UPDATE picture SET view_count = 0 WHERE view_count IS NULL;
+ALTER TABLE picture
+    MODIFY COLUMN view_count INT DEFAULT 0 NOT NULL COMMENT '图片浏览次数';
+
+ALTER TABLE picture
+    ADD INDEX idx_feed_create_time (review_status, space_id, is_delete, create_time), -- 公共图库按时间
+    ADD INDEX idx_feed_view_count (review_status, space_id, is_delete, view_count),   -- 公共图库按浏览量
+    ADD INDEX idx_space_create_time (space_id, is_delete, create_time);                -- 私有空间按时间
+
+
+-- 点赞唯一键加入点赞类型，图片与评论的 id 相同时各自保留一条点赞记录，批量 upsert 不会改写另一类型的记录
+ALTER TABLE user_like
+    DROP INDEX uk_user_picture,
+    ADD UNIQUE KEY uk_user_target (user_id, picture_id, like_type);
@@ -0,0 +1,30 @@
+package org.leocoder.picture.common;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-27 15:00
+ * @description : 支持带参数排序表达式的查询条件
+ * <p>
+ * 排序表达式中的参数与 apply 一样以 {0}、{1} 占位，生成预编译参数绑定，不拼接到 SQL 中
+ */
+public class ParamOrderQueryWrapper<T> extends QueryWrapper<T> {
+
+    public ParamOrderQueryWrapper(Class<T> entityClass) {
+        super(entityClass);
+    }
+
+    /**
+     * 按带参数的表达式降序排序
+     *
+     * @param sql    排序表达式，参数以 {index} 占位
+     * @param params 参数
+     * @return this
+     */
+    public ParamOrderQueryWrapper<T> orderByDescWithParams(String sql, Object... params) {
+        orderByDesc(formatSqlMaybeWithParam(sql, params));
+        return this;
+    }
+}
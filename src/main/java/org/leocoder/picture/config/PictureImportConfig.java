@@ -0,0 +1,65 @@
+package org.leocoder.picture.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-04 14:20
+ * @description : 批量导入图片配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "picture.import")
+@Data
+public class PictureImportConfig {
+
+    /**
+     * 下载 / 上传工作线程数
+     */
+    private int workerThreads = 8;
+
+    /**
+     * 同时运行的导入任务数
+     */
+    private int jobThreads = 2;
+
+    /**
+     * 单个导入任务的最大并发数
+     */
+    private int jobConcurrency = 4;
+
+    /**
+     * 每页抓取数量
+     */
+    private int pageSize = 10;
+
+    /**
+     * 连续多少页没有图片时停止抓取（部分源会按关键词过滤，单页为空不代表没有更多数据）
+     */
+    private int maxEmptyPages = 3;
+
+    /**
+     * 默认每个抓取源每秒请求数
+     */
+    private double defaultRatePerSecond = 5;
+
+    /**
+     * 按抓取源单独配置的每秒请求数
+     */
+    private Map<String, Double> rateLimits = new HashMap<>();
+
+    /**
+     * 已抓取 URL 布隆过滤器的预期容量
+     */
+    private long bloomExpectedInsertions = 1_000_000;
+
+    /**
+     * 已抓取 URL 布隆过滤器的误判率
+     */
+    private double bloomFpp = 0.01;
+}
@@ -0,0 +1,42 @@
+package org.leocoder.picture.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-16 09:30
+ * @description : 热门榜单配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "picture.ranking")
+@Data
+public class PictureRankingConfig {
+
+    /**
+     * 一次浏览的热度
+     */
+    private double viewWeight = 1;
+
+    /**
+     * 一次点赞的热度
+     */
+    private double likeWeight = 5;
+
+    /**
+     * 一次收藏的热度
+     */
+    private double favoriteWeight = 10;
+
+    /**
+     * 周榜统计的天数
+     */
+    private int weekDays = 7;
+
+    /**
+     * 周榜热度的半衰期（天），越早的日榜权重越低
+     */
+    private double weekHalfLifeDays = 2;
+}
@@ -0,0 +1,42 @@
+package org.leocoder.picture.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-10 11:00
+ * @description : 本地以图搜图配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "picture.similarity")
+@Data
+public class PictureSimilarityConfig {
+
+    /**
+     * 图片数超过该值时构建近似索引，否则精确扫描
+     */
+    private int approximateThreshold = 50000;
+
+    /**
+     * 构建近似索引时，空间内图片数达到该值才单独聚类，否则查询该空间时精确扫描空间内的图片
+     */
+    private int approximateGroupThreshold = 10000;
+
+    /**
+     * 近似查询时扫描的聚类数
+     */
+    private int nprobe = 16;
+
+    /**
+     * 聚类训练采样数
+     */
+    private int trainSampleSize = 20000;
+
+    /**
+     * 聚类训练迭代次数
+     */
+    private int trainIterations = 8;
+}
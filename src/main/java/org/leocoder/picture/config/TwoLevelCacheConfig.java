@@ -0,0 +1,79 @@
+package org.leocoder.picture.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-19 09:30
+ * @description : 两级缓存（本地 Caffeine + Redis）配置，按缓存名称配置容量与过期时间
+ */
+@Configuration
+@ConfigurationProperties(prefix = "picture.cache")
+@Data
+public class TwoLevelCacheConfig {
+
+    /**
+     * 缓存名称 -> 配置，未配置的缓存使用默认值
+     */
+    private Map<String, Spec> specs = new HashMap<>();
+
+    /**
+     * 获取缓存配置
+     *
+     * @param name 缓存名称
+     * @return 缓存配置
+     */
+    public Spec getSpec(String name) {
+        return specs.getOrDefault(name, new Spec());
+    }
+
+    @Data
+    public static class Spec {
+
+        /**
+         * 本地缓存最大条数
+         */
+        private long localMaximumSize = 10000;
+
+        /**
+         * 本地缓存过期时间（秒）
+         */
+        private long localExpireSeconds = 300;
+
+        /**
+         * Redis 缓存逻辑过期时间（秒）
+         */
+        private long remoteExpireSeconds = 300;
+
+        /**
+         * 逻辑过期时间随机增加的最大秒数，避免同一批 key 同时过期
+         */
+        private long remoteExpireJitterSeconds = 300;
+
+        /**
+         * 逻辑过期后旧值继续保留在 Redis 中的秒数，期间读取返回旧值并在后台刷新，为 0 时不返回旧值
+         */
+        private long staleSeconds = 300;
+
+        /**
+         * 回源分布式锁的过期时间（秒）
+         */
+        private long lockSeconds = 10;
+
+        /**
+         * 未抢到回源锁时等待其他节点写入 Redis 的最长时间（毫秒），超时后自行回源
+         */
+        private long lockWaitMillis = 1000;
+
+        /**
+         * 编码后超过该字节数时压缩
+         */
+        private int compressThreshold = 1024;
+    }
+}
@@ -92,6 +92,7 @@ public class AdminUserController {
         }
 
         boolean result = userService.removeById(deleteRequest.getId());
+        userService.invalidateLoginUser(deleteRequest.getId());
         return ResultUtils.success(result);
     }
 
@@ -106,6 +107,7 @@ public class AdminUserController {
         BeanUtils.copyProperties(userUpdateRequest, user);
         boolean result = userService.updateById(user);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        userService.invalidateLoginUser(user.getId());
         return ResultUtils.success(true);
     }
 
@@ -0,0 +1,54 @@
+package org.leocoder.picture.controller;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.leocoder.picture.annotation.AuthCheck;
+import org.leocoder.picture.common.Result;
+import org.leocoder.picture.common.ResultUtils;
+import org.leocoder.picture.constant.UserConstant;
+import org.leocoder.picture.domain.vo.cache.CacheStatsVO;
+import org.leocoder.picture.domain.vo.cache.CounterStatsVO;
+import org.leocoder.picture.manager.cache.LoginUserCache;
+import org.leocoder.picture.manager.cache.TwoLevelCacheManager;
+import org.leocoder.picture.manager.counter.InteractionCounterAggregator;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-19 11:00
+ * @description : 缓存管理控制器
+ */
+@RestController
+@RequiredArgsConstructor
+@Api(tags = "缓存管理")
+@RequestMapping("/cache")
+public class CacheController {
+
+    private final TwoLevelCacheManager twoLevelCacheManager;
+
+    private final LoginUserCache loginUserCache;
+
+    private final InteractionCounterAggregator interactionCounterAggregator;
+
+    @GetMapping("/stats")
+    @ApiOperation(value = "获取缓存统计信息")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public Result<List<CacheStatsVO>> getCacheStats() {
+        List<CacheStatsVO> statsList = twoLevelCacheManager.getStats();
+        statsList.add(loginUserCache.getStats());
+        return ResultUtils.success(statsList);
+    }
+
+    @GetMapping("/counter/stats")
+    @ApiOperation(value = "获取互动计数积压与刷写统计")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public Result<List<CounterStatsVO>> getCounterStats() {
+        return ResultUtils.success(interactionCounterAggregator.getStats());
+    }
+}
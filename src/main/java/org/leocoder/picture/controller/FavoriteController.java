@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 import org.leocoder.picture.common.Result;
 import org.leocoder.picture.common.ResultUtils;
 import org.leocoder.picture.domain.User;
+import org.leocoder.picture.domain.dto.favorite.FavoriteBatchRequest;
 import org.leocoder.picture.domain.dto.favorite.FavoriteQueryRequest;
 import org.leocoder.picture.domain.dto.favorite.FavoriteRequest;
 import org.leocoder.picture.domain.vo.favorite.FavoritePictureVO;
@@ -44,8 +45,8 @@ public class FavoriteController {
         // 获取登录用户
         User loginUser = userService.getLoginUser(request);
         requestParam.setUserId(loginUser.getId());
-        boolean result = favoriteService.addFavorite(requestParam);
-        ThrowUtils.throwIf(!result,ErrorCode.OPERATION_ERROR,"收藏失败");
+        // 收藏是幂等的，重复收藏同样返回成功
+        favoriteService.addFavorite(requestParam);
         return  ResultUtils.success(true);
     }
 
@@ -58,12 +59,26 @@ public class FavoriteController {
         // 获取登录用户
         User loginUser = userService.getLoginUser(request);
         requestParam.setUserId(loginUser.getId());
-        boolean result = favoriteService.removeFavorite(requestParam);
-        ThrowUtils.throwIf(!result,ErrorCode.OPERATION_ERROR,"取消收藏失败");
+        // 取消收藏是幂等的，取消未收藏的图片同样返回成功
+        favoriteService.removeFavorite(requestParam);
         return  ResultUtils.success(true);
     }
 
 
+    @ApiOperation("批量收藏 / 取消收藏图片")
+    @PostMapping("/batch")
+    public Result<Integer> batchFavorite(@RequestBody FavoriteBatchRequest requestParam, HttpServletRequest request) {
+        // 校验参数
+        ThrowUtils.throwIf(ObjectUtil.isNull(requestParam) || ObjectUtil.isNull(requestParam.getIsFavorited()),
+                ErrorCode.PARAMS_ERROR);
+        // 获取登录用户
+        User loginUser = userService.getLoginUser(request);
+        int changedCount = favoriteService.batchChangeFavorite(loginUser.getId(), requestParam.getPictureIds(),
+                requestParam.getIsFavorited());
+        return ResultUtils.success(changedCount);
+    }
+
+
 
     @ApiOperation("查询用户的收藏列表")
     @PostMapping("/list")
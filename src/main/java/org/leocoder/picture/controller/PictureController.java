@@ -3,7 +3,6 @@ package org.leocoder.picture.controller;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -12,8 +11,6 @@ import org.leocoder.picture.annotation.AuthCheck;
 import org.leocoder.picture.api.aliyunai.AliYunAiApi;
 import org.leocoder.picture.api.aliyunai.CreateOutPaintingTaskResponse;
 import org.leocoder.picture.api.aliyunai.GetOutPaintingTaskResponse;
-import org.leocoder.picture.api.imagesearch.ImageSearchApiFacade;
-import org.leocoder.picture.api.imagesearch.model.ImageSearchResult;
 import org.leocoder.picture.common.DeleteRequest;
 import org.leocoder.picture.common.Result;
 import org.leocoder.picture.common.ResultUtils;
@@ -22,6 +19,8 @@ import org.leocoder.picture.domain.Picture;
 import org.leocoder.picture.domain.Space;
 import org.leocoder.picture.domain.User;
 import org.leocoder.picture.domain.dto.picture.*;
+import org.leocoder.picture.domain.vo.picture.ImportJobVO;
+import org.leocoder.picture.domain.vo.picture.PictureFeedVO;
 import org.leocoder.picture.domain.vo.picture.PictureVO;
 import org.leocoder.picture.enums.PictureReviewStatusEnum;
 import org.leocoder.picture.exception.BusinessException;
@@ -35,7 +34,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -59,7 +57,6 @@ public class PictureController {
 
     private final AliYunAiApi aliYunAiApi;
 
-    private final ImageSearchApiFacade imageSearchApiFacade;
 
     @ApiOperation(value = "上传图片（可重新上传）")
     @PostMapping("/upload")
@@ -132,33 +129,31 @@ public class PictureController {
     }
 
 
-    @ApiOperation(value = "分页获取图片列表（按热度排序）")
+    @ApiOperation(value = "分页获取热门图片榜单（今日 / 本周 / 总榜）")
     @PostMapping("/list/page/popular")
-    public Result<Page<PictureVO>> listPopularPictures(@RequestBody PictureQueryRequest pictureQueryRequest, HttpServletRequest request) {
-        long current = pictureQueryRequest.getPageNum();
-        long size = pictureQueryRequest.getPageSize();
-        ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-
-        // 按浏览次数降序排序
-        LambdaQueryWrapper<Picture> queryWrapper = pictureService.getLambdaQueryWrapper(pictureQueryRequest).orderByDesc(Picture::getViewCount);
-        Page<Picture> picturePage = pictureService.page(new Page<>(current, size), queryWrapper);
-
-        // 获取封装类
-        return ResultUtils.success(pictureService.getPictureVOPage(picturePage, request));
+    public Result<Page<PictureVO>> listPopularPictures(@RequestBody PictureRankingRequest requestParam, HttpServletRequest request) {
+        return ResultUtils.success(pictureService.listPopularPictures(requestParam, request));
     }
 
 
     @ApiOperation(value = "以图搜图")
     @PostMapping("/search/picture")
-    public Result<List<ImageSearchResult>> searchPictureByPicture(@RequestBody SearchPictureByPictureRequest requestParam) {
+    public Result<List<PictureVO>> searchPictureByPicture(@RequestBody SearchPictureByPictureRequest requestParam,
+                                                          HttpServletRequest request) {
         ThrowUtils.throwIf(ObjectUtil.isNull(requestParam), ErrorCode.PARAMS_ERROR);
-        Long pictureId = requestParam.getPictureId();
-        ThrowUtils.throwIf(ObjectUtil.isNull(pictureId) || pictureId <= 0, ErrorCode.PARAMS_ERROR);
-        Picture oldPicture = pictureService.getById(pictureId);
-        ThrowUtils.throwIf(ObjectUtil.isNull(oldPicture), ErrorCode.NOT_FOUND_ERROR);
-        // 使用Pexels API进行图片搜索
-        List<ImageSearchResult> resultList = imageSearchApiFacade.searchImage(oldPicture.getName());
-        return ResultUtils.success(resultList);
+        User loginUser = userService.getLoginUser(request);
+        // 本地特征向量检索，按图片内容而不是名称搜索
+        return ResultUtils.success(pictureService.searchPictureByPicture(requestParam, loginUser));
+    }
+
+
+    @ApiOperation(value = "查询近似重复图片")
+    @PostMapping("/search/duplicate")
+    public Result<List<PictureVO>> searchNearDuplicatePictures(@RequestBody SearchNearDuplicatePictureRequest requestParam,
+                                                               HttpServletRequest request) {
+        ThrowUtils.throwIf(ObjectUtil.isNull(requestParam), ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.searchNearDuplicatePictures(requestParam, loginUser));
     }
 
 
@@ -166,10 +161,8 @@ public class PictureController {
     @PostMapping("/search/color")
     public Result<List<PictureVO>> searchPictureByColor(@RequestBody SearchPictureByColorRequest requestParam, HttpServletRequest request) {
         ThrowUtils.throwIf(ObjectUtil.isNull(requestParam), ErrorCode.PARAMS_ERROR);
-        String picColor = requestParam.getPicColor();
-        Long spaceId = requestParam.getSpaceId();
         User loginUser = userService.getLoginUser(request);
-        List<PictureVO> result = pictureService.searchPictureByColor(spaceId, picColor, loginUser);
+        List<PictureVO> result = pictureService.searchPictureByColor(requestParam, loginUser);
         return ResultUtils.success(result);
     }
 
@@ -194,10 +187,10 @@ public class PictureController {
             return ResultUtils.success(pictureService.getPictureVO(picture, request));
         }
         // 增加浏览次数
-        pictureService.incrementViewCountInCache(id);
+        pictureService.incrementViewCountInCache(picture);
 
         // 获取最新的浏览量
-        Long viewCount = pictureService.getViewCount(id);
+        Long viewCount = pictureService.getViewCount(picture);
         // 更新浏览量
         picture.setViewCount(viewCount);
 
@@ -205,7 +198,7 @@ public class PictureController {
         return ResultUtils.success(pictureService.getPictureVO(picture, request));
     }
 
-    @ApiOperation(value = "获取图片浏览次数（Redis实时的数据）")
+    @ApiOperation(value = "获取图片浏览次数（包含尚未刷写到数据库的浏览）")
     @GetMapping("/{id}/viewCount")
     public Result<Long> getPictureViewCount(@PathVariable Long id) {
         Long viewCount = pictureService.getViewCount(id);
@@ -256,6 +249,12 @@ public class PictureController {
         return ResultUtils.success(pictureService.getPictureVOPage(picturePage, request));
     }
 
+    @ApiOperation(value = "游标分页获取图片信息流")
+    @PostMapping("/list/feed")
+    public Result<PictureFeedVO> listPictureVOByFeed(@RequestBody PictureFeedRequest requestParam, HttpServletRequest request) {
+        return ResultUtils.success(pictureService.listPictureVOByFeed(requestParam, request));
+    }
+
     @ApiOperation(value = "分页获取图片列表(带缓存)")
     @PostMapping("/list/page/vo/cache")
     public Result<Page<PictureVO>> listPictureVOByPageWithCache(@RequestBody PictureQueryRequest requestParam, HttpServletRequest request) {
@@ -279,6 +278,15 @@ public class PictureController {
     }
 
 
+    @ApiOperation(value = "重建图片全文索引（仅管理员可用）")
+    @PostMapping("/search/index/rebuild")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public Result<Boolean> rebuildSearchIndex() {
+        pictureService.rebuildSearchIndex();
+        return ResultUtils.success(true);
+    }
+
+
     @ApiOperation(value = "分页获取已发布图片列表（封装类）")
     @PostMapping("/list/page/user")
     public Result<Page<PictureVO>> listPictureVOByUser(@RequestBody PictureQueryRequest pictureQueryRequest, HttpServletRequest request) {
@@ -330,6 +338,24 @@ public class PictureController {
     }
 
 
+    @ApiOperation(value = "提交批量导入任务")
+    @PostMapping("/upload/batch/submit")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public Result<String> submitImportJob(@RequestBody PictureUploadByBatchRequest requestParam, HttpServletRequest request) {
+        ThrowUtils.throwIf(ObjectUtil.isNull(requestParam), ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(pictureService.submitImportJob(requestParam, loginUser));
+    }
+
+
+    @ApiOperation(value = "查询批量导入任务进度")
+    @GetMapping("/upload/batch/status")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public Result<ImportJobVO> getImportJob(@RequestParam String jobId) {
+        return ResultUtils.success(pictureService.getImportJob(jobId));
+    }
+
+
     @ApiOperation(value = "获取相邻图片")
     @PostMapping("/adjacent")
     public Result<Map<String, Long>> getAdjacentPictures(@RequestParam Long pictureId,
@@ -337,76 +363,7 @@ public class PictureController {
                                                          @RequestParam String sortOrder,
                                                          @RequestParam String from, // 新增参数
                                                          HttpServletRequest request) {
-        // 查询当前图片
-        Picture currentPicture = pictureService.getById(pictureId);
-        if (currentPicture == null) {
-            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "图片不存在");
-        }
-
-        // 获取当前用户登录信息
-        User loginUser = userService.getLoginUser(request);
-
-        // 判断是否为公开图片（没有 SpaceId 的图片视为公开图片）
-        boolean isPublicPicture = currentPicture.getSpaceId() == null;
-
-        // 如果来源为“我的空间”，校验权限
-        if ("space".equals(from)) {
-            if (!isPublicPicture) {
-                Space space = spaceService.getById(currentPicture.getSpaceId());
-                if (space == null || !loginUser.getId().equals(space.getUserId())) {
-                    throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权访问该空间");
-                }
-            }
-        }
-
-        // 查询上一张图片
-        LambdaQueryChainWrapper<Picture> prevQuery = pictureService.lambdaQuery()
-                .lt("createTime".equals(sortField) ? Picture::getCreateTime : Picture::getViewCount,
-                        "createTime".equals(sortField) ? currentPicture.getCreateTime() : currentPicture.getViewCount())
-                .eq(Picture::getReviewStatus, PictureReviewStatusEnum.PASS.getValue());
-
-        // 根据来源限制查询范围
-        if ("space".equals(from)) {
-            // 如果是我的空间，限定空间范围
-            prevQuery.eq(Picture::getSpaceId, currentPicture.getSpaceId());
-        } else if ("public".equals(from)) {
-            // 如果是主页，只查询公开图片
-            prevQuery.isNull(Picture::getSpaceId);
-        }
-
-        if ("descend".equals(sortOrder)) {
-            prevQuery.orderByDesc("createTime".equals(sortField) ? Picture::getCreateTime : Picture::getViewCount);
-        } else {
-            prevQuery.orderByAsc("createTime".equals(sortField) ? Picture::getCreateTime : Picture::getViewCount);
-        }
-
-        Long prevId = prevQuery.last("LIMIT 1").oneOpt().map(Picture::getId).orElse(null);
-
-        // 查询下一张图片
-        LambdaQueryChainWrapper<Picture> nextQuery = pictureService.lambdaQuery()
-                .gt("createTime".equals(sortField) ? Picture::getCreateTime : Picture::getViewCount,
-                        "createTime".equals(sortField) ? currentPicture.getCreateTime() : currentPicture.getViewCount())
-                .eq(Picture::getReviewStatus, PictureReviewStatusEnum.PASS.getValue());
-
-        if ("space".equals(from)) {
-            nextQuery.eq(Picture::getSpaceId, currentPicture.getSpaceId());
-        } else if ("public".equals(from)) {
-            nextQuery.isNull(Picture::getSpaceId);
-        }
-
-        if ("descend".equals(sortOrder)) {
-            nextQuery.orderByDesc("createTime".equals(sortField) ? Picture::getCreateTime : Picture::getViewCount);
-        } else {
-            nextQuery.orderByAsc("createTime".equals(sortField) ? Picture::getCreateTime : Picture::getViewCount);
-        }
-
-        Long nextId = nextQuery.last("LIMIT 1").oneOpt().map(Picture::getId).orElse(null);
-
-        // 返回结果
-        Map<String, Long> result = new HashMap<>();
-        result.put("prevId", nextId);
-        result.put("nextId", prevId);
-        return ResultUtils.success(result);
+        return ResultUtils.success(pictureService.getAdjacentPictures(pictureId, sortField, sortOrder, from, request));
     }
 
 
@@ -28,6 +28,12 @@ public class FetchedImages implements Serializable {
     @TableField(value = "image_url")
     private String imageUrl;
 
+    /**
+     * URL 的 MD5 哈希，唯一索引，用于去重
+     */
+    @TableField(value = "url_hash")
+    private String urlHash;
+
     @TableField(value = "hash_value")
     private String hashValue;
 
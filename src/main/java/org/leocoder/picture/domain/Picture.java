@@ -169,6 +169,43 @@ public class Picture implements Serializable {
     @TableField(value = "pic_color")
     private String picColor;
 
+    /**
+     * 原图内容 SHA-256 哈希，相同内容复用已上传的对象
+     */
+    @TableField(value = "pic_hash")
+    private String picHash;
+
+    /**
+     * 感知哈希（dHash），由缩略图计算，用于近似重复检测
+     * 以下相似度相关的列默认不查询，只在索引预热与相似度查询时显式选择
+     */
+    @TableField(value = "pic_phash", select = false)
+    private Long picPhash;
+
+    /**
+     * 图片特征向量（颜色直方图 + 边缘方向直方图，小端 float32），用于本地以图搜图
+     */
+    @TableField(value = "pic_feature", select = false)
+    private byte[] picFeature;
+
+    /**
+     * 主色调的 CIELAB 值，上传时换算一次，用于感知颜色搜索
+     */
+    @TableField(value = "pic_lab_l", select = false)
+    private Float picLabL;
+
+    @TableField(value = "pic_lab_a", select = false)
+    private Float picLabA;
+
+    @TableField(value = "pic_lab_b", select = false)
+    private Float picLabB;
+
+    /**
+     * 调色板（主要颜色，逗号分隔的十六进制，按占比降序）
+     */
+    @TableField(value = "pic_palette", select = false)
+    private String picPalette;
+
 
     /**
      * 是否删除
@@ -0,0 +1,43 @@
+package org.leocoder.picture.domain;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-14 09:30
+ * @description : 图片标签关联表（标签倒排索引），由 picture.tags 派生
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@TableName(value = "picture_tag")
+public class PictureTag implements Serializable {
+
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 标签
+     */
+    @TableField(value = "tag")
+    private String tag;
+
+    /**
+     * 图片 id
+     */
+    @TableField(value = "picture_id")
+    private Long pictureId;
+
+    private static final long serialVersionUID = 1L;
+}
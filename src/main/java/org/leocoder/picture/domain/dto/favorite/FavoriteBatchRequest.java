@@ -0,0 +1,25 @@
+package org.leocoder.picture.domain.dto.favorite;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-24 09:30
+ * @description : 批量收藏 / 取消收藏请求对象
+ */
+@Data
+public class FavoriteBatchRequest {
+
+    /**
+     * 图片id列表
+     */
+    private List<Long> pictureIds;
+
+    /**
+     * true 收藏，false 取消收藏
+     */
+    private Boolean isFavorited;
+}
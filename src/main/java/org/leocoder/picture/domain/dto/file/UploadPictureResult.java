@@ -56,6 +56,8 @@ public class UploadPictureResult {
      */
     private String picColor;
 
-
+    /**
+     * 原图内容 SHA-256 哈希
+     */
+    private String picHash;
 }
-
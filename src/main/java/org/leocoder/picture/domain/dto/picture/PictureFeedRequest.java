@@ -0,0 +1,53 @@
+package org.leocoder.picture.domain.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-14 09:30
+ * @description : 图片信息流（游标分页）请求参数
+ */
+@Data
+public class PictureFeedRequest implements Serializable {
+
+    /**
+     * 游标，首页为空，之后传上一页返回的 nextCursor
+     */
+    private String cursor;
+
+    /**
+     * 页面大小
+     */
+    private int pageSize = 20;
+
+    /**
+     * 排序字段：createTime（默认）、viewCount，均为降序
+     */
+    private String sortField;
+
+    /**
+     * 空间 id，为空表示公共图库
+     */
+    private Long spaceId;
+
+    /**
+     * 分类
+     */
+    private String category;
+
+    /**
+     * 标签
+     */
+    private List<String> tags;
+
+    /**
+     * 搜索词（同时搜名称、简介、标签）
+     */
+    private String searchText;
+
+    private static final long serialVersionUID = 1L;
+}
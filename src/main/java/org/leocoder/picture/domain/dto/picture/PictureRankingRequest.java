@@ -0,0 +1,41 @@
+package org.leocoder.picture.domain.dto.picture;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.leocoder.picture.common.PageRequest;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-16 09:30
+ * @description : 热门图片榜单请求参数
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+public class PictureRankingRequest extends PageRequest implements Serializable {
+
+    /**
+     * 榜单时间窗口：today、week、all（默认）
+     */
+    private String window;
+
+    /**
+     * 分类
+     */
+    private String category;
+
+    /**
+     * 标签
+     */
+    private List<String> tags;
+
+    /**
+     * 搜索词（同时搜名称、简介、标签）
+     */
+    private String searchText;
+
+    private static final long serialVersionUID = 1L;
+}
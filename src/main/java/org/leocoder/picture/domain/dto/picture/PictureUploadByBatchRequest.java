@@ -31,4 +31,9 @@ public class PictureUploadByBatchRequest {
      */
     private String source;
 
+    /**
+     * 近似重复检测阈值（汉明距离），不为空时跳过与图库中已有图片近似重复的图片
+     */
+    private Integer nearDuplicateDistance;
+
 }
@@ -33,6 +33,11 @@ public class PictureUploadRequest implements Serializable {
      */
     private Long spaceId;
 
+    /**
+     * 近似重复检测阈值（汉明距离），不为空时同一空间存在近似重复图片则拒绝上传
+     */
+    private Integer nearDuplicateDistance;
+
 
 
     private static final long serialVersionUID = 1L;
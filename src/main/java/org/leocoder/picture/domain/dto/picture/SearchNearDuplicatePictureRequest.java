@@ -0,0 +1,27 @@
+package org.leocoder.picture.domain.dto.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-07 11:00
+ * @description : 近似重复图片查询请求参数
+ */
+@Data
+public class SearchNearDuplicatePictureRequest implements Serializable {
+
+    /**
+     * 图片 id
+     */
+    private Long pictureId;
+
+    /**
+     * 最大汉明距离（0 ~ 16），越小越严格
+     */
+    private Integer maxDistance = 10;
+
+    private static final long serialVersionUID = 1L;
+}
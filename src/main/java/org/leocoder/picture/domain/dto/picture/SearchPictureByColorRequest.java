@@ -23,6 +23,16 @@ public class SearchPictureByColorRequest implements Serializable {
      */
     private Long spaceId;
 
+    /**
+     * 颜色度量：rgb（默认）、lab（CIE76）、ciede2000
+     */
+    private String metric;
+
+    /**
+     * 是否匹配调色板中的任一主要颜色，默认只比较主色调
+     */
+    private Boolean matchPalette;
+
     private static final long serialVersionUID = 1L;
 }
 
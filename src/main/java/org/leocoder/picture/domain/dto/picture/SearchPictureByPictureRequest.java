@@ -18,6 +18,11 @@ public class SearchPictureByPictureRequest implements Serializable {
      */
     private Long pictureId;
 
+    /**
+     * 返回数量
+     */
+    private Integer topK = 12;
+
     private static final long serialVersionUID = 1L;
 }
 
@@ -0,0 +1,87 @@
+package org.leocoder.picture.domain.vo.cache;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-19 09:30
+ * @description : 两级缓存统计
+ */
+@Data
+public class CacheStatsVO implements Serializable {
+
+    /**
+     * 缓存名称
+     */
+    private String name;
+
+    /**
+     * 本地缓存条数（估计值）
+     */
+    private Long localSize;
+
+    /**
+     * 同一请求内复用的次数（登录用户缓存）
+     */
+    private Long requestHitCount;
+
+    /**
+     * 本地缓存命中次数
+     */
+    private Long localHitCount;
+
+    /**
+     * 本地缓存未命中次数
+     */
+    private Long localMissCount;
+
+    /**
+     * Redis 命中次数
+     */
+    private Long remoteHitCount;
+
+    /**
+     * Redis 未命中次数
+     */
+    private Long remoteMissCount;
+
+    /**
+     * 合并到其他线程加载的请求次数
+     */
+    private Long coalescedCount;
+
+    /**
+     * 逻辑过期后返回旧值的次数
+     */
+    private Long staleServedCount;
+
+    /**
+     * 后台刷新次数
+     */
+    private Long refreshCount;
+
+    /**
+     * 回源加载次数（包括后台刷新）
+     */
+    private Long loadCount;
+
+    /**
+     * 回源加载失败次数
+     */
+    private Long loadFailureCount;
+
+    /**
+     * 平均回源加载耗时（毫秒）
+     */
+    private Double averageLoadMillis;
+
+    /**
+     * 命中率（请求无需同步回源的比例）
+     */
+    private Double hitRate;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,57 @@
+package org.leocoder.picture.domain.vo.cache;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-22 09:30
+ * @description : 互动计数聚合统计
+ */
+@Data
+public class CounterStatsVO implements Serializable {
+
+    /**
+     * 计数类型
+     */
+    private String counter;
+
+    /**
+     * 待刷写的目标数
+     */
+    private Long pendingTargets;
+
+    /**
+     * 待刷写的增量（绝对值之和）
+     */
+    private Long pendingDelta;
+
+    /**
+     * 累计刷写的增量（绝对值之和）
+     */
+    private Long flushedDelta;
+
+    /**
+     * 累计刷写的目标数（行数）
+     */
+    private Long flushedTargets;
+
+    /**
+     * 刷写次数
+     */
+    private Long flushCount;
+
+    /**
+     * 刷写失败次数
+     */
+    private Long flushFailureCount;
+
+    /**
+     * 最近一次刷写耗时（毫秒）
+     */
+    private Long lastFlushMillis;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,108 @@
+package org.leocoder.picture.domain.vo.picture;
+
+import lombok.Data;
+import org.leocoder.picture.manager.importer.ImportJob;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-05 11:00
+ * @description : 批量导入任务进度
+ */
+@Data
+public class ImportJobVO implements Serializable {
+
+    /**
+     * 任务 id
+     */
+    private String jobId;
+
+    /**
+     * 抓取源
+     */
+    private String source;
+
+    /**
+     * 搜索词
+     */
+    private String searchText;
+
+    /**
+     * 目标导入数量
+     */
+    private Integer count;
+
+    /**
+     * 任务状态：0-运行中; 1-成功; 2-失败
+     */
+    private Integer status;
+
+    /**
+     * 已抓取的 URL 数
+     */
+    private Integer fetched;
+
+    /**
+     * 跳过数（重复或已抓取）
+     */
+    private Integer skipped;
+
+    /**
+     * 失败数
+     */
+    private Integer failed;
+
+    /**
+     * 成功导入数
+     */
+    private Integer uploaded;
+
+    /**
+     * 当前页码
+     */
+    private Integer page;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime endTime;
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 导入任务转包装类
+     */
+    public static ImportJobVO objToVo(ImportJob job) {
+        if (job == null) {
+            return null;
+        }
+        ImportJobVO importJobVO = new ImportJobVO();
+        importJobVO.setJobId(job.getJobId());
+        importJobVO.setSource(job.getSource());
+        importJobVO.setSearchText(job.getSearchText());
+        importJobVO.setCount(job.getCount());
+        importJobVO.setStatus(job.getStatus().getValue());
+        importJobVO.setFetched(job.getFetched().get());
+        importJobVO.setSkipped(job.getSkipped().get());
+        importJobVO.setFailed(job.getFailed().get());
+        importJobVO.setUploaded(job.getUploaded().get());
+        importJobVO.setPage(job.getPage());
+        importJobVO.setErrorMessage(job.getErrorMessage());
+        importJobVO.setStartTime(job.getStartTime());
+        importJobVO.setEndTime(job.getEndTime());
+        return importJobVO;
+    }
+}
@@ -0,0 +1,33 @@
+package org.leocoder.picture.domain.vo.picture;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-14 09:30
+ * @description : 图片信息流（游标分页）结果
+ */
+@Data
+public class PictureFeedVO implements Serializable {
+
+    /**
+     * 当前页图片
+     */
+    private List<PictureVO> records;
+
+    /**
+     * 下一页游标，没有更多数据时为空
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private Boolean hasMore;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -159,6 +159,11 @@ public class PictureVO implements Serializable {
      */
     private String picColor;
 
+    /**
+     * 调色板（主要颜色，逗号分隔的十六进制）
+     */
+    private String picPalette;
+
 
 
     private static final long serialVersionUID = 1L;
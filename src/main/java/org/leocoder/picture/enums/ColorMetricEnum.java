@@ -0,0 +1,45 @@
+package org.leocoder.picture.enums;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-12 09:20
+ * @description : 颜色相似度度量枚举
+ */
+@Getter
+public enum ColorMetricEnum {
+    RGB("RGB 欧氏距离", "rgb"),
+    LAB("CIELAB 欧氏距离（CIE76）", "lab"),
+    CIEDE2000("CIEDE2000 色差", "ciede2000");
+
+    private final String text;
+    private final String value;
+
+    private static final Map<String, ColorMetricEnum> VALUE_MAP = new HashMap<>();
+
+    static {
+        for (ColorMetricEnum metricEnum : ColorMetricEnum.values()) {
+            VALUE_MAP.put(metricEnum.getValue(), metricEnum);
+        }
+    }
+
+    ColorMetricEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值
+     * @return 对应的枚举类型，找不到则返回 null
+     */
+    public static ColorMetricEnum getEnumByValue(String value) {
+        return VALUE_MAP.get(value);
+    }
+}
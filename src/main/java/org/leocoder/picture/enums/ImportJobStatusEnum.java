@@ -0,0 +1,40 @@
+package org.leocoder.picture.enums;
+
+import cn.hutool.core.util.ObjUtil;
+import lombok.Getter;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-04 14:25
+ * @description : 批量导入任务状态枚举
+ */
+@Getter
+public enum ImportJobStatusEnum {
+    RUNNING("运行中", 0),
+    SUCCEED("已完成", 1),
+    FAILED("失败", 2);
+
+    private final String text;
+    private final int value;
+
+    ImportJobStatusEnum(String text, int value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     */
+    public static ImportJobStatusEnum getEnumByValue(Integer value) {
+        if (ObjUtil.isEmpty(value)) {
+            return null;
+        }
+        for (ImportJobStatusEnum importJobStatusEnum : ImportJobStatusEnum.values()) {
+            if (importJobStatusEnum.value == value) {
+                return importJobStatusEnum;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,24 @@
+package org.leocoder.picture.enums;
+
+import lombok.Getter;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-22 09:30
+ * @description : 互动计数类型枚举（点赞数、收藏数）
+ */
+@Getter
+public enum InteractionCounterEnum {
+    PICTURE_LIKE("图片点赞数", "picture_like"),
+    PICTURE_FAVORITE("图片收藏数", "picture_favorite"),
+    COMMENT_LIKE("评论点赞数", "comment_like");
+
+    private final String text;
+    private final String value;
+
+    InteractionCounterEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+}
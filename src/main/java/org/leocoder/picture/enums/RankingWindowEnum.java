@@ -0,0 +1,45 @@
+package org.leocoder.picture.enums;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-16 09:30
+ * @description : 热门榜单时间窗口枚举
+ */
+@Getter
+public enum RankingWindowEnum {
+    TODAY("今日热门", "today"),
+    WEEK("本周热门", "week"),
+    ALL("总榜", "all");
+
+    private final String text;
+    private final String value;
+
+    private static final Map<String, RankingWindowEnum> VALUE_MAP = new HashMap<>();
+
+    static {
+        for (RankingWindowEnum windowEnum : RankingWindowEnum.values()) {
+            VALUE_MAP.put(windowEnum.getValue(), windowEnum);
+        }
+    }
+
+    RankingWindowEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value 枚举值
+     * @return 对应的枚举类型，找不到则返回 null
+     */
+    public static RankingWindowEnum getEnumByValue(String value) {
+        return VALUE_MAP.get(value);
+    }
+}
@@ -1,9 +1,11 @@
 package org.leocoder.picture.manager;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
 import com.qcloud.cos.COSClient;
 import com.qcloud.cos.model.COSObject;
 import com.qcloud.cos.model.GetObjectRequest;
+import com.qcloud.cos.model.ObjectMetadata;
 import com.qcloud.cos.model.PutObjectRequest;
 import com.qcloud.cos.model.PutObjectResult;
 import com.qcloud.cos.model.ciModel.persistence.PicOperations;
@@ -11,7 +13,11 @@ import lombok.RequiredArgsConstructor;
 import org.leocoder.picture.config.CosClientConfig;
 import org.springframework.stereotype.Component;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -51,6 +57,15 @@ public class CosManager {
         return cosClient.getObject(getObjectRequest);
     }
 
+    /**
+     * 删除对象
+     *
+     * @param key 唯一键
+     */
+    public void deleteObject(String key) {
+        cosClient.deleteObject(cosClientConfig.getBucket(), key);
+    }
+
     /**
      * 上传对象（附带图片信息）
      *
@@ -59,6 +74,49 @@ public class CosManager {
      */
     public PutObjectResult putPictureObject(String key, File file) {
         PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, file);
+        putObjectRequest.setPicOperations(buildPicOperations(key, file.length()));
+        return cosClient.putObject(putObjectRequest);
+    }
+
+    /**
+     * 上传对象（附带图片信息，流式上传，不落临时文件）
+     *
+     * @param key           唯一键
+     * @param inputStream   输入流
+     * @param contentLength 内容长度，COS 需要提前知道长度才能直接转发请求体
+     */
+    public PutObjectResult putPictureObject(String key, InputStream inputStream, long contentLength) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(contentLength);
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, inputStream, objectMetadata);
+        putObjectRequest.setPicOperations(buildPicOperations(key, contentLength));
+        return cosClient.putObject(putObjectRequest);
+    }
+
+    /**
+     * 下载并解码图片（由对象存储统一转为 png，兼容 webp 等 JDK 无法直接解码的格式）
+     *
+     * @param url 图片地址（本桶内的对象）
+     * @return 图片，无法解码时返回 null
+     */
+    public BufferedImage getPictureImage(String url) throws IOException {
+        String key = StrUtil.removePrefix(url, cosClientConfig.getHost() + "/");
+        GetObjectRequest getObjectRequest = new GetObjectRequest(cosClientConfig.getBucket(), key);
+        getObjectRequest.putCustomQueryParameter("imageMogr2/format/png", null);
+        try (COSObject cosObject = cosClient.getObject(getObjectRequest);
+             InputStream inputStream = cosObject.getObjectContent()) {
+            return ImageIO.read(inputStream);
+        }
+    }
+
+    /**
+     * 构造图片处理参数
+     *
+     * @param key      唯一键
+     * @param fileSize 原图大小
+     * @return 图片处理参数
+     */
+    private PicOperations buildPicOperations(String key, long fileSize) {
         // 对图片进行处理（获取基本信息也被视作为一种处理）
         PicOperations picOperations = new PicOperations();
         // 1 表示返回原图信息
@@ -72,7 +130,7 @@ public class CosManager {
         compressRule.setFileId(webpKey);
         rules.add(compressRule);
         // 缩略图处理，仅对 > 20 KB 的图片生成缩略图
-        if (file.length() > 2 * 1024) {
+        if (fileSize > 2 * 1024) {
             PicOperations.Rule thumbnailRule = new PicOperations.Rule();
             thumbnailRule.setBucket(cosClientConfig.getBucket());
             String thumbnailKey = FileUtil.mainName(key) + "_thumbnail." + FileUtil.getSuffix(key);
@@ -83,8 +141,6 @@ public class CosManager {
         }
         // 构造处理参数
         picOperations.setRules(rules);
-        putObjectRequest.setPicOperations(picOperations);
-        return cosClient.putObject(putObjectRequest);
+        return picOperations;
     }
 }
-
@@ -0,0 +1,117 @@
+package org.leocoder.picture.manager.cache;
+
+import cn.hutool.core.util.StrUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-18 09:30
+ * @description : 缓存命名空间版本管理
+ * <p>
+ * 缓存 key 中带上命名空间的版本号，失效时只需对版本号 INCR，旧版本的 key 不再被读取，随过期时间自然淘汰，
+ * 不必用 KEYS 扫描整个键空间。版本号变化通过 Redis 发布订阅广播给所有节点，各节点更新本地版本号，
+ * 并清除两级缓存的本地部分中以该命名空间开头的 key。
+ * <p>
+ * 命名空间本身就是缓存 key 的前缀，如 lgpicture:listPictureVOByPage:all，失效父命名空间时其下所有 key 一并失效。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheNamespaceManager implements MessageListener {
+
+    private static final String VERSION_KEY_PREFIX = "lgpicture:cache:version:";
+
+    private static final String INVALIDATE_CHANNEL = "lgpicture:cache:invalidate";
+
+    private static final String MESSAGE_SEPARATOR = "@";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final TwoLevelCacheManager twoLevelCacheManager;
+
+    /**
+     * 本地版本号，短时间过期后重新读取 Redis，节点错过广播时也能很快追上
+     */
+    private final Cache<String, Long> versionCache = Caffeine.newBuilder()
+            .maximumSize(10_000L)
+            .expireAfterWrite(30L, TimeUnit.SECONDS)
+            .build();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 获取命名空间当前的版本号
+     *
+     * @param namespace 命名空间
+     * @return 版本号，从未失效过时为 0
+     */
+    public long getVersion(String namespace) {
+        return versionCache.get(namespace, key -> {
+            String version = stringRedisTemplate.opsForValue().get(VERSION_KEY_PREFIX + key);
+            return StrUtil.isBlank(version) ? 0L : Long.parseLong(version);
+        });
+    }
+
+    /**
+     * 失效命名空间：版本号加一并广播给所有节点
+     *
+     * @param namespaces 命名空间
+     */
+    public void invalidate(Collection<String> namespaces) {
+        for (String namespace : namespaces) {
+            Long version = stringRedisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + namespace);
+            if (version == null) {
+                continue;
+            }
+            applyVersion(namespace, version);
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, namespace + MESSAGE_SEPARATOR + version);
+        }
+    }
+
+    /**
+     * 接收其他节点（也包括本节点）的失效广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.lastIndexOf(MESSAGE_SEPARATOR);
+        if (index <= 0) {
+            return;
+        }
+        try {
+            applyVersion(body.substring(0, index), Long.parseLong(body.substring(index + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("无法解析缓存失效消息: {}", body);
+        }
+    }
+
+    /**
+     * 更新本地版本号（只前进不后退），并清除本地缓存中该命名空间下的 key
+     */
+    private void applyVersion(String namespace, long version) {
+        Long current = versionCache.asMap().merge(namespace, version, Math::max);
+        if (current != null && current == version) {
+            twoLevelCacheManager.invalidateLocal(namespace + ":");
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package org.leocoder.picture.manager.cache;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.domain.Favorite;
+import org.leocoder.picture.domain.Picture;
+import org.leocoder.picture.domain.vo.favorite.FavoritePictureVO;
+import org.leocoder.picture.mapper.FavoriteMapper;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.leocoder.picture.utils.JsonUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-25 09:30
+ * @description : 用户收藏时间线与图片卡片缓存
+ * <p>
+ * 每个用户一个有序集合（成员为图片 id，分数为收藏时间），收藏分页由一次脚本调用（ZCARD + ZREVRANGE）
+ * 加一次批量读取图片卡片（MGET）完成；图片卡片是收藏页需要的精简字段，标签在写入缓存时解析一次。
+ * <p>
+ * 时间线不存在时从 user_favorite 懒加载重建，并发一致性与 {@link org.leocoder.picture.manager.viewer.UserInteractionMembership}
+ * 相同：时间线不存在时收藏变化只写入脏标记，重建期间出现脏标记则放弃发布。图片编辑、删除时删除卡片缓存；
+ * 已删除的图片写入空卡片占位，读取时跳过并从时间线中移除。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FavoriteTimelineCache {
+
+    private static final String TIMELINE_KEY_PREFIX = "favorite:timeline:";
+
+    private static final String DIRTY_KEY_SUFFIX = ":dirty";
+
+    private static final String CARD_KEY_PREFIX = "favorite:card:";
+
+    /**
+     * 时间线中的占位成员（分数为 0，排在最后），保证没有收藏的用户也能以空时间线的形式缓存
+     */
+    private static final String PLACEHOLDER_MEMBER = "0";
+
+    /**
+     * 已删除图片的卡片占位值
+     */
+    private static final String MISSING_CARD = "";
+
+    private static final long TIMELINE_EXPIRE_SECONDS = TimeUnit.DAYS.toSeconds(3);
+
+    private static final long DIRTY_EXPIRE_SECONDS = 60;
+
+    private static final long CARD_EXPIRE_SECONDS = TimeUnit.MINUTES.toSeconds(30);
+
+    /**
+     * 卡片过期时间的随机偏移，避免同一批卡片同时过期
+     */
+    private static final long CARD_EXPIRE_JITTER_SECONDS = TimeUnit.MINUTES.toSeconds(10);
+
+    private static final long MISSING_CARD_EXPIRE_SECONDS = TimeUnit.MINUTES.toSeconds(5);
+
+    /**
+     * 读取一页时间线
+     * KEYS: 时间线
+     * ARGV: 起始下标、结束下标、过期秒数
+     * 返回：时间线未加载时为空列表，否则为 [收藏总数, 图片 id...]
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> PAGE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {} end\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[3])\n"
+                    + "local ids = redis.call('ZREVRANGE', KEYS[1], ARGV[1], ARGV[2])\n"
+                    + "table.insert(ids, 1, tostring(redis.call('ZCARD', KEYS[1]) - 1))\n"
+                    + "return ids",
+            List.class);
+
+    /**
+     * 收藏 / 取消收藏：时间线未加载时只写入脏标记
+     * KEYS: 时间线、脏标记
+     * ARGV: 图片 id、1 收藏 / 0 取消、收藏时间、过期秒数、脏标记过期秒数
+     */
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then\n"
+                    + "  redis.call('SET', KEYS[2], '1', 'EX', ARGV[5])\n"
+                    + "  return 0\n"
+                    + "end\n"
+                    + "if ARGV[2] == '1' then redis.call('ZADD', KEYS[1], ARGV[3], ARGV[1])\n"
+                    + "else redis.call('ZREM', KEYS[1], ARGV[1]) end\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[4])\n"
+                    + "return 1",
+            Long.class);
+
+    /**
+     * 发布重建好的时间线：重建期间出现脏标记或时间线已被其他线程重建时丢弃本次结果
+     * KEYS: 时间线、重建中的临时时间线、脏标记
+     * ARGV: 过期秒数
+     */
+    private static final RedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[3]) == 1 or redis.call('EXISTS', KEYS[1]) == 1 then\n"
+                    + "  redis.call('DEL', KEYS[2])\n"
+                    + "  return 0\n"
+                    + "end\n"
+                    + "redis.call('RENAME', KEYS[2], KEYS[1])\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1])\n"
+                    + "return 1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final FavoriteMapper favoriteMapper;
+
+    private final PictureMapper pictureMapper;
+
+    /**
+     * 获取一页收藏（按收藏时间倒序），Redis 异常由调用方降级
+     *
+     * @param userId   用户 id
+     * @param pageNum  页码（从 1 开始）
+     * @param pageSize 每页数量
+     * @return 当前页的图片 id 与收藏总数
+     */
+    public TimelinePage getPage(long userId, long pageNum, long pageSize) {
+        long start = Math.max(pageNum - 1, 0) * pageSize;
+        long stop = start + pageSize - 1;
+        String timelineKey = getTimelineKey(userId);
+        List<?> result = stringRedisTemplate.execute(PAGE_SCRIPT, Collections.singletonList(timelineKey),
+                String.valueOf(start), String.valueOf(stop), String.valueOf(TIMELINE_EXPIRE_SECONDS));
+        if (CollUtil.isEmpty(result)) {
+            // 时间线未加载，重建后直接用重建结果分页
+            List<Long> pictureIds = rebuild(userId);
+            List<Long> pageIds = start >= pictureIds.size() ? Collections.emptyList()
+                    : pictureIds.subList((int) start, (int) Math.min(stop + 1, pictureIds.size()));
+            return new TimelinePage(pictureIds.size(), pageIds);
+        }
+        List<Long> pageIds = new ArrayList<>(result.size() - 1);
+        for (Object value : result.subList(1, result.size())) {
+            if (!PLACEHOLDER_MEMBER.equals(value.toString())) {
+                pageIds.add(Long.valueOf(value.toString()));
+            }
+        }
+        return new TimelinePage(Long.parseLong(result.get(0).toString()), pageIds);
+    }
+
+    /**
+     * 批量获取图片卡片：一次 MGET，未命中的图片一次查询数据库后回填；已删除的图片会从该用户的时间线中移除
+     *
+     * @param userId     用户 id
+     * @param pictureIds 图片 id（按展示顺序）
+     * @return 图片卡片（按输入顺序，跳过已删除的图片）
+     */
+    public List<FavoritePictureVO> getCards(long userId, List<Long> pictureIds) {
+        if (CollUtil.isEmpty(pictureIds)) {
+            return new ArrayList<>();
+        }
+        List<String> keys = pictureIds.stream().map(FavoriteTimelineCache::getCardKey).collect(Collectors.toList());
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        Map<Long, String> cardJsonById = new HashMap<>();
+        List<Long> missIds = new ArrayList<>();
+        for (int i = 0; i < pictureIds.size(); i++) {
+            String value = values == null ? null : values.get(i);
+            if (value == null) {
+                missIds.add(pictureIds.get(i));
+            } else {
+                cardJsonById.put(pictureIds.get(i), value);
+            }
+        }
+        if (!missIds.isEmpty()) {
+            cardJsonById.putAll(loadCards(missIds));
+        }
+
+        List<FavoritePictureVO> cards = new ArrayList<>(pictureIds.size());
+        List<String> missingMembers = new ArrayList<>();
+        for (Long pictureId : pictureIds) {
+            String json = cardJsonById.get(pictureId);
+            if (StrUtil.isEmpty(json)) {
+                missingMembers.add(String.valueOf(pictureId));
+                continue;
+            }
+            FavoritePictureVO card = JSONUtil.toBean(json, FavoritePictureVO.class);
+            card.setIsFavorited(1);
+            cards.add(card);
+        }
+        if (!missingMembers.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(getTimelineKey(userId), missingMembers.toArray());
+        }
+        return cards;
+    }
+
+    /**
+     * 收藏 / 取消收藏后更新时间线
+     *
+     * @param userId    用户 id
+     * @param pictureId 图片 id
+     * @param favorite  true 收藏，false 取消收藏
+     */
+    public void update(long userId, long pictureId, boolean favorite) {
+        try {
+            stringRedisTemplate.execute(UPDATE_SCRIPT, Arrays.asList(getTimelineKey(userId), getDirtyKey(userId)),
+                    String.valueOf(pictureId), favorite ? "1" : "0", String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(TIMELINE_EXPIRE_SECONDS), String.valueOf(DIRTY_EXPIRE_SECONDS));
+        } catch (DataAccessException e) {
+            // 时间线可能与数据库不一致，删除后下次访问重建
+            log.warn("更新收藏时间线失败, userId = {}, pictureId = {}", userId, pictureId, e);
+            try {
+                stringRedisTemplate.delete(getTimelineKey(userId));
+            } catch (DataAccessException ignored) {
+                // Redis 不可用时时间线也无法被读取
+            }
+        }
+    }
+
+    /**
+     * 图片编辑、删除后删除卡片缓存
+     *
+     * @param pictureIds 图片 id
+     */
+    public void evictCards(Collection<Long> pictureIds) {
+        if (CollUtil.isEmpty(pictureIds)) {
+            return;
+        }
+        try {
+            stringRedisTemplate.delete(pictureIds.stream().map(FavoriteTimelineCache::getCardKey)
+                    .collect(Collectors.toList()));
+        } catch (DataAccessException e) {
+            log.warn("删除收藏卡片缓存失败, pictureIds = {}", pictureIds, e);
+        }
+    }
+
+    /**
+     * 把图片转换为收藏卡片
+     *
+     * @param picture 图片（需包含 id、url、name、introduction、tags、category）
+     * @return 收藏卡片
+     */
+    public static FavoritePictureVO toCard(Picture picture) {
+        FavoritePictureVO card = new FavoritePictureVO();
+        card.setPictureId(picture.getId());
+        card.setUrl(picture.getUrl());
+        card.setName(picture.getName());
+        card.setIntroduction(picture.getIntroduction());
+        card.setTags(StrUtil.isEmpty(picture.getTags()) ? new ArrayList<>() : JsonUtils.parseTags(picture.getTags()));
+        card.setCategory(picture.getCategory());
+        return card;
+    }
+
+    /**
+     * 从数据库加载卡片并回填缓存，不存在的图片写入空卡片占位
+     */
+    private Map<Long, String> loadCards(List<Long> pictureIds) {
+        Map<Long, String> cardJsonById = new HashMap<>();
+        pictureMapper.selectList(Wrappers.lambdaQuery(Picture.class)
+                        .select(Picture::getId, Picture::getUrl, Picture::getName, Picture::getIntroduction,
+                                Picture::getTags, Picture::getCategory)
+                        .in(Picture::getId, pictureIds))
+                .forEach(picture -> cardJsonById.put(picture.getId(), JSONUtil.toJsonStr(toCard(picture))));
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (Long pictureId : pictureIds) {
+                String json = cardJsonById.get(pictureId);
+                if (json == null) {
+                    stringConnection.setEx(getCardKey(pictureId), MISSING_CARD_EXPIRE_SECONDS, MISSING_CARD);
+                } else {
+                    long expireSeconds = CARD_EXPIRE_SECONDS
+                            + ThreadLocalRandom.current().nextLong(CARD_EXPIRE_JITTER_SECONDS);
+                    stringConnection.setEx(getCardKey(pictureId), expireSeconds, json);
+                }
+            }
+            return null;
+        });
+        return cardJsonById;
+    }
+
+    /**
+     * 从数据库重建时间线：先清除脏标记，写入临时时间线后由脚本原子地发布
+     *
+     * @return 按收藏时间倒序的图片 id
+     */
+    private List<Long> rebuild(long userId) {
+        String timelineKey = getTimelineKey(userId);
+        String dirtyKey = getDirtyKey(userId);
+        stringRedisTemplate.delete(dirtyKey);
+        List<Favorite> favorites = favoriteMapper.selectList(Wrappers.lambdaQuery(Favorite.class)
+                .select(Favorite::getPictureId, Favorite::getCreateTime)
+                .eq(Favorite::getUserId, userId)
+                .eq(Favorite::getIsFavorited, 1));
+        Map<Long, Long> scores = new HashMap<>(favorites.size());
+        for (Favorite favorite : favorites) {
+            // 分数必须大于占位成员的 0
+            long score = favorite.getCreateTime() == null ? 1
+                    : Math.max(favorite.getCreateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), 1);
+            scores.put(favorite.getPictureId(), score);
+        }
+
+        String buildingKey = timelineKey + ":building:" + IdUtil.fastSimpleUUID();
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(scores.entrySet());
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.zAdd(buildingKey, 0, PLACEHOLDER_MEMBER);
+            for (Map.Entry<Long, Long> entry : entries) {
+                stringConnection.zAdd(buildingKey, entry.getValue(), String.valueOf(entry.getKey()));
+            }
+            // 重建失败时临时时间线自动过期
+            stringConnection.expire(buildingKey, DIRTY_EXPIRE_SECONDS);
+            return null;
+        });
+        stringRedisTemplate.execute(PUBLISH_SCRIPT, Arrays.asList(timelineKey, buildingKey, dirtyKey),
+                String.valueOf(TIMELINE_EXPIRE_SECONDS));
+
+        entries.sort(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+        return entries.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+
+    private static String getTimelineKey(long userId) {
+        return TIMELINE_KEY_PREFIX + userId;
+    }
+
+    private static String getDirtyKey(long userId) {
+        return getTimelineKey(userId) + DIRTY_KEY_SUFFIX;
+    }
+
+    private static String getCardKey(long pictureId) {
+        return CARD_KEY_PREFIX + pictureId;
+    }
+
+    /**
+     * 一页时间线
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class TimelinePage {
+
+        /**
+         * 收藏总数
+         */
+        private final long total;
+
+        /**
+         * 当前页的图片 id
+         */
+        private final List<Long> pictureIds;
+    }
+}
@@ -0,0 +1,164 @@
+package org.leocoder.picture.manager.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.domain.User;
+import org.leocoder.picture.domain.vo.cache.CacheStatsVO;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-20 14:00
+ * @description : 登录用户缓存，避免每次获取登录用户都查询数据库
+ * <p>
+ * 两层：同一个请求内多次获取（拦截器、控制器、服务）直接复用请求属性中的用户；跨请求使用短时间过期的本地缓存。
+ * 用户信息修改、删除时显式失效，并通过 Redis 发布订阅通知其他节点。返回的用户对象在多个请求间共享，不要修改。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginUserCache implements MessageListener {
+
+    /**
+     * 请求属性名
+     */
+    private static final String REQUEST_ATTRIBUTE = LoginUserCache.class.getName() + ".user";
+
+    private static final String INVALIDATE_CHANNEL = "lgpicture:cache:login_user:invalidate";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final Cache<Long, User> userCache = Caffeine.newBuilder()
+            .maximumSize(10_000L)
+            .expireAfterWrite(30L, TimeUnit.SECONDS)
+            .build();
+
+    /**
+     * 请求内复用次数
+     */
+    private final LongAdder requestHitCount = new LongAdder();
+
+    /**
+     * 本地缓存命中次数
+     */
+    private final LongAdder localHitCount = new LongAdder();
+
+    /**
+     * 查询数据库次数
+     */
+    private final LongAdder loadCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 获取登录用户
+     *
+     * @param request 请求对象
+     * @param userId  会话中的用户 id
+     * @param loader  从数据库加载用户
+     * @return 用户，不存在时为 null
+     */
+    public User get(HttpServletRequest request, Long userId, Function<Long, User> loader) {
+        Object memo = request.getAttribute(REQUEST_ATTRIBUTE);
+        if (memo instanceof User && userId.equals(((User) memo).getId())) {
+            requestHitCount.increment();
+            return (User) memo;
+        }
+        User user = userCache.getIfPresent(userId);
+        if (user != null) {
+            localHitCount.increment();
+        } else {
+            loadCount.increment();
+            user = loader.apply(userId);
+            if (user != null) {
+                userCache.put(userId, user);
+            }
+        }
+        if (user != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, user);
+        }
+        return user;
+    }
+
+    /**
+     * 失效用户缓存并通知其他节点
+     *
+     * @param userId 用户 id
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        userCache.invalidate(userId);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("广播登录用户缓存失效失败, userId = {}", userId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            userCache.invalidate(Long.parseLong(body));
+        } catch (NumberFormatException e) {
+            log.warn("无法解析登录用户缓存失效消息: {}", body);
+        }
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public CacheStatsVO getStats() {
+        long requestHits = requestHitCount.sum();
+        long localHits = localHitCount.sum();
+        long loads = loadCount.sum();
+        long lookups = requestHits + localHits + loads;
+        CacheStatsVO stats = new CacheStatsVO();
+        stats.setName("loginUser");
+        stats.setLocalSize(userCache.estimatedSize());
+        stats.setRequestHitCount(requestHits);
+        stats.setLocalHitCount(localHits);
+        stats.setLocalMissCount(loads);
+        stats.setLoadCount(loads);
+        stats.setHitRate(lookups == 0 ? 0D : (lookups - loads) * 1.0 / lookups);
+        return stats;
+    }
+
+    /**
+     * 定时输出统计信息：原先每次获取登录用户都查询一次数据库，节省的查询数即复用与命中的次数
+     */
+    @Scheduled(initialDelay = 5 * 60 * 1000, fixedDelay = 5 * 60 * 1000)
+    public void logStats() {
+        long requestHits = requestHitCount.sum();
+        long localHits = localHitCount.sum();
+        long loads = loadCount.sum();
+        // 每个请求第一次获取时不会命中请求内复用
+        long requests = localHits + loads;
+        log.info("登录用户缓存统计: 请求数 = {}, 获取次数 = {}, 查询数据库 = {}, 节省查询 = {}, 平均每个请求节省 {} 次",
+                requests, requestHits + requests, loads, requestHits + localHits,
+                requests == 0 ? "0" : String.format("%.2f", (requestHits + localHits) * 1.0 / requests));
+    }
+}
@@ -0,0 +1,551 @@
+package org.leocoder.picture.manager.cache;
+
+import cn.hutool.core.util.IdUtil;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.config.TwoLevelCacheConfig;
+import org.leocoder.picture.domain.vo.cache.CacheStatsVO;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-19 10:00
+ * @description : 两级缓存：本地 Caffeine 保存反序列化后的对象，Redis 保存编码后的字节
+ * <p>
+ * 防击穿：本地缓存的值是 CompletableFuture，同一个 key 同时未命中时本节点只有第一个线程查询 Redis 与回源，
+ * 其余线程等待结果；Redis 也未命中时先抢分布式锁，抢到的节点回源，其余节点短暂轮询 Redis 等待结果，超时后再自行回源。
+ * <p>
+ * 过期后继续提供旧值（stale-while-revalidate）：Redis 中的值带有逻辑过期时间，实际过期时间再延后 staleSeconds，
+ * 逻辑过期后读到的旧值直接返回，同时由后台线程抢锁刷新，请求不必等待回源。
+ * <p>
+ * Redis 中的值为 1 字节格式头 + 8 字节逻辑过期时间 + JSON，JSON 超过阈值时用 Deflate 压缩；Redis 不可用时按未命中处理，直接回源。
+ *
+ * @param <V> 缓存值类型
+ */
+@Slf4j
+public class TwoLevelCache<V> {
+
+    /**
+     * 编码头：未压缩的 JSON
+     */
+    private static final byte FORMAT_PLAIN = 0;
+
+    /**
+     * 编码头：Deflate 压缩的 JSON
+     */
+    private static final byte FORMAT_DEFLATE = 1;
+
+    /**
+     * 格式头与逻辑过期时间的长度
+     */
+    private static final int HEADER_LENGTH = 1 + Long.BYTES;
+
+    private static final String LOCK_KEY_PREFIX = "lock:";
+
+    /**
+     * 等待其他节点回源时轮询 Redis 的间隔
+     */
+    private static final long LOCK_POLL_MILLIS = 50;
+
+    /**
+     * 已过期的旧值在本地缓存中保留的时间，期间由后台刷新
+     */
+    private static final long STALE_LOCAL_MILLIS = 1000;
+
+    @Getter
+    private final String name;
+
+    private final TwoLevelCacheConfig.Spec spec;
+
+    private final JavaType valueType;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 为空时只使用本地缓存
+     */
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 后台刷新线程池，为空时不在后台刷新（旧值过期后同步回源）
+     */
+    private final Executor refreshExecutor;
+
+    private final AsyncCache<String, Entry<V>> localCache;
+
+    /**
+     * 本节点正在后台刷新的 key
+     */
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder localHitCount = new LongAdder();
+
+    private final LongAdder localMissCount = new LongAdder();
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    private final LongAdder remoteHitCount = new LongAdder();
+
+    private final LongAdder remoteMissCount = new LongAdder();
+
+    private final LongAdder staleServedCount = new LongAdder();
+
+    private final LongAdder refreshCount = new LongAdder();
+
+    private final LongAdder loadCount = new LongAdder();
+
+    private final LongAdder loadFailureCount = new LongAdder();
+
+    private final LongAdder loadNanos = new LongAdder();
+
+    public TwoLevelCache(String name, TwoLevelCacheConfig.Spec spec, JavaType valueType, ObjectMapper objectMapper,
+                         StringRedisTemplate stringRedisTemplate, Executor refreshExecutor) {
+        this.name = name;
+        this.spec = spec;
+        this.valueType = valueType;
+        this.objectMapper = objectMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.refreshExecutor = refreshExecutor;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaximumSize())
+                .expireAfter(new LocalExpiry<V>(TimeUnit.SECONDS.toMillis(spec.getLocalExpireSeconds())))
+                .buildAsync();
+    }
+
+    /**
+     * 依次查询本地缓存、Redis，都未命中时调用 loader 加载并写入两级缓存
+     *
+     * @param key    缓存 key（同时作为 Redis key）
+     * @param loader 回源加载，返回 null 时不缓存；可能在后台线程调用，不应依赖请求上下文
+     * @return 缓存值
+     */
+    public V get(String key, Supplier<V> loader) {
+        CompletableFuture<Entry<V>> future = localCache.getIfPresent(key);
+        if (future != null) {
+            if (!future.isDone()) {
+                coalescedCount.increment();
+                return valueOf(join(future));
+            }
+            Entry<V> entry = join(future);
+            if (entry != null && entry.isStale()) {
+                staleServedCount.increment();
+                refreshAsync(key, loader);
+            } else {
+                localHitCount.increment();
+            }
+            return valueOf(entry);
+        }
+        CompletableFuture<Entry<V>> created = new CompletableFuture<>();
+        future = localCache.asMap().putIfAbsent(key, created);
+        if (future != null) {
+            coalescedCount.increment();
+            return valueOf(join(future));
+        }
+        localMissCount.increment();
+        try {
+            Entry<V> entry = loadThrough(key, loader);
+            // 值为 null 时 Caffeine 会自动移除该 key
+            created.complete(entry);
+            return valueOf(entry);
+        } catch (RuntimeException | Error e) {
+            localCache.asMap().remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 删除两级缓存中的 key（只删除本节点的本地缓存）
+     *
+     * @param key 缓存 key
+     */
+    public void invalidate(String key) {
+        localCache.synchronous().invalidate(key);
+        if (stringRedisTemplate != null) {
+            try {
+                stringRedisTemplate.delete(key);
+            } catch (Exception e) {
+                log.warn("删除 Redis 缓存失败, cache = {}, key = {}", name, key, e);
+            }
+        }
+    }
+
+    /**
+     * 清除本地缓存中以指定前缀开头的 key
+     *
+     * @param prefix key 前缀
+     */
+    public void invalidateLocalByPrefix(String prefix) {
+        localCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public CacheStatsVO getStats() {
+        CacheStatsVO stats = new CacheStatsVO();
+        stats.setName(name);
+        stats.setLocalSize(localCache.synchronous().estimatedSize());
+        long localHits = localHitCount.sum();
+        long localMisses = localMissCount.sum();
+        long coalesced = coalescedCount.sum();
+        long staleServed = staleServedCount.sum();
+        long loads = loadCount.sum();
+        long refreshes = refreshCount.sum();
+        stats.setLocalHitCount(localHits);
+        stats.setLocalMissCount(localMisses);
+        stats.setCoalescedCount(coalesced);
+        stats.setRemoteHitCount(remoteHitCount.sum());
+        stats.setRemoteMissCount(remoteMissCount.sum());
+        stats.setStaleServedCount(staleServed);
+        stats.setRefreshCount(refreshes);
+        stats.setLoadCount(loads);
+        stats.setLoadFailureCount(loadFailureCount.sum());
+        stats.setAverageLoadMillis(loads == 0 ? 0D : loadNanos.sum() / 1e6 / loads);
+        // 请求中需要同步回源的比例之外都算命中（后台刷新不占用请求）
+        long requests = localHits + localMisses + coalesced;
+        stats.setHitRate(requests == 0 ? 0D : Math.max(0, requests - (loads - refreshes)) * 1.0 / requests);
+        return stats;
+    }
+
+    /**
+     * 查询 Redis，逻辑过期的旧值直接返回并在后台刷新，未命中时回源
+     */
+    private Entry<V> loadThrough(String key, Supplier<V> loader) {
+        Entry<V> entry = readRemote(key);
+        if (entry == null) {
+            remoteMissCount.increment();
+            return loadWithLock(key, loader);
+        }
+        if (entry.isStale()) {
+            staleServedCount.increment();
+            refreshAsync(key, loader);
+        } else {
+            remoteHitCount.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * 抢到分布式锁的节点回源，其余节点等待其写入 Redis，等待超时后自行回源
+     */
+    private Entry<V> loadWithLock(String key, Supplier<V> loader) {
+        String lockValue = tryLock(key);
+        if (lockValue != null) {
+            try {
+                // 抢锁前其他节点可能刚刚写入
+                Entry<V> entry = readRemote(key);
+                return entry != null && !entry.isStale() ? entry : load(key, loader);
+            } finally {
+                unlock(key, lockValue);
+            }
+        }
+        long deadline = System.currentTimeMillis() + spec.getLockWaitMillis();
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(LOCK_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            Entry<V> entry = readRemote(key);
+            if (entry != null) {
+                coalescedCount.increment();
+                return entry;
+            }
+        }
+        return load(key, loader);
+    }
+
+    /**
+     * 后台刷新，同一个 key 本节点同时只有一个刷新任务，其他节点正在刷新时跳过
+     */
+    private void refreshAsync(String key, Supplier<V> loader) {
+        if (refreshExecutor == null || !refreshingKeys.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh(key, loader);
+                } finally {
+                    refreshingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(key);
+        }
+    }
+
+    private void refresh(String key, Supplier<V> loader) {
+        String lockValue = tryLock(key);
+        if (lockValue == null) {
+            return;
+        }
+        try {
+            Entry<V> entry = readRemote(key);
+            if (entry == null || entry.isStale()) {
+                refreshCount.increment();
+                entry = load(key, loader);
+            }
+            if (entry != null) {
+                localCache.put(key, CompletableFuture.completedFuture(entry));
+            }
+        } catch (Exception e) {
+            log.warn("后台刷新缓存失败, cache = {}, key = {}", name, key, e);
+        } finally {
+            unlock(key, lockValue);
+        }
+    }
+
+    /**
+     * 回源并写入 Redis
+     */
+    private Entry<V> load(String key, Supplier<V> loader) {
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            loadFailureCount.increment();
+            throw e;
+        } finally {
+            loadCount.increment();
+            loadNanos.add(System.nanoTime() - start);
+        }
+        if (value == null) {
+            return null;
+        }
+        // 过期时间增加随机值，防止同一批 key 同时过期
+        long freshSeconds = spec.getRemoteExpireSeconds()
+                + ThreadLocalRandom.current().nextLong(spec.getRemoteExpireJitterSeconds() + 1);
+        Entry<V> entry = new Entry<>(value, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(freshSeconds));
+        writeRemote(key, entry, freshSeconds + spec.getStaleSeconds());
+        return entry;
+    }
+
+    /**
+     * 抢分布式锁
+     *
+     * @return 锁的值，未抢到时为 null；Redis 不可用时视为抢到
+     */
+    private String tryLock(String key) {
+        String lockValue = IdUtil.fastSimpleUUID();
+        if (stringRedisTemplate == null) {
+            return lockValue;
+        }
+        try {
+            Boolean locked = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(LOCK_KEY_PREFIX + key, lockValue, spec.getLockSeconds(), TimeUnit.SECONDS);
+            return Boolean.TRUE.equals(locked) ? lockValue : null;
+        } catch (Exception e) {
+            log.warn("获取缓存回源锁失败, cache = {}, key = {}", name, key, e);
+            return lockValue;
+        }
+    }
+
+    private void unlock(String key, String lockValue) {
+        if (stringRedisTemplate == null) {
+            return;
+        }
+        try {
+            String lockKey = LOCK_KEY_PREFIX + key;
+            if (Objects.equals(lockValue, stringRedisTemplate.opsForValue().get(lockKey))) {
+                stringRedisTemplate.delete(lockKey);
+            }
+        } catch (Exception e) {
+            log.warn("释放缓存回源锁失败, cache = {}, key = {}", name, key, e);
+        }
+    }
+
+    private Entry<V> readRemote(String key) {
+        if (stringRedisTemplate == null) {
+            return null;
+        }
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        try {
+            byte[] bytes = stringRedisTemplate.execute(
+                    (RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey));
+            return bytes == null ? null : decode(bytes);
+        } catch (Exception e) {
+            log.warn("读取 Redis 缓存失败, cache = {}, key = {}", name, key, e);
+            return null;
+        }
+    }
+
+    private void writeRemote(String key, Entry<V> entry, long expireSeconds) {
+        if (stringRedisTemplate == null) {
+            return;
+        }
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        try {
+            byte[] bytes = encode(entry);
+            stringRedisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.stringCommands().setEx(rawKey, expireSeconds, bytes));
+        } catch (Exception e) {
+            log.warn("写入 Redis 缓存失败, cache = {}, key = {}", name, key, e);
+        }
+    }
+
+    /**
+     * 编码：1 字节格式头 + 8 字节逻辑过期时间 + JSON，JSON 超过阈值时压缩
+     */
+    byte[] encode(Entry<V> entry) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(entry.getValue());
+        boolean compress = json.length >= spec.getCompressThreshold();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_LENGTH + (compress ? json.length / 4 : json.length));
+        out.write(compress ? FORMAT_DEFLATE : FORMAT_PLAIN);
+        out.write(ByteBuffer.allocate(Long.BYTES).putLong(entry.getFreshUntil()).array());
+        if (!compress) {
+            out.write(json);
+            return out.toByteArray();
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(json);
+            deflater.finish();
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 解码，无法识别的格式（如旧版本写入的值）抛出异常，由调用方按未命中处理
+     */
+    Entry<V> decode(byte[] bytes) throws IOException {
+        if (bytes.length < HEADER_LENGTH) {
+            throw new IOException("truncated cache value");
+        }
+        byte format = bytes[0];
+        long freshUntil = ByteBuffer.wrap(bytes, 1, Long.BYTES).getLong();
+        if (format == FORMAT_PLAIN) {
+            return new Entry<>(objectMapper.readValue(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, valueType),
+                    freshUntil);
+        }
+        if (format != FORMAT_DEFLATE) {
+            throw new IOException("unknown cache value format: " + format);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("truncated cache value");
+                }
+                out.write(buffer, 0, count);
+            }
+            return new Entry<>(objectMapper.readValue(out.toByteArray(), valueType), freshUntil);
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static <V> V valueOf(Entry<V> entry) {
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * 等待其他线程的加载结果，加载失败时抛出原始异常
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 缓存值与逻辑过期时间
+     */
+    @Getter
+    static class Entry<V> {
+
+        private final V value;
+
+        /**
+         * 逻辑过期时间（毫秒时间戳），之后的读取返回旧值并触发后台刷新
+         */
+        private final long freshUntil;
+
+        Entry(V value, long freshUntil) {
+            this.value = value;
+            this.freshUntil = freshUntil;
+        }
+
+        boolean isStale() {
+            return System.currentTimeMillis() >= freshUntil;
+        }
+    }
+
+    /**
+     * 本地缓存过期时间：不超过配置值与值的剩余新鲜时间，已过期的旧值只保留很短时间
+     */
+    private static class LocalExpiry<V> implements Expiry<String, Entry<V>> {
+
+        private final long localExpireMillis;
+
+        private LocalExpiry(long localExpireMillis) {
+            this.localExpireMillis = localExpireMillis;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Entry<V> entry, long currentTime) {
+            long remainingMillis = Math.max(entry.getFreshUntil() - System.currentTimeMillis(), STALE_LOCAL_MILLIS);
+            return TimeUnit.MILLISECONDS.toNanos(Math.min(localExpireMillis, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry<V> entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry<V> entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
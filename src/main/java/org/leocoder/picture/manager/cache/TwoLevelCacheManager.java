@@ -0,0 +1,110 @@
+package org.leocoder.picture.manager.cache;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.config.TwoLevelCacheConfig;
+import org.leocoder.picture.domain.vo.cache.CacheStatsVO;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-19 10:30
+ * @description : 两级缓存管理，按名称创建并持有缓存实例，统一清除本地缓存与导出统计信息
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TwoLevelCacheManager {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final TwoLevelCacheConfig twoLevelCacheConfig;
+
+    /**
+     * 缓存专用的序列化配置，与接口返回的 JSON 格式（如 Long 转字符串）无关
+     */
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final ConcurrentMap<String, TwoLevelCache<?>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 后台刷新旧值的线程池，队列满时放弃刷新，之后的读取会再次触发
+     */
+    private final ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(256), new NamedThreadFactory("two-level-cache-refresh-", true),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 获取缓存，不存在时按配置创建
+     *
+     * @param name      缓存名称，对应配置 picture.cache.specs.<name>
+     * @param valueType 缓存值类型
+     * @return 缓存
+     */
+    @SuppressWarnings("unchecked")
+    public <V> TwoLevelCache<V> getCache(String name, TypeReference<V> valueType) {
+        return (TwoLevelCache<V>) caches.computeIfAbsent(name, key -> new TwoLevelCache<>(key,
+                twoLevelCacheConfig.getSpec(key), objectMapper.getTypeFactory().constructType(valueType),
+                objectMapper, stringRedisTemplate, refreshExecutor));
+    }
+
+    /**
+     * 清除所有缓存中以指定前缀开头的本地 key
+     *
+     * @param prefix key 前缀
+     */
+    public void invalidateLocal(String prefix) {
+        caches.values().forEach(cache -> cache.invalidateLocalByPrefix(prefix));
+    }
+
+    /**
+     * 获取所有缓存的统计信息
+     */
+    public List<CacheStatsVO> getStats() {
+        List<CacheStatsVO> statsList = new ArrayList<>(caches.size());
+        caches.values().forEach(cache -> statsList.add(cache.getStats()));
+        return statsList;
+    }
+
+    /**
+     * 定时输出统计信息
+     */
+    @Scheduled(initialDelay = 5 * 60 * 1000, fixedDelay = 5 * 60 * 1000)
+    public void logStats() {
+        for (CacheStatsVO stats : getStats()) {
+            log.info("两级缓存统计: name = {}, localSize = {}, hitRate = {}, localHit = {}, localMiss = {}, "
+                            + "coalesced = {}, remoteHit = {}, remoteMiss = {}, staleServed = {}, refresh = {}, "
+                            + "load = {}, loadFailure = {}, avgLoad = {} ms", stats.getName(), stats.getLocalSize(),
+                    String.format("%.4f", stats.getHitRate()), stats.getLocalHitCount(), stats.getLocalMissCount(),
+                    stats.getCoalescedCount(), stats.getRemoteHitCount(), stats.getRemoteMissCount(),
+                    stats.getStaleServedCount(), stats.getRefreshCount(), stats.getLoadCount(),
+                    stats.getLoadFailureCount(),
+                    String.format("%.2f", stats.getAverageLoadMillis()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,273 @@
+package org.leocoder.picture.manager.counter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.domain.vo.cache.CounterStatsVO;
+import org.leocoder.picture.enums.InteractionCounterEnum;
+import org.leocoder.picture.mapper.CommentMapper;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-22 10:00
+ * @description : 互动计数（点赞数、收藏数）进程内聚合器
+ * <p>
+ * 每个计数类型、每个目标 id 一个 LongAdder，点赞 / 收藏时只在内存中累加增量，热门图片的并发写入分散到多个 cell，
+ * 不再每次都 UPDATE 同一行。定时任务取走增量（sumThenReset），每张表用一条 UPDATE ... CASE 语句批量累加，
+ * 写入失败时把增量加回；应用关闭时刷写剩余增量。
+ * <p>
+ * 刷写时移除没有增量的计数器；写入方累加后发现计数器已被移除，会取回增量写入新的计数器，增量不会丢失。
+ * 进程异常退出时未刷写的增量会丢失，点赞状态以 Redis 与 user_like 为准。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InteractionCounterAggregator {
+
+    /**
+     * 每条 UPDATE 语句包含的目标数
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final PictureMapper pictureMapper;
+
+    private final CommentMapper commentMapper;
+
+    private final Map<InteractionCounterEnum, ConcurrentMap<Long, LongAdder>> countersByType = createCounters();
+
+    private final Map<InteractionCounterEnum, Stats> statsByType = createStats();
+
+    /**
+     * 累加增量
+     *
+     * @param counter  计数类型
+     * @param targetId 目标 id（图片或评论）
+     * @param delta    增量
+     */
+    public void add(InteractionCounterEnum counter, long targetId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        ConcurrentMap<Long, LongAdder> counters = countersByType.get(counter);
+        while (true) {
+            LongAdder adder = counters.get(targetId);
+            if (adder == null) {
+                adder = counters.computeIfAbsent(targetId, key -> new LongAdder());
+            }
+            adder.add(delta);
+            if (counters.get(targetId) == adder) {
+                return;
+            }
+            // 计数器已被刷写线程移除，取回增量（可能已被刷写线程取走）写入新的计数器
+            delta = adder.sumThenReset();
+            if (delta == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 尚未刷写到数据库的增量
+     *
+     * @param counter  计数类型
+     * @param targetId 目标 id
+     * @return 增量
+     */
+    public long getPending(InteractionCounterEnum counter, long targetId) {
+        LongAdder adder = countersByType.get(counter).get(targetId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * 把累计的增量刷写到数据库：图片表一条语句同时更新点赞数与收藏数，评论表一条语句更新点赞数
+     */
+    public synchronized void flush() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> pictureLikeDeltas = drain(InteractionCounterEnum.PICTURE_LIKE);
+        Map<Long, Long> pictureFavoriteDeltas = drain(InteractionCounterEnum.PICTURE_FAVORITE);
+        Map<Long, Long> commentLikeDeltas = drain(InteractionCounterEnum.COMMENT_LIKE);
+
+        Set<Long> pictureIds = new LinkedHashSet<>(pictureLikeDeltas.keySet());
+        pictureIds.addAll(pictureFavoriteDeltas.keySet());
+        for (List<Long> batch : split(pictureIds)) {
+            Map<Long, Long> likeDeltas = subMap(pictureLikeDeltas, batch);
+            Map<Long, Long> favoriteDeltas = subMap(pictureFavoriteDeltas, batch);
+            try {
+                pictureMapper.incrementInteractionCountBatch(batch, likeDeltas, favoriteDeltas);
+                recordFlushed(InteractionCounterEnum.PICTURE_LIKE, likeDeltas);
+                recordFlushed(InteractionCounterEnum.PICTURE_FAVORITE, favoriteDeltas);
+            } catch (Exception e) {
+                log.error("刷写图片点赞数、收藏数失败，增量将在下次重试, count = {}", batch.size(), e);
+                restore(InteractionCounterEnum.PICTURE_LIKE, likeDeltas);
+                restore(InteractionCounterEnum.PICTURE_FAVORITE, favoriteDeltas);
+            }
+        }
+        for (List<Long> batch : split(commentLikeDeltas.keySet())) {
+            Map<Long, Long> likeDeltas = subMap(commentLikeDeltas, batch);
+            try {
+                commentMapper.incrementLikeCountBatch(likeDeltas);
+                recordFlushed(InteractionCounterEnum.COMMENT_LIKE, likeDeltas);
+            } catch (Exception e) {
+                log.error("刷写评论点赞数失败，增量将在下次重试, count = {}", batch.size(), e);
+                restore(InteractionCounterEnum.COMMENT_LIKE, likeDeltas);
+            }
+        }
+        long cost = System.currentTimeMillis() - start;
+        statsByType.values().forEach(stats -> {
+            stats.flushCount.increment();
+            stats.lastFlushMillis.set(cost);
+        });
+        if (!pictureIds.isEmpty() || !commentLikeDeltas.isEmpty()) {
+            log.debug("互动计数刷写完成, pictures = {}, comments = {}, cost = {} ms", pictureIds.size(),
+                    commentLikeDeltas.size(), cost);
+        }
+    }
+
+    /**
+     * 应用关闭时刷写剩余增量
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        long pending = getStats().stream().mapToLong(CounterStatsVO::getPendingDelta).sum();
+        if (pending > 0) {
+            log.warn("应用关闭时仍有未刷写的互动计数, pendingDelta = {}", pending);
+        }
+    }
+
+    /**
+     * 获取各计数类型的积压与刷写统计
+     */
+    public List<CounterStatsVO> getStats() {
+        List<CounterStatsVO> statsList = new ArrayList<>();
+        for (InteractionCounterEnum counter : InteractionCounterEnum.values()) {
+            ConcurrentMap<Long, LongAdder> counters = countersByType.get(counter);
+            long pendingTargets = 0;
+            long pendingDelta = 0;
+            for (LongAdder adder : counters.values()) {
+                long delta = adder.sum();
+                if (delta != 0) {
+                    pendingTargets++;
+                    pendingDelta += Math.abs(delta);
+                }
+            }
+            Stats stats = statsByType.get(counter);
+            CounterStatsVO statsVO = new CounterStatsVO();
+            statsVO.setCounter(counter.getValue());
+            statsVO.setPendingTargets(pendingTargets);
+            statsVO.setPendingDelta(pendingDelta);
+            statsVO.setFlushedDelta(stats.flushedDelta.sum());
+            statsVO.setFlushedTargets(stats.flushedTargets.sum());
+            statsVO.setFlushCount(stats.flushCount.sum());
+            statsVO.setFlushFailureCount(stats.flushFailureCount.sum());
+            statsVO.setLastFlushMillis(stats.lastFlushMillis.get());
+            statsList.add(statsVO);
+        }
+        return statsList;
+    }
+
+    /**
+     * 取走某个计数类型的全部增量，移除没有增量的计数器
+     */
+    private Map<Long, Long> drain(InteractionCounterEnum counter) {
+        ConcurrentMap<Long, LongAdder> counters = countersByType.get(counter);
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : counters.entrySet()) {
+            LongAdder adder = entry.getValue();
+            long delta = adder.sumThenReset();
+            // 移除后再取一次，移除前写入的增量不会遗漏，移除后写入的由写入方转移
+            if (delta == 0 && counters.remove(entry.getKey(), adder)) {
+                delta = adder.sumThenReset();
+            }
+            if (delta != 0) {
+                deltas.put(entry.getKey(), delta);
+            }
+        }
+        return deltas;
+    }
+
+    private void restore(InteractionCounterEnum counter, Map<Long, Long> deltas) {
+        statsByType.get(counter).flushFailureCount.increment();
+        deltas.forEach((targetId, delta) -> add(counter, targetId, delta));
+    }
+
+    private void recordFlushed(InteractionCounterEnum counter, Map<Long, Long> deltas) {
+        Stats stats = statsByType.get(counter);
+        stats.flushedTargets.add(deltas.size());
+        deltas.values().forEach(delta -> stats.flushedDelta.add(Math.abs(delta)));
+    }
+
+    private static List<List<Long>> split(Set<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        List<Long> batch = new ArrayList<>(Math.min(ids.size(), FLUSH_BATCH_SIZE));
+        for (Long id : ids) {
+            batch.add(id);
+            if (batch.size() == FLUSH_BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>(FLUSH_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private static Map<Long, Long> subMap(Map<Long, Long> deltas, List<Long> ids) {
+        Map<Long, Long> result = new HashMap<>();
+        for (Long id : ids) {
+            Long delta = deltas.get(id);
+            if (delta != null) {
+                result.put(id, delta);
+            }
+        }
+        return result;
+    }
+
+    private static Map<InteractionCounterEnum, ConcurrentMap<Long, LongAdder>> createCounters() {
+        Map<InteractionCounterEnum, ConcurrentMap<Long, LongAdder>> counters = new EnumMap<>(InteractionCounterEnum.class);
+        for (InteractionCounterEnum counter : InteractionCounterEnum.values()) {
+            counters.put(counter, new ConcurrentHashMap<>());
+        }
+        return counters;
+    }
+
+    private static Map<InteractionCounterEnum, Stats> createStats() {
+        Map<InteractionCounterEnum, Stats> stats = new EnumMap<>(InteractionCounterEnum.class);
+        for (InteractionCounterEnum counter : InteractionCounterEnum.values()) {
+            stats.put(counter, new Stats());
+        }
+        return stats;
+    }
+
+    /**
+     * 刷写统计
+     */
+    private static class Stats {
+
+        private final LongAdder flushedDelta = new LongAdder();
+
+        private final LongAdder flushedTargets = new LongAdder();
+
+        private final LongAdder flushCount = new LongAdder();
+
+        private final LongAdder flushFailureCount = new LongAdder();
+
+        private final AtomicLong lastFlushMillis = new AtomicLong();
+    }
+}
@@ -0,0 +1,314 @@
+package org.leocoder.picture.manager.counter;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.domain.Like;
+import org.leocoder.picture.enums.InteractionCounterEnum;
+import org.leocoder.picture.manager.viewer.UserInteractionMembership;
+import org.leocoder.picture.mapper.LikeMapper;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static org.leocoder.picture.constant.LikeConstant.LIKE_COUNT_KEY_PREFIX;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-21 09:30
+ * @description : 点赞状态写回计数器
+ * <p>
+ * 每个点赞目标（图片或评论）在 Redis 中有一个点赞用户集合，点赞 / 取消点赞由一个 Lua 脚本原子完成：
+ * 检查并修改集合成员、调整点赞数、同步用户的点赞关系集合（{@link UserInteractionMembership}），
+ * 并把点赞记录的最终状态写入待刷写哈希，一次往返、无需加锁。
+ * 定时任务把待刷写哈希按批写入数据库（点赞记录批量 upsert / 删除）；数据库中的点赞数由调用方交给
+ * {@link InteractionCounterAggregator} 合并后批量更新，热门图片不再每次点赞都争抢行锁。
+ * <p>
+ * 集合不存在（首次访问或长时间无人点赞后过期）时从 user_like 懒加载重建。集合每次变化都会续期，
+ * 过期时间远大于刷写间隔，因此重建时数据库中已包含全部变化。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikeCounter {
+
+    private static final String MEMBERS_KEY_PREFIX = "like:members:";
+
+    /**
+     * 待刷写的点赞记录：点赞类型:目标 id:用户 id -> 最终状态（1 已点赞，0 未点赞）
+     */
+    private static final String PENDING_KEY = "like:pending";
+
+    private static final String PENDING_FLUSHING_KEY = "like:pending:flushing";
+
+    private static final String FLUSH_LOCK_KEY = "lock:like:flush";
+
+    private static final long FLUSH_LOCK_SECONDS = 60;
+
+    /**
+     * 集合中的占位成员，保证没有人点赞的目标也能以空集合的形式缓存（用户 id 从 1 开始）
+     */
+    private static final String PLACEHOLDER_MEMBER = "0";
+
+    private static final long MEMBERS_EXPIRE_SECONDS = TimeUnit.DAYS.toSeconds(7);
+
+    /**
+     * 每条 SQL 语句包含的记录数
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    /**
+     * 重建集合时每条 SADD 命令包含的成员数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * 点赞 / 取消点赞
+     * KEYS: 点赞用户集合、点赞数、待刷写记录哈希、用户点赞关系集合、用户点赞关系脏标记
+     * ARGV: 用户 id、1 点赞 / 0 取消、过期秒数、记录字段、目标 id、用户关系集合过期秒数、脏标记过期秒数
+     * 返回：-1 集合未加载，0 状态未变化，1 已变化
+     */
+    private static final RedisScript<Long> TOGGLE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end\n"
+                    + "local changed\n"
+                    + "if ARGV[2] == '1' then changed = redis.call('SADD', KEYS[1], ARGV[1])\n"
+                    + "else changed = redis.call('SREM', KEYS[1], ARGV[1]) end\n"
+                    + "if changed == 0 then return 0 end\n"
+                    + "redis.call('INCRBY', KEYS[2], ARGV[2] == '1' and 1 or -1)\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[3])\n"
+                    + "redis.call('EXPIRE', KEYS[2], ARGV[3])\n"
+                    + "redis.call('HSET', KEYS[3], ARGV[4], ARGV[2])\n"
+                    + "if redis.call('EXISTS', KEYS[4]) == 0 then redis.call('SET', KEYS[5], '1', 'EX', ARGV[7])\n"
+                    + "else\n"
+                    + "  if ARGV[2] == '1' then redis.call('SADD', KEYS[4], ARGV[5])\n"
+                    + "  else redis.call('SREM', KEYS[4], ARGV[5]) end\n"
+                    + "  redis.call('EXPIRE', KEYS[4], ARGV[6])\n"
+                    + "end\n"
+                    + "return 1",
+            Long.class);
+
+    /**
+     * 发布重建好的集合：集合已被其他线程重建时丢弃本次结果
+     * KEYS: 点赞用户集合、点赞数、重建中的临时集合
+     * ARGV: 过期秒数、点赞数
+     */
+    private static final RedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then redis.call('DEL', KEYS[3]) return 0 end\n"
+                    + "redis.call('RENAME', KEYS[3], KEYS[1])\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1])\n"
+                    + "redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[1])\n"
+                    + "return 1",
+            Long.class);
+
+    private static final int COMMENT_LIKE_TYPE = 1;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final LikeMapper likeMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 点赞或取消点赞
+     *
+     * @param userId   用户 id
+     * @param targetId 点赞目标 id
+     * @param likeType 点赞类型（0 图片，1 评论）
+     * @param like     true 点赞，false 取消点赞
+     * @return 状态是否变化（重复点赞、取消未点赞的目标返回 false）
+     */
+    public boolean toggle(long userId, long targetId, int likeType, boolean like) {
+        String membersKey = getMembersKey(targetId, likeType);
+        InteractionCounterEnum membershipType = likeType == COMMENT_LIKE_TYPE
+                ? InteractionCounterEnum.COMMENT_LIKE : InteractionCounterEnum.PICTURE_LIKE;
+        List<String> keys = Arrays.asList(membersKey, getCountKey(targetId, likeType), PENDING_KEY,
+                UserInteractionMembership.getMembersKey(membershipType, userId),
+                UserInteractionMembership.getDirtyKey(membershipType, userId));
+        Object[] args = {String.valueOf(userId), like ? "1" : "0", String.valueOf(MEMBERS_EXPIRE_SECONDS),
+                likeType + ":" + targetId + ":" + userId, String.valueOf(targetId),
+                String.valueOf(UserInteractionMembership.MEMBERS_EXPIRE_SECONDS),
+                String.valueOf(UserInteractionMembership.DIRTY_EXPIRE_SECONDS)};
+        Long result = stringRedisTemplate.execute(TOGGLE_SCRIPT, keys, args);
+        if (result != null && result < 0) {
+            rebuild(targetId, likeType);
+            result = stringRedisTemplate.execute(TOGGLE_SCRIPT, keys, args);
+        }
+        return result != null && result > 0;
+    }
+
+    /**
+     * Redis 不可用、点赞直接写入数据库后清除可能过期的缓存（尽力而为）：
+     * 删除点赞用户集合与待刷写记录，标记并删除用户点赞关系集合，下次访问时从数据库重建
+     *
+     * @param userId   用户 id
+     * @param targetId 点赞目标 id
+     * @param likeType 点赞类型（0 图片，1 评论）
+     */
+    public void evict(long userId, long targetId, int likeType) {
+        InteractionCounterEnum membershipType = likeType == COMMENT_LIKE_TYPE
+                ? InteractionCounterEnum.COMMENT_LIKE : InteractionCounterEnum.PICTURE_LIKE;
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                // 先写脏标记，正在进行的重建不会发布旧数据
+                stringConnection.setEx(UserInteractionMembership.getDirtyKey(membershipType, userId),
+                        UserInteractionMembership.DIRTY_EXPIRE_SECONDS, "1");
+                stringConnection.del(getMembersKey(targetId, likeType),
+                        UserInteractionMembership.getMembersKey(membershipType, userId));
+                stringConnection.hDel(PENDING_KEY, likeType + ":" + targetId + ":" + userId);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("清除点赞缓存失败, userId = {}, targetId = {}, likeType = {}", userId, targetId, likeType, e);
+        }
+    }
+
+    /**
+     * 把待刷写的点赞记录写入数据库；多实例部署时由锁保证同一时间只有一个实例刷写
+     */
+    public void flush() {
+        String lockValue = IdUtil.fastSimpleUUID();
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(FLUSH_LOCK_KEY, lockValue, FLUSH_LOCK_SECONDS, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            // 上次刷写中断遗留的部分先刷写，再原子地转移新的变化
+            drainPending();
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(PENDING_KEY))
+                    && Boolean.TRUE.equals(stringRedisTemplate.renameIfAbsent(PENDING_KEY, PENDING_FLUSHING_KEY))) {
+                drainPending();
+            }
+        } finally {
+            if (Objects.equals(lockValue, stringRedisTemplate.opsForValue().get(FLUSH_LOCK_KEY))) {
+                stringRedisTemplate.delete(FLUSH_LOCK_KEY);
+            }
+        }
+    }
+
+    /**
+     * 查询用户尚未刷写到数据库的点赞记录
+     * <p>
+     * 记录只会从待刷写哈希移到刷写中哈希、再写入数据库（提交后才删除），按同样的顺序扫描不会遗漏；
+     * 待刷写哈希中的状态最新，同一记录以先扫描到的为准
+     *
+     * @param userId   用户 id
+     * @param likeType 点赞类型（0 图片，1 评论）
+     * @return 目标 id -> 是否已点赞
+     */
+    public Map<Long, Boolean> getPendingStates(long userId, int likeType) {
+        Map<Long, Boolean> states = new HashMap<>();
+        ScanOptions options = ScanOptions.scanOptions().match(likeType + ":*:" + userId).count(FLUSH_BATCH_SIZE).build();
+        for (String key : Arrays.asList(PENDING_KEY, PENDING_FLUSHING_KEY)) {
+            try (Cursor<Map.Entry<Object, Object>> cursor = stringRedisTemplate.opsForHash().scan(key, options)) {
+                while (cursor.hasNext()) {
+                    Map.Entry<Object, Object> entry = cursor.next();
+                    String[] parts = entry.getKey().toString().split(":");
+                    states.putIfAbsent(Long.valueOf(parts[1]), "1".equals(entry.getValue().toString()));
+                }
+            }
+        }
+        return states;
+    }
+
+    /**
+     * 从数据库重建点赞用户集合：先写入临时集合，再由脚本原子地重命名
+     */
+    private void rebuild(long targetId, int likeType) {
+        List<String> members = new ArrayList<>();
+        members.add(PLACEHOLDER_MEMBER);
+        likeMapper.selectList(Wrappers.lambdaQuery(Like.class)
+                        .select(Like::getUserId)
+                        .eq(Like::getPictureId, targetId)
+                        .eq(Like::getLikeType, likeType)
+                        .eq(Like::getIsLiked, 1))
+                .forEach(like -> members.add(String.valueOf(like.getUserId())));
+        String membersKey = getMembersKey(targetId, likeType);
+        String buildingKey = membersKey + ":building:" + IdUtil.fastSimpleUUID();
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (List<String> batch : CollUtil.split(members, REBUILD_BATCH_SIZE)) {
+                stringConnection.sAdd(buildingKey, batch.toArray(new String[0]));
+            }
+            // 重建失败时临时集合自动过期
+            stringConnection.expire(buildingKey, FLUSH_LOCK_SECONDS);
+            return null;
+        });
+        stringRedisTemplate.execute(PUBLISH_SCRIPT,
+                Arrays.asList(membersKey, getCountKey(targetId, likeType), buildingKey),
+                String.valueOf(MEMBERS_EXPIRE_SECONDS), String.valueOf(members.size() - 1));
+    }
+
+    /**
+     * 分批写入点赞记录：已点赞的 upsert，已取消的删除，每批提交后删除已刷写的字段
+     */
+    private void drainPending() {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(PENDING_FLUSHING_KEY);
+        if (CollUtil.isEmpty(entries)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Like> liked = new ArrayList<>();
+        List<Like> unliked = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = entry.getKey().toString();
+            String[] parts = field.split(":");
+            Like like = new Like();
+            like.setLikeType(Integer.valueOf(parts[0]));
+            like.setPictureId(Long.valueOf(parts[1]));
+            like.setUserId(Long.valueOf(parts[2]));
+            like.setIsLiked(1);
+            ("1".equals(entry.getValue().toString()) ? liked : unliked).add(like);
+            fields.add(field);
+            if (fields.size() == FLUSH_BATCH_SIZE) {
+                flushPendingBatch(liked, unliked, fields);
+            }
+        }
+        flushPendingBatch(liked, unliked, fields);
+        log.info("点赞记录刷写完成, count = {}, cost = {} ms", entries.size(), System.currentTimeMillis() - start);
+    }
+
+    private void flushPendingBatch(List<Like> liked, List<Like> unliked, List<String> fields) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!liked.isEmpty()) {
+                likeMapper.upsertLikedBatch(liked);
+            }
+            if (!unliked.isEmpty()) {
+                likeMapper.deleteBatch(unliked);
+            }
+        });
+        if (!fields.isEmpty()) {
+            stringRedisTemplate.opsForHash().delete(PENDING_FLUSHING_KEY, fields.toArray());
+        }
+        liked.clear();
+        unliked.clear();
+        fields.clear();
+    }
+
+    private String getMembersKey(long targetId, int likeType) {
+        return MEMBERS_KEY_PREFIX + likeType + ":" + targetId;
+    }
+
+    private String getCountKey(long targetId, int likeType) {
+        return LIKE_COUNT_KEY_PREFIX + targetId + ":type:" + likeType;
+    }
+}
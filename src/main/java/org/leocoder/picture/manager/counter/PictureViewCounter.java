@@ -0,0 +1,150 @@
+package org.leocoder.picture.manager.counter;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-17 09:30
+ * @description : 图片浏览数写回计数器
+ * <p>
+ * 浏览时只在 Redis 哈希中累加增量（HINCRBY），定时任务把增量转移到待刷写哈希，按批用 UPDATE ... CASE 累加到数据库，
+ * 每批提交后再删除对应字段。写入的是增量而不是绝对值，进程崩溃后未刷写的增量仍保留在 Redis 中，下次继续刷写；
+ * 最坏情况下提交后、删除字段前崩溃的那一批会被重复累加一次。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureViewCounter {
+
+    /**
+     * 待刷写的浏览增量：图片 id -> 增量
+     */
+    private static final String DELTA_KEY = "picture:view_count:delta";
+
+    /**
+     * 正在刷写的浏览增量
+     */
+    private static final String FLUSHING_KEY = "picture:view_count:flushing";
+
+    private static final String FLUSH_LOCK_KEY = "lock:picture:view_count:flush";
+
+    private static final long FLUSH_LOCK_SECONDS = 60;
+
+    /**
+     * 每条 UPDATE 语句包含的图片数
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final PictureMapper pictureMapper;
+
+    /**
+     * 记录一次浏览
+     *
+     * @param pictureId 图片 id
+     */
+    public void increment(long pictureId) {
+        stringRedisTemplate.opsForHash().increment(DELTA_KEY, String.valueOf(pictureId), 1);
+    }
+
+    /**
+     * 尚未刷写到数据库的浏览数（包括正在刷写的部分）
+     *
+     * @param pictureId 图片 id
+     * @return 未刷写的浏览数
+     */
+    public long getPendingCount(long pictureId) {
+        String field = String.valueOf(pictureId);
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.hGet(DELTA_KEY, field);
+            stringConnection.hGet(FLUSHING_KEY, field);
+            return null;
+        });
+        long pending = 0;
+        for (Object result : results) {
+            if (result != null) {
+                pending += Long.parseLong(result.toString());
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * 把累计的浏览增量刷写到数据库；多实例部署时由锁保证同一时间只有一个实例刷写
+     */
+    public void flush() {
+        String lockValue = IdUtil.fastSimpleUUID();
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(FLUSH_LOCK_KEY, lockValue, FLUSH_LOCK_SECONDS, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            // 上次刷写中断遗留的增量先刷写
+            drainFlushing();
+            // 原子地把增量转移到待刷写哈希，之后的浏览写入新的增量哈希
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(DELTA_KEY))
+                    && Boolean.TRUE.equals(stringRedisTemplate.renameIfAbsent(DELTA_KEY, FLUSHING_KEY))) {
+                drainFlushing();
+            }
+        } finally {
+            if (Objects.equals(lockValue, stringRedisTemplate.opsForValue().get(FLUSH_LOCK_KEY))) {
+                stringRedisTemplate.delete(FLUSH_LOCK_KEY);
+            }
+        }
+    }
+
+    /**
+     * 分批刷写待刷写哈希，每批提交后删除已刷写的字段，全部完成后哈希自然为空并被 Redis 删除
+     */
+    private void drainFlushing() {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(FLUSHING_KEY);
+        if (CollUtil.isEmpty(entries)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Map<Long, Long> batch = new LinkedHashMap<>();
+        List<String> fields = new ArrayList<>();
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            long delta = Long.parseLong(entry.getValue().toString());
+            if (delta != 0) {
+                batch.put(Long.valueOf(entry.getKey().toString()), delta);
+            }
+            fields.add(entry.getKey().toString());
+            if (fields.size() == FLUSH_BATCH_SIZE) {
+                flushBatch(batch, fields);
+            }
+        }
+        flushBatch(batch, fields);
+        log.info("浏览数刷写完成, count = {}, cost = {} ms", entries.size(), System.currentTimeMillis() - start);
+    }
+
+    private void flushBatch(Map<Long, Long> batch, List<String> fields) {
+        if (!batch.isEmpty()) {
+            pictureMapper.incrementViewCountBatch(batch);
+        }
+        if (!fields.isEmpty()) {
+            stringRedisTemplate.opsForHash().delete(FLUSHING_KEY, fields.toArray());
+        }
+        batch.clear();
+        fields.clear();
+    }
+}
@@ -0,0 +1,54 @@
+package org.leocoder.picture.manager.image;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-04 14:30
+ * @description : HaoWallpaper图片抓取器（按 alt 关键词过滤，页大小由站点决定）
+ */
+@Slf4j
+public class HaoWallpaperImageFetcher implements ImageFetcher {
+
+    private static final String BASE_URL = "https://haowallpaper.com";
+
+    @Override
+    public List<String> fetchImageUrls(String searchText, int page, int pageSize) {
+        List<String> imageUrls = new ArrayList<>();
+        // 构建分页 URL
+        String fetchUrl = String.format("%s/homeView?page=%d", BASE_URL, page);
+        try {
+            // 获取 HTML 页面
+            Document document = Jsoup.connect(fetchUrl).get();
+            // 解析图片的元素
+            Elements imgElements = document.select("img");
+            for (Element imgElement : imgElements) {
+                // 检查 `alt` 属性是否包含关键词
+                String altText = imgElement.attr("alt");
+                if (!altText.contains(searchText)) {
+                    continue;
+                }
+                String fileUrl = imgElement.attr("src");
+                if (!fileUrl.startsWith("http")) {
+                    // 补全相对路径
+                    fileUrl = BASE_URL + fileUrl;
+                }
+                imageUrls.add(fileUrl);
+            }
+            if (imageUrls.isEmpty() && !imgElements.isEmpty()) {
+                log.info("HaoWallpaper 第 {} 页没有匹配关键词的图片", page);
+            }
+        } catch (Exception e) {
+            log.error("HaoWallpaper 图片抓取失败", e);
+        }
+        return imageUrls;
+    }
+}
@@ -0,0 +1,44 @@
+package org.leocoder.picture.manager.image;
+
+import org.leocoder.picture.exception.BusinessException;
+import org.leocoder.picture.exception.ErrorCode;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-04 14:35
+ * @description : 根据抓取源创建图片抓取器
+ */
+public class ImageFetcherFactory {
+
+    private ImageFetcherFactory() {
+    }
+
+    /**
+     * 根据抓取源获取抓取器
+     *
+     * @param source 抓取源
+     * @return 图片抓取器
+     */
+    public static ImageFetcher getFetcher(String source) {
+        if (source == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "抓取源不能为空");
+        }
+        switch (source.toLowerCase()) {
+            case "google":
+                return new GoogleImageFetcher();
+            case "baidu":
+                return new BaiduImageFetcher();
+            case "bing":
+                return new BingImageFetcher();
+            case "pexels":
+                return new PexelsImageFetcher();
+            case "wallhaven":
+                return new WallhavenImageFetcher();
+            case "haowallpaper":
+                return new HaoWallpaperImageFetcher();
+            default:
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "未知的抓取源：" + source);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.leocoder.picture.manager.importer;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.leocoder.picture.enums.ImportJobStatusEnum;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-04 15:10
+ * @description : 批量导入任务（进度统计 + 并发槽位控制）
+ */
+@Getter
+public class ImportJob {
+
+    /**
+     * 任务 id
+     */
+    private final String jobId;
+
+    /**
+     * 抓取源
+     */
+    private final String source;
+
+    /**
+     * 搜索词
+     */
+    private final String searchText;
+
+    /**
+     * 图片名称前缀
+     */
+    private final String namePrefix;
+
+    /**
+     * 近似重复检测阈值，为空表示不检测
+     */
+    @Setter
+    private volatile Integer nearDuplicateDistance;
+
+    /**
+     * 目标导入数量
+     */
+    private final int count;
+
+    /**
+     * 发起用户 id
+     */
+    private final Long userId;
+
+    /**
+     * 已抓取的 URL 数
+     */
+    private final AtomicInteger fetched = new AtomicInteger();
+
+    /**
+     * 跳过数（重复或已抓取）
+     */
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    /**
+     * 失败数
+     */
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * 成功导入数
+     */
+    private final AtomicInteger uploaded = new AtomicInteger();
+
+    /**
+     * 图片序号，用于生成图片名称
+     */
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * 当前页码
+     */
+    @Setter
+    private volatile int page = 1;
+
+    /**
+     * 任务状态
+     */
+    private volatile ImportJobStatusEnum status = ImportJobStatusEnum.RUNNING;
+
+    /**
+     * 失败原因
+     */
+    private volatile String errorMessage;
+
+    private volatile LocalDateTime startTime = LocalDateTime.now();
+
+    private volatile LocalDateTime endTime;
+
+    /**
+     * 正在处理中的图片数，受对象锁保护
+     */
+    private int inFlight;
+
+    private final CountDownLatch doneLatch = new CountDownLatch(1);
+
+    public ImportJob(String jobId, String source, String searchText, String namePrefix, int count, Long userId) {
+        this.jobId = jobId;
+        this.source = source;
+        this.searchText = searchText;
+        this.namePrefix = namePrefix;
+        this.count = count;
+        this.userId = userId;
+    }
+
+    /**
+     * 从检查点恢复进度
+     *
+     * @param page      下一个要抓取的页码
+     * @param fetched   已抓取数
+     * @param skipped   跳过数
+     * @param failed    失败数
+     * @param uploaded  成功数
+     * @param sequence  图片序号
+     * @param startTime 开始时间
+     */
+    public void restore(int page, int fetched, int skipped, int failed, int uploaded, int sequence, LocalDateTime startTime) {
+        this.page = page;
+        this.fetched.set(fetched);
+        this.skipped.set(skipped);
+        this.failed.set(failed);
+        this.uploaded.set(uploaded);
+        this.sequence.set(sequence);
+        this.startTime = startTime;
+    }
+
+    /**
+     * 恢复已结束任务的最终状态（仅用于查询）
+     *
+     * @param status       最终状态
+     * @param errorMessage 失败原因
+     * @param endTime      结束时间
+     */
+    public void restoreFinished(ImportJobStatusEnum status, String errorMessage, LocalDateTime endTime) {
+        this.status = status;
+        this.errorMessage = errorMessage;
+        this.endTime = endTime;
+        if (!ImportJobStatusEnum.RUNNING.equals(status)) {
+            doneLatch.countDown();
+        }
+    }
+
+    /**
+     * 是否已达到目标数量
+     */
+    public boolean isTargetReached() {
+        return uploaded.get() >= count;
+    }
+
+    /**
+     * 等待一个处理槽位；当前在途数量足以完成目标时先等待结果，避免超额导入
+     *
+     * @param concurrency 单任务最大并发
+     * @return 是否获取到槽位，false 表示已达到目标数量
+     */
+    public synchronized boolean awaitSlot(int concurrency) throws InterruptedException {
+        while (inFlight >= concurrency || (inFlight > 0 && uploaded.get() + inFlight >= count)) {
+            wait();
+        }
+        if (isTargetReached()) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * 释放处理槽位
+     */
+    public synchronized void releaseSlot() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * 等待所有在途图片处理完成
+     */
+    public synchronized void awaitInFlight() throws InterruptedException {
+        while (inFlight > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * 结束任务（需再调用 signalDone 唤醒等待方）
+     *
+     * @param status       最终状态
+     * @param errorMessage 失败原因
+     */
+    public void finish(ImportJobStatusEnum status, String errorMessage) {
+        this.status = status;
+        this.errorMessage = errorMessage;
+        this.endTime = LocalDateTime.now();
+    }
+
+    /**
+     * 唤醒等待任务结束的线程，在最终检查点保存后调用
+     */
+    public void signalDone() {
+        doneLatch.countDown();
+    }
+
+    /**
+     * 等待任务结束
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 是否在超时前结束
+     */
+    public boolean awaitDone(long timeout, TimeUnit unit) throws InterruptedException {
+        return doneLatch.await(timeout, unit);
+    }
+}
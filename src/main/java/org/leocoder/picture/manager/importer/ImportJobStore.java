@@ -0,0 +1,58 @@
+package org.leocoder.picture.manager.importer;
+
+import java.util.Set;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-05 10:15
+ * @description : 导入任务检查点存储，用于查询进度以及重启后续跑
+ */
+public interface ImportJobStore {
+
+    /**
+     * 保存任务检查点（进度、页码游标、状态）
+     *
+     * @param job 导入任务
+     */
+    void save(ImportJob job);
+
+    /**
+     * 加载任务检查点
+     *
+     * @param jobId 任务 id
+     * @return 导入任务，不存在时返回 null
+     */
+    ImportJob load(String jobId);
+
+    /**
+     * 获取未结束的任务 id
+     *
+     * @return 任务 id 集合
+     */
+    Set<String> listUnfinishedJobIds();
+
+    /**
+     * 获取抓取源 + 搜索词上次抓取到的页码
+     *
+     * @param source     抓取源
+     * @param searchText 搜索词
+     * @return 下一个要抓取的页码，没有记录时返回 1
+     */
+    int getCursor(String source, String searchText);
+
+    /**
+     * 尝试获取任务租约，获取成功的节点负责执行任务
+     *
+     * @param jobId 任务 id
+     * @return 是否获取成功
+     */
+    boolean tryAcquireLease(String jobId);
+
+    /**
+     * 续期任务租约
+     *
+     * @param jobId 任务 id
+     */
+    void renewLease(String jobId);
+}
@@ -0,0 +1,295 @@
+package org.leocoder.picture.manager.importer;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.config.PictureImportConfig;
+import org.leocoder.picture.enums.ImportJobStatusEnum;
+import org.leocoder.picture.exception.BusinessException;
+import org.leocoder.picture.exception.ErrorCode;
+import org.leocoder.picture.exception.ThrowUtils;
+import org.leocoder.picture.manager.image.ImageFetcher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-04 15:20
+ * @description : 批量导入引擎
+ * 流水线：抓取分页（任务线程）-> 校验去重（任务线程）-> 下载上传入库（工作线程池），
+ * 单任务并发数与每个抓取源的请求速率均有上限；
+ * 每抓完一页保存一次检查点，服务重启后由其他节点（或本节点）按页码游标续跑
+ */
+@Slf4j
+@Component
+public class PictureImportEngine {
+
+    private final PictureImportConfig importConfig;
+
+    private final ImportJobStore importJobStore;
+
+    /**
+     * 任务线程池，每个任务占用一个线程负责分页抓取与分发
+     */
+    private final ThreadPoolExecutor jobExecutor;
+
+    /**
+     * 工作线程池，负责下载、上传与入库
+     */
+    private final ThreadPoolExecutor workerExecutor;
+
+    /**
+     * 任务缓存，结束后保留一天供查询进度
+     */
+    private final Cache<String, ImportJob> jobCache = Caffeine.newBuilder()
+            .expireAfterAccess(1, TimeUnit.DAYS)
+            .maximumSize(1000)
+            .build();
+
+    /**
+     * 每个抓取源一个限流器
+     */
+    private final Map<String, SourceRateLimiter> rateLimiterMap = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点正在执行的任务 id，用于续期租约
+     */
+    private final Set<String> runningJobIds = ConcurrentHashMap.newKeySet();
+
+    public PictureImportEngine(PictureImportConfig importConfig, ImportJobStore importJobStore) {
+        this.importConfig = importConfig;
+        this.importJobStore = importJobStore;
+        this.jobExecutor = new ThreadPoolExecutor(importConfig.getJobThreads(), importConfig.getJobThreads(),
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(100),
+                new NamedThreadFactory("picture-import-job-", false), new ThreadPoolExecutor.AbortPolicy());
+        this.workerExecutor = new ThreadPoolExecutor(importConfig.getWorkerThreads(), importConfig.getWorkerThreads(),
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(1024),
+                new NamedThreadFactory("picture-import-worker-", false), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 提交导入任务，从该抓取源 + 搜索词上次抓取到的页码继续
+     *
+     * @param source     抓取源
+     * @param searchText 搜索词
+     * @param namePrefix 图片名称前缀
+     * @param count      目标数量
+     * @param userId     发起用户 id
+     * @param fetcher    图片抓取器
+     * @param handler    导入回调
+     * @return 导入任务
+     */
+    public ImportJob submit(String source, String searchText, String namePrefix, int count, Long userId,
+                            ImageFetcher fetcher, PictureImportHandler handler) {
+        ImportJob job = createJob(source, searchText, namePrefix, count, userId);
+        submit(job, fetcher, handler);
+        return job;
+    }
+
+    /**
+     * 创建导入任务，从该抓取源 + 搜索词上次抓取到的页码继续；调用方补充选项后再提交
+     *
+     * @param source     抓取源
+     * @param searchText 搜索词
+     * @param namePrefix 图片名称前缀
+     * @param count      目标数量
+     * @param userId     发起用户 id
+     * @return 导入任务
+     */
+    public ImportJob createJob(String source, String searchText, String namePrefix, int count, Long userId) {
+        ImportJob job = new ImportJob(IdUtil.fastSimpleUUID(), source, searchText, namePrefix, count, userId);
+        job.setPage(importJobStore.getCursor(source, searchText));
+        return job;
+    }
+
+    /**
+     * 提交已创建的导入任务
+     *
+     * @param job     导入任务
+     * @param fetcher 图片抓取器
+     * @param handler 导入回调
+     */
+    public void submit(ImportJob job, ImageFetcher fetcher, PictureImportHandler handler) {
+        // 租约由其他节点持有时不在本节点重复执行
+        boolean acquired = importJobStore.tryAcquireLease(job.getJobId());
+        ThrowUtils.throwIf(!acquired, ErrorCode.OPERATION_ERROR, "导入任务已在执行中");
+        execute(job, fetcher, handler);
+        log.info("导入任务已提交, jobId = {}, source = {}, searchText = {}, count = {}, page = {}",
+                job.getJobId(), job.getSource(), job.getSearchText(), job.getCount(), job.getPage());
+    }
+
+    /**
+     * 从检查点续跑导入任务（调用方需先获取任务租约）
+     *
+     * @param job     从检查点恢复的导入任务
+     * @param fetcher 图片抓取器
+     * @param handler 导入回调
+     */
+    public void resume(ImportJob job, ImageFetcher fetcher, PictureImportHandler handler) {
+        execute(job, fetcher, handler);
+        log.info("导入任务已恢复, jobId = {}, page = {}, uploaded = {}",
+                job.getJobId(), job.getPage(), job.getUploaded().get());
+    }
+
+    /**
+     * 任务是否正在本节点执行
+     *
+     * @param jobId 任务 id
+     */
+    public boolean isRunningLocally(String jobId) {
+        return runningJobIds.contains(jobId);
+    }
+
+    /**
+     * 获取导入任务
+     *
+     * @param jobId 任务 id
+     * @return 导入任务，不存在时返回 null
+     */
+    public ImportJob getJob(String jobId) {
+        ImportJob job = jobCache.getIfPresent(jobId);
+        // 其他节点执行或重启前的任务从检查点读取
+        return job != null ? job : importJobStore.load(jobId);
+    }
+
+    /**
+     * 定时续期本节点正在执行任务的租约
+     */
+    @Scheduled(fixedRate = 30 * 1000)
+    public void renewLeases() {
+        runningJobIds.forEach(importJobStore::renewLease);
+    }
+
+    /**
+     * 将任务交给任务线程池执行
+     */
+    private void execute(ImportJob job, ImageFetcher fetcher, PictureImportHandler handler) {
+        jobCache.put(job.getJobId(), job);
+        runningJobIds.add(job.getJobId());
+        importJobStore.save(job);
+        try {
+            jobExecutor.execute(() -> runJob(job, fetcher, handler));
+        } catch (RejectedExecutionException e) {
+            runningJobIds.remove(job.getJobId());
+            job.finish(ImportJobStatusEnum.FAILED, "导入任务过多，请稍后再试");
+            job.signalDone();
+            importJobStore.save(job);
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "导入任务过多，请稍后再试");
+        }
+    }
+
+    /**
+     * 执行导入任务
+     */
+    private void runJob(ImportJob job, ImageFetcher fetcher, PictureImportHandler handler) {
+        SourceRateLimiter rateLimiter = getRateLimiter(job.getSource());
+        // 同一任务内不同分页可能返回相同图片
+        Set<String> seenUrls = ConcurrentHashMap.newKeySet();
+        int emptyPages = 0;
+        try {
+            while (!job.isTargetReached()) {
+                // 1. 抓取分页
+                rateLimiter.acquire();
+                List<String> imageUrls = fetcher.fetchImageUrls(job.getSearchText(), job.getPage(), importConfig.getPageSize());
+                if (CollUtil.isEmpty(imageUrls)) {
+                    if (++emptyPages >= importConfig.getMaxEmptyPages()) {
+                        log.warn("未找到更多图片，停止抓取, jobId = {}", job.getJobId());
+                        break;
+                    }
+                    job.setPage(job.getPage() + 1);
+                    importJobStore.save(job);
+                    continue;
+                }
+                emptyPages = 0;
+                job.getFetched().addAndGet(imageUrls.size());
+
+                boolean pageCompleted = true;
+                for (String fileUrl : imageUrls) {
+                    // 2. 校验去重
+                    if (!seenUrls.add(fileUrl) || handler.isFetched(fileUrl)) {
+                        job.getSkipped().incrementAndGet();
+                        continue;
+                    }
+                    // 3. 分发到工作线程下载上传入库
+                    if (!job.awaitSlot(importConfig.getJobConcurrency())) {
+                        pageCompleted = false;
+                        break;
+                    }
+                    int index = job.getSequence().incrementAndGet();
+                    workerExecutor.execute(() -> importPicture(job, fileUrl, index, rateLimiter, handler));
+                }
+                // 中途达到目标时保留当前页码，剩余图片留给下次抓取
+                if (pageCompleted) {
+                    job.setPage(job.getPage() + 1);
+                }
+                importJobStore.save(job);
+            }
+            job.awaitInFlight();
+            job.finish(ImportJobStatusEnum.SUCCEED, null);
+        } catch (InterruptedException e) {
+            // 服务停止导致的中断只结束本地任务，检查点保持运行中状态供重启后续跑
+            Thread.currentThread().interrupt();
+            runningJobIds.remove(job.getJobId());
+            job.finish(ImportJobStatusEnum.FAILED, "导入任务被中断");
+            job.signalDone();
+            log.info("导入任务被中断, 等待续跑, jobId = {}, page = {}", job.getJobId(), job.getPage());
+            return;
+        } catch (Exception e) {
+            log.error("导入任务失败, jobId = {}", job.getJobId(), e);
+            job.finish(ImportJobStatusEnum.FAILED, e.getMessage());
+        }
+        runningJobIds.remove(job.getJobId());
+        importJobStore.save(job);
+        job.signalDone();
+        log.info("导入任务结束, jobId = {}, status = {}, fetched = {}, skipped = {}, failed = {}, uploaded = {}",
+                job.getJobId(), job.getStatus(), job.getFetched().get(), job.getSkipped().get(),
+                job.getFailed().get(), job.getUploaded().get());
+    }
+
+    /**
+     * 导入单张图片
+     */
+    private void importPicture(ImportJob job, String fileUrl, int index,
+                               SourceRateLimiter rateLimiter, PictureImportHandler handler) {
+        try {
+            rateLimiter.acquire();
+            if (handler.importPicture(fileUrl, index)) {
+                job.getUploaded().incrementAndGet();
+            } else {
+                job.getSkipped().incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.getFailed().incrementAndGet();
+        } catch (Exception e) {
+            log.warn("图片导入失败, jobId = {}, url = {}", job.getJobId(), fileUrl, e);
+            job.getFailed().incrementAndGet();
+        } finally {
+            job.releaseSlot();
+        }
+    }
+
+    /**
+     * 获取抓取源对应的限流器
+     */
+    private SourceRateLimiter getRateLimiter(String source) {
+        return rateLimiterMap.computeIfAbsent(source, key -> new SourceRateLimiter(
+                importConfig.getRateLimits().getOrDefault(key, importConfig.getDefaultRatePerSecond())));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        workerExecutor.shutdown();
+    }
+}
@@ -0,0 +1,28 @@
+package org.leocoder.picture.manager.importer;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-04 15:05
+ * @description : 导入任务的业务回调（去重判断、下载上传并入库）
+ */
+public interface PictureImportHandler {
+
+    /**
+     * 图片是否已经抓取过
+     *
+     * @param url 图片 URL
+     * @return 是否已抓取
+     */
+    boolean isFetched(String url);
+
+    /**
+     * 导入单张图片：下载、上传到对象存储并入库
+     *
+     * @param url   图片 URL
+     * @param index 图片序号（从 1 开始）
+     * @return 是否导入，false 表示被判定为重复而跳过
+     * @throws Exception 导入失败
+     */
+    boolean importPicture(String url, int index) throws Exception;
+}
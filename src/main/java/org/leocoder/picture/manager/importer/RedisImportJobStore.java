@@ -0,0 +1,147 @@
+package org.leocoder.picture.manager.importer;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.enums.ImportJobStatusEnum;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-05 10:30
+ * @description : 基于 Redis 的导入任务检查点存储
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisImportJobStore implements ImportJobStore {
+
+    private static final String JOB_KEY_PREFIX = "picture:import:job:";
+
+    private static final String UNFINISHED_KEY = "picture:import:unfinished";
+
+    private static final String LEASE_KEY_PREFIX = "picture:import:lease:";
+
+    private static final String CURSOR_KEY_PREFIX = "picture:import:cursor:";
+
+    /**
+     * 租约有效期（秒），执行节点需在此时间内续期，否则任务会被其他节点接管
+     */
+    private static final long LEASE_SECONDS = 120;
+
+    /**
+     * 已结束任务的保留时间（天）
+     */
+    private static final long FINISHED_JOB_EXPIRE_DAYS = 1;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public void save(ImportJob job) {
+        try {
+            String jobKey = JOB_KEY_PREFIX + job.getJobId();
+            Map<String, String> fields = new HashMap<>();
+            fields.put("source", job.getSource());
+            fields.put("searchText", job.getSearchText());
+            fields.put("namePrefix", StrUtil.nullToEmpty(job.getNamePrefix()));
+            fields.put("count", String.valueOf(job.getCount()));
+            fields.put("nearDuplicateDistance", StrUtil.nullToEmpty(StrUtil.toStringOrNull(job.getNearDuplicateDistance())));
+            fields.put("userId", String.valueOf(job.getUserId()));
+            fields.put("page", String.valueOf(job.getPage()));
+            fields.put("fetched", String.valueOf(job.getFetched().get()));
+            fields.put("skipped", String.valueOf(job.getSkipped().get()));
+            fields.put("failed", String.valueOf(job.getFailed().get()));
+            fields.put("uploaded", String.valueOf(job.getUploaded().get()));
+            fields.put("sequence", String.valueOf(job.getSequence().get()));
+            fields.put("status", String.valueOf(job.getStatus().getValue()));
+            fields.put("errorMessage", StrUtil.nullToEmpty(job.getErrorMessage()));
+            fields.put("startTime", job.getStartTime().toString());
+            fields.put("endTime", job.getEndTime() == null ? "" : job.getEndTime().toString());
+            stringRedisTemplate.opsForHash().putAll(jobKey, fields);
+            // 记录页码游标，同一抓取源 + 搜索词的新任务从这里继续
+            stringRedisTemplate.opsForValue().set(getCursorKey(job.getSource(), job.getSearchText()),
+                    String.valueOf(job.getPage()));
+            if (ImportJobStatusEnum.RUNNING.equals(job.getStatus())) {
+                stringRedisTemplate.opsForSet().add(UNFINISHED_KEY, job.getJobId());
+            } else {
+                stringRedisTemplate.opsForSet().remove(UNFINISHED_KEY, job.getJobId());
+                stringRedisTemplate.delete(LEASE_KEY_PREFIX + job.getJobId());
+                stringRedisTemplate.expire(jobKey, FINISHED_JOB_EXPIRE_DAYS, TimeUnit.DAYS);
+            }
+        } catch (Exception e) {
+            // 检查点写入失败不影响导入本身
+            log.warn("保存导入任务检查点失败, jobId = {}", job.getJobId(), e);
+        }
+    }
+
+    @Override
+    public ImportJob load(String jobId) {
+        Map<Object, Object> fields = stringRedisTemplate.opsForHash().entries(JOB_KEY_PREFIX + jobId);
+        if (fields.isEmpty()) {
+            return null;
+        }
+        ImportJob job = new ImportJob(jobId,
+                (String) fields.get("source"),
+                (String) fields.get("searchText"),
+                (String) fields.get("namePrefix"),
+                getInt(fields, "count"),
+                Long.parseLong((String) fields.get("userId")));
+        String nearDuplicateDistance = (String) fields.get("nearDuplicateDistance");
+        if (StrUtil.isNotBlank(nearDuplicateDistance)) {
+            job.setNearDuplicateDistance(Integer.parseInt(nearDuplicateDistance));
+        }
+        job.restore(getInt(fields, "page"), getInt(fields, "fetched"), getInt(fields, "skipped"),
+                getInt(fields, "failed"), getInt(fields, "uploaded"), getInt(fields, "sequence"),
+                LocalDateTime.parse((String) fields.get("startTime")));
+        String endTime = (String) fields.get("endTime");
+        job.restoreFinished(ImportJobStatusEnum.getEnumByValue(getInt(fields, "status")),
+                StrUtil.emptyToNull((String) fields.get("errorMessage")),
+                StrUtil.isBlank(endTime) ? null : LocalDateTime.parse(endTime));
+        return job;
+    }
+
+    @Override
+    public Set<String> listUnfinishedJobIds() {
+        Set<String> jobIds = stringRedisTemplate.opsForSet().members(UNFINISHED_KEY);
+        return jobIds == null ? Collections.emptySet() : jobIds;
+    }
+
+    @Override
+    public int getCursor(String source, String searchText) {
+        String cursor = stringRedisTemplate.opsForValue().get(getCursorKey(source, searchText));
+        return StrUtil.isBlank(cursor) ? 1 : Integer.parseInt(cursor);
+    }
+
+    @Override
+    public boolean tryAcquireLease(String jobId) {
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(LEASE_KEY_PREFIX + jobId, "1", LEASE_SECONDS, TimeUnit.SECONDS);
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    @Override
+    public void renewLease(String jobId) {
+        stringRedisTemplate.expire(LEASE_KEY_PREFIX + jobId, LEASE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private String getCursorKey(String source, String searchText) {
+        String hash = DigestUtils.md5DigestAsHex(searchText.getBytes(StandardCharsets.UTF_8));
+        return CURSOR_KEY_PREFIX + source + ":" + hash;
+    }
+
+    private int getInt(Map<Object, Object> fields, String field) {
+        Object value = fields.get(field);
+        return value == null ? 0 : Integer.parseInt((String) value);
+    }
+}
@@ -0,0 +1,45 @@
+package org.leocoder.picture.manager.importer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-04 15:02
+ * @description : 抓取源限流器，按固定间隔平滑发放许可，避免并发导入时压垮外部站点
+ */
+public class SourceRateLimiter {
+
+    /**
+     * 两次许可之间的间隔（纳秒）
+     */
+    private final long intervalNanos;
+
+    /**
+     * 下一个许可可用的时间点
+     */
+    private long nextFreeNanos = System.nanoTime();
+
+    public SourceRateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    /**
+     * 获取一个许可，必要时阻塞等待
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(nextFreeNanos, now);
+            nextFreeNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.leocoder.picture.manager.importer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-06 09:40
+ * @description : 已抓取 URL 布隆过滤器（线程安全）
+ * 直接使用 URL 的 MD5 哈希（32 位十六进制）的前后 64 位做双重哈希，不再重复计算哈希；
+ * 判断不存在时一定不存在，判断存在时有 fpp 概率误判，需要回查数据库确认
+ */
+public class UrlBloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitSize;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions 预期元素数量
+     * @param fpp                期望误判率
+     */
+    public UrlBloomFilter(long expectedInsertions, double fpp) {
+        long numBits = (long) (-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        numBits = Math.max(64, numBits);
+        this.bits = new AtomicLongArray(Math.toIntExact((numBits + 63) >>> 6));
+        this.bitSize = (long) bits.length() << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * 添加元素
+     *
+     * @param urlHash URL 的 MD5 十六进制哈希
+     */
+    public void put(String urlHash) {
+        long hash1 = Long.parseUnsignedLong(urlHash.substring(0, 16), 16);
+        long hash2 = Long.parseUnsignedLong(urlHash.substring(16, 32), 16);
+        long combined = hash1;
+        for (int i = 0; i < hashCount; i++) {
+            setBit((combined & Long.MAX_VALUE) % bitSize);
+            combined += hash2;
+        }
+    }
+
+    /**
+     * 元素是否可能存在
+     *
+     * @param urlHash URL 的 MD5 十六进制哈希
+     * @return false 表示一定不存在
+     */
+    public boolean mightContain(String urlHash) {
+        long hash1 = Long.parseUnsignedLong(urlHash.substring(0, 16), 16);
+        long hash2 = Long.parseUnsignedLong(urlHash.substring(16, 32), 16);
+        long combined = hash1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    /**
+     * 位数组占用的字节数
+     */
+    public long sizeInBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    private void setBit(long index) {
+        int wordIndex = (int) (index >>> 6);
+        long mask = 1L << index;
+        long word;
+        do {
+            word = bits.get(wordIndex);
+            if ((word & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(wordIndex, word, word | mask));
+    }
+}
@@ -0,0 +1,131 @@
+package org.leocoder.picture.manager.neighbor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-15 09:30
+ * @description : 详情页上一张 / 下一张的邻居窗口缓存
+ * <p>
+ * 一次查询取出当前图片前后各若干张按展示顺序排好的 id（窗口），窗口内每张图片都以 (来源, 排序字段, 排序顺序, 图片 id)
+ * 为 key 指向同一个窗口，连续翻页时直接命中。上传、审核、编辑、删除后按空间失效。
+ */
+@Component
+public class PictureNeighborCache {
+
+    private final Cache<String, NeighborWindow> windowCache = Caffeine.newBuilder()
+            .maximumSize(20_000L)
+            // 浏览量排序会随访问变化，窗口只做短时间缓存
+            .expireAfterWrite(5L, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * 查询缓存的邻居
+     *
+     * @param from      来源（public / space）
+     * @param sortField 排序字段
+     * @param ascend    是否升序
+     * @param pictureId 当前图片 id
+     * @return 所在窗口，未命中返回 null
+     */
+    public NeighborWindow get(String from, String sortField, boolean ascend, long pictureId) {
+        return windowCache.getIfPresent(buildKey(from, sortField, ascend, pictureId));
+    }
+
+    /**
+     * 缓存窗口，只登记上一张、下一张都能在窗口内确定的图片
+     *
+     * @param from      来源（public / space）
+     * @param sortField 排序字段
+     * @param ascend    是否升序
+     * @param window    按展示顺序排好的窗口
+     */
+    public void put(String from, String sortField, boolean ascend, NeighborWindow window) {
+        List<Long> ids = window.getIds();
+        for (int i = 0; i < ids.size(); i++) {
+            if (window.resolvable(i)) {
+                windowCache.put(buildKey(from, sortField, ascend, ids.get(i)), window);
+            }
+        }
+    }
+
+    /**
+     * 失效某个空间的所有窗口
+     *
+     * @param spaceId 空间 id，为空表示公共图库
+     */
+    public void invalidate(Long spaceId) {
+        windowCache.asMap().values().removeIf(window -> Objects.equals(window.getSpaceId(), spaceId));
+    }
+
+    /**
+     * 失效所有窗口（批量删除时使用）
+     */
+    public void invalidateAll() {
+        windowCache.invalidateAll();
+    }
+
+    private static String buildKey(String from, String sortField, boolean ascend, long pictureId) {
+        return from + ":" + sortField + ":" + (ascend ? "asc" : "desc") + ":" + pictureId;
+    }
+
+    /**
+     * 邻居窗口
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class NeighborWindow {
+
+        /**
+         * 所属空间 id，为空表示公共图库
+         */
+        private final Long spaceId;
+
+        /**
+         * 按展示顺序排列的图片 id
+         */
+        private final List<Long> ids;
+
+        /**
+         * 窗口头部之前是否已没有图片
+         */
+        private final boolean headComplete;
+
+        /**
+         * 窗口尾部之后是否已没有图片
+         */
+        private final boolean tailComplete;
+
+        /**
+         * 窗口内第 index 张图片的上一张、下一张是否都能确定
+         */
+        public boolean resolvable(int index) {
+            return (index > 0 || headComplete) && (index < ids.size() - 1 || tailComplete);
+        }
+
+        /**
+         * 上一张图片 id，没有时返回 null；调用方需先确认图片在窗口内
+         */
+        public Long getPrevId(long pictureId) {
+            int index = ids.indexOf(pictureId);
+            return index > 0 ? ids.get(index - 1) : null;
+        }
+
+        /**
+         * 下一张图片 id，没有时返回 null；调用方需先确认图片在窗口内
+         */
+        public Long getNextId(long pictureId) {
+            int index = ids.indexOf(pictureId);
+            return index >= 0 && index < ids.size() - 1 ? ids.get(index + 1) : null;
+        }
+    }
+}
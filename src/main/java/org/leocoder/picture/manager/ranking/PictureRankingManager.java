@@ -0,0 +1,290 @@
+package org.leocoder.picture.manager.ranking;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.ObjectUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.config.PictureRankingConfig;
+import org.leocoder.picture.domain.Picture;
+import org.leocoder.picture.enums.PictureReviewStatusEnum;
+import org.leocoder.picture.enums.RankingWindowEnum;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-16 10:00
+ * @description : 热门图片榜单，热度保存在 Redis 有序集合中，读取榜单时直接按排名取一段 id，不再扫描图片表
+ * <p>
+ * 浏览、点赞、收藏发生时按权重累加到总榜和当天的日榜；周榜由定时任务把最近几天的日榜按半衰期加权合并，
+ * 越早的热度权重越低。总榜首次启动时由图片表的计数回填。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureRankingManager {
+
+    private static final String KEY_PREFIX = "lgpicture:ranking:";
+
+    private static final String ALL_KEY = KEY_PREFIX + "all";
+
+    private static final String WEEK_KEY = KEY_PREFIX + "week";
+
+    private static final String WEEK_BUILDING_KEY = KEY_PREFIX + "week:building";
+
+    private static final String DAY_KEY_PREFIX = KEY_PREFIX + "day:";
+
+    /**
+     * 日榜多保留一天，保证周榜合并时最早的一天仍然存在
+     */
+    private static final long DAY_KEY_EXPIRE_EXTRA_DAYS = 1;
+
+    /**
+     * 回填时每批读取的记录数
+     */
+    private static final int WARM_UP_BATCH_SIZE = 5000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final PictureMapper pictureMapper;
+
+    private final PictureRankingConfig pictureRankingConfig;
+
+    @PostConstruct
+    public void init() {
+        ThreadUtil.newThread(this::warmUp, "picture-ranking-warm-up", true).start();
+    }
+
+    /**
+     * 图片是否参与热门榜单：只有公共图库中已过审的图片参与
+     *
+     * @param picture 图片（至少包含 id、spaceId、reviewStatus）
+     * @return 是否参与
+     */
+    public static boolean isRankable(Picture picture) {
+        return ObjectUtil.isNotNull(picture) && ObjectUtil.isNull(picture.getSpaceId())
+                && Objects.equals(PictureReviewStatusEnum.PASS.getValue(), picture.getReviewStatus());
+    }
+
+    /**
+     * 记录一次浏览，不参与榜单的图片忽略
+     *
+     * @param picture 图片
+     */
+    public void recordView(Picture picture) {
+        if (isRankable(picture)) {
+            incrementScore(picture.getId(), pictureRankingConfig.getViewWeight());
+        }
+    }
+
+    /**
+     * 记录点赞变化，不参与榜单的图片忽略
+     *
+     * @param picture 图片
+     * @param delta   1 表示点赞，-1 表示取消点赞
+     */
+    public void recordLike(Picture picture, int delta) {
+        if (isRankable(picture)) {
+            incrementScore(picture.getId(), pictureRankingConfig.getLikeWeight() * delta);
+        }
+    }
+
+    /**
+     * 记录收藏变化，不参与榜单的图片忽略
+     *
+     * @param picture 图片
+     * @param delta   1 表示收藏，-1 表示取消收藏
+     */
+    public void recordFavorite(Picture picture, int delta) {
+        if (isRankable(picture)) {
+            incrementScore(picture.getId(), pictureRankingConfig.getFavoriteWeight() * delta);
+        }
+    }
+
+    /**
+     * 按热度降序取榜单中的一段图片 id
+     *
+     * @param window 时间窗口
+     * @param offset 起始排名（从 0 开始）
+     * @param count  数量
+     * @return 图片 id
+     */
+    public List<Long> listTopIds(RankingWindowEnum window, long offset, long count) {
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(getKey(window), offset, offset + count - 1);
+        if (CollUtil.isEmpty(members)) {
+            return Collections.emptyList();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * 榜单中的图片数量
+     *
+     * @param window 时间窗口
+     * @return 图片数量
+     */
+    public long size(RankingWindowEnum window) {
+        return ObjectUtil.defaultIfNull(stringRedisTemplate.opsForZSet().zCard(getKey(window)), 0L);
+    }
+
+    /**
+     * 从所有榜单中移除图片（删除、审核不通过、已不在公共图库）
+     *
+     * @param pictureIds 图片 id
+     */
+    public void remove(Collection<Long> pictureIds) {
+        if (CollUtil.isEmpty(pictureIds)) {
+            return;
+        }
+        String[] members = pictureIds.stream().map(String::valueOf).toArray(String[]::new);
+        List<String> keys = new ArrayList<>(getRecentDayKeys());
+        keys.add(ALL_KEY);
+        keys.add(WEEK_KEY);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                keys.forEach(key -> stringConnection.zRem(key, members));
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("移除榜单图片失败, pictureIds = {}", pictureIds, e);
+        }
+    }
+
+    /**
+     * 定时合并最近几天的日榜生成周榜：先写入临时 key 再重命名，读取方始终看到完整的周榜
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 5 * 60 * 1000)
+    public void refreshWeekRanking() {
+        try {
+            List<String> dayKeys = getRecentDayKeys();
+            double[] weights = new double[dayKeys.size()];
+            for (int day = 0; day < weights.length; day++) {
+                weights[day] = Math.pow(0.5, day / pictureRankingConfig.getWeekHalfLifeDays());
+            }
+            Long size = stringRedisTemplate.opsForZSet().unionAndStore(dayKeys.get(0), dayKeys.subList(1, dayKeys.size()),
+                    WEEK_BUILDING_KEY, RedisZSetCommands.Aggregate.SUM, RedisZSetCommands.Weights.of(weights));
+            if (size == null || size == 0) {
+                stringRedisTemplate.delete(WEEK_KEY);
+                return;
+            }
+            stringRedisTemplate.rename(WEEK_BUILDING_KEY, WEEK_KEY);
+        } catch (Exception e) {
+            log.error("刷新周榜失败", e);
+        }
+    }
+
+    /**
+     * 累加热度：总榜与当天日榜在一次往返中完成；榜单失败不影响浏览、点赞、收藏本身
+     */
+    private void incrementScore(long pictureId, double score) {
+        String member = String.valueOf(pictureId);
+        String dayKey = getDayKey(LocalDate.now());
+        long expireSeconds = TimeUnit.DAYS.toSeconds(pictureRankingConfig.getWeekDays() + DAY_KEY_EXPIRE_EXTRA_DAYS);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                stringConnection.zIncrBy(ALL_KEY, score, member);
+                stringConnection.zIncrBy(dayKey, score, member);
+                stringConnection.expire(dayKey, expireSeconds);
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("更新图片热度失败, pictureId = {}", pictureId, e);
+        }
+    }
+
+    private String getKey(RankingWindowEnum window) {
+        switch (window) {
+            case TODAY:
+                return getDayKey(LocalDate.now());
+            case WEEK:
+                return WEEK_KEY;
+            case ALL:
+            default:
+                return ALL_KEY;
+        }
+    }
+
+    /**
+     * 最近几天的日榜 key，第一个为今天
+     */
+    private List<String> getRecentDayKeys() {
+        LocalDate today = LocalDate.now();
+        List<String> dayKeys = new ArrayList<>(pictureRankingConfig.getWeekDays());
+        for (int day = 0; day < pictureRankingConfig.getWeekDays(); day++) {
+            dayKeys.add(getDayKey(today.minusDays(day)));
+        }
+        return dayKeys;
+    }
+
+    private static String getDayKey(LocalDate date) {
+        return DAY_KEY_PREFIX + date.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    /**
+     * 总榜不存在时，按 id 游标分批读取公共图库中已过审图片的计数回填
+     */
+    private void warmUp() {
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(ALL_KEY))) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            long lastId = 0;
+            int total = 0;
+            while (true) {
+                LambdaQueryWrapper<Picture> queryWrapper = Wrappers.lambdaQuery(Picture.class)
+                        .select(Picture::getId, Picture::getViewCount, Picture::getLikeCount, Picture::getFavoriteCount)
+                        .gt(Picture::getId, lastId)
+                        .isNull(Picture::getSpaceId)
+                        .eq(Picture::getReviewStatus, PictureReviewStatusEnum.PASS.getValue())
+                        .orderByAsc(Picture::getId)
+                        .last("limit " + WARM_UP_BATCH_SIZE);
+                List<Picture> pictureList = pictureMapper.selectList(queryWrapper);
+                Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>(pictureList.size() * 2);
+                for (Picture picture : pictureList) {
+                    double score = ObjectUtil.defaultIfNull(picture.getViewCount(), 0L) * pictureRankingConfig.getViewWeight()
+                            + ObjectUtil.defaultIfNull(picture.getLikeCount(), 0) * pictureRankingConfig.getLikeWeight()
+                            + ObjectUtil.defaultIfNull(picture.getFavoriteCount(), 0) * pictureRankingConfig.getFavoriteWeight();
+                    tuples.add(new DefaultTypedTuple<>(String.valueOf(picture.getId()), score));
+                }
+                if (!tuples.isEmpty()) {
+                    stringRedisTemplate.opsForZSet().add(ALL_KEY, tuples);
+                }
+                total += pictureList.size();
+                if (pictureList.size() < WARM_UP_BATCH_SIZE) {
+                    break;
+                }
+                lastId = pictureList.get(pictureList.size() - 1).getId();
+            }
+            log.info("热门榜单回填完成, count = {}, cost = {} ms", total, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("热门榜单回填失败", e);
+        }
+    }
+}
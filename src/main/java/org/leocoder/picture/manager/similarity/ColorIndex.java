@@ -0,0 +1,317 @@
+package org.leocoder.picture.manager.similarity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.leocoder.picture.enums.ColorMetricEnum;
+import org.leocoder.picture.utils.ColorSimilarUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-11 09:30
+ * @description : 颜色索引，按分组保存预解码的颜色（打包 RGB int + Lab float），查询时顺序扫描并用有界数组维护前 k 个结果
+ * <p>
+ * 每个元素包含一个主色调和若干调色板颜色，每个颜色占一个槽位；删除时用末尾槽位填补空位，分组内不留空洞。
+ * 非线程安全，由调用方加锁。
+ */
+public class ColorIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * CIEDE2000 先按 Lab 欧氏距离取 k 的若干倍候选，再用 CIEDE2000 重排
+     */
+    private static final int CIEDE2000_CANDIDATE_FACTOR = 4;
+
+    /**
+     * 主色调槽位标记
+     */
+    private static final byte PRIMARY = 0;
+
+    private static final byte PALETTE = 1;
+
+    /**
+     * 分组 key -> 分组数据
+     */
+    private final Map<Long, Bucket> buckets = new HashMap<>();
+
+    /**
+     * 元素 id -> 所在分组
+     */
+    private final Map<Long, Bucket> bucketById = new HashMap<>();
+
+    /**
+     * 添加或更新元素（仅主色调）
+     *
+     * @param id    元素 id
+     * @param group 分组 key
+     * @param rgb   打包的 RGB 颜色（0xRRGGBB）
+     */
+    public void put(long id, long group, int rgb) {
+        put(id, group, rgb, null, null);
+    }
+
+    /**
+     * 添加或更新元素
+     *
+     * @param id      元素 id
+     * @param group   分组 key
+     * @param rgb     主色调（0xRRGGBB）
+     * @param lab     主色调的 Lab 值，为空时由 rgb 换算
+     * @param palette 调色板颜色（0xRRGGBB），可为空
+     */
+    public void put(long id, long group, int rgb, float[] lab, int[] palette) {
+        remove(id);
+        Bucket bucket = buckets.computeIfAbsent(group, Bucket::new);
+        bucketById.put(id, bucket);
+        int colorCount = 1 + (palette == null ? 0 : palette.length);
+        int[] slots = new int[colorCount];
+        slots[0] = bucket.append(id, rgb, lab == null ? ColorSimilarUtils.toLab(rgb) : lab, PRIMARY);
+        for (int i = 1; i < colorCount; i++) {
+            slots[i] = bucket.append(id, palette[i - 1], ColorSimilarUtils.toLab(palette[i - 1]), PALETTE);
+        }
+        bucket.slotsById.put(id, slots);
+    }
+
+    /**
+     * 删除元素
+     *
+     * @param id 元素 id
+     * @return 是否存在
+     */
+    public boolean remove(long id) {
+        Bucket bucket = bucketById.remove(id);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.remove(id);
+        if (bucket.slotsById.isEmpty()) {
+            buckets.remove(bucket.group);
+        }
+        return true;
+    }
+
+    public boolean contains(long id) {
+        return bucketById.containsKey(id);
+    }
+
+    public int size() {
+        return bucketById.size();
+    }
+
+    /**
+     * 按 RGB 欧氏距离查询分组内与目标颜色最接近的 k 个元素（仅比较主色调）
+     */
+    public List<Match> search(long group, int rgb, int k) {
+        return search(group, rgb, k, ColorMetricEnum.RGB, false);
+    }
+
+    /**
+     * 查询分组内与目标颜色最接近的 k 个元素
+     *
+     * @param group        分组 key
+     * @param rgb          目标颜色（0xRRGGBB）
+     * @param k            返回数量
+     * @param metric       相似度度量
+     * @param matchPalette 是否匹配调色板中的任一颜色，否则只比较主色调
+     * @return 按距离升序的结果；RGB、LAB 为欧氏距离的平方，CIEDE2000 为 ΔE00
+     */
+    public List<Match> search(long group, int rgb, int k, ColorMetricEnum metric, boolean matchPalette) {
+        Bucket bucket = buckets.get(group);
+        if (bucket == null || k <= 0) {
+            return Collections.emptyList();
+        }
+        boolean ciede2000 = ColorMetricEnum.CIEDE2000.equals(metric);
+        int limit = ciede2000 ? k * CIEDE2000_CANDIDATE_FACTOR : k;
+        float[] topDistances = new float[limit];
+        int[] topSlots = new int[limit];
+        int count = ColorMetricEnum.RGB.equals(metric)
+                ? bucket.scanRgb(rgb, matchPalette, topDistances, topSlots)
+                : bucket.scanLab(ColorSimilarUtils.toLab(rgb), matchPalette, topDistances, topSlots);
+
+        List<Match> matches = new ArrayList<>(count);
+        if (!ciede2000) {
+            for (int i = 0; i < count; i++) {
+                matches.add(new Match(bucket.ids[topSlots[i]], topDistances[i]));
+            }
+            return matches;
+        }
+        // CIEDE2000 只对候选计算
+        float[] target = ColorSimilarUtils.toLab(rgb);
+        for (int i = 0; i < count; i++) {
+            int offset = topSlots[i] * 3;
+            double distance = ColorSimilarUtils.ciede2000(target[0], target[1], target[2],
+                    bucket.labs[offset], bucket.labs[offset + 1], bucket.labs[offset + 2]);
+            matches.add(new Match(bucket.ids[topSlots[i]], (float) distance));
+        }
+        matches.sort((match1, match2) -> Float.compare(match1.getDistance(), match2.getDistance()));
+        return matches.size() > k ? new ArrayList<>(matches.subList(0, k)) : matches;
+    }
+
+    /**
+     * 把候选插入按距离升序的有界数组；同一元素只保留距离最近的槽位
+     *
+     * @return 插入后的数量
+     */
+    private static int offer(long[] ids, float[] topDistances, int[] topSlots, int count, int slot, float distance,
+                             boolean dedup) {
+        int limit = topDistances.length;
+        if (count == limit && distance >= topDistances[limit - 1]) {
+            return count;
+        }
+        if (dedup) {
+            long id = ids[slot];
+            for (int i = 0; i < count; i++) {
+                if (ids[topSlots[i]] == id) {
+                    if (distance >= topDistances[i]) {
+                        return count;
+                    }
+                    // 移除同一元素较远的槽位
+                    System.arraycopy(topDistances, i + 1, topDistances, i, count - i - 1);
+                    System.arraycopy(topSlots, i + 1, topSlots, i, count - i - 1);
+                    count--;
+                    break;
+                }
+            }
+        }
+        int position = count == limit ? limit - 1 : count++;
+        while (position > 0 && topDistances[position - 1] > distance) {
+            topDistances[position] = topDistances[position - 1];
+            topSlots[position] = topSlots[position - 1];
+            position--;
+        }
+        topDistances[position] = distance;
+        topSlots[position] = slot;
+        return count;
+    }
+
+    /**
+     * 分组数据（颜色、Lab、id、槽位类型为平行数组）
+     */
+    private static class Bucket {
+
+        private final long group;
+
+        private int[] colors = new int[INITIAL_CAPACITY];
+
+        private float[] labs = new float[INITIAL_CAPACITY * 3];
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+
+        private byte[] kinds = new byte[INITIAL_CAPACITY];
+
+        private final Map<Long, int[]> slotsById = new HashMap<>();
+
+        private int slotCount;
+
+        private Bucket(long group) {
+            this.group = group;
+        }
+
+        private int append(long id, int rgb, float[] lab, byte kind) {
+            if (slotCount == colors.length) {
+                int capacity = slotCount * 2;
+                colors = Arrays.copyOf(colors, capacity);
+                labs = Arrays.copyOf(labs, capacity * 3);
+                ids = Arrays.copyOf(ids, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+            }
+            int slot = slotCount++;
+            colors[slot] = rgb;
+            System.arraycopy(lab, 0, labs, slot * 3, 3);
+            ids[slot] = id;
+            kinds[slot] = kind;
+            return slot;
+        }
+
+        private void remove(long id) {
+            int[] slots = slotsById.remove(id);
+            if (slots == null) {
+                return;
+            }
+            // 从大到小删除，保证被移入空位的末尾槽位不属于正在删除的元素
+            int[] sorted = slots.clone();
+            Arrays.sort(sorted);
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                removeSlot(sorted[i]);
+            }
+        }
+
+        /**
+         * 把末尾槽位移入被删除的槽位，并更新其所属元素的槽位记录
+         */
+        private void removeSlot(int slot) {
+            int last = --slotCount;
+            if (slot == last) {
+                return;
+            }
+            colors[slot] = colors[last];
+            System.arraycopy(labs, last * 3, labs, slot * 3, 3);
+            ids[slot] = ids[last];
+            kinds[slot] = kinds[last];
+            int[] movedSlots = slotsById.get(ids[slot]);
+            for (int i = 0; i < movedSlots.length; i++) {
+                if (movedSlots[i] == last) {
+                    movedSlots[i] = slot;
+                    break;
+                }
+            }
+        }
+
+        private int scanRgb(int rgb, boolean matchPalette, float[] topDistances, int[] topSlots) {
+            int r = (rgb >> 16) & 0xFF;
+            int g = (rgb >> 8) & 0xFF;
+            int b = rgb & 0xFF;
+            int count = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (!matchPalette && kinds[slot] != PRIMARY) {
+                    continue;
+                }
+                int color = colors[slot];
+                int dr = ((color >> 16) & 0xFF) - r;
+                int dg = ((color >> 8) & 0xFF) - g;
+                int db = (color & 0xFF) - b;
+                count = offer(ids, topDistances, topSlots, count, slot, dr * dr + dg * dg + db * db, matchPalette);
+            }
+            return count;
+        }
+
+        private int scanLab(float[] lab, boolean matchPalette, float[] topDistances, int[] topSlots) {
+            float l = lab[0];
+            float a = lab[1];
+            float b = lab[2];
+            int count = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (!matchPalette && kinds[slot] != PRIMARY) {
+                    continue;
+                }
+                int offset = slot * 3;
+                float distance = ColorSimilarUtils.labSquaredDistance(l, a, b, labs[offset], labs[offset + 1], labs[offset + 2]);
+                count = offer(ids, topDistances, topSlots, count, slot, distance, matchPalette);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 查询结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+
+        private final long id;
+
+        /**
+         * 距离：RGB、LAB 为欧氏距离的平方，CIEDE2000 为 ΔE00
+         */
+        private final float distance;
+    }
+}
@@ -0,0 +1,463 @@
+package org.leocoder.picture.manager.similarity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-10 10:20
+ * @description : 特征向量存储（连续 float[]，非线程安全，由调用方加锁）
+ * 默认精确扫描 + 有界小顶堆取 top-k；图库较大时可安装倒排（IVF）近似索引，每个分组单独聚类，
+ * 查询时只扫描本组最近的若干个聚类；元素较少的分组不聚类，直接精确扫描本组的槽位
+ */
+public class FeatureVectorStore {
+
+    /**
+     * 已删除槽位的标记
+     */
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private final int dimension;
+
+    /**
+     * 槽位数据：向量（slot * dimension 起）、元素 id、分组 key
+     */
+    private float[] vectors;
+
+    private long[] ids;
+
+    private long[] groups;
+
+    private int slotCount;
+
+    private int removedCount;
+
+    /**
+     * 元素 id -> 槽位
+     */
+    private final Map<Long, Integer> slotMap = new HashMap<>();
+
+    /**
+     * 槽位布局版本，压缩重建后递增，旧版本的近似索引作废
+     */
+    @Getter
+    private int version;
+
+    private IvfIndex ivfIndex;
+
+    public FeatureVectorStore(int dimension) {
+        this.dimension = dimension;
+        this.vectors = new float[1024 * dimension];
+        this.ids = new long[1024];
+        this.groups = new long[1024];
+    }
+
+    /**
+     * 添加或更新元素
+     *
+     * @param id     元素 id
+     * @param group  分组 key，查询时只返回同组元素
+     * @param vector 单位长度特征向量
+     */
+    public void put(long id, long group, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("dimension mismatch: " + vector.length);
+        }
+        remove(id);
+        if (slotCount == ids.length) {
+            int newLength = ids.length << 1;
+            vectors = Arrays.copyOf(vectors, newLength * dimension);
+            ids = Arrays.copyOf(ids, newLength);
+            groups = Arrays.copyOf(groups, newLength);
+        }
+        int slot = slotCount++;
+        System.arraycopy(vector, 0, vectors, slot * dimension, dimension);
+        ids[slot] = id;
+        groups[slot] = group;
+        slotMap.put(id, slot);
+    }
+
+    /**
+     * 删除元素
+     *
+     * @param id 元素 id
+     * @return 是否删除成功
+     */
+    public boolean remove(long id) {
+        Integer slot = slotMap.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        ids[slot] = REMOVED;
+        if (++removedCount > slotCount / 2 && slotCount > 1024) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * 获取元素的特征向量
+     *
+     * @param id 元素 id
+     * @return 特征向量，不存在时返回 null
+     */
+    public float[] get(long id) {
+        Integer slot = slotMap.get(id);
+        return slot == null ? null : Arrays.copyOfRange(vectors, slot * dimension, (slot + 1) * dimension);
+    }
+
+    /**
+     * 有效元素数量
+     */
+    public int size() {
+        return slotMap.size();
+    }
+
+    /**
+     * 查询同组内最相似的 k 个元素
+     *
+     * @param group     分组 key
+     * @param query     单位长度查询向量
+     * @param k         返回数量
+     * @param excludeId 排除的元素 id（一般为查询图片本身）
+     * @param nprobe    使用近似索引时扫描的聚类数，近似索引未安装时忽略
+     * @return 按相似度降序的结果
+     */
+    public List<Match> search(long group, float[] query, int k, long excludeId, int nprobe) {
+        PriorityQueue<Match> heap = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Match::getScore));
+        if (ivfIndex == null) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                offer(heap, slot, group, query, k, excludeId);
+            }
+        } else {
+            // 近似索引构建之后才出现的分组没有聚类，只存在于下方新增的槽位中
+            GroupLists groupLists = ivfIndex.groupLists.get(group);
+            if (groupLists != null) {
+                for (int list : groupLists.nearestLists(query, nprobe, dimension)) {
+                    for (int slot : groupLists.lists[list]) {
+                        offer(heap, slot, group, query, k, excludeId);
+                    }
+                }
+            }
+            // 近似索引构建之后新增的槽位直接扫描
+            for (int slot = ivfIndex.coveredSlotCount; slot < slotCount; slot++) {
+                offer(heap, slot, group, query, k, excludeId);
+            }
+        }
+        List<Match> matches = new ArrayList<>(heap);
+        matches.sort(Comparator.comparingDouble(Match::getScore).reversed());
+        return matches;
+    }
+
+    /**
+     * 复制当前所有槽位的向量，用于在锁外训练近似索引
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(Arrays.copyOf(vectors, slotCount * dimension), Arrays.copyOf(ids, slotCount),
+                Arrays.copyOf(groups, slotCount), slotCount, version);
+    }
+
+    /**
+     * 安装近似索引；训练期间槽位布局发生变化（压缩重建）时放弃安装
+     *
+     * @return 是否安装成功
+     */
+    public boolean installApproximateIndex(IvfIndex index) {
+        if (index.version != version) {
+            return false;
+        }
+        this.ivfIndex = index;
+        return true;
+    }
+
+    /**
+     * 卸载近似索引，回到精确扫描
+     */
+    public void clearApproximateIndex() {
+        this.ivfIndex = null;
+    }
+
+    public boolean hasApproximateIndex() {
+        return ivfIndex != null;
+    }
+
+    private void offer(PriorityQueue<Match> heap, int slot, long group, float[] query, int k, long excludeId) {
+        long id = ids[slot];
+        if (id == REMOVED || id == excludeId || groups[slot] != group) {
+            return;
+        }
+        float score = dot(vectors, slot * dimension, query, dimension);
+        if (heap.size() < k) {
+            heap.offer(new Match(id, score));
+        } else if (score > heap.peek().getScore()) {
+            heap.poll();
+            heap.offer(new Match(id, score));
+        }
+    }
+
+    /**
+     * 清理已删除的槽位，近似索引随之作废
+     */
+    private void compact() {
+        float[] oldVectors = vectors;
+        long[] oldIds = ids;
+        long[] oldGroups = groups;
+        int oldSlotCount = slotCount;
+        int capacity = Math.max(1024, slotMap.size() * 2);
+        vectors = new float[capacity * dimension];
+        ids = new long[capacity];
+        groups = new long[capacity];
+        slotCount = 0;
+        removedCount = 0;
+        slotMap.clear();
+        for (int slot = 0; slot < oldSlotCount; slot++) {
+            if (oldIds[slot] != REMOVED) {
+                int newSlot = slotCount++;
+                System.arraycopy(oldVectors, slot * dimension, vectors, newSlot * dimension, dimension);
+                ids[newSlot] = oldIds[slot];
+                groups[newSlot] = oldGroups[slot];
+                slotMap.put(oldIds[slot], newSlot);
+            }
+        }
+        version++;
+        ivfIndex = null;
+    }
+
+    private static float dot(float[] vectors, int offset, float[] query, int dimension) {
+        float sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += vectors[offset + i] * query[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 训练倒排近似索引：按分组划分快照中的有效槽位，元素数达到 minGroupSize 的分组单独做球面 k-means（采样训练），
+     * 聚类数取 sqrt(组内元素数)；其余分组保留为单个列表，查询时精确扫描
+     *
+     * @param snapshot     向量快照
+     * @param dimension    向量维度
+     * @param minGroupSize 分组聚类的最小元素数
+     * @param sampleSize   每个分组的训练采样数
+     * @param iterations   迭代次数
+     * @param random       随机数
+     * @return 近似索引
+     */
+    public static IvfIndex train(Snapshot snapshot, int dimension, int minGroupSize, int sampleSize,
+                                 int iterations, Random random) {
+        // 1. 按分组收集有效槽位
+        Map<Long, SlotList> slotsByGroup = new HashMap<>();
+        for (int slot = 0; slot < snapshot.slotCount; slot++) {
+            if (snapshot.ids[slot] != REMOVED) {
+                slotsByGroup.computeIfAbsent(snapshot.groups[slot], key -> new SlotList()).add(slot);
+            }
+        }
+        // 2. 逐组构建倒排列表
+        Map<Long, GroupLists> groupLists = new HashMap<>(slotsByGroup.size() * 2);
+        for (Map.Entry<Long, SlotList> entry : slotsByGroup.entrySet()) {
+            int[] slots = entry.getValue().toArray();
+            if (slots.length < minGroupSize) {
+                groupLists.put(entry.getKey(), new GroupLists(null, new int[][]{slots}));
+            } else {
+                groupLists.put(entry.getKey(), trainGroup(snapshot, dimension, slots, (int) Math.sqrt(slots.length),
+                        sampleSize, iterations, random));
+            }
+        }
+        return new IvfIndex(groupLists, snapshot.slotCount, snapshot.version);
+    }
+
+    /**
+     * 对一个分组的槽位做球面 k-means，再把组内全部槽位分配到最近的聚类
+     */
+    private static GroupLists trainGroup(Snapshot snapshot, int dimension, int[] slots, int listCount,
+                                         int sampleSize, int iterations, Random random) {
+        int liveCount = slots.length;
+        listCount = Math.max(1, Math.min(listCount, liveCount));
+        // 1. 采样（部分 Fisher-Yates 洗牌，不改动原数组）
+        int[] shuffled = Arrays.copyOf(slots, liveCount);
+        int[] sample = new int[Math.min(sampleSize, liveCount)];
+        for (int i = 0; i < sample.length; i++) {
+            int j = i + random.nextInt(liveCount - i);
+            int tmp = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = tmp;
+            sample[i] = shuffled[i];
+        }
+        // 2. 球面 k-means
+        float[] centroids = new float[listCount * dimension];
+        for (int c = 0; c < listCount; c++) {
+            System.arraycopy(snapshot.vectors, sample[c] * dimension, centroids, c * dimension, dimension);
+        }
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            float[] sums = new float[listCount * dimension];
+            for (int slot : sample) {
+                int c = nearest(centroids, listCount, snapshot.vectors, slot * dimension, dimension);
+                for (int d = 0; d < dimension; d++) {
+                    sums[c * dimension + d] += snapshot.vectors[slot * dimension + d];
+                }
+            }
+            for (int c = 0; c < listCount; c++) {
+                double norm = 0;
+                for (int d = 0; d < dimension; d++) {
+                    norm += sums[c * dimension + d] * sums[c * dimension + d];
+                }
+                // 空聚类保留原中心
+                if (norm > 0) {
+                    float scale = (float) (1 / Math.sqrt(norm));
+                    for (int d = 0; d < dimension; d++) {
+                        centroids[c * dimension + d] = sums[c * dimension + d] * scale;
+                    }
+                }
+            }
+        }
+        // 3. 分配组内全部槽位
+        int[] listSizes = new int[listCount];
+        int[] assignments = new int[liveCount];
+        for (int i = 0; i < liveCount; i++) {
+            int c = nearest(centroids, listCount, snapshot.vectors, slots[i] * dimension, dimension);
+            assignments[i] = c;
+            listSizes[c]++;
+        }
+        int[][] lists = new int[listCount][];
+        for (int c = 0; c < listCount; c++) {
+            lists[c] = new int[listSizes[c]];
+            listSizes[c] = 0;
+        }
+        for (int i = 0; i < liveCount; i++) {
+            int c = assignments[i];
+            lists[c][listSizes[c]++] = slots[i];
+        }
+        return new GroupLists(centroids, lists);
+    }
+
+    private static int nearest(float[] centroids, int listCount, float[] vectors, int offset, int dimension) {
+        int best = 0;
+        float bestScore = -Float.MAX_VALUE;
+        for (int c = 0; c < listCount; c++) {
+            float score = 0;
+            for (int d = 0; d < dimension; d++) {
+                score += centroids[c * dimension + d] * vectors[offset + d];
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 向量快照
+     */
+    @AllArgsConstructor
+    public static class Snapshot {
+
+        private final float[] vectors;
+
+        private final long[] ids;
+
+        private final long[] groups;
+
+        private final int slotCount;
+
+        private final int version;
+    }
+
+    /**
+     * 倒排近似索引
+     */
+    @AllArgsConstructor
+    public static class IvfIndex {
+
+        /**
+         * 分组 key -> 组内倒排列表
+         */
+        private final Map<Long, GroupLists> groupLists;
+
+        /**
+         * 构建时覆盖的槽位数，之后新增的槽位需要额外扫描
+         */
+        private final int coveredSlotCount;
+
+        private final int version;
+    }
+
+    /**
+     * 单个分组的倒排列表
+     */
+    @AllArgsConstructor
+    private static class GroupLists {
+
+        /**
+         * 聚类中心，为 null 表示分组未聚类，只有一个列表，查询时精确扫描
+         */
+        private final float[] centroids;
+
+        /**
+         * 聚类 -> 槽位
+         */
+        private final int[][] lists;
+
+        /**
+         * 与查询向量最接近的 nprobe 个聚类
+         */
+        private int[] nearestLists(float[] query, int nprobe, int dimension) {
+            int listCount = lists.length;
+            if (centroids == null) {
+                return new int[]{0};
+            }
+            nprobe = Math.min(nprobe, listCount);
+            float[] scores = new float[listCount];
+            Integer[] order = new Integer[listCount];
+            for (int c = 0; c < listCount; c++) {
+                scores[c] = dot(centroids, c * dimension, query, dimension);
+                order[c] = c;
+            }
+            Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+            int[] result = new int[nprobe];
+            for (int i = 0; i < nprobe; i++) {
+                result[i] = order[i];
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 可增长的槽位列表，训练时按分组收集槽位
+     */
+    private static class SlotList {
+
+        private int[] slots = new int[16];
+
+        private int size;
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size << 1);
+            }
+            slots[size++] = slot;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(slots, size);
+        }
+    }
+
+    /**
+     * 匹配结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+
+        private final long id;
+
+        /**
+         * 余弦相似度（-1 ~ 1）
+         */
+        private final float score;
+    }
+}
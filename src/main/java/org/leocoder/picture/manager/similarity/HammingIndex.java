@@ -0,0 +1,258 @@
+package org.leocoder.picture.manager.similarity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.leocoder.picture.utils.PerceptualHashUtils;
+
+import java.util.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-07 09:40
+ * @description : 64 位哈希的多索引汉明距离查询（Multi-Index Hashing，非线程安全，由调用方加锁）
+ * 把哈希拆成 4 段 16 位分别建倒排桶。汉明距离不超过 d 时，至少有一段的距离不超过 d / 4（抽屉原理），
+ * 因此只需在每段中枚举距离不超过 d / 4 的桶取候选，再用完整哈希校验
+ */
+public class HammingIndex {
+
+    private static final int CHUNK_COUNT = 4;
+
+    private static final int CHUNK_BITS = 16;
+
+    private static final int BUCKET_COUNT = 1 << CHUNK_BITS;
+
+    /**
+     * 已删除槽位的标记
+     */
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    /**
+     * 一次候选桶随机访问约等于多少次顺序扫描，用于选择查询方式
+     */
+    private static final int RANDOM_ACCESS_COST = 8;
+
+    /**
+     * 每段查询半径（0 ~ 4）对应的异或掩码，半径 4 时每段需探查 2517 个桶
+     */
+    private static final int[][] NEIGHBOR_MASKS = {
+            buildNeighborMasks(0), buildNeighborMasks(1), buildNeighborMasks(2),
+            buildNeighborMasks(3), buildNeighborMasks(4)
+    };
+
+    /**
+     * 槽位数据：元素 id、哈希、分组 key（如空间 id）
+     */
+    private long[] ids = new long[1024];
+
+    private long[] hashes = new long[1024];
+
+    private long[] groups = new long[1024];
+
+    private int slotCount;
+
+    /**
+     * 已删除的槽位数，超过一半时重建
+     */
+    private int removedCount;
+
+    /**
+     * 倒排桶：[段][段值] -> 槽位数组
+     */
+    private final int[][][] buckets = new int[CHUNK_COUNT][BUCKET_COUNT][];
+
+    private final int[][] bucketSizes = new int[CHUNK_COUNT][BUCKET_COUNT];
+
+    /**
+     * 元素 id -> 槽位
+     */
+    private final Map<Long, Integer> slotMap = new HashMap<>();
+
+    /**
+     * 添加或更新元素
+     *
+     * @param id    元素 id
+     * @param group 分组 key，查询时只返回同组元素
+     * @param hash  64 位哈希
+     */
+    public void put(long id, long group, long hash) {
+        remove(id);
+        if (slotCount == ids.length) {
+            int newLength = ids.length << 1;
+            ids = Arrays.copyOf(ids, newLength);
+            hashes = Arrays.copyOf(hashes, newLength);
+            groups = Arrays.copyOf(groups, newLength);
+        }
+        int slot = slotCount++;
+        ids[slot] = id;
+        hashes[slot] = hash;
+        groups[slot] = group;
+        for (int chunk = 0; chunk < CHUNK_COUNT; chunk++) {
+            int value = chunkValue(hash, chunk);
+            int[] bucket = buckets[chunk][value];
+            int size = bucketSizes[chunk][value];
+            if (bucket == null) {
+                bucket = new int[2];
+            } else if (size == bucket.length) {
+                bucket = Arrays.copyOf(bucket, size << 1);
+            }
+            bucket[size] = slot;
+            buckets[chunk][value] = bucket;
+            bucketSizes[chunk][value] = size + 1;
+        }
+        slotMap.put(id, slot);
+    }
+
+    /**
+     * 删除元素（槽位标记为已删除，查询时跳过）
+     *
+     * @param id 元素 id
+     * @return 是否删除成功
+     */
+    public boolean remove(long id) {
+        Integer slot = slotMap.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        ids[slot] = REMOVED;
+        if (++removedCount > slotCount / 2 && slotCount > 1024) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * 是否包含元素
+     */
+    public boolean contains(long id) {
+        return slotMap.containsKey(id);
+    }
+
+    /**
+     * 有效元素数量
+     */
+    public int size() {
+        return slotMap.size();
+    }
+
+    /**
+     * 查询同组内汉明距离不超过 maxDistance 的元素，按距离升序
+     *
+     * @param group       分组 key
+     * @param hash        目标哈希
+     * @param maxDistance 最大汉明距离（不超过 19）
+     * @return 匹配结果
+     */
+    public List<Match> search(long group, long hash, int maxDistance) {
+        int chunkRadius = maxDistance / CHUNK_COUNT;
+        if (chunkRadius >= NEIGHBOR_MASKS.length) {
+            throw new IllegalArgumentException("maxDistance too large: " + maxDistance);
+        }
+        int[] masks = NEIGHBOR_MASKS[chunkRadius];
+        List<Match> matches = new ArrayList<>();
+        // 半径较大时候选桶随机访问的开销会超过顺序扫描，直接扫描连续数组
+        long expectedCandidates = (long) masks.length * CHUNK_COUNT * (slotCount / BUCKET_COUNT + 1);
+        if (expectedCandidates * RANDOM_ACCESS_COST > slotCount) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (ids[slot] == REMOVED || groups[slot] != group) {
+                    continue;
+                }
+                int distance = PerceptualHashUtils.hammingDistance(hashes[slot], hash);
+                if (distance <= maxDistance) {
+                    matches.add(new Match(ids[slot], distance));
+                }
+            }
+            matches.sort(Comparator.comparingInt(Match::getDistance));
+            return matches;
+        }
+        for (int chunk = 0; chunk < CHUNK_COUNT; chunk++) {
+            int queryValue = chunkValue(hash, chunk);
+            for (int mask : masks) {
+                int value = queryValue ^ mask;
+                int size = bucketSizes[chunk][value];
+                int[] bucket = buckets[chunk][value];
+                for (int i = 0; i < size; i++) {
+                    int slot = bucket[i];
+                    if (ids[slot] == REMOVED || groups[slot] != group
+                            || foundInEarlierChunk(hashes[slot], hash, chunk, chunkRadius)) {
+                        continue;
+                    }
+                    int distance = PerceptualHashUtils.hammingDistance(hashes[slot], hash);
+                    if (distance <= maxDistance) {
+                        matches.add(new Match(ids[slot], distance));
+                    }
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::getDistance));
+        return matches;
+    }
+
+    /**
+     * 候选元素在更靠前的段中已经命中过，跳过以免重复（代替 visited 集合，不需要额外分配）
+     */
+    private boolean foundInEarlierChunk(long candidate, long hash, int chunk, int chunkRadius) {
+        long diff = candidate ^ hash;
+        for (int earlier = 0; earlier < chunk; earlier++) {
+            if (Integer.bitCount(chunkValue(diff, earlier)) <= chunkRadius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 清理已删除的槽位并重建倒排桶
+     */
+    private void compact() {
+        long[] oldIds = ids;
+        long[] oldHashes = hashes;
+        long[] oldGroups = groups;
+        int oldSlotCount = slotCount;
+        ids = new long[Math.max(1024, slotMap.size() * 2)];
+        hashes = new long[ids.length];
+        groups = new long[ids.length];
+        slotCount = 0;
+        removedCount = 0;
+        slotMap.clear();
+        for (int chunk = 0; chunk < CHUNK_COUNT; chunk++) {
+            Arrays.fill(buckets[chunk], null);
+            Arrays.fill(bucketSizes[chunk], 0);
+        }
+        for (int slot = 0; slot < oldSlotCount; slot++) {
+            if (oldIds[slot] != REMOVED) {
+                put(oldIds[slot], oldGroups[slot], oldHashes[slot]);
+            }
+        }
+    }
+
+    private int chunkValue(long hash, int chunk) {
+        return (int) (hash >>> (chunk * CHUNK_BITS)) & (BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 枚举 16 位内所有位数不超过 radius 的异或掩码
+     */
+    private static int[] buildNeighborMasks(int radius) {
+        int[] masks = new int[BUCKET_COUNT];
+        int count = 0;
+        for (int mask = 0; mask < BUCKET_COUNT; mask++) {
+            if (Integer.bitCount(mask) <= radius) {
+                masks[count++] = mask;
+            }
+        }
+        return Arrays.copyOf(masks, count);
+    }
+
+    /**
+     * 匹配结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+
+        private final long id;
+
+        private final int distance;
+    }
+}
@@ -0,0 +1,160 @@
+package org.leocoder.picture.manager.similarity;
+
+import cn.hutool.core.thread.ThreadUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.domain.Picture;
+import org.leocoder.picture.enums.ColorMetricEnum;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.leocoder.picture.utils.ColorSimilarUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-11 10:00
+ * @description : 图片主色调与调色板内存索引（按空间分组），用于按颜色搜图，避免每次查询全量加载并解析空间内所有图片
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureColorIndex {
+
+    /**
+     * 预热时每批读取的记录数
+     */
+    private static final int WARM_UP_BATCH_SIZE = 5000;
+
+    /**
+     * 公共图库对应的空间 key
+     */
+    private static final long PUBLIC_SPACE_KEY = 0L;
+
+    private final PictureMapper pictureMapper;
+
+    private final ColorIndex colorIndex = new ColorIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        ThreadUtil.newThread(this::warmUp, "picture-color-index-warm-up", true).start();
+    }
+
+    /**
+     * 添加或更新图片主色调与调色板
+     *
+     * @param picture 图片（需包含 id、spaceId、picColor，可选 Lab 与调色板）
+     */
+    public void add(Picture picture) {
+        if (picture == null || picture.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            put(picture);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除图片主色调
+     *
+     * @param pictureIds 图片 id
+     */
+    public void remove(Collection<Long> pictureIds) {
+        lock.writeLock().lock();
+        try {
+            pictureIds.forEach(colorIndex::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询同一空间内与目标颜色最接近的图片
+     *
+     * @param spaceId      空间 id，为空表示公共图库
+     * @param rgb          目标颜色（0xRRGGBB）
+     * @param k            返回数量
+     * @param metric       相似度度量
+     * @param matchPalette 是否匹配调色板中的任一颜色
+     * @return 匹配结果（按距离升序）
+     */
+    public List<ColorIndex.Match> search(Long spaceId, int rgb, int k, ColorMetricEnum metric, boolean matchPalette) {
+        lock.readLock().lock();
+        try {
+            return colorIndex.search(getSpaceKey(spaceId), rgb, k, metric, matchPalette);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 写入索引，调用方需持有写锁；已持久化的 Lab 值直接使用，避免重复换算
+     */
+    private void put(Picture picture) {
+        int rgb = ColorSimilarUtils.parseRgb(picture.getPicColor());
+        if (rgb < 0) {
+            return;
+        }
+        float[] lab = null;
+        if (picture.getPicLabL() != null && picture.getPicLabA() != null && picture.getPicLabB() != null) {
+            lab = new float[]{picture.getPicLabL(), picture.getPicLabA(), picture.getPicLabB()};
+        }
+        colorIndex.put(picture.getId(), getSpaceKey(picture.getSpaceId()), rgb, lab,
+                ColorSimilarUtils.parsePalette(picture.getPicPalette()));
+    }
+
+    private long getSpaceKey(Long spaceId) {
+        return spaceId == null ? PUBLIC_SPACE_KEY : spaceId;
+    }
+
+    /**
+     * 按 id 游标分批加载已有的主色调
+     */
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int total = 0;
+        try {
+            while (true) {
+                LambdaQueryWrapper<Picture> queryWrapper = Wrappers.lambdaQuery(Picture.class)
+                        .select(Picture::getId, Picture::getSpaceId, Picture::getPicColor, Picture::getPicLabL,
+                                Picture::getPicLabA, Picture::getPicLabB, Picture::getPicPalette)
+                        .gt(Picture::getId, lastId)
+                        .isNotNull(Picture::getPicColor)
+                        .orderByAsc(Picture::getId)
+                        .last("limit " + WARM_UP_BATCH_SIZE);
+                List<Picture> pictureList = pictureMapper.selectList(queryWrapper);
+                lock.writeLock().lock();
+                try {
+                    for (Picture picture : pictureList) {
+                        // 预热期间新上传的图片已经加入索引
+                        if (!colorIndex.contains(picture.getId())) {
+                            put(picture);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                total += pictureList.size();
+                if (pictureList.size() < WARM_UP_BATCH_SIZE) {
+                    break;
+                }
+                lastId = pictureList.get(pictureList.size() - 1).getId();
+            }
+            log.info("图片主色调索引预热完成, count = {}, cost = {} ms", total, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("图片主色调索引预热失败", e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.leocoder.picture.manager.similarity;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.domain.Picture;
+import org.leocoder.picture.manager.CosManager;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.leocoder.picture.utils.ColorSimilarUtils;
+import org.leocoder.picture.utils.ImageFeatureUtils;
+import org.leocoder.picture.utils.PerceptualHashUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-27 10:30
+ * @description : 图片相似度特征提取（感知哈希、特征向量、调色板）
+ * <p>
+ * 提取需要从对象存储下载缩略图，上传请求默认交给后台线程异步提取，写回数据库后更新各节点的相似度索引；
+ * 队列已满或提取失败的图片，在以图搜图、近似重复查询时按需补算。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureFeatureExtractor {
+
+    /**
+     * 提取的调色板颜色数
+     */
+    private static final int PALETTE_SIZE = 5;
+
+    private final CosManager cosManager;
+
+    private final PictureMapper pictureMapper;
+
+    private final PictureIndexSynchronizer pictureIndexSynchronizer;
+
+    /**
+     * 异步提取的线程池，队列满时放弃提取，之后查询时按需补算
+     */
+    private final ThreadPoolExecutor extractExecutor = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(1024), new NamedThreadFactory("picture-feature-extract-", true),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * 由缩略图计算感知哈希、特征向量与调色板，失败时保持为空
+     *
+     * @param picture 图片（需已有 url）
+     * @return 是否计算成功
+     */
+    public boolean fill(Picture picture) {
+        String url = StrUtil.blankToDefault(picture.getThumbnailUrl(), picture.getUrl());
+        try {
+            BufferedImage image = cosManager.getPictureImage(url);
+            if (image == null) {
+                return false;
+            }
+            picture.setPicPhash(PerceptualHashUtils.dHash(image));
+            picture.setPicFeature(ImageFeatureUtils.toBytes(ImageFeatureUtils.extract(image)));
+            picture.setPicPalette(ColorSimilarUtils.formatPalette(ImageFeatureUtils.extractPalette(image, PALETTE_SIZE)));
+            return true;
+        } catch (Exception e) {
+            log.warn("计算图片特征失败, url = {}", url, e);
+            return false;
+        }
+    }
+
+    /**
+     * 计算特征并写回数据库，再更新各节点的相似度索引
+     *
+     * @param picture 图片（需包含 id、spaceId、url，主色调可选）
+     * @return 是否计算并写回成功
+     */
+    public boolean fillAndSave(Picture picture) {
+        if (!fill(picture)) {
+            return false;
+        }
+        int updated = pictureMapper.update(null, Wrappers.lambdaUpdate(Picture.class)
+                .eq(Picture::getId, picture.getId())
+                .set(Picture::getPicPhash, picture.getPicPhash())
+                .set(Picture::getPicFeature, picture.getPicFeature())
+                .set(Picture::getPicPalette, picture.getPicPalette()));
+        // 图片已被删除时不再加入索引
+        if (updated > 0) {
+            pictureIndexSynchronizer.add(picture);
+        }
+        return updated > 0;
+    }
+
+    /**
+     * 异步计算特征并写回
+     *
+     * @param picture 已入库的图片（需包含 id、spaceId、url，主色调可选）
+     */
+    public void fillAndSaveAsync(Picture picture) {
+        // 复制需要的字段，避免与调用方共享对象
+        Picture target = Picture.builder()
+                .id(picture.getId())
+                .spaceId(picture.getSpaceId())
+                .url(picture.getUrl())
+                .thumbnailUrl(picture.getThumbnailUrl())
+                .picColor(picture.getPicColor())
+                .picLabL(picture.getPicLabL())
+                .picLabA(picture.getPicLabA())
+                .picLabB(picture.getPicLabB())
+                .build();
+        try {
+            extractExecutor.execute(() -> {
+                if (!fillAndSave(target)) {
+                    log.warn("异步计算图片特征失败, pictureId = {}", target.getId());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("图片特征提取队列已满, 查询时再补算, pictureId = {}", target.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        extractExecutor.shutdownNow();
+    }
+}
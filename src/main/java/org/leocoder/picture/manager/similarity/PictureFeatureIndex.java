@@ -0,0 +1,208 @@
+package org.leocoder.picture.manager.similarity;
+
+import cn.hutool.core.thread.ThreadUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.config.PictureSimilarityConfig;
+import org.leocoder.picture.domain.Picture;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.leocoder.picture.utils.ImageFeatureUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-10 11:10
+ * @description : 图片特征向量内存索引（按空间分组），用于本地以图搜图，查询不依赖网络
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureFeatureIndex {
+
+    /**
+     * 预热时每批读取的记录数
+     */
+    private static final int WARM_UP_BATCH_SIZE = 2000;
+
+    /**
+     * 公共图库对应的空间 key
+     */
+    private static final long PUBLIC_SPACE_KEY = 0L;
+
+    private final PictureMapper pictureMapper;
+
+    private final PictureSimilarityConfig similarityConfig;
+
+    private final FeatureVectorStore featureVectorStore = new FeatureVectorStore(ImageFeatureUtils.DIMENSION);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        ThreadUtil.newThread(this::warmUp, "picture-feature-index-warm-up", true).start();
+    }
+
+    /**
+     * 添加或更新图片特征
+     *
+     * @param pictureId 图片 id
+     * @param spaceId   空间 id，为空表示公共图库
+     * @param feature   特征向量
+     */
+    public void add(Long pictureId, Long spaceId, float[] feature) {
+        if (pictureId == null || feature == null || feature.length != ImageFeatureUtils.DIMENSION) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            featureVectorStore.put(pictureId, getSpaceKey(spaceId), feature);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除图片特征
+     *
+     * @param pictureIds 图片 id
+     */
+    public void remove(Collection<Long> pictureIds) {
+        lock.writeLock().lock();
+        try {
+            pictureIds.forEach(featureVectorStore::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取图片特征
+     *
+     * @param pictureId 图片 id
+     * @return 特征向量，不在索引中时返回 null
+     */
+    public float[] get(Long pictureId) {
+        lock.readLock().lock();
+        try {
+            return featureVectorStore.get(pictureId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询同一空间内最相似的图片
+     *
+     * @param spaceId   空间 id，为空表示公共图库
+     * @param feature   查询特征
+     * @param k         返回数量
+     * @param excludeId 排除的图片 id
+     * @return 按相似度降序的结果
+     */
+    public List<FeatureVectorStore.Match> search(Long spaceId, float[] feature, int k, Long excludeId) {
+        lock.readLock().lock();
+        try {
+            return featureVectorStore.search(getSpaceKey(spaceId), feature, k,
+                    excludeId == null ? Long.MIN_VALUE : excludeId, similarityConfig.getNprobe());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 定时重建近似索引：图片数达到阈值时在锁外训练聚类，再短暂加写锁安装
+     */
+    @Scheduled(initialDelay = 5 * 60 * 1000, fixedDelay = 30 * 60 * 1000)
+    public void rebuildApproximateIndex() {
+        FeatureVectorStore.Snapshot snapshot = null;
+        int size;
+        lock.readLock().lock();
+        try {
+            size = featureVectorStore.size();
+            if (size >= similarityConfig.getApproximateThreshold()) {
+                snapshot = featureVectorStore.snapshot();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (snapshot == null) {
+            // 图片数回落到阈值以下时恢复精确扫描
+            lock.writeLock().lock();
+            try {
+                featureVectorStore.clearApproximateIndex();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        long start = System.currentTimeMillis();
+        // 每个空间单独聚类，聚类数取 sqrt(空间内图片数)；图片较少的空间精确扫描，不受其他空间分布影响召回率
+        FeatureVectorStore.IvfIndex ivfIndex = FeatureVectorStore.train(snapshot, ImageFeatureUtils.DIMENSION,
+                similarityConfig.getApproximateGroupThreshold(), similarityConfig.getTrainSampleSize(),
+                similarityConfig.getTrainIterations(), new Random());
+        lock.writeLock().lock();
+        try {
+            boolean installed = featureVectorStore.installApproximateIndex(ivfIndex);
+            log.info("图片特征近似索引重建{}, size = {}, cost = {} ms", installed ? "完成" : "作废",
+                    size, System.currentTimeMillis() - start);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long getSpaceKey(Long spaceId) {
+        return spaceId == null ? PUBLIC_SPACE_KEY : spaceId;
+    }
+
+    /**
+     * 按 id 游标分批加载已有的特征向量
+     */
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int total = 0;
+        try {
+            while (true) {
+                LambdaQueryWrapper<Picture> queryWrapper = Wrappers.lambdaQuery(Picture.class)
+                        .select(Picture::getId, Picture::getSpaceId, Picture::getPicFeature)
+                        .gt(Picture::getId, lastId)
+                        .isNotNull(Picture::getPicFeature)
+                        .orderByAsc(Picture::getId)
+                        .last("limit " + WARM_UP_BATCH_SIZE);
+                List<Picture> pictureList = pictureMapper.selectList(queryWrapper);
+                lock.writeLock().lock();
+                try {
+                    for (Picture picture : pictureList) {
+                        // 预热期间新上传的图片已经加入索引
+                        if (featureVectorStore.get(picture.getId()) == null) {
+                            float[] feature = ImageFeatureUtils.fromBytes(picture.getPicFeature());
+                            if (feature.length == ImageFeatureUtils.DIMENSION) {
+                                featureVectorStore.put(picture.getId(), getSpaceKey(picture.getSpaceId()), feature);
+                            }
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                total += pictureList.size();
+                if (pictureList.size() < WARM_UP_BATCH_SIZE) {
+                    break;
+                }
+                lastId = pictureList.get(pictureList.size() - 1).getId();
+            }
+            log.info("图片特征索引预热完成, count = {}, cost = {} ms", total, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("图片特征索引预热失败", e);
+        }
+    }
+}
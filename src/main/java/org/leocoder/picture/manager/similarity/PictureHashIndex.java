@@ -0,0 +1,141 @@
+package org.leocoder.picture.manager.similarity;
+
+import cn.hutool.core.thread.ThreadUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.domain.Picture;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-07 10:10
+ * @description : 图片感知哈希内存索引（多索引汉明查询，按空间分组），用于近似重复图片查询
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureHashIndex {
+
+    /**
+     * 预热时每批读取的记录数
+     */
+    private static final int WARM_UP_BATCH_SIZE = 5000;
+
+    /**
+     * 公共图库对应的空间 key
+     */
+    private static final long PUBLIC_SPACE_KEY = 0L;
+
+    private final PictureMapper pictureMapper;
+
+    private final HammingIndex hammingIndex = new HammingIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        ThreadUtil.newThread(this::warmUp, "picture-hash-index-warm-up", true).start();
+    }
+
+    /**
+     * 添加或更新图片哈希
+     *
+     * @param pictureId 图片 id
+     * @param spaceId   空间 id，为空表示公共图库
+     * @param hash      感知哈希
+     */
+    public void add(Long pictureId, Long spaceId, Long hash) {
+        if (pictureId == null || hash == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            hammingIndex.put(pictureId, getSpaceKey(spaceId), hash);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除图片哈希
+     *
+     * @param pictureIds 图片 id
+     */
+    public void remove(Collection<Long> pictureIds) {
+        lock.writeLock().lock();
+        try {
+            pictureIds.forEach(hammingIndex::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询同一空间内汉明距离不超过 maxDistance 的图片
+     *
+     * @param spaceId     空间 id，为空表示公共图库
+     * @param hash        目标哈希
+     * @param maxDistance 最大汉明距离
+     * @return 匹配结果（按距离升序）
+     */
+    public List<HammingIndex.Match> search(Long spaceId, long hash, int maxDistance) {
+        lock.readLock().lock();
+        try {
+            return hammingIndex.search(getSpaceKey(spaceId), hash, maxDistance);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long getSpaceKey(Long spaceId) {
+        return spaceId == null ? PUBLIC_SPACE_KEY : spaceId;
+    }
+
+    /**
+     * 按 id 游标分批加载已有的感知哈希
+     */
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int total = 0;
+        try {
+            while (true) {
+                LambdaQueryWrapper<Picture> queryWrapper = Wrappers.lambdaQuery(Picture.class)
+                        .select(Picture::getId, Picture::getSpaceId, Picture::getPicPhash)
+                        .gt(Picture::getId, lastId)
+                        .isNotNull(Picture::getPicPhash)
+                        .orderByAsc(Picture::getId)
+                        .last("limit " + WARM_UP_BATCH_SIZE);
+                List<Picture> pictureList = pictureMapper.selectList(queryWrapper);
+                lock.writeLock().lock();
+                try {
+                    for (Picture picture : pictureList) {
+                        // 预热期间新上传的图片已经加入索引
+                        if (!hammingIndex.contains(picture.getId())) {
+                            hammingIndex.put(picture.getId(), getSpaceKey(picture.getSpaceId()), picture.getPicPhash());
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                total += pictureList.size();
+                if (pictureList.size() < WARM_UP_BATCH_SIZE) {
+                    break;
+                }
+                lastId = pictureList.get(pictureList.size() - 1).getId();
+            }
+            log.info("图片感知哈希索引预热完成, count = {}, cost = {} ms", total, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("图片感知哈希索引预热失败", e);
+        }
+    }
+}
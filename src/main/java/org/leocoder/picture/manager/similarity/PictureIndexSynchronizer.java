@@ -0,0 +1,160 @@
+package org.leocoder.picture.manager.similarity;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.domain.Picture;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.leocoder.picture.utils.ImageFeatureUtils;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-27 10:00
+ * @description : 相似度内存索引（感知哈希、特征向量、颜色）的跨节点同步
+ * <p>
+ * 写入图片的节点先更新本地索引，再通过 Redis 发布订阅广播图片 id；其他节点收到后按 id 从数据库读取相似度相关的列
+ * 更新本地索引（图片已删除时从索引移除），消息中不携带特征数据。广播丢失时，节点重启后的预热会补齐。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PictureIndexSynchronizer implements MessageListener {
+
+    private static final String SYNC_CHANNEL = "lgpicture:similarity:index";
+
+    private static final String MESSAGE_SEPARATOR = "@";
+
+    private static final String ACTION_ADD = "add";
+
+    private static final String ACTION_REMOVE = "remove";
+
+    /**
+     * 本节点标识，收到自己发出的消息时跳过
+     */
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    private final PictureMapper pictureMapper;
+
+    private final PictureHashIndex pictureHashIndex;
+
+    private final PictureFeatureIndex pictureFeatureIndex;
+
+    private final PictureColorIndex pictureColorIndex;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(SYNC_CHANNEL));
+    }
+
+    /**
+     * 添加或更新图片索引并通知其他节点
+     *
+     * @param picture 图片（需包含 id、spaceId，以及已计算的感知哈希、特征向量、主色调）
+     */
+    public void add(Picture picture) {
+        if (picture == null || picture.getId() == null) {
+            return;
+        }
+        apply(picture);
+        publish(ACTION_ADD, Collections.singletonList(picture.getId()));
+    }
+
+    /**
+     * 从索引中删除图片并通知其他节点
+     *
+     * @param pictureIds 图片 id
+     */
+    public void remove(Collection<Long> pictureIds) {
+        if (CollUtil.isEmpty(pictureIds)) {
+            return;
+        }
+        removeLocal(pictureIds);
+        publish(ACTION_REMOVE, pictureIds);
+    }
+
+    /**
+     * 接收其他节点的索引变更广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<String> parts = StrUtil.split(body, MESSAGE_SEPARATOR);
+        if (parts.size() != 3 || nodeId.equals(parts.get(0))) {
+            return;
+        }
+        try {
+            List<Long> pictureIds = StrUtil.split(parts.get(2), ',').stream()
+                    .map(Long::valueOf)
+                    .collect(Collectors.toList());
+            if (ACTION_ADD.equals(parts.get(1))) {
+                pictureIds.forEach(this::reload);
+            } else if (ACTION_REMOVE.equals(parts.get(1))) {
+                removeLocal(pictureIds);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("无法解析相似度索引同步消息: {}", body);
+        } catch (Exception e) {
+            log.warn("处理相似度索引同步消息失败: {}", body, e);
+        }
+    }
+
+    /**
+     * 从数据库读取图片的相似度相关列并更新本地索引
+     */
+    private void reload(Long pictureId) {
+        Picture picture = pictureMapper.selectOne(Wrappers.lambdaQuery(Picture.class)
+                .select(Picture::getId, Picture::getSpaceId, Picture::getPicPhash, Picture::getPicFeature,
+                        Picture::getPicColor, Picture::getPicLabL, Picture::getPicLabA, Picture::getPicLabB,
+                        Picture::getPicPalette)
+                .eq(Picture::getId, pictureId));
+        if (picture == null) {
+            removeLocal(Collections.singletonList(pictureId));
+        } else {
+            apply(picture);
+        }
+    }
+
+    private void apply(Picture picture) {
+        pictureHashIndex.add(picture.getId(), picture.getSpaceId(), picture.getPicPhash());
+        if (picture.getPicFeature() != null) {
+            pictureFeatureIndex.add(picture.getId(), picture.getSpaceId(), ImageFeatureUtils.fromBytes(picture.getPicFeature()));
+        }
+        pictureColorIndex.add(picture);
+    }
+
+    private void removeLocal(Collection<Long> pictureIds) {
+        pictureHashIndex.remove(pictureIds);
+        pictureFeatureIndex.remove(pictureIds);
+        pictureColorIndex.remove(pictureIds);
+    }
+
+    private void publish(String action, Collection<Long> pictureIds) {
+        String ids = pictureIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            stringRedisTemplate.convertAndSend(SYNC_CHANNEL, nodeId + MESSAGE_SEPARATOR + action + MESSAGE_SEPARATOR + ids);
+        } catch (Exception e) {
+            log.warn("广播相似度索引变更失败, action = {}, pictureIds = {}", action, ids, e);
+        }
+    }
+}
@@ -6,7 +6,6 @@ import org.leocoder.picture.exception.ThrowUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 
@@ -53,16 +52,16 @@ public class FilePictureUpload extends PictureUploadTemplate {
 
 
     /**
-     * 处理上传文件
+     * 打开上传文件的字节流，直接转发请求体到对象存储
      *
      * @param inputSource 上传文件对象
-     * @param file        上传文件
+     * @return 图片输入流
      * @throws Exception 异常
      */
     @Override
-    protected void processFile(Object inputSource, File file) throws Exception {
+    protected PictureInputStream openPictureStream(Object inputSource) throws Exception {
         MultipartFile multipartFile = (MultipartFile) inputSource;
-        multipartFile.transferTo(file);
+        return new PictureInputStream(multipartFile.getInputStream(), multipartFile.getSize());
     }
 }
 
@@ -0,0 +1,78 @@
+package org.leocoder.picture.manager.upload;
+
+import org.leocoder.picture.exception.BusinessException;
+import org.leocoder.picture.exception.ErrorCode;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-26 09:30
+ * @description : 限制读取字节数的输入流，超过上限时立即抛出异常，避免长度未知或长度与声明不符的输入源写满内存或磁盘
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+
+    private final String message;
+
+    private long count;
+
+    /**
+     * @param inputStream 原始输入流
+     * @param maxBytes    允许读取的最大字节数
+     * @param message     超过上限时的错误信息
+     */
+    public LimitedInputStream(InputStream inputStream, long maxBytes, String message) {
+        super(inputStream);
+        this.maxBytes = maxBytes;
+        this.message = message;
+    }
+
+    /**
+     * 已读取的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value >= 0) {
+            increase(1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            increase(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        increase(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void increase(long bytes) {
+        count += bytes;
+        if (count > maxBytes) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, message);
+        }
+    }
+}
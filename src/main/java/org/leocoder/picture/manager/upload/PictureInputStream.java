@@ -0,0 +1,62 @@
+package org.leocoder.picture.manager.upload;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.InputStream;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-03 10:12
+ * @description : 图片输入流（流式上传使用），长度未知时为 -1
+ */
+@Slf4j
+@Getter
+public class PictureInputStream implements Closeable {
+
+    /**
+     * 图片字节流
+     */
+    private final InputStream inputStream;
+
+    /**
+     * 内容长度，未知时为 -1
+     */
+    private final long contentLength;
+
+    /**
+     * 关闭时需要一并释放的底层资源（如 HTTP 响应）
+     */
+    private final Closeable resource;
+
+    public PictureInputStream(InputStream inputStream, long contentLength, Closeable resource) {
+        this.inputStream = inputStream;
+        this.contentLength = contentLength;
+        this.resource = resource;
+    }
+
+    public PictureInputStream(InputStream inputStream, long contentLength) {
+        this(inputStream, contentLength, null);
+    }
+
+    /**
+     * 是否已知长度，已知时直接转发到对象存储，未知时先写入临时文件
+     */
+    public boolean isKnownLength() {
+        return contentLength >= 0;
+    }
+
+    @Override
+    public void close() {
+        try {
+            inputStream.close();
+            if (resource != null) {
+                resource.close();
+            }
+        } catch (Exception e) {
+            log.warn("关闭图片输入流失败", e);
+        }
+    }
+}
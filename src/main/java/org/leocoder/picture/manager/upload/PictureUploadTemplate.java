@@ -3,8 +3,11 @@ package org.leocoder.picture.manager.upload;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.RandomUtil;
+import cn.hutool.crypto.digest.DigestAlgorithm;
+import cn.hutool.crypto.digest.DigestUtil;
 import com.qcloud.cos.model.PutObjectResult;
 import com.qcloud.cos.model.ciModel.persistence.CIObject;
 import com.qcloud.cos.model.ciModel.persistence.ImageInfo;
@@ -18,8 +21,15 @@ import org.leocoder.picture.manager.CosManager;
 
 import javax.annotation.Resource;
 import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * @author : 程序员Leo
@@ -30,6 +40,11 @@ import java.util.List;
 @Slf4j
 public abstract class PictureUploadTemplate {
 
+    /**
+     * 图片大小上限
+     */
+    protected static final long MAX_PICTURE_SIZE = 4 * 1024 * 1024L;
+
     @Resource
     protected CosManager cosManager;
 
@@ -37,9 +52,22 @@ public abstract class PictureUploadTemplate {
     protected CosClientConfig cosClientConfig;
 
     /**
-     * 模板方法，定义上传流程
+     * 模板方法，定义上传流程（不做内容去重）
      */
     public final UploadPictureResult uploadPicture(Object inputSource, String uploadPathPrefix) {
+        return uploadPicture(inputSource, uploadPathPrefix, null);
+    }
+
+    /**
+     * 模板方法，定义上传流程
+     *
+     * @param inputSource       输入源
+     * @param uploadPathPrefix  上传路径前缀
+     * @param duplicateResolver 按内容哈希查找已上传过的图片，命中时直接复用其对象存储文件；为 null 时不去重
+     * @return 上传结果
+     */
+    public final UploadPictureResult uploadPicture(Object inputSource, String uploadPathPrefix,
+                                                   Function<String, UploadPictureResult> duplicateResolver) {
         // 1. 校验图片
         validPicture(inputSource);
 
@@ -50,17 +78,47 @@ public abstract class PictureUploadTemplate {
                 FileUtil.getSuffix(originFilename));
         String uploadPath = String.format("/%s/%s", uploadPathPrefix, uploadFilename);
 
+        PictureInputStream pictureInputStream = null;
         File file = null;
         try {
-            // 3. 创建临时文件
-            file = File.createTempFile(uploadPath, null);
-            // 处理文件来源（本地或 URL）
-            processFile(inputSource, file);
+            // 3. 打开输入源的字节流，经限长流与摘要流读取：超过大小上限立即中断，读取的同时计算 SHA-256
+            pictureInputStream = openPictureStream(inputSource);
+            MessageDigest messageDigest = DigestUtil.digester(DigestAlgorithm.SHA256).getDigest();
+            long picSize = pictureInputStream.getContentLength();
+            PutObjectResult putObjectResult = null;
+            try (InputStream digestStream = new DigestInputStream(new LimitedInputStream(
+                    pictureInputStream.getInputStream(), MAX_PICTURE_SIZE, "文件大小不能超过 4M"), messageDigest)) {
+                if (pictureInputStream.isKnownLength()) {
+                    // 已知长度时直接把请求体 / 下载流转发到对象存储，不落临时文件
+                    putObjectResult = cosManager.putPictureObject(uploadPath, digestStream, picSize);
+                } else {
+                    // 长度未知（如 chunked 响应）时对象存储无法直接转发，先写入临时文件
+                    file = File.createTempFile("picture_", "." + FileUtil.getSuffix(uploadFilename));
+                    Files.copy(digestStream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    picSize = FileUtil.size(file);
+                }
+            }
+            String picHash = HexUtil.encodeHexStr(messageDigest.digest());
+
+            // 4. 相同内容已上传过，复用已有的原图、压缩图与缩略图
+            UploadPictureResult duplicateResult = resolveDuplicate(duplicateResolver, picHash, originFilename);
+            if (duplicateResult != null) {
+                if (putObjectResult != null) {
+                    // 流式上传时哈希在上传完成后才得到，删除本次上传的文件
+                    deleteUploadedObjects(uploadPath, putObjectResult);
+                }
+                return duplicateResult;
+            }
+
+            // 5. 临时文件上传到对象存储
+            if (putObjectResult == null) {
+                putObjectResult = cosManager.putPictureObject(uploadPath, file);
+            }
 
-            // 4. 上传图片到对象存储
-            PutObjectResult putObjectResult = cosManager.putPictureObject(uploadPath, file);
+            // 6. 解析对象存储返回的图片信息
             ImageInfo imageInfo = putObjectResult.getCiUploadResult().getOriginalInfo().getImageInfo();
 
+            UploadPictureResult uploadPictureResult;
             ProcessResults processResults = putObjectResult.getCiUploadResult().getProcessResults();
             List<CIObject> objectList = processResults.getObjectList();
             if (CollUtil.isNotEmpty(objectList)) {
@@ -72,17 +130,23 @@ public abstract class PictureUploadTemplate {
                     thumbnailCiObject = objectList.get(1);
                 }
                 // 封装压缩图返回结果
-                return buildResult(originFilename, compressedCiObject, thumbnailCiObject, imageInfo);
+                uploadPictureResult = buildResult(originFilename, compressedCiObject, thumbnailCiObject, imageInfo);
+            } else {
+                // 7. 封装返回结果
+                uploadPictureResult = buildResult(originFilename, picSize, uploadPath, imageInfo);
             }
-
-
-            // 5. 封装返回结果
-            return buildResult(originFilename, file, uploadPath, imageInfo);
+            uploadPictureResult.setPicHash(picHash);
+            return uploadPictureResult;
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             log.error("图片上传到对象存储失败", e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
         } finally {
-            // 6. 清理临时文件
+            // 8. 释放输入流并清理临时文件
+            if (pictureInputStream != null) {
+                pictureInputStream.close();
+            }
             deleteTempFile(file);
         }
     }
@@ -98,19 +162,67 @@ public abstract class PictureUploadTemplate {
     protected abstract String getOriginFilename(Object inputSource);
 
     /**
-     * 处理输入源并生成本地临时文件
+     * 打开输入源的字节流，由模板以限长流的方式读取；长度已知时直接转发到对象存储，未知时先写入临时文件
+     *
+     * @param inputSource 输入源
+     * @return 图片输入流
+     */
+    protected abstract PictureInputStream openPictureStream(Object inputSource) throws Exception;
+
+    /**
+     * 按内容哈希查找已上传过的图片
+     *
+     * @param duplicateResolver 去重查找方法，为 null 时不去重
+     * @param picHash           原图内容 SHA-256 哈希
+     * @param originFilename    原始文件名
+     * @return 已上传图片的解析信息，不存在时返回 null
+     */
+    private UploadPictureResult resolveDuplicate(Function<String, UploadPictureResult> duplicateResolver,
+                                                 String picHash, String originFilename) {
+        if (duplicateResolver == null) {
+            return null;
+        }
+        UploadPictureResult duplicateResult = duplicateResolver.apply(picHash);
+        if (duplicateResult == null) {
+            return null;
+        }
+        log.info("图片内容重复，复用已上传文件, picHash = {}, url = {}", picHash, duplicateResult.getUrl());
+        duplicateResult.setPicName(FileUtil.mainName(originFilename));
+        duplicateResult.setPicHash(picHash);
+        return duplicateResult;
+    }
+
+    /**
+     * 删除本次上传的原图及处理生成的压缩图、缩略图（尽力而为，失败只记录日志）
+     *
+     * @param uploadPath      原图上传路径
+     * @param putObjectResult 上传结果
      */
-    protected abstract void processFile(Object inputSource, File file) throws Exception;
+    private void deleteUploadedObjects(String uploadPath, PutObjectResult putObjectResult) {
+        List<String> keys = new ArrayList<>();
+        keys.add(uploadPath);
+        ProcessResults processResults = putObjectResult.getCiUploadResult().getProcessResults();
+        if (processResults != null && CollUtil.isNotEmpty(processResults.getObjectList())) {
+            processResults.getObjectList().forEach(ciObject -> keys.add(ciObject.getKey()));
+        }
+        for (String key : keys) {
+            try {
+                cosManager.deleteObject(key);
+            } catch (Exception e) {
+                log.warn("删除重复上传的文件失败, key = {}", key, e);
+            }
+        }
+    }
 
     /**
      * 封装返回结果
      * @param originFilename 原始文件名
-     * @param file 临时文件
+     * @param picSize 图片大小
      * @param uploadPath 上传路径
      * @param imageInfo 图片信息
      * @return 上传结果
      */
-    private UploadPictureResult buildResult(String originFilename, File file, String uploadPath, ImageInfo imageInfo) {
+    private UploadPictureResult buildResult(String originFilename, long picSize, String uploadPath, ImageInfo imageInfo) {
         UploadPictureResult uploadPictureResult = new UploadPictureResult();
         int picWidth = imageInfo.getWidth();
         int picHeight = imageInfo.getHeight();
@@ -121,7 +233,7 @@ public abstract class PictureUploadTemplate {
         uploadPictureResult.setPicScale(picScale);
         uploadPictureResult.setPicFormat(imageInfo.getFormat());
         uploadPictureResult.setPicColor(imageInfo.getAve());
-        uploadPictureResult.setPicSize(FileUtil.size(file));
+        uploadPictureResult.setPicSize(picSize);
         uploadPictureResult.setUrl(cosClientConfig.getHost() + "/" + uploadPath);
         return uploadPictureResult;
     }
@@ -164,6 +276,8 @@ public abstract class PictureUploadTemplate {
         boolean deleteResult = file.delete();
         if (!deleteResult) {
             log.error("file delete error, filepath = {}", file.getAbsolutePath());
+            // 删除失败时交给 JVM 退出时兜底清理，避免临时文件堆积
+            file.deleteOnExit();
         }
     }
 }
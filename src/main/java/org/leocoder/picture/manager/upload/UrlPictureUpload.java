@@ -11,7 +11,6 @@ import org.leocoder.picture.exception.ErrorCode;
 import org.leocoder.picture.exception.ThrowUtils;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
@@ -25,6 +24,7 @@ import java.util.List;
  */
 @Service
 public class UrlPictureUpload extends PictureUploadTemplate {
+
     @Override
     protected void validPicture(Object inputSource) {
         String fileUrl = (String) inputSource;
@@ -64,8 +64,7 @@ public class UrlPictureUpload extends PictureUploadTemplate {
                 try {
                     long contentLength = Long.parseLong(contentLengthStr);
                     // 限制文件大小为 4MB
-                    final long TWO_MB = 4 * 1024 * 1024L;
-                    ThrowUtils.throwIf(contentLength > TWO_MB, ErrorCode.PARAMS_ERROR, "文件大小不能超过 4M");
+                    ThrowUtils.throwIf(contentLength > MAX_PICTURE_SIZE, ErrorCode.PARAMS_ERROR, "文件大小不能超过 4M");
                 } catch (NumberFormatException e) {
                     throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小格式错误");
                 }
@@ -84,10 +83,26 @@ public class UrlPictureUpload extends PictureUploadTemplate {
         return FileUtil.mainName(fileUrl);
     }
 
+    /**
+     * 打开下载流，响应带 Content-Length 时边下载边上传，否则由模板先写入临时文件
+     *
+     * @param inputSource 文件地址
+     * @return 图片输入流
+     */
     @Override
-    protected void processFile(Object inputSource, File file) throws Exception {
+    protected PictureInputStream openPictureStream(Object inputSource) {
         String fileUrl = (String) inputSource;
-        // 下载文件到临时目录
-        HttpUtil.downloadFile(fileUrl, file);
+        HttpResponse response = HttpUtil.createGet(fileUrl).executeAsync();
+        if (!response.isOk()) {
+            response.close();
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件下载失败");
+        }
+        long contentLength = response.contentLength();
+        if (contentLength > MAX_PICTURE_SIZE) {
+            response.close();
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小不能超过 4M");
+        }
+        // 长度未知（如 chunked 响应）时 contentLength 为 -1，实际读取字节数由模板的限长流兜底
+        return new PictureInputStream(response.bodyStream(), contentLength, response);
     }
 }
@@ -0,0 +1,51 @@
+package org.leocoder.picture.manager.viewer;
+
+import org.leocoder.picture.domain.vo.picture.PictureVO;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-20 09:30
+ * @description : 当前用户对一批图片的点赞、收藏状态
+ */
+public class PictureViewerState {
+
+    /**
+     * 未登录用户：全部未点赞、未收藏
+     */
+    public static final PictureViewerState ANONYMOUS = new PictureViewerState(Collections.emptySet(),
+            Collections.emptySet());
+
+    private final Set<Long> likedPictureIds;
+
+    private final Set<Long> favoritedPictureIds;
+
+    public PictureViewerState(Set<Long> likedPictureIds, Set<Long> favoritedPictureIds) {
+        this.likedPictureIds = likedPictureIds;
+        this.favoritedPictureIds = favoritedPictureIds;
+    }
+
+    public boolean isLiked(Long pictureId) {
+        return likedPictureIds.contains(pictureId);
+    }
+
+    public boolean isFavorited(Long pictureId) {
+        return favoritedPictureIds.contains(pictureId);
+    }
+
+    /**
+     * 填充图片的点赞、收藏状态
+     *
+     * @param pictureVOList 图片封装类
+     */
+    public void apply(Collection<PictureVO> pictureVOList) {
+        for (PictureVO pictureVO : pictureVOList) {
+            pictureVO.setIsLiked(isLiked(pictureVO.getId()) ? 1 : 0);
+            pictureVO.setIsFavorited(isFavorited(pictureVO.getId()) ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.leocoder.picture.manager.viewer;
+
+import cn.hutool.core.collection.CollUtil;
+import lombok.RequiredArgsConstructor;
+import org.leocoder.picture.enums.InteractionCounterEnum;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-20 09:30
+ * @description : 批量加载当前用户对一批图片的点赞、收藏状态，点赞与收藏各一次 Redis 调用（{@link UserInteractionMembership}），
+ * 避免逐张图片查询数据库
+ */
+@Component
+@RequiredArgsConstructor
+public class PictureViewerStateLoader {
+
+    private final UserInteractionMembership userInteractionMembership;
+
+    /**
+     * 加载点赞、收藏状态
+     *
+     * @param userId     当前用户 id，为空表示未登录
+     * @param pictureIds 图片 id
+     * @return 点赞、收藏状态
+     */
+    public PictureViewerState load(Long userId, Collection<Long> pictureIds) {
+        if (userId == null || CollUtil.isEmpty(pictureIds)) {
+            return PictureViewerState.ANONYMOUS;
+        }
+        return new PictureViewerState(
+                userInteractionMembership.filterMembers(InteractionCounterEnum.PICTURE_LIKE, userId, pictureIds),
+                userInteractionMembership.filterMembers(InteractionCounterEnum.PICTURE_FAVORITE, userId, pictureIds));
+    }
+}
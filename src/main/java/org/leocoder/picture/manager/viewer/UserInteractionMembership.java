@@ -0,0 +1,295 @@
+package org.leocoder.picture.manager.viewer;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.domain.Favorite;
+import org.leocoder.picture.domain.Like;
+import org.leocoder.picture.enums.InteractionCounterEnum;
+import org.leocoder.picture.manager.counter.LikeCounter;
+import org.leocoder.picture.mapper.FavoriteMapper;
+import org.leocoder.picture.mapper.LikeMapper;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-23 09:30
+ * @description : 用户点赞、收藏关系缓存，按用户与类型在 Redis 中保存一个集合（成员为图片 / 评论 id），
+ * 一次脚本调用即可判断一整页目标是否已点赞 / 收藏
+ * <p>
+ * 集合不存在时从 user_like、user_favorite 懒加载重建；点赞记录由 {@link LikeCounter} 异步写入数据库，
+ * 重建时先叠加尚未刷写的点赞记录。集合存在时点赞、收藏直接修改集合；集合不存在时写入一个脏标记，
+ * 重建开始时清除该标记，发布前标记又出现说明重建期间有变化，放弃本次结果，下次访问再重建。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserInteractionMembership {
+
+    private static final String MEMBERS_KEY_PREFIX = "user:membership:";
+
+    private static final String DIRTY_KEY_SUFFIX = ":dirty";
+
+    /**
+     * 集合中的占位成员，保证没有点赞 / 收藏的用户也能以空集合的形式缓存（id 不为 0）
+     */
+    private static final String PLACEHOLDER_MEMBER = "0";
+
+    /**
+     * 集合过期时间，读写时续期
+     */
+    public static final long MEMBERS_EXPIRE_SECONDS = TimeUnit.DAYS.toSeconds(3);
+
+    /**
+     * 脏标记过期时间，需大于一次重建的耗时
+     */
+    public static final long DIRTY_EXPIRE_SECONDS = 60;
+
+    /**
+     * 重建集合时每条 SADD 命令包含的成员数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private static final int PICTURE_LIKE_TYPE = 0;
+
+    private static final int COMMENT_LIKE_TYPE = 1;
+
+    /**
+     * 批量判断成员
+     * KEYS: 集合
+     * ARGV: 过期秒数、目标 id...
+     * 返回：集合未加载时为空列表，否则按目标 id 顺序返回 1 / 0
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CONTAINS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {} end\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1])\n"
+                    + "local result = {}\n"
+                    + "for i = 2, #ARGV do result[i - 1] = redis.call('SISMEMBER', KEYS[1], ARGV[i]) end\n"
+                    + "return result",
+            List.class);
+
+    /**
+     * 修改成员：集合未加载时只写入脏标记
+     * KEYS: 集合、脏标记
+     * ARGV: 目标 id、1 添加 / 0 删除、过期秒数、脏标记过期秒数
+     */
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then\n"
+                    + "  redis.call('SET', KEYS[2], '1', 'EX', ARGV[4])\n"
+                    + "  return 0\n"
+                    + "end\n"
+                    + "if ARGV[2] == '1' then redis.call('SADD', KEYS[1], ARGV[1])\n"
+                    + "else redis.call('SREM', KEYS[1], ARGV[1]) end\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[3])\n"
+                    + "return 1",
+            Long.class);
+
+    /**
+     * 发布重建好的集合：重建期间出现脏标记或集合已被其他线程重建时丢弃本次结果
+     * KEYS: 集合、重建中的临时集合、脏标记
+     * ARGV: 过期秒数
+     */
+    private static final RedisScript<Long> PUBLISH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[3]) == 1 or redis.call('EXISTS', KEYS[1]) == 1 then\n"
+                    + "  redis.call('DEL', KEYS[2])\n"
+                    + "  return 0\n"
+                    + "end\n"
+                    + "redis.call('RENAME', KEYS[2], KEYS[1])\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1])\n"
+                    + "return 1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final LikeCounter likeCounter;
+
+    private final LikeMapper likeMapper;
+
+    private final FavoriteMapper favoriteMapper;
+
+    /**
+     * 判断用户是否点赞 / 收藏了单个目标
+     */
+    public boolean contains(InteractionCounterEnum type, Long userId, Long targetId) {
+        if (userId == null || targetId == null) {
+            return false;
+        }
+        return !filterMembers(type, userId, Collections.singletonList(targetId)).isEmpty();
+    }
+
+    /**
+     * 批量判断用户点赞 / 收藏了哪些目标，Redis 不可用时查询数据库
+     *
+     * @param type      关系类型（图片点赞、评论点赞、图片收藏）
+     * @param userId    用户 id，为空表示未登录
+     * @param targetIds 目标 id（图片或评论）
+     * @return 已点赞 / 收藏的目标 id
+     */
+    public Set<Long> filterMembers(InteractionCounterEnum type, Long userId, Collection<Long> targetIds) {
+        if (userId == null || CollUtil.isEmpty(targetIds)) {
+            return Collections.emptySet();
+        }
+        List<Long> ids = new ArrayList<>(new HashSet<>(targetIds));
+        try {
+            List<?> flags = checkMembers(type, userId, ids);
+            if (flags.isEmpty()) {
+                Set<Long> members = rebuild(type, userId);
+                Set<Long> result = new HashSet<>();
+                for (Long id : ids) {
+                    if (members.contains(id)) {
+                        result.add(id);
+                    }
+                }
+                return result;
+            }
+            Set<Long> result = new HashSet<>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (((Number) flags.get(i)).longValue() == 1) {
+                    result.add(ids.get(i));
+                }
+            }
+            return result;
+        } catch (DataAccessException e) {
+            log.warn("Redis 不可用，从数据库查询点赞 / 收藏状态, type = {}, userId = {}", type.getValue(), userId, e);
+            return selectTargetIds(type, userId, ids);
+        }
+    }
+
+    /**
+     * 收藏 / 取消收藏后更新集合（点赞由 {@link LikeCounter} 的脚本原子更新）
+     *
+     * @param type     关系类型
+     * @param userId   用户 id
+     * @param targetId 目标 id
+     * @param member   true 添加，false 删除
+     */
+    public void update(InteractionCounterEnum type, long userId, long targetId, boolean member) {
+        try {
+            stringRedisTemplate.execute(UPDATE_SCRIPT, Arrays.asList(getMembersKey(type, userId), getDirtyKey(type, userId)),
+                    String.valueOf(targetId), member ? "1" : "0", String.valueOf(MEMBERS_EXPIRE_SECONDS),
+                    String.valueOf(DIRTY_EXPIRE_SECONDS));
+        } catch (DataAccessException e) {
+            // 集合可能与数据库不一致，删除后下次访问重建
+            log.warn("更新点赞 / 收藏关系缓存失败, type = {}, userId = {}", type.getValue(), userId, e);
+            try {
+                stringRedisTemplate.delete(getMembersKey(type, userId));
+            } catch (DataAccessException ignored) {
+                // Redis 不可用时集合也无法被读取
+            }
+        }
+    }
+
+    /**
+     * 关系集合的 key
+     */
+    public static String getMembersKey(InteractionCounterEnum type, long userId) {
+        return MEMBERS_KEY_PREFIX + type.getValue() + ":" + userId;
+    }
+
+    /**
+     * 脏标记的 key
+     */
+    public static String getDirtyKey(InteractionCounterEnum type, long userId) {
+        return getMembersKey(type, userId) + DIRTY_KEY_SUFFIX;
+    }
+
+    private List<?> checkMembers(InteractionCounterEnum type, long userId, List<Long> ids) {
+        String[] args = new String[ids.size() + 1];
+        args[0] = String.valueOf(MEMBERS_EXPIRE_SECONDS);
+        for (int i = 0; i < ids.size(); i++) {
+            args[i + 1] = String.valueOf(ids.get(i));
+        }
+        List<?> flags = stringRedisTemplate.execute(CONTAINS_SCRIPT,
+                Collections.singletonList(getMembersKey(type, userId)), (Object[]) args);
+        return flags == null ? Collections.emptyList() : flags;
+    }
+
+    /**
+     * 从数据库重建集合：先清除脏标记，再叠加尚未刷写的点赞记录，写入临时集合后由脚本原子地发布
+     *
+     * @return 重建得到的成员
+     */
+    private Set<Long> rebuild(InteractionCounterEnum type, long userId) {
+        String membersKey = getMembersKey(type, userId);
+        String dirtyKey = getDirtyKey(type, userId);
+        stringRedisTemplate.delete(dirtyKey);
+        Map<Long, Boolean> pendingStates = Collections.emptyMap();
+        if (InteractionCounterEnum.PICTURE_LIKE.equals(type)) {
+            pendingStates = likeCounter.getPendingStates(userId, PICTURE_LIKE_TYPE);
+        } else if (InteractionCounterEnum.COMMENT_LIKE.equals(type)) {
+            pendingStates = likeCounter.getPendingStates(userId, COMMENT_LIKE_TYPE);
+        }
+        Set<Long> members = selectTargetIds(type, userId, null);
+        pendingStates.forEach((targetId, liked) -> {
+            if (liked) {
+                members.add(targetId);
+            } else {
+                members.remove(targetId);
+            }
+        });
+
+        List<String> values = new ArrayList<>(members.size() + 1);
+        values.add(PLACEHOLDER_MEMBER);
+        members.forEach(member -> values.add(String.valueOf(member)));
+        String buildingKey = membersKey + ":building:" + IdUtil.fastSimpleUUID();
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (List<String> batch : CollUtil.split(values, REBUILD_BATCH_SIZE)) {
+                stringConnection.sAdd(buildingKey, batch.toArray(new String[0]));
+            }
+            // 重建失败时临时集合自动过期
+            stringConnection.expire(buildingKey, DIRTY_EXPIRE_SECONDS);
+            return null;
+        });
+        stringRedisTemplate.execute(PUBLISH_SCRIPT, Arrays.asList(membersKey, buildingKey, dirtyKey),
+                String.valueOf(MEMBERS_EXPIRE_SECONDS));
+        return members;
+    }
+
+    /**
+     * 从数据库查询用户点赞 / 收藏的目标 id
+     *
+     * @param targetIds 限定的目标 id，为空时查询全部
+     */
+    private Set<Long> selectTargetIds(InteractionCounterEnum type, long userId, Collection<Long> targetIds) {
+        Set<Long> result = new HashSet<>();
+        if (InteractionCounterEnum.PICTURE_FAVORITE.equals(type)) {
+            favoriteMapper.selectList(Wrappers.lambdaQuery(Favorite.class)
+                            .select(Favorite::getPictureId)
+                            .eq(Favorite::getUserId, userId)
+                            .in(targetIds != null, Favorite::getPictureId, targetIds)
+                            .eq(Favorite::getIsFavorited, 1))
+                    .forEach(favorite -> result.add(favorite.getPictureId()));
+            return result;
+        }
+        int likeType = InteractionCounterEnum.COMMENT_LIKE.equals(type) ? COMMENT_LIKE_TYPE : PICTURE_LIKE_TYPE;
+        likeMapper.selectList(Wrappers.lambdaQuery(Like.class)
+                        .select(Like::getPictureId)
+                        .eq(Like::getUserId, userId)
+                        .in(targetIds != null, Like::getPictureId, targetIds)
+                        .eq(Like::getLikeType, likeType)
+                        .eq(Like::getIsLiked, 1))
+                .forEach(like -> result.add(like.getPictureId()));
+        return result;
+    }
+}
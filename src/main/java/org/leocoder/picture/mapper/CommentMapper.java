@@ -7,6 +7,7 @@ import org.apache.ibatis.annotations.Update;
 import org.leocoder.picture.domain.Comment;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author : 程序员Leo
@@ -21,6 +22,14 @@ public interface CommentMapper extends BaseMapper<Comment> {
     @Update("UPDATE comment SET like_count = like_count + #{delta} WHERE id = #{commentId}")
     void updateCommentLikeCount(@Param("commentId") Long commentId, @Param("delta") int delta);
 
+    /**
+     * 批量累加点赞数（一条 UPDATE ... CASE 语句）
+     *
+     * @param deltas 评论 id -> 点赞增量
+     * @return 更新行数
+     */
+    int incrementLikeCountBatch(@Param("deltas") Map<Long, Long> deltas);
+
     @Select("SELECT * FROM comment WHERE picture_id = #{pictureId}")
     List<Comment> selectCommentByPictureId(String pictureId);
 }
\ No newline at end of file
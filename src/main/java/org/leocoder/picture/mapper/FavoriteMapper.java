@@ -1,8 +1,12 @@
 package org.leocoder.picture.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 import org.leocoder.picture.domain.Favorite;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * @author : 程序员Leo
  * @date  2024-12-18 21:21
@@ -11,4 +15,48 @@ import org.leocoder.picture.domain.Favorite;
  */
 
 public interface FavoriteMapper extends BaseMapper<Favorite> {
-}
\ No newline at end of file
+
+    /**
+     * 加锁查询用户对指定图片的收藏记录（需在事务中调用）
+     *
+     * @param userId     用户id
+     * @param pictureIds 图片id
+     * @return 已存在的收藏记录（仅包含 id、pictureId、isFavorited）
+     */
+    List<Favorite> selectStatesForUpdate(@Param("userId") Long userId, @Param("pictureIds") Collection<Long> pictureIds);
+
+    /**
+     * 查询用户对指定图片未收藏（is_favorited = 0）的记录，不加锁
+     *
+     * @param userId     用户id
+     * @param pictureIds 图片id
+     * @return 图片id
+     */
+    List<Long> selectUnfavoritedPictureIds(@Param("userId") Long userId, @Param("pictureIds") Collection<Long> pictureIds);
+
+    /**
+     * 批量插入收藏记录，(user_id, picture_id) 已存在时忽略
+     *
+     * @param favorites 收藏记录（需包含 id、userId、pictureId）
+     * @return 新插入的行数
+     */
+    int insertIgnoreBatch(@Param("favorites") List<Favorite> favorites);
+
+    /**
+     * 把已存在但未收藏的记录恢复为已收藏
+     *
+     * @param userId    用户id
+     * @param pictureId 图片id
+     * @return 状态发生变化的行数
+     */
+    int restoreFavorited(@Param("userId") Long userId, @Param("pictureId") Long pictureId);
+
+    /**
+     * 批量删除已收藏的记录
+     *
+     * @param userId     用户id
+     * @param pictureIds 图片id
+     * @return 删除的行数
+     */
+    int deleteFavoritedBatch(@Param("userId") Long userId, @Param("pictureIds") Collection<Long> pictureIds);
+}
@@ -1,8 +1,11 @@
 package org.leocoder.picture.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
 import org.leocoder.picture.domain.FetchedImages;
 
+import java.util.List;
+
 /**
  * @author : 程序员Leo
  * @date  2024-12-27 10:39
@@ -11,4 +14,12 @@ import org.leocoder.picture.domain.FetchedImages;
  */
 
 public interface FetchedImagesMapper extends BaseMapper<FetchedImages> {
+
+    /**
+     * 批量写入已抓取 URL（INSERT IGNORE，重复的 url_hash 直接跳过）
+     *
+     * @param list 已抓取记录
+     * @return 实际写入条数
+     */
+    int insertIgnoreBatch(@Param("list") List<FetchedImages> list);
 }
\ No newline at end of file
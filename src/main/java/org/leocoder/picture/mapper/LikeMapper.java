@@ -5,6 +5,8 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.leocoder.picture.domain.Like;
 
+import java.util.List;
+
 /**
  * @author : 程序员Leo
  * @version 1.0
@@ -28,7 +30,23 @@ public interface LikeMapper extends BaseMapper<Like> {
      * @param userId    用户id
      * @param pictureId 图片id
      */
-    void deleteByUserIdAndPictureId(@Param("userId") Long userId, @Param("pictureId") Long pictureId,@Param("likeType") Integer likeType);
+    int deleteByUserIdAndPictureId(@Param("userId") Long userId, @Param("pictureId") Long pictureId,@Param("likeType") Integer likeType);
+
+    /**
+     * 批量写入点赞记录，已存在时改为已点赞
+     *
+     * @param likes 点赞记录（userId、pictureId、likeType）
+     * @return 影响行数
+     */
+    int upsertLikedBatch(@Param("likes") List<Like> likes);
+
+    /**
+     * 批量删除点赞记录
+     *
+     * @param likes 点赞记录（userId、pictureId、likeType）
+     * @return 删除行数
+     */
+    int deleteBatch(@Param("likes") List<Like> likes);
 
 
     /**
@@ -6,6 +6,10 @@ import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 import org.leocoder.picture.domain.Picture;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author : 程序员Leo
  * @version 1.0
@@ -55,5 +59,45 @@ public interface PictureMapper extends BaseMapper<Picture> {
     @Select("SELECT user_id FROM picture WHERE id = #{pictureId}")
     Long selectAuthorIdByPictureId(@Param("pictureId")String pictureId);
 
+    /**
+     * 批量累加浏览数（一条 UPDATE ... CASE 语句）
+     *
+     * @param deltas 图片 id -> 浏览增量
+     * @return 更新行数
+     */
+    int incrementViewCountBatch(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 批量累加点赞数与收藏数（一条 UPDATE ... CASE 语句）
+     *
+     * @param ids            图片 id
+     * @param likeDeltas     图片 id -> 点赞增量，可为空
+     * @param favoriteDeltas 图片 id -> 收藏增量，可为空
+     * @return 更新行数
+     */
+    int incrementInteractionCountBatch(@Param("ids") Collection<Long> ids,
+                                       @Param("likeDeltas") Map<Long, Long> likeDeltas,
+                                       @Param("favoriteDeltas") Map<Long, Long> favoriteDeltas);
+
+    /**
+     * 重建名称、简介、标签的全文索引
+     */
+    void rebuildTextFullTextIndex();
+
+    /**
+     * 一次查询取出当前图片前后各 limit 张图片（按 (排序列, id) 排序，走信息流复合索引）
+     *
+     * @param spaceId      空间 id，为空表示公共图库
+     * @param reviewStatus 公共图库要求的审核状态
+     * @param sortField    排序字段（createTime / viewCount）
+     * @param sortValue    当前图片的排序值
+     * @param id           当前图片 id
+     * @param limit        每侧数量
+     * @return 前后的图片（仅包含 id、create_time、view_count）
+     */
+    List<Picture> selectNeighborWindow(@Param("spaceId") Long spaceId, @Param("reviewStatus") Integer reviewStatus,
+                                       @Param("sortField") String sortField, @Param("sortValue") Object sortValue,
+                                       @Param("id") Long id, @Param("limit") int limit);
+
 
 }
\ No newline at end of file
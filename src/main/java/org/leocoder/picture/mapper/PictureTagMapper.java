@@ -0,0 +1,33 @@
+package org.leocoder.picture.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Param;
+import org.leocoder.picture.domain.PictureTag;
+
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-14 09:35
+ * @description :
+ */
+public interface PictureTagMapper extends BaseMapper<PictureTag> {
+
+    /**
+     * 批量写入标签关联，(tag, picture_id) 冲突时忽略
+     *
+     * @param list 标签关联
+     * @return 写入行数
+     */
+    int insertIgnoreBatch(@Param("list") List<PictureTag> list);
+
+    /**
+     * 删除图片已不存在（或已逻辑删除）的标签关联
+     *
+     * @return 删除行数
+     */
+    @Delete("DELETE pt FROM picture_tag pt LEFT JOIN picture p ON p.id = pt.picture_id AND p.is_delete = 0 WHERE p.id IS NULL")
+    int deleteOrphans();
+}
@@ -0,0 +1,33 @@
+package org.leocoder.picture.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.service.PictureService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-05 11:20
+ * @description : 定时任务 - 续跑中断的批量导入任务
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImportJobRecoveryTask {
+
+    private final PictureService pictureService;
+
+    /**
+     * 启动后检查一次，之后每 60s 检查一次租约过期的未完成任务
+     */
+    @Scheduled(initialDelay = 10000, fixedRate = 60000)
+    public void resumeImportJobs() {
+        try {
+            pictureService.resumeImportJobs();
+        } catch (Exception e) {
+            log.error("续跑批量导入任务失败", e);
+        }
+    }
+}
@@ -21,7 +21,7 @@ public interface FavoriteService extends IService<Favorite> {
      * 收藏图片
      *
      * @param requestParam 收藏请求参数
-     * @return 是否收藏成功
+     * @return 收藏状态是否发生变化（已收藏时返回 false）
      */
     boolean addFavorite(FavoriteRequest requestParam);
 
@@ -29,13 +29,24 @@ public interface FavoriteService extends IService<Favorite> {
      * 取消收藏
      *
      * @param requestParam 取消收藏请求参数
-     * @return 是否取消收藏成功
+     * @return 收藏状态是否发生变化（未收藏时返回 false）
      */
     boolean removeFavorite(FavoriteRequest requestParam);
 
 
     /**
-     * 获取用户收藏的图片列表
+     * 批量收藏 / 取消收藏
+     *
+     * @param userId     用户id
+     * @param pictureIds 图片id列表
+     * @param favorite   true 收藏，false 取消收藏
+     * @return 收藏状态发生变化的图片数
+     */
+    int batchChangeFavorite(Long userId, List<Long> pictureIds, boolean favorite);
+
+
+    /**
+     * 获取用户最近收藏的图片列表（数量有上限，完整列表请分页获取）
      *
      * @param userId 用户id
      * @return 收藏的图片列表
@@ -3,8 +3,6 @@ package org.leocoder.picture.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import org.leocoder.picture.domain.FetchedImages;
 
-import java.util.Set;
-
 /**
  * @author : 程序员Leo
  * @version 1.0
@@ -15,18 +13,26 @@ import java.util.Set;
 public interface FetchedImagesService extends IService<FetchedImages> {
 
     /**
-     * 获取已抓取的 URL 列表
+     * 判断 URL 是否已抓取
      *
-     * @param source 抓取源
-     * @return 已抓取的 URL 列表
+     * @param url 图片 URL
+     * @return 是否已抓取
      */
-    Set<String> getFetchedUrlsBySource(String source);
+    boolean isFetched(String url);
 
     /**
-     * 保存抓取的 URL
+     * 登记抓取的 URL（导入前调用），依靠 url_hash 唯一索引保证多个节点、多个任务中同一 URL 只被导入一次
      *
      * @param url    图片 URL
      * @param source 抓取源
+     * @return 是否登记成功，false 表示已被抓取
+     */
+    boolean claimFetchedUrl(String url, String source);
+
+    /**
+     * 撤销登记（导入失败时调用），之后的导入任务可以重新抓取
+     *
+     * @param url 图片 URL
      */
-    void saveFetchedUrl(String url, String source);
+    void releaseFetchedUrl(String url);
 }
@@ -2,7 +2,6 @@ package org.leocoder.picture.service;
 
 import org.leocoder.picture.domain.Like;
 import com.baomidou.mybatisplus.extension.service.IService;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * @author : 程序员Leo
@@ -21,8 +20,7 @@ public interface LikeService extends IService<Like> {
      * @param targetId 点赞目标 ID（图片或评论）
      * @param likeType 点赞类型（0表示图片，1表示评论）
      * @param isLike   是否点赞
-     * @return true 表示点赞成功，false 表示取消点赞成功
+     * @return true 表示状态已变化，false 表示重复点赞或取消未点赞的目标
      */
-    @Transactional
     boolean toggleLike(Long userId, Long targetId, Integer likeType, boolean isLike);
 }
@@ -8,11 +8,14 @@ import org.leocoder.picture.common.DeleteRequest;
 import org.leocoder.picture.domain.Picture;
 import org.leocoder.picture.domain.User;
 import org.leocoder.picture.domain.dto.picture.*;
+import org.leocoder.picture.domain.vo.picture.ImportJobVO;
+import org.leocoder.picture.domain.vo.picture.PictureFeedVO;
 import org.leocoder.picture.domain.vo.picture.PictureVO;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author : 程序员Leo
@@ -63,12 +66,31 @@ public interface PictureService extends IService<Picture> {
     /**
      * 根据颜色搜索图片
      *
-     * @param spaceId   空间id
-     * @param picColor  颜色
-     * @param loginUser 登录用户
+     * @param requestParam 按颜色搜图请求参数
+     * @param loginUser    登录用户
      * @return 图片信息封装类
      */
-    List<PictureVO> searchPictureByColor(Long spaceId, String picColor, User loginUser);
+    List<PictureVO> searchPictureByColor(SearchPictureByColorRequest requestParam, User loginUser);
+
+
+    /**
+     * 以图搜图（本地特征向量检索）
+     *
+     * @param requestParam 以图搜图请求参数
+     * @param loginUser    登录用户
+     * @return 相似图片
+     */
+    List<PictureVO> searchPictureByPicture(SearchPictureByPictureRequest requestParam, User loginUser);
+
+
+    /**
+     * 查询近似重复的图片
+     *
+     * @param requestParam 查询请求参数
+     * @param loginUser    登录用户
+     * @return 近似重复的图片
+     */
+    List<PictureVO> searchNearDuplicatePictures(SearchNearDuplicatePictureRequest requestParam, User loginUser);
 
     /**
      * 分页获取图片信息封装类
@@ -115,13 +137,46 @@ public interface PictureService extends IService<Picture> {
 
 
     /**
-     * 获取图片浏览次数
+     * 异步提交批量抓取任务
+     *
+     * @param requestParam 批量抓取请求参数
+     * @param loginUser    登录用户
+     * @return 任务 id
+     */
+    String submitImportJob(PictureUploadByBatchRequest requestParam, User loginUser);
+
+
+    /**
+     * 查询批量抓取任务进度
+     *
+     * @param jobId 任务 id
+     * @return 任务进度
+     */
+    ImportJobVO getImportJob(String jobId);
+
+
+    /**
+     * 续跑未结束的批量抓取任务
+     */
+    void resumeImportJobs();
+
+
+    /**
+     * 获取图片浏览次数（包含尚未刷写到数据库的部分）
      *
      * @param pictureId 图片ID
      * @return 当前图片的浏览次数
      */
     Long getViewCount(Long pictureId);
 
+    /**
+     * 获取已查询出的图片的浏览次数
+     *
+     * @param picture 图片信息
+     * @return 当前图片的浏览次数
+     */
+    Long getViewCount(Picture picture);
+
     /**
      * 增加图片浏览次数
      *
@@ -131,11 +186,11 @@ public interface PictureService extends IService<Picture> {
 
 
     /**
-     * 增加图片浏览次数，缓存版本
+     * 增加图片浏览次数，并计入热门榜单
      *
-     * @param pictureId 图片ID
+     * @param picture 图片信息
      */
-    void incrementViewCountInCache(Long pictureId);
+    void incrementViewCountInCache(Picture picture);
 
 
     /**
@@ -147,6 +202,37 @@ public interface PictureService extends IService<Picture> {
      */
     Page<PictureVO> listPictureVOByPageWithCache(PictureQueryRequest requestParam, HttpServletRequest request);
 
+    /**
+     * 游标分页获取图片信息流（不查询总数）
+     *
+     * @param requestParam 信息流请求参数
+     * @param request      请求对象
+     * @return 当前页图片与下一页游标
+     */
+    PictureFeedVO listPictureVOByFeed(PictureFeedRequest requestParam, HttpServletRequest request);
+
+    /**
+     * 分页获取热门图片榜单
+     *
+     * @param requestParam 榜单请求参数
+     * @param request      请求对象
+     * @return 分页图片信息封装类
+     */
+    Page<PictureVO> listPopularPictures(PictureRankingRequest requestParam, HttpServletRequest request);
+
+    /**
+     * 获取详情页的上一张、下一张图片
+     *
+     * @param pictureId 当前图片 id
+     * @param sortField 排序字段（createTime / viewCount）
+     * @param sortOrder 排序顺序
+     * @param from      来源（public - 主页，space - 我的空间）
+     * @param request   请求对象
+     * @return prevId、nextId，没有时为 null
+     */
+    Map<String, Long> getAdjacentPictures(Long pictureId, String sortField, String sortOrder, String from,
+                                          HttpServletRequest request);
+
 
     /**
      * 管理员手动刷新缓存
@@ -203,4 +289,10 @@ public interface PictureService extends IService<Picture> {
     void editPictureByBatch(PictureEditByBatchRequest requestParam, User loginUser);
 
     CreateOutPaintingTaskResponse createPictureOutPaintingTask(CreatePictureOutPaintingTaskRequest createPictureOutPaintingTaskRequest, User loginUser);
+
+
+    /**
+     * 重建图片全文索引（名称、简介、标签）
+     */
+    void rebuildSearchIndex();
 }
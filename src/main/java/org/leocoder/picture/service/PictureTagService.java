@@ -0,0 +1,38 @@
+package org.leocoder.picture.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import org.leocoder.picture.domain.PictureTag;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-14 09:40
+ * @description :
+ */
+public interface PictureTagService extends IService<PictureTag> {
+
+    /**
+     * 覆盖图片的标签关联（需在写 picture.tags 的同一事务中调用）
+     *
+     * @param pictureIds 图片 id
+     * @param tags       新的标签，为空表示清空
+     */
+    void replaceTags(Collection<Long> pictureIds, List<String> tags);
+
+    /**
+     * 删除图片的标签关联
+     *
+     * @param pictureIds 图片 id
+     */
+    void removeByPictureIds(Collection<Long> pictureIds);
+
+    /**
+     * 由 picture.tags 全量重建标签关联
+     *
+     * @return 处理的图片数
+     */
+    int rebuild();
+}
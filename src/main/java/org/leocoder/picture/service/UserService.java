@@ -85,6 +85,23 @@ public interface UserService extends IService<User> {
     User getLoginUser(HttpServletRequest request);
 
 
+    /**
+     * 获取当前登录用户，未登录时返回 null
+     *
+     * @param request 请求对象
+     * @return 当前登录用户
+     */
+    User getLoginUserPermitNull(HttpServletRequest request);
+
+
+    /**
+     * 失效登录用户缓存（管理员修改、删除用户后调用）
+     *
+     * @param userId 用户 id
+     */
+    void invalidateLoginUser(Long userId);
+
+
     /**
      * 获取脱敏的已登录用户信息
      *
@@ -10,14 +10,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.leocoder.picture.domain.Comment;
 import org.leocoder.picture.domain.User;
 import org.leocoder.picture.domain.vo.comment.CommentVO;
+import org.leocoder.picture.enums.InteractionCounterEnum;
+import org.leocoder.picture.manager.viewer.UserInteractionMembership;
 import org.leocoder.picture.mapper.CommentMapper;
-import org.leocoder.picture.mapper.LikeMapper;
 import org.leocoder.picture.mapper.PictureMapper;
 import org.leocoder.picture.mapper.UserMapper;
 import org.leocoder.picture.service.CommentService;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -34,7 +37,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
 
     private final CommentMapper commentMapper;
 
-    private final LikeMapper likeMapper;
+    private final UserInteractionMembership userInteractionMembership;
 
     private final UserMapper userMapper;
 
@@ -72,10 +75,6 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                     // 设置 isAuthor 字段
                     commentVO.setAuthor(comment.getUserId().equals(pictureAuthorId));
 
-                    // 查询是否点赞（可以通过关联 UserLike 表）
-                    boolean isLiked = likeMapper.isLiked(userId, comment.getId(), 1); // 1 表示评论点赞
-                    commentVO.setLiked(isLiked);
-
                     // 获取子评论并计算评论数量
                     List<CommentVO> subComments = getSubComments(comment.getId(), userId, pictureAuthorId);
                     commentVO.setChildren(subComments);
@@ -83,6 +82,9 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                     return commentVO;
                 }).collect(Collectors.toList());
 
+        // 一次批量查询整页评论（含子评论）的点赞状态
+        fillLiked(commentVOList, userId);
+
         // 构建返回的分页对象
         IPage<CommentVO> resultPage = new Page<>();
         resultPage.setRecords(commentVOList);
@@ -133,10 +135,6 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                 commentVO.setParentUserName(null); // 当前评论是顶级评论
             }
 
-            // 查询是否点赞（可以通过关联 UserLike 表）
-            boolean isLiked = likeMapper.isLiked(userId, comment.getId(), 1); // 1 表示评论点赞
-            commentVO.setLiked(isLiked);
-
             // 递归获取子评论
             List<CommentVO> children = getSubComments(comment.getId(), userId, pictureAuthorId);
             commentVO.setChildren(children);
@@ -145,6 +143,28 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         }).collect(Collectors.toList());
     }
 
+    /**
+     * 批量填充当前用户是否点赞了评论
+     */
+    private void fillLiked(List<CommentVO> commentVOList, Long userId) {
+        List<CommentVO> allComments = new ArrayList<>();
+        collectComments(commentVOList, allComments);
+        List<Long> commentIds = allComments.stream().map(CommentVO::getId).collect(Collectors.toList());
+        Set<Long> likedCommentIds = userInteractionMembership.filterMembers(InteractionCounterEnum.COMMENT_LIKE,
+                userId, commentIds);
+        allComments.forEach(commentVO -> commentVO.setLiked(likedCommentIds.contains(commentVO.getId())));
+    }
+
+    private void collectComments(List<CommentVO> comments, List<CommentVO> result) {
+        if (comments == null) {
+            return;
+        }
+        for (CommentVO comment : comments) {
+            result.add(comment);
+            collectComments(comment.getChildren(), result);
+        }
+    }
+
     private Long getPictureAuthorId(String pictureId) {
         // 从数据库查询图片信息，返回图片作者的 userId
         return pictureMapper.selectAuthorIdByPictureId(pictureId);
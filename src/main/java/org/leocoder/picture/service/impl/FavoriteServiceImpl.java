@@ -1,28 +1,40 @@
 package org.leocoder.picture.service.impl;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.ObjectUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.leocoder.picture.domain.Favorite;
 import org.leocoder.picture.domain.Picture;
 import org.leocoder.picture.domain.dto.favorite.FavoriteRequest;
 import org.leocoder.picture.domain.vo.favorite.FavoritePictureVO;
-import org.leocoder.picture.exception.BusinessException;
+import org.leocoder.picture.enums.InteractionCounterEnum;
 import org.leocoder.picture.exception.ErrorCode;
+import org.leocoder.picture.exception.ThrowUtils;
+import org.leocoder.picture.manager.cache.FavoriteTimelineCache;
+import org.leocoder.picture.manager.counter.InteractionCounterAggregator;
+import org.leocoder.picture.manager.ranking.PictureRankingManager;
+import org.leocoder.picture.manager.viewer.UserInteractionMembership;
 import org.leocoder.picture.mapper.FavoriteMapper;
 import org.leocoder.picture.mapper.PictureMapper;
 import org.leocoder.picture.service.FavoriteService;
-import org.leocoder.picture.utils.JsonUtils;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -33,121 +45,181 @@ import java.util.stream.Collectors;
  * @description :
  */
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> implements FavoriteService {
 
+    /**
+     * 批量收藏 / 取消收藏每次最多操作的图片数
+     */
+    private static final int MAX_BATCH_SIZE = 100;
+
+    /**
+     * 收藏列表最多返回的图片数
+     */
+    private static final int FAVORITE_LIST_LIMIT = 100;
 
     private final PictureMapper pictureMapper;
 
+    private final PictureRankingManager pictureRankingManager;
+
+    private final InteractionCounterAggregator interactionCounterAggregator;
+
+    private final UserInteractionMembership userInteractionMembership;
+
+    private final FavoriteTimelineCache favoriteTimelineCache;
+
+    private final TransactionTemplate transactionTemplate;
+
 
     /**
-     * 收藏图片
+     * 收藏图片（幂等：重复收藏不报错，也不重复累加收藏数）
      *
      * @param requestParam 收藏请求参数
-     * @return 是否收藏成功
+     * @return 收藏状态是否发生变化
      */
     @Override
     public boolean addFavorite(FavoriteRequest requestParam) {
-        Long userId = requestParam.getUserId();
-        Long pictureId = requestParam.getPictureId();
-        // 查询是否已经收藏过
-        QueryWrapper<Favorite> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_id", userId);
-        queryWrapper.eq("picture_id", pictureId);
-        queryWrapper.eq("is_favorited", 1);
-        Favorite oldFavorite = this.getOne(queryWrapper);
-        if (ObjectUtil.isNotNull(oldFavorite)) {
-            throw new BusinessException(ErrorCode.BUSINESS_ERROR, "已经收藏过了，不能重复收藏");
-        }
-        // 添加收藏
-        Favorite favorite = new Favorite();
-        favorite.setUserId(userId);
-        favorite.setPictureId(pictureId);
-        favorite.setIsFavorited(1);
-        // 更新图片的收藏数
-        pictureMapper.incrementFavoriteCount(pictureId);
-        return save(favorite);
+        ThrowUtils.throwIf(requestParam.getPictureId() == null, ErrorCode.PARAMS_ERROR);
+        return changeFavorites(requestParam.getUserId(), Collections.singletonList(requestParam.getPictureId()), true) > 0;
     }
 
 
     /**
-     * 取消收藏
+     * 取消收藏（幂等：取消未收藏的图片不会减少收藏数）
      *
      * @param requestParam 取消收藏请求参数
-     * @return 是否取消收藏成功
+     * @return 收藏状态是否发生变化
      */
     @Override
     public boolean removeFavorite(FavoriteRequest requestParam) {
-        Long userId = requestParam.getUserId();
-        Long pictureId = requestParam.getPictureId();
-        // 删除收藏记录
-        QueryWrapper<Favorite> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_id", userId).eq("picture_id", pictureId)
-                .eq("is_favorited", 1);
-        // 更新图片的收藏数
-        pictureMapper.decrementFavoriteCount(pictureId);
-        return remove(queryWrapper);
+        ThrowUtils.throwIf(requestParam.getPictureId() == null, ErrorCode.PARAMS_ERROR);
+        return changeFavorites(requestParam.getUserId(), Collections.singletonList(requestParam.getPictureId()), false) > 0;
     }
 
 
-
     /**
-     * 获取用户收藏的图片列表
+     * 批量收藏 / 取消收藏
      *
-     * @param userId 用户id
-     * @return 收藏的图片列表
+     * @param userId     用户id
+     * @param pictureIds 图片id列表
+     * @param favorite   true 收藏，false 取消收藏
+     * @return 收藏状态发生变化的图片数
      */
     @Override
-    public List<FavoritePictureVO> getFavoritePictureList(Long userId) {
-        // 查询用户收藏列表
-        LambdaQueryWrapper<Favorite> queryWrapper = Wrappers.lambdaQuery(Favorite.class)
-                .eq(Favorite::getUserId, userId)
-                .eq(Favorite::getIsFavorited, 1);
-        List<Favorite> favorites = this.list(queryWrapper);
+    public int batchChangeFavorite(Long userId, List<Long> pictureIds, boolean favorite) {
+        ThrowUtils.throwIf(CollUtil.isEmpty(pictureIds), ErrorCode.PARAMS_ERROR, "图片列表不能为空");
+        ThrowUtils.throwIf(pictureIds.size() > MAX_BATCH_SIZE, ErrorCode.PARAMS_ERROR,
+                "每次最多操作 " + MAX_BATCH_SIZE + " 张图片");
+        return changeFavorites(userId, pictureIds, favorite);
+    }
+
 
-        // 如果没有收藏记录，直接返回空列表
-        if (favorites.isEmpty()) {
-            return new ArrayList<>();
+    /**
+     * 在一个事务内用多行语句批量插入 / 恢复 / 删除，由写入语句的结果判断哪些图片的状态实际变化，
+     * 只对这些图片在事务提交后更新关系缓存、收藏时间线、收藏数与排行榜；收藏数交给聚合器合并后批量写入
+     * 图片 id 按升序处理，并发的批量请求以相同顺序加锁
+     */
+    private int changeFavorites(Long userId, Collection<Long> pictureIds, boolean favorite) {
+        ThrowUtils.throwIf(userId == null, ErrorCode.PARAMS_ERROR);
+        Set<Long> distinctIds = pictureIds.stream().filter(Objects::nonNull).collect(Collectors.toCollection(TreeSet::new));
+        ThrowUtils.throwIf(distinctIds.isEmpty(), ErrorCode.PARAMS_ERROR);
+        // 空间与审核状态用于判断图片是否参与热门榜单
+        Map<Long, Picture> pictureMap = pictureMapper.selectList(Wrappers.lambdaQuery(Picture.class)
+                        .select(Picture::getId, Picture::getSpaceId, Picture::getReviewStatus)
+                        .in(Picture::getId, distinctIds))
+                .stream().collect(Collectors.toMap(Picture::getId, Function.identity()));
+        if (favorite) {
+            // 只允许收藏存在的图片，取消收藏不做限制（图片删除后也能清理遗留记录）
+            ThrowUtils.throwIf(pictureMap.isEmpty(), ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+            distinctIds.retainAll(pictureMap.keySet());
+        }
+        List<Long> changedIds = transactionTemplate.execute(status -> favorite
+                ? insertFavorites(userId, distinctIds) : deleteFavorites(userId, distinctIds));
+        if (CollUtil.isEmpty(changedIds)) {
+            return 0;
+        }
+        int delta = favorite ? 1 : -1;
+        for (Long pictureId : changedIds) {
+            userInteractionMembership.update(InteractionCounterEnum.PICTURE_FAVORITE, userId, pictureId, favorite);
+            favoriteTimelineCache.update(userId, pictureId, favorite);
+            interactionCounterAggregator.add(InteractionCounterEnum.PICTURE_FAVORITE, pictureId, delta);
+            pictureRankingManager.recordFavorite(pictureMap.get(pictureId), delta);
         }
+        return changedIds.size();
+    }
 
-        // 查询对应的图片信息
-        List<Long> pictureIds = favorites.stream()
+    /**
+     * 批量收藏（需在事务中调用）：没有记录的插入，未收藏的记录恢复
+     * 不做加锁读取：并发的重复收藏各自持有间隙锁后再插入会互相等待而死锁，改由 INSERT IGNORE
+     * 与带条件的 UPDATE 的影响行数决定状态是否变化
+     *
+     * @return 收藏状态发生变化的图片 id
+     */
+    private List<Long> insertFavorites(Long userId, Set<Long> pictureIds) {
+        List<Long> unfavoritedIds = getBaseMapper().selectUnfavoritedPictureIds(userId, pictureIds);
+        List<Long> changedIds = new ArrayList<>();
+        List<Favorite> records = new ArrayList<>();
+        for (Long pictureId : pictureIds) {
+            if (!unfavoritedIds.contains(pictureId)) {
+                Favorite record = new Favorite();
+                record.setId(IdWorker.getId());
+                record.setUserId(userId);
+                record.setPictureId(pictureId);
+                records.add(record);
+            }
+        }
+        if (!records.isEmpty()) {
+            int inserted = getBaseMapper().insertIgnoreBatch(records);
+            if (inserted == records.size()) {
+                records.forEach(record -> changedIds.add(record.getPictureId()));
+            } else if (inserted > 0) {
+                // 部分记录已存在，按本次生成的 id 查出实际插入的行
+                List<Long> recordIds = records.stream().map(Favorite::getId).collect(Collectors.toList());
+                getBaseMapper().selectBatchIds(recordIds).forEach(record -> changedIds.add(record.getPictureId()));
+            }
+        }
+        for (Long pictureId : unfavoritedIds) {
+            // 并发请求可能已恢复同一条记录，影响行数为 1 才算本次恢复
+            if (getBaseMapper().restoreFavorited(userId, pictureId) > 0) {
+                changedIds.add(pictureId);
+            }
+        }
+        return changedIds;
+    }
+
+    /**
+     * 批量取消收藏（需在事务中调用）：删除已收藏的记录
+     *
+     * @return 收藏状态发生变化的图片 id
+     */
+    private List<Long> deleteFavorites(Long userId, Set<Long> pictureIds) {
+        List<Long> favoritedIds = getBaseMapper().selectStatesForUpdate(userId, pictureIds).stream()
+                .filter(state -> Objects.equals(state.getIsFavorited(), 1))
                 .map(Favorite::getPictureId)
                 .collect(Collectors.toList());
+        if (!favoritedIds.isEmpty()) {
+            getBaseMapper().deleteFavoritedBatch(userId, favoritedIds);
+        }
+        return favoritedIds;
+    }
 
-        List<Picture> pictures = pictureMapper.selectBatchIds(pictureIds);
 
-        // 将收藏和图片信息封装为 VO
-        Map<Long, Picture> pictureMap = pictures.stream()
-                .collect(Collectors.toMap(Picture::getId, Function.identity()));
 
-        return favorites.stream()
-                .map(favorite -> {
-                    Picture picture = pictureMap.get(favorite.getPictureId());
-                    if (ObjectUtil.isNotNull(picture)) {
-                        FavoritePictureVO vo = new FavoritePictureVO();
-                        vo.setPictureId(picture.getId());
-                        vo.setUrl(picture.getUrl());
-                        vo.setName(picture.getName());
-                        vo.setIntroduction(picture.getIntroduction());
-                        // 安全解析 tags 字段
-                        if (picture.getTags() != null && !picture.getTags().isEmpty()) {
-                            vo.setTags(JsonUtils.parseTags(picture.getTags()));
-                        } else {
-                            vo.setTags(new ArrayList<>()); // tags 为空时设置为空列表
-                        }
-                        vo.setCategory(picture.getCategory());
-                        return vo;
-                    }
-                    return null;
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    /**
+     * 获取用户最近收藏的图片列表（最多 {@value #FAVORITE_LIST_LIMIT} 张）
+     *
+     * @param userId 用户id
+     * @return 收藏的图片列表
+     */
+    @Override
+    public List<FavoritePictureVO> getFavoritePictureList(Long userId) {
+        return getFavoritePicturePage(userId, 1, FAVORITE_LIST_LIMIT).getRecords();
     }
 
     /**
-     * 分页获取用户收藏的图片列表
+     * 分页获取用户收藏的图片列表：收藏时间线取一页图片 id，再批量读取图片卡片缓存
      *
      * @param userId   用户id
      * @param pageNum  页码
@@ -156,60 +228,50 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
      */
     @Override
     public Page<FavoritePictureVO> getFavoritePicturePage(Long userId, long pageNum, long pageSize) {
+        ThrowUtils.throwIf(userId == null || pageNum < 1 || pageSize < 1, ErrorCode.PARAMS_ERROR);
+        try {
+            FavoriteTimelineCache.TimelinePage timelinePage = favoriteTimelineCache.getPage(userId, pageNum, pageSize);
+            Page<FavoritePictureVO> favoritePicturePage = new Page<>(pageNum, pageSize, timelinePage.getTotal());
+            favoritePicturePage.setRecords(favoriteTimelineCache.getCards(userId, timelinePage.getPictureIds()));
+            return favoritePicturePage;
+        } catch (DataAccessException e) {
+            log.warn("读取收藏时间线失败，降级查询数据库, userId = {}", userId, e);
+            return getFavoritePicturePageFromDatabase(userId, pageNum, pageSize);
+        }
+    }
+
+    /**
+     * 从数据库分页查询收藏（Redis 不可用时使用）
+     */
+    private Page<FavoritePictureVO> getFavoritePicturePageFromDatabase(Long userId, long pageNum, long pageSize) {
         // 查询用户收藏分页数据
         LambdaQueryWrapper<Favorite> queryWrapper = Wrappers.lambdaQuery(Favorite.class)
                 .eq(Favorite::getUserId, userId)
                 .eq(Favorite::getIsFavorited, 1)
                 // 按收藏时间降序排序
                 .orderByDesc(Favorite::getCreateTime);
-
-        Page<Favorite> favoritePage = new Page<>(pageNum, pageSize);
-        this.page(favoritePage, queryWrapper);
-
-        // 如果没有收藏记录，直接返回空分页
+        Page<Favorite> favoritePage = this.page(new Page<>(pageNum, pageSize), queryWrapper);
+        Page<FavoritePictureVO> favoritePicturePage = new Page<>(pageNum, pageSize, favoritePage.getTotal());
         if (favoritePage.getRecords().isEmpty()) {
-            return new Page<>();
+            return favoritePicturePage;
         }
 
         // 查询对应的图片信息
         List<Long> pictureIds = favoritePage.getRecords().stream()
                 .map(Favorite::getPictureId)
                 .collect(Collectors.toList());
-        List<Picture> pictures = pictureMapper.selectBatchIds(pictureIds);
-
-        // 将收藏和图片信息封装为 VO
-        Map<Long, Picture> pictureMap = pictures.stream()
+        Map<Long, Picture> pictureMap = pictureMapper.selectBatchIds(pictureIds).stream()
                 .collect(Collectors.toMap(Picture::getId, Function.identity()));
-        List<FavoritePictureVO> favoritePictureVOList = favoritePage.getRecords().stream()
-                .map(favorite -> {
-                    Picture picture = pictureMap.get(favorite.getPictureId());
-                    if (ObjectUtil.isNotNull(picture)) {
-                        FavoritePictureVO vo = new FavoritePictureVO();
-                        vo.setPictureId(picture.getId());
-                        vo.setUrl(picture.getUrl());
-                        vo.setName(picture.getName());
-                        vo.setIntroduction(picture.getIntroduction());
-                        // 安全解析 tags 字段
-                        if (picture.getTags() != null && !picture.getTags().isEmpty()) {
-                            vo.setTags(JsonUtils.parseTags(picture.getTags()));
-                        } else {
-                            vo.setTags(new ArrayList<>()); // tags 为空时设置为空列表
-                        }
-                        vo.setCategory(picture.getCategory());
-                        return vo;
-                    }
-                    return null;
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        // 将分页数据转换为 VO 分页
-        Page<FavoritePictureVO> favoritePictureVOPage = new Page<>();
-        favoritePictureVOPage.setCurrent(favoritePage.getCurrent());
-        favoritePictureVOPage.setSize(favoritePage.getSize());
-        favoritePictureVOPage.setTotal(favoritePage.getTotal());
-        favoritePictureVOPage.setRecords(favoritePictureVOList);
-
-        return favoritePictureVOPage;
+        List<FavoritePictureVO> favoritePictureVOList = new ArrayList<>(pictureIds.size());
+        for (Long pictureId : pictureIds) {
+            Picture picture = pictureMap.get(pictureId);
+            if (ObjectUtil.isNotNull(picture)) {
+                FavoritePictureVO favoritePictureVO = FavoriteTimelineCache.toCard(picture);
+                favoritePictureVO.setIsFavorited(1);
+                favoritePictureVOList.add(favoritePictureVO);
+            }
+        }
+        favoritePicturePage.setRecords(favoritePictureVOList);
+        return favoritePicturePage;
     }
 }
@@ -1,70 +1,141 @@
 package org.leocoder.picture.service.impl;
 
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.crypto.digest.DigestUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.config.PictureImportConfig;
 import org.leocoder.picture.domain.FetchedImages;
+import org.leocoder.picture.manager.importer.UrlBloomFilter;
 import org.leocoder.picture.mapper.FetchedImagesMapper;
 import org.leocoder.picture.service.FetchedImagesService;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
+import javax.annotation.PostConstruct;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
 /**
  * @author : 程序员Leo
  * @version 1.0
  * @date 2024-12-27 10:39
- * @description :
+ * @description : 已抓取 URL 去重：布隆过滤器快速排除 + url_hash 唯一索引确认
+ * <p>
+ * 布隆过滤器只在本节点内存中，启动后其他节点登记的 URL 不会写入，因此它的"不存在"只用于预筛选；
+ * 导入前以 INSERT IGNORE 登记 URL，由 url_hash 唯一索引决定哪个节点导入
  */
-
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class FetchedImagesServiceImpl extends ServiceImpl<FetchedImagesMapper, FetchedImages> implements FetchedImagesService {
 
+    /**
+     * 预热时每批读取的记录数
+     */
+    private static final int WARM_UP_BATCH_SIZE = 5000;
+
     private final FetchedImagesMapper fetchedImagesMapper;
 
+    private final PictureImportConfig importConfig;
+
+    private UrlBloomFilter bloomFilter;
+
+    /**
+     * 布隆过滤器是否已预热完成，预热完成前只能回查数据库
+     */
+    private volatile boolean warmedUp;
+
+    @PostConstruct
+    public void init() {
+        bloomFilter = new UrlBloomFilter(importConfig.getBloomExpectedInsertions(), importConfig.getBloomFpp());
+        ThreadUtil.newThread(this::warmUp, "fetched-url-bloom-warm-up", true).start();
+    }
+
     /**
-     * 获取已抓取的 URL 列表
+     * 判断 URL 是否已抓取
      *
-     * @param source 抓取源
-     * @return 已抓取的 URL 列表
+     * @param url 图片 URL
+     * @return 是否已抓取
      */
     @Override
-    public Set<String> getFetchedUrlsBySource(String source) {
-        LambdaQueryWrapper<FetchedImages> lambdaQueryWrapper = Wrappers.lambdaQuery(FetchedImages.class)
-                .eq(FetchedImages::getSource, source);
-        List<FetchedImages> fetchedImagesList = fetchedImagesMapper.selectList(lambdaQueryWrapper);
-        // 转换为 URL 列表
-        Set<String> fetchedUrls = new HashSet<>();
-        for (FetchedImages fetchedImage : fetchedImagesList) {
-            fetchedUrls.add(fetchedImage.getImageUrl());
+    public boolean isFetched(String url) {
+        String urlHash = DigestUtil.md5Hex(url);
+        // 布隆过滤器判断本节点未见过时直接放行，省去一次数据库查询；其他节点登记的 URL 在导入前的登记时拦截
+        if (warmedUp && !bloomFilter.mightContain(urlHash)) {
+            return false;
         }
-        return fetchedUrls;
+        // 可能存在（或尚未预热），按唯一索引回查确认
+        LambdaQueryWrapper<FetchedImages> queryWrapper = Wrappers.lambdaQuery(FetchedImages.class)
+                .eq(FetchedImages::getUrlHash, urlHash);
+        return fetchedImagesMapper.exists(queryWrapper);
     }
 
     /**
-     * 保存抓取的 URL
+     * 登记抓取的 URL，url_hash 已存在时登记失败
      *
      * @param url    图片 URL
      * @param source 抓取源
+     * @return 是否登记成功
      */
     @Override
-    public void saveFetchedUrl(String url, String source) {
-        // 检查是否已存在
-        LambdaQueryWrapper<FetchedImages> queryWrapper = Wrappers.lambdaQuery(FetchedImages.class)
-                .eq(FetchedImages::getImageUrl, url);
-        if (fetchedImagesMapper.selectOne(queryWrapper) != null) {
-            // 已存在，直接返回或抛出异常
-            return;
-        }
-
-        // 不存在则插入
+    public boolean claimFetchedUrl(String url, String source) {
+        String urlHash = DigestUtil.md5Hex(url);
         FetchedImages images = new FetchedImages();
+        images.setId(IdWorker.getId());
         images.setImageUrl(url);
+        images.setUrlHash(urlHash);
         images.setSource(source);
-        fetchedImagesMapper.insert(images);
+        boolean claimed = fetchedImagesMapper.insertIgnoreBatch(Collections.singletonList(images)) > 0;
+        bloomFilter.put(urlHash);
+        return claimed;
+    }
+
+    /**
+     * 撤销登记，布隆过滤器无法删除元素，之后的判断会回查数据库
+     *
+     * @param url 图片 URL
+     */
+    @Override
+    public void releaseFetchedUrl(String url) {
+        LambdaQueryWrapper<FetchedImages> queryWrapper = Wrappers.lambdaQuery(FetchedImages.class)
+                .eq(FetchedImages::getUrlHash, DigestUtil.md5Hex(url));
+        fetchedImagesMapper.delete(queryWrapper);
+    }
+
+    /**
+     * 按 id 游标分批读取 url_hash 预热布隆过滤器，只查询索引列，不加载 URL
+     */
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int total = 0;
+        try {
+            while (true) {
+                LambdaQueryWrapper<FetchedImages> queryWrapper = Wrappers.lambdaQuery(FetchedImages.class)
+                        .select(FetchedImages::getId, FetchedImages::getUrlHash)
+                        .gt(FetchedImages::getId, lastId)
+                        .orderByAsc(FetchedImages::getId)
+                        .last("limit " + WARM_UP_BATCH_SIZE);
+                List<FetchedImages> records = fetchedImagesMapper.selectList(queryWrapper);
+                for (FetchedImages record : records) {
+                    bloomFilter.put(record.getUrlHash());
+                }
+                total += records.size();
+                if (records.size() < WARM_UP_BATCH_SIZE) {
+                    break;
+                }
+                lastId = records.get(records.size() - 1).getId();
+            }
+            warmedUp = true;
+            log.info("已抓取 URL 布隆过滤器预热完成, count = {}, size = {} bytes, cost = {} ms",
+                    total, bloomFilter.sizeInBytes(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 预热失败时继续回查数据库，不影响正确性
+            log.error("已抓取 URL 布隆过滤器预热失败", e);
+        }
     }
 }
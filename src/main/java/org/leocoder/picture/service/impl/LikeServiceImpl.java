@@ -1,21 +1,24 @@
 package org.leocoder.picture.service.impl;
 
 import cn.hutool.core.util.ObjectUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.leocoder.picture.domain.Like;
-import org.leocoder.picture.mapper.CommentMapper;
+import org.leocoder.picture.domain.Picture;
+import org.leocoder.picture.enums.InteractionCounterEnum;
+import org.leocoder.picture.exception.ErrorCode;
+import org.leocoder.picture.exception.ThrowUtils;
+import org.leocoder.picture.manager.counter.InteractionCounterAggregator;
+import org.leocoder.picture.manager.counter.LikeCounter;
+import org.leocoder.picture.manager.ranking.PictureRankingManager;
 import org.leocoder.picture.mapper.LikeMapper;
 import org.leocoder.picture.mapper.PictureMapper;
 import org.leocoder.picture.service.LikeService;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.util.concurrent.TimeUnit;
-
-import static org.leocoder.picture.constant.LikeConstant.LIKE_COUNT_KEY_PREFIX;
 
 /**
  * @author : 程序员Leo
@@ -31,230 +34,85 @@ public class LikeServiceImpl extends ServiceImpl<LikeMapper, Like> implements Li
 
     private final LikeMapper userLikeMapper;
 
-    private final PictureMapper pictureMapper;
+    private final LikeCounter likeCounter;
 
-    private final CommentMapper commentMapper;
+    private final InteractionCounterAggregator interactionCounterAggregator;
 
-    private final StringRedisTemplate redisTemplate;
+    private final PictureRankingManager pictureRankingManager;
+
+    private final PictureMapper pictureMapper;
 
 
     /**
-     * 点赞或取消点赞
+     * 点赞或取消点赞：由 Redis 脚本原子地修改点赞状态与点赞数，点赞记录与点赞数由定时任务批量写入数据库
      *
      * @param userId   用户 ID
      * @param targetId 点赞目标 ID（图片或评论）
      * @param likeType 点赞类型（0表示图片，1表示评论）
      * @param isLike   是否点赞
-     * @return true 表示点赞成功，false 表示取消点赞成功
+     * @return true 表示状态已变化，false 表示重复点赞或取消未点赞的目标
      */
-    @Transactional
     @Override
     public boolean toggleLike(Long userId, Long targetId, Integer likeType, boolean isLike) {
-        // 构建 Redis 缓存键
-        String likeCacheKey = "user:" + userId + ":liked:" + targetId + ":type:" + likeType;
-        String likeCountKey = LIKE_COUNT_KEY_PREFIX + targetId + ":type:" + likeType;
-
-        // 使用 Redis 分布式锁，防止高并发问题
-        String lockKey = "lock:" + likeCacheKey;
-        boolean isLockAcquired = false;
-
+        ThrowUtils.throwIf(userId == null || targetId == null || likeType == null, ErrorCode.PARAMS_ERROR);
+        ThrowUtils.throwIf(likeType != 0 && likeType != 1, ErrorCode.PARAMS_ERROR, "点赞类型错误");
+        boolean changed;
         try {
-            // 尝试获取锁
-            isLockAcquired = acquireLock(lockKey, 5);
-
-            if (isLockAcquired) {
-                // 如果成功获取锁，按正常逻辑处理
-                if (isLike) {
-                    handleLikeWithFallback(userId, targetId, likeType, likeCacheKey, likeCountKey);
-                } else {
-                    handleUnlikeWithFallback(userId, targetId, likeType, likeCacheKey, likeCountKey);
-                }
-            } else {
-                // Redis 锁不可用，降级执行
-                log.warn("Redis 锁不可用，执行降级逻辑");
-                if (isLike) {
-                    handleLikeWithDatabaseOnly(userId, targetId, likeType);
-                } else {
-                    handleUnlikeWithDatabaseOnly(userId, targetId, likeType);
-                }
-            }
-        } finally {
-            // 如果获取了锁，则释放锁
-            if (isLockAcquired) {
-                releaseLock(lockKey);
+            changed = likeCounter.toggle(userId, targetId, likeType, isLike);
+        } catch (DataAccessException e) {
+            // Redis 不可用，降级为直接操作数据库
+            log.warn("Redis 不可用，降级处理点赞逻辑", e);
+            changed = isLike ? likeWithDatabaseOnly(userId, targetId, likeType)
+                    : unlikeWithDatabaseOnly(userId, targetId, likeType);
+            if (changed) {
+                // Redis 中的点赞集合已与数据库不一致
+                likeCounter.evict(userId, targetId, likeType);
             }
         }
-
-        return true;
-    }
-
-    /**
-     * 更新点赞数
-     *
-     * @param targetId 点赞目标ID（图片或评论）
-     * @param likeType 点赞类型（0表示图片，1表示评论）
-     * @param delta    增量（1表示增加，-1表示减少）
-     */
-    private void updateLikeCount(Long targetId, Integer likeType, int delta) {
-        // 根据类型更新数据库
-        if (likeType == 0) {
-            pictureMapper.updatePictureLikeCount(targetId, delta);
-        } else if (likeType == 1) {
-            // 如果是评论，可以实现类似 commentMapper.incrementLikeCount()
-            // 这里假设有一个对应的 commentMapper
-            commentMapper.updateCommentLikeCount(targetId, delta);
-        }
-
-        // 更新 Redis 缓存
-        String likeCountKey = LIKE_COUNT_KEY_PREFIX + targetId + ":type:" + likeType;
-        try {
-            redisTemplate.opsForValue().increment(likeCountKey, delta);
-        } catch (Exception e) {
-            retryUpdateRedisCache(likeCountKey, delta);
+        if (!changed) {
+            return false;
         }
-    }
-
-    /**
-     * 重试更新 Redis 缓存
-     *
-     * @param likeCountKey 点赞数缓存 key
-     * @param delta        增量
-     */
-    private void retryUpdateRedisCache(String likeCountKey, int delta) {
-        int retryCount = 0;
-        boolean success = false;
-        while (retryCount < 3 && !success) {
-            try {
-                redisTemplate.opsForValue().increment(likeCountKey, delta);
-                success = true;
-            } catch (Exception e) {
-                retryCount++;
-                if (retryCount == 3) {
-                    log.error("更新 Redis 缓存失败，已尝试3次", e);
-                    throw new RuntimeException("Redis 更新失败");
-                }
-                try {
-                    TimeUnit.SECONDS.sleep(2);
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                }
-            }
+        int delta = isLike ? 1 : -1;
+        if (likeType == 0) {
+            interactionCounterAggregator.add(InteractionCounterEnum.PICTURE_LIKE, targetId, delta);
+            // 只有公共图库中已过审的图片参与热门榜单
+            Picture picture = pictureMapper.selectOne(Wrappers.lambdaQuery(Picture.class)
+                    .select(Picture::getId, Picture::getSpaceId, Picture::getReviewStatus)
+                    .eq(Picture::getId, targetId));
+            pictureRankingManager.recordLike(picture, delta);
+        } else {
+            interactionCounterAggregator.add(InteractionCounterEnum.COMMENT_LIKE, targetId, delta);
         }
+        return true;
     }
 
     /**
      * 点赞逻辑降级处理（仅操作数据库）
      */
-    private void handleLikeWithDatabaseOnly(Long userId, Long targetId, Integer likeType) {
+    private boolean likeWithDatabaseOnly(Long userId, Long targetId, Integer likeType) {
         // 检查用户是否已经点赞（从数据库中检查）
         Like existingLike = userLikeMapper.findByUserIdAndPictureId(userId, targetId, likeType);
         if (ObjectUtil.isNotNull(existingLike) && existingLike.getIsLiked() == 1) {
-            throw new RuntimeException("用户已点赞");
+            return false;
         }
-
-        // 插入点赞记录到数据库
         Like userLike = new Like();
         userLike.setUserId(userId);
         userLike.setPictureId(targetId);
         userLike.setLikeType(likeType);
         userLike.setIsLiked(1);
-        userLikeMapper.insert(userLike);
-
-        // 更新数据库中的点赞数
-        updateLikeCount(targetId, likeType, 1);
-    }
-
-    /**
-     * 取消点赞逻辑降级处理（仅操作数据库）
-     */
-    private void handleUnlikeWithDatabaseOnly(Long userId, Long targetId, Integer likeType) {
-        // 检查用户是否未点赞（从数据库中检查）
-        Like existingLike = userLikeMapper.findByUserIdAndPictureId(userId, targetId, likeType);
-        if (ObjectUtil.isNull(existingLike) || existingLike.getIsLiked() == 0) {
-            throw new RuntimeException("用户未点赞，无法取消");
-        }
-
-        // 删除点赞记录
-        userLikeMapper.deleteByUserIdAndPictureId(userId, targetId, likeType);
-
-        // 更新数据库中的点赞数
-        updateLikeCount(targetId, likeType, -1);
-    }
-
-    /**
-     * 点赞逻辑（带有 Redis 和数据库的降级支持）
-     */
-    private void handleLikeWithFallback(Long userId, Long targetId, Integer likeType, String likeCacheKey, String likeCountKey) {
         try {
-            // 检查用户是否已经点赞
-            if (Boolean.TRUE.equals(redisTemplate.hasKey(likeCacheKey))) {
-                throw new RuntimeException("用户已点赞");
-            }
-
-            // 插入点赞记录
-            Like userLike = new Like();
-            userLike.setUserId(userId);
-            userLike.setPictureId(targetId);
-            userLike.setLikeType(likeType);
-            userLike.setIsLiked(1);
             userLikeMapper.insert(userLike);
-
-            // 更新点赞数
-            updateLikeCount(targetId, likeType, 1);
-
-            // 设置 Redis 缓存
-            redisTemplate.opsForValue().set(likeCacheKey, "1", 1, TimeUnit.DAYS);
-        } catch (Exception e) {
-            log.warn("Redis 不可用，降级处理点赞逻辑", e);
-            handleLikeWithDatabaseOnly(userId, targetId, likeType);
+        } catch (DuplicateKeyException e) {
+            // 并发重复点赞
+            return false;
         }
+        return true;
     }
 
     /**
-     * 取消点赞逻辑（带有 Redis 和数据库的降级支持）
-     */
-    private void handleUnlikeWithFallback(Long userId, Long targetId, Integer likeType, String likeCacheKey, String likeCountKey) {
-        try {
-            // 检查用户是否未点赞
-            if (!Boolean.TRUE.equals(redisTemplate.hasKey(likeCacheKey))) {
-                Like existingLike = userLikeMapper.findByUserIdAndPictureId(userId, targetId, likeType);
-                if (ObjectUtil.isNull(existingLike)) {
-                    throw new RuntimeException("用户未点赞，无法取消");
-                }
-            }
-
-            // 删除点赞记录
-            userLikeMapper.deleteByUserIdAndPictureId(userId, targetId, likeType);
-
-            // 更新点赞数
-            updateLikeCount(targetId, likeType, -1);
-
-            // 删除 Redis 缓存
-            redisTemplate.delete(likeCacheKey);
-        } catch (Exception e) {
-            log.warn("Redis 不可用，降级处理取消点赞逻辑", e);
-            handleUnlikeWithDatabaseOnly(userId, targetId, likeType);
-        }
-    }
-
-    /**
-     * 获取 Redis 锁
-     *
-     * @param lockKey 锁的键
-     * @param timeout 锁的过期时间（秒）
-     * @return 是否成功获取锁
-     */
-    private boolean acquireLock(String lockKey, int timeout) {
-        Boolean isLocked = redisTemplate.opsForValue().setIfAbsent(lockKey, "1", timeout, TimeUnit.SECONDS);
-        return Boolean.TRUE.equals(isLocked);
-    }
-
-    /**
-     * 释放 Redis 锁
-     *
-     * @param lockKey 锁的键
+     * 取消点赞逻辑降级处理（仅操作数据库），按实际删除的行数判断状态是否变化
      */
-    private void releaseLock(String lockKey) {
-        redisTemplate.delete(lockKey);
+    private boolean unlikeWithDatabaseOnly(Long userId, Long targetId, Integer likeType) {
+        return userLikeMapper.deleteByUserIdAndPictureId(userId, targetId, likeType) > 0;
     }
 }
@@ -2,9 +2,9 @@ package org.leocoder.picture.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.core.util.ObjUtil;
 import cn.hutool.core.util.ObjectUtil;
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
@@ -12,54 +12,77 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.squareup.okhttp.OkHttpClient;
-import com.squareup.okhttp.Request;
-import com.squareup.okhttp.Response;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.leocoder.picture.api.aliyunai.AliYunAiApi;
 import org.leocoder.picture.api.aliyunai.CreateOutPaintingTaskRequest;
 import org.leocoder.picture.api.aliyunai.CreateOutPaintingTaskResponse;
 import org.leocoder.picture.common.DeleteRequest;
+import org.leocoder.picture.common.ParamOrderQueryWrapper;
 import org.leocoder.picture.domain.*;
 import org.leocoder.picture.domain.dto.file.UploadPictureResult;
 import org.leocoder.picture.domain.dto.picture.*;
+import org.leocoder.picture.domain.vo.picture.ImportJobVO;
+import org.leocoder.picture.domain.vo.picture.PictureFeedVO;
 import org.leocoder.picture.domain.vo.picture.PictureVO;
 import org.leocoder.picture.domain.vo.user.UserVO;
+import org.leocoder.picture.enums.ImportJobStatusEnum;
+import org.leocoder.picture.enums.ColorMetricEnum;
 import org.leocoder.picture.enums.PictureReviewStatusEnum;
+import org.leocoder.picture.enums.RankingWindowEnum;
 import org.leocoder.picture.exception.BusinessException;
 import org.leocoder.picture.exception.ErrorCode;
 import org.leocoder.picture.exception.ThrowUtils;
 import org.leocoder.picture.manager.FileManager;
-import org.leocoder.picture.manager.image.*;
+import org.leocoder.picture.manager.cache.CacheNamespaceManager;
+import org.leocoder.picture.manager.cache.FavoriteTimelineCache;
+import org.leocoder.picture.manager.cache.TwoLevelCacheManager;
+import org.leocoder.picture.manager.counter.PictureViewCounter;
+import org.leocoder.picture.manager.image.ImageFetcher;
+import org.leocoder.picture.manager.image.ImageFetcherFactory;
+import org.leocoder.picture.manager.importer.ImportJob;
+import org.leocoder.picture.manager.importer.ImportJobStore;
+import org.leocoder.picture.manager.importer.PictureImportEngine;
+import org.leocoder.picture.manager.importer.PictureImportHandler;
+import org.leocoder.picture.manager.neighbor.PictureNeighborCache;
+import org.leocoder.picture.manager.ranking.PictureRankingManager;
+import org.leocoder.picture.manager.similarity.ColorIndex;
+import org.leocoder.picture.manager.similarity.FeatureVectorStore;
+import org.leocoder.picture.manager.similarity.HammingIndex;
+import org.leocoder.picture.manager.similarity.PictureColorIndex;
+import org.leocoder.picture.manager.similarity.PictureFeatureExtractor;
+import org.leocoder.picture.manager.similarity.PictureIndexSynchronizer;
+import org.leocoder.picture.manager.similarity.PictureFeatureIndex;
+import org.leocoder.picture.manager.similarity.PictureHashIndex;
 import org.leocoder.picture.manager.upload.FilePictureUpload;
 import org.leocoder.picture.manager.upload.PictureUploadTemplate;
 import org.leocoder.picture.manager.upload.UrlPictureUpload;
+import org.leocoder.picture.manager.viewer.PictureViewerStateLoader;
 import org.leocoder.picture.mapper.PictureMapper;
 import org.leocoder.picture.service.*;
 import org.leocoder.picture.utils.ColorSimilarUtils;
+import org.leocoder.picture.utils.FeedCursorUtils;
+import org.leocoder.picture.utils.FullTextSearchUtils;
+import org.leocoder.picture.utils.ImageFeatureUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.DigestUtils;
 
 import javax.servlet.http.HttpServletRequest;
-import java.awt.*;
-import java.io.IOException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-import static org.leocoder.picture.utils.CaffeineClient.LOCAL_CACHE;
 
 /**
  * @author : 程序员Leo
@@ -99,6 +122,76 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
 
     private final AliYunAiApi aliYunAiApi;
 
+    private final PictureImportEngine pictureImportEngine;
+
+    private final ImportJobStore importJobStore;
+
+    private final PictureHashIndex pictureHashIndex;
+
+    private final PictureFeatureIndex pictureFeatureIndex;
+
+    private final PictureColorIndex pictureColorIndex;
+
+    private final PictureIndexSynchronizer pictureIndexSynchronizer;
+
+    private final PictureFeatureExtractor pictureFeatureExtractor;
+
+    private final PictureTagService pictureTagService;
+
+    private final PictureNeighborCache pictureNeighborCache;
+
+    private final PictureRankingManager pictureRankingManager;
+
+    private final PictureViewCounter pictureViewCounter;
+
+    private final CacheNamespaceManager cacheNamespaceManager;
+
+    private final TwoLevelCacheManager twoLevelCacheManager;
+
+    private final PictureViewerStateLoader pictureViewerStateLoader;
+
+    private final FavoriteTimelineCache favoriteTimelineCache;
+
+    /**
+     * 名称、简介、标签的全文索引匹配表达式（列顺序需与 ft_picture_text 索引一致）
+     */
+    private static final String PICTURE_TEXT_MATCH = "MATCH(name, introduction, tags)";
+
+    /**
+     * 公共图库列表缓存的根命名空间
+     */
+    private static final String LIST_CACHE_NAMESPACE = "lgpicture:listPictureVOByPage";
+
+    /**
+     * 公共图库列表的两级缓存名称与值类型
+     */
+    private static final String LIST_CACHE_NAME = "pictureList";
+
+    private static final TypeReference<Page<PictureVO>> LIST_CACHE_TYPE = new TypeReference<Page<PictureVO>>() {
+    };
+
+    /**
+     * 详情页上一张 / 下一张每侧预取的图片数量
+     */
+    private static final int NEIGHBOR_WINDOW_SIZE = 20;
+
+    /**
+     * 信息流支持的排序字段
+     */
+    private static final String FEED_SORT_CREATE_TIME = "createTime";
+
+    private static final String FEED_SORT_VIEW_COUNT = "viewCount";
+
+    /**
+     * 同步批量导入的最长等待时间（分钟）
+     */
+    private static final long BATCH_IMPORT_TIMEOUT_MINUTES = 30;
+
+    /**
+     * 近似重复查询最多返回的图片数
+     */
+    private static final int NEAR_DUPLICATE_LIMIT = 20;
+
 
     /**
      * 上传图片
@@ -174,17 +267,34 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
         if (inputSource instanceof String) {
             pictureUploadTemplate = urlPictureUpload;
         }
-        UploadPictureResult uploadPictureResult = pictureUploadTemplate.uploadPicture(inputSource, uploadPathPrefix);
+        // 同一空间（或公共图库）内相同内容已上传过时复用已有文件，图片大小取已有记录的值，空间额度照常计算
+        Long finalSpaceId = spaceId;
+        UploadPictureResult uploadPictureResult = pictureUploadTemplate.uploadPicture(inputSource, uploadPathPrefix,
+                picHash -> getUploadResultByHash(picHash, finalSpaceId));
 
         // 构造要入库的图片信息
         Picture picture = getPicture(loginUser, uploadPictureResult, pictureId, requestParam, spaceId);
+        // 需要拒绝近似重复的图片时同步计算感知哈希与特征向量，否则入库后由后台线程计算，不占用请求线程
+        Integer nearDuplicateDistance = requestParam.getNearDuplicateDistance();
+        if (ObjectUtil.isNotNull(nearDuplicateDistance)) {
+            pictureFeatureExtractor.fill(picture);
+            checkNearDuplicate(picture, spaceId, nearDuplicateDistance);
+        }
         // 补充审核参数
         fillReviewParams(picture, loginUser);
+        // 重新上传时图片内容已变化
+        boolean reupload = ObjectUtil.isNotNull(pictureId);
         // 开启事务
-        Long finalSpaceId = spaceId;
         transactionTemplate.execute(status -> {
             boolean result = this.saveOrUpdate(picture);
             ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "图片上传失败");
+            if (reupload && ObjectUtil.isNull(picture.getPicPhash())) {
+                // 重新上传且未同步计算特征时，清空旧图片的特征，等待异步计算（或查询时按需补算）
+                this.lambdaUpdate()
+                        .eq(Picture::getId, picture.getId())
+                        .setSql("pic_phash = NULL, pic_feature = NULL, pic_palette = NULL")
+                        .update();
+            }
             if (ObjectUtil.isNotNull(finalSpaceId)) {
                 boolean update = spaceService.lambdaUpdate()
                         .eq(Space::getId, finalSpaceId)
@@ -195,10 +305,104 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
             }
             return picture;
         });
+        if (reupload) {
+            // 图片内容已变化，先移除旧的索引项，异步计算被拒绝或失败时也不会保留旧图片的哈希与特征
+            pictureIndexSynchronizer.remove(Collections.singletonList(pictureId));
+        }
+        pictureIndexSynchronizer.add(picture);
+        if (ObjectUtil.isNull(picture.getPicFeature())) {
+            pictureFeatureExtractor.fillAndSaveAsync(picture);
+        }
+        pictureNeighborCache.invalidate(finalSpaceId);
+        invalidateListCache(finalSpaceId, picture.getCategory());
+        if (pictureId != null) {
+            // 重新上传后图片地址已变化，事务提交后再删除收藏卡片缓存
+            favoriteTimelineCache.evictCards(Collections.singletonList(pictureId));
+        }
+        if (reupload && !Objects.equals(PictureReviewStatusEnum.PASS.getValue(), picture.getReviewStatus())) {
+            // 非管理员重新上传后需要重新审核，移出热门榜单
+            pictureRankingManager.remove(Collections.singletonList(pictureId));
+        }
 
         return PictureVO.objToVo(picture);
     }
 
+
+    /**
+     * 查询相似度查询需要的图片字段，特征列默认不查询，这里显式选择
+     *
+     * @param pictureId 图片 id
+     * @return 图片，不存在时返回 null
+     */
+    private Picture getPictureWithFeatures(Long pictureId) {
+        return this.lambdaQuery()
+                .select(Picture::getId, Picture::getUserId, Picture::getSpaceId, Picture::getReviewStatus,
+                        Picture::getUrl, Picture::getThumbnailUrl, Picture::getPicPhash, Picture::getPicFeature,
+                        Picture::getPicColor, Picture::getPicLabL, Picture::getPicLabA, Picture::getPicLabB)
+                .eq(Picture::getId, pictureId)
+                .one();
+    }
+
+
+    /**
+     * 历史图片没有特征时补算并写回
+     *
+     * @param picture 图片
+     */
+    private void backfillPictureFeatures(Picture picture) {
+        boolean filled = pictureFeatureExtractor.fillAndSave(picture);
+        ThrowUtils.throwIf(!filled, ErrorCode.OPERATION_ERROR, "图片解析失败");
+    }
+
+
+    /**
+     * 近似重复检测，同一空间内存在汉明距离不超过阈值的其他图片时抛出 EXIST
+     *
+     * @param picture               待保存的图片
+     * @param spaceId               空间 id
+     * @param nearDuplicateDistance 汉明距离阈值，为空时不检测
+     */
+    private void checkNearDuplicate(Picture picture, Long spaceId, Integer nearDuplicateDistance) {
+        if (ObjectUtil.isNull(nearDuplicateDistance) || ObjectUtil.isNull(picture.getPicPhash())) {
+            return;
+        }
+        boolean duplicated = pictureHashIndex.search(spaceId, picture.getPicPhash(), nearDuplicateDistance).stream()
+                .anyMatch(match -> !ObjUtil.equal(match.getId(), picture.getId()));
+        ThrowUtils.throwIf(duplicated, ErrorCode.EXIST, "存在近似重复的图片");
+    }
+
+    /**
+     * 按内容哈希查找同一空间内已上传的图片，复用其对象存储文件
+     * 对象存储中的文件不会随图片删除而清理，因此被多条记录引用也是安全的；
+     * 只在同一空间（或公共图库）内复用，私有空间的图片不会引用其他空间路径下的文件
+     *
+     * @param picHash 原图内容 SHA-256 哈希
+     * @param spaceId 空间 id，为空表示公共图库
+     * @return 已上传图片的解析信息，不存在时返回 null
+     */
+    private UploadPictureResult getUploadResultByHash(String picHash, Long spaceId) {
+        Picture existPicture = this.lambdaQuery()
+                .eq(Picture::getPicHash, picHash)
+                .eq(ObjectUtil.isNotNull(spaceId), Picture::getSpaceId, spaceId)
+                .isNull(ObjectUtil.isNull(spaceId), Picture::getSpaceId)
+                .last("limit 1")
+                .one();
+        if (ObjectUtil.isNull(existPicture)) {
+            return null;
+        }
+        UploadPictureResult uploadPictureResult = new UploadPictureResult();
+        uploadPictureResult.setUrl(existPicture.getUrl());
+        uploadPictureResult.setThumbnailUrl(existPicture.getThumbnailUrl());
+        uploadPictureResult.setPicSize(existPicture.getPicSize());
+        uploadPictureResult.setPicWidth(existPicture.getPicWidth());
+        uploadPictureResult.setPicHeight(existPicture.getPicHeight());
+        uploadPictureResult.setPicScale(existPicture.getPicScale());
+        uploadPictureResult.setPicFormat(existPicture.getPicFormat());
+        uploadPictureResult.setPicColor(existPicture.getPicColor());
+        return uploadPictureResult;
+    }
+
+
     /**
      * 获取图片信息
      *
@@ -225,6 +429,15 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
         picture.setPicScale(uploadPictureResult.getPicScale());
         picture.setPicFormat(uploadPictureResult.getPicFormat());
         picture.setPicColor(uploadPictureResult.getPicColor());
+        // 主色调在上传时换算为 Lab，查询时不再重复换算
+        int rgb = ColorSimilarUtils.parseRgb(uploadPictureResult.getPicColor());
+        if (rgb >= 0) {
+            float[] lab = ColorSimilarUtils.toLab(rgb);
+            picture.setPicLabL(lab[0]);
+            picture.setPicLabA(lab[1]);
+            picture.setPicLabB(lab[2]);
+        }
+        picture.setPicHash(uploadPictureResult.getPicHash());
         picture.setUserId(loginUser.getId());
         // 如果 pictureId 不为空，表示更新，否则是新增
         if (pictureId != null) {
@@ -293,15 +506,26 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
         LocalDateTime endEditTime = requestParam.getEndEditTime();
         LocalDateTime startEditTime = requestParam.getStartEditTime();
 
-        LambdaQueryWrapper<Picture> lambdaQueryWrapper = Wrappers.lambdaQuery(Picture.class);
+        // 与 lambda 条件共享同一组条件和排序，用于追加全文检索相关度排序
+        ParamOrderQueryWrapper<Picture> queryWrapper = new ParamOrderQueryWrapper<>(Picture.class);
+        LambdaQueryWrapper<Picture> lambdaQueryWrapper = queryWrapper.lambda();
 
-        // 多字段模糊搜索
+        // 多字段全文检索（名称、简介、标签），词过短时退化为模糊搜索
+        String relevanceQuery = null;
         if (StrUtil.isNotBlank(searchText)) {
-            lambdaQueryWrapper.and(qw ->
-                    qw.like(Picture::getName, searchText)
-                            .or()
-                            .like(Picture::getIntroduction, searchText)
-            );
+            List<String> terms = FullTextSearchUtils.splitTerms(searchText);
+            if (FullTextSearchUtils.isIndexable(terms)) {
+                relevanceQuery = FullTextSearchUtils.toBooleanQuery(terms);
+                lambdaQueryWrapper.apply(PICTURE_TEXT_MATCH + " AGAINST({0} IN BOOLEAN MODE)", relevanceQuery);
+            } else {
+                lambdaQueryWrapper.and(qw ->
+                        qw.like(Picture::getName, searchText)
+                                .or()
+                                .like(Picture::getIntroduction, searchText)
+                                .or()
+                                .like(Picture::getTags, searchText)
+                );
+            }
         }
 
         // 条件查询
@@ -344,14 +568,27 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
                     lambdaQueryWrapper.orderBy(true, isAsc, Picture::getCreateTime);
                     break;
             }
+        } else if (ObjectUtil.isNotNull(relevanceQuery)) {
+            // 全文检索时默认按相关度降序，检索词与条件中一样以预编译参数绑定
+            queryWrapper.orderByDescWithParams(PICTURE_TEXT_MATCH + " AGAINST({0} IN BOOLEAN MODE)", relevanceQuery);
+            lambdaQueryWrapper.orderByDesc(Picture::getCreateTime);
         } else {
             // 默认按照创建时间降序排序
             lambdaQueryWrapper.orderByDesc(Picture::getCreateTime);
         }
-        // JSON 数组查询（标签）
+        // 标签查询：在标签关联表的 (tag, picture_id) 索引上求各标签倒排列表的交集
         if (ObjUtil.isNotEmpty(tags)) {
-            for (String tag : tags) {
-                lambdaQueryWrapper.like(Picture::getTags, "\"" + tag + "\"");
+            List<String> tagList = tags.stream()
+                    .map(StrUtil::trim)
+                    .filter(StrUtil::isNotEmpty)
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (CollUtil.isNotEmpty(tagList)) {
+                String placeholders = IntStream.range(0, tagList.size())
+                        .mapToObj(index -> "{" + index + "}")
+                        .collect(Collectors.joining(", "));
+                lambdaQueryWrapper.apply("id IN (SELECT picture_id FROM picture_tag WHERE tag IN (" + placeholders
+                        + ") GROUP BY picture_id HAVING COUNT(*) = " + tagList.size() + ")", tagList.toArray());
             }
         }
 
@@ -382,27 +619,9 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
             User user = userService.getById(userId);
             UserVO userVO = userService.getUserVO(user);
             pictureVO.setUser(userVO);
-            // 查询图片的点赞状态
-            Like pictureLike = likeService.getOne(Wrappers.lambdaQuery(Like.class)
-                    .eq(Like::getPictureId, picture.getId())
-                    .eq(Like::getUserId, loginUser.getId())
-                    .eq(Like::getLikeType, 0));
-            // 获取图片的收藏状态
-            Favorite favorite = favoriteService.getOne(Wrappers.lambdaQuery(Favorite.class)
-                    .eq(Favorite::getPictureId, picture.getId())
-                    .eq(Favorite::getUserId, loginUser.getId()));
-            // 填充点赞状态
-            if (ObjectUtil.isNotNull(favorite)) {
-                pictureVO.setIsFavorited(favorite.getIsFavorited());
-            } else {
-                pictureVO.setIsFavorited(0);
-            }
-            // 填充图片点赞状态
-            if (ObjectUtil.isNotNull(pictureLike)) {
-                pictureVO.setIsLiked(pictureLike.getIsLiked());
-            } else {
-                pictureVO.setIsLiked(0);
-            }
+            // 填充点赞、收藏状态
+            pictureViewerStateLoader.load(loginUser.getId(), Collections.singletonList(picture.getId()))
+                    .apply(Collections.singletonList(pictureVO));
         }
         return pictureVO;
     }
@@ -411,52 +630,139 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
     /**
      * 根据颜色搜索图片
      *
-     * @param spaceId   空间id
-     * @param picColor  颜色
-     * @param loginUser 登录用户
+     * @param requestParam 按颜色搜图请求参数
+     * @param loginUser    登录用户
      * @return 图片信息封装类
      */
     @Override
-    public List<PictureVO> searchPictureByColor(Long spaceId, String picColor, User loginUser) {
+    public List<PictureVO> searchPictureByColor(SearchPictureByColorRequest requestParam, User loginUser) {
         // 1. 校验参数
+        Long spaceId = requestParam.getSpaceId();
+        String picColor = requestParam.getPicColor();
         ThrowUtils.throwIf(ObjectUtil.isNull(spaceId) || StrUtil.isBlank(picColor), ErrorCode.PARAMS_ERROR);
         ThrowUtils.throwIf(ObjectUtil.isNull(loginUser), ErrorCode.NO_AUTH_ERROR);
+        ColorMetricEnum metric = StrUtil.isBlank(requestParam.getMetric())
+                ? ColorMetricEnum.RGB : ColorMetricEnum.getEnumByValue(requestParam.getMetric());
+        ThrowUtils.throwIf(ObjectUtil.isNull(metric), ErrorCode.PARAMS_ERROR, "不支持的颜色度量");
         // 2. 校验空间权限
         Space space = spaceService.getById(spaceId);
         ThrowUtils.throwIf(space == null, ErrorCode.NOT_FOUND_ERROR, "空间不存在");
         if (!loginUser.getId().equals(space.getUserId())) {
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "没有空间访问权限");
         }
-        // 3. 查询该空间下所有图片（必须有主色调）
-        List<Picture> pictureList = this.lambdaQuery()
-                .eq(Picture::getSpaceId, spaceId)
-                .isNotNull(Picture::getPicColor)
-                .list();
+        // 3. 将目标颜色解析为 RGB 值
+        int targetRgb = ColorSimilarUtils.parseRgb(picColor);
+        ThrowUtils.throwIf(targetRgb < 0, ErrorCode.PARAMS_ERROR, "颜色格式错误");
+        // 4. 查询颜色索引，取最接近的 12 个（可匹配调色板中的任一颜色）
+        List<ColorIndex.Match> matches = pictureColorIndex.search(spaceId, targetRgb, 12, metric,
+                BooleanUtil.isTrue(requestParam.getMatchPalette()));
         // 如果没有图片，直接返回空列表
-        if (CollUtil.isEmpty(pictureList)) {
+        if (CollUtil.isEmpty(matches)) {
             return Collections.emptyList();
         }
-        // 将目标颜色转为 Color 对象
-        Color targetColor = Color.decode(picColor);
-        // 4. 计算相似度并排序
-        List<Picture> sortedPictures = pictureList.stream()
-                .sorted(Comparator.comparingDouble(picture -> {
-                    // 提取图片主色调
-                    String hexColor = picture.getPicColor();
-                    // 没有主色调的图片放到最后
-                    if (StrUtil.isBlank(hexColor)) {
-                        return Double.MAX_VALUE;
-                    }
-                    Color pictureColor = Color.decode(hexColor);
-                    // 越大越相似
-                    return -ColorSimilarUtils.calculateSimilarity(targetColor, pictureColor);
-                }))
-                // 取前 12 个
-                .limit(12)
+        // 5. 回表并保持相似度顺序，转换为 PictureVO
+        Map<Long, Picture> pictureMap = this.listByIds(matches.stream().map(ColorIndex.Match::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Picture::getId, item -> item));
+        return matches.stream()
+                .map(match -> pictureMap.get(match.getId()))
+                .filter(Objects::nonNull)
+                .map(PictureVO::objToVo)
                 .collect(Collectors.toList());
+    }
 
-        // 转换为 PictureVO
-        return sortedPictures.stream()
+
+    /**
+     * 以图搜图（本地特征向量检索，同一空间内按相似度降序）
+     *
+     * @param requestParam 以图搜图请求参数
+     * @param loginUser    登录用户
+     * @return 相似图片
+     */
+    @Override
+    public List<PictureVO> searchPictureByPicture(SearchPictureByPictureRequest requestParam, User loginUser) {
+        // 1. 校验参数
+        Long pictureId = requestParam.getPictureId();
+        Integer topK = requestParam.getTopK();
+        ThrowUtils.throwIf(ObjectUtil.isNull(pictureId) || pictureId <= 0, ErrorCode.PARAMS_ERROR);
+        ThrowUtils.throwIf(ObjectUtil.isNull(topK) || topK <= 0 || topK > 50, ErrorCode.PARAMS_ERROR, "返回数量需在 1 ~ 50 之间");
+        Picture picture = getPictureWithFeatures(pictureId);
+        ThrowUtils.throwIf(ObjectUtil.isNull(picture), ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        // 2. 私有空间仅空间管理员可查
+        Long spaceId = picture.getSpaceId();
+        if (ObjectUtil.isNotNull(spaceId)) {
+            checkPictureAuth(loginUser, picture);
+        }
+        // 3. 历史图片没有特征时补算并写回
+        if (ObjectUtil.isNull(picture.getPicFeature())) {
+            backfillPictureFeatures(picture);
+        }
+        // 4. 查询内存索引（公共图库多取一些，回表后过滤未过审的图片）
+        int limit = ObjectUtil.isNull(spaceId) ? topK * 2 : topK;
+        List<FeatureVectorStore.Match> matches = pictureFeatureIndex.search(spaceId,
+                ImageFeatureUtils.fromBytes(picture.getPicFeature()), limit, pictureId);
+        if (CollUtil.isEmpty(matches)) {
+            return Collections.emptyList();
+        }
+        // 5. 回表并保持相似度顺序
+        Map<Long, Picture> pictureMap = this.listByIds(matches.stream().map(FeatureVectorStore.Match::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Picture::getId, item -> item));
+        return matches.stream()
+                .map(match -> pictureMap.get(match.getId()))
+                .filter(Objects::nonNull)
+                .filter(item -> ObjectUtil.isNotNull(spaceId)
+                        || Objects.equals(PictureReviewStatusEnum.PASS.getValue(), item.getReviewStatus()))
+                .limit(topK)
+                .map(PictureVO::objToVo)
+                .collect(Collectors.toList());
+    }
+
+
+    /**
+     * 查询近似重复的图片（同一空间内，按汉明距离升序）
+     *
+     * @param requestParam 查询请求参数
+     * @param loginUser    登录用户
+     * @return 近似重复的图片
+     */
+    @Override
+    public List<PictureVO> searchNearDuplicatePictures(SearchNearDuplicatePictureRequest requestParam, User loginUser) {
+        // 1. 校验参数
+        Long pictureId = requestParam.getPictureId();
+        Integer maxDistance = requestParam.getMaxDistance();
+        ThrowUtils.throwIf(ObjectUtil.isNull(pictureId) || pictureId <= 0, ErrorCode.PARAMS_ERROR);
+        ThrowUtils.throwIf(ObjectUtil.isNull(maxDistance) || maxDistance < 0 || maxDistance > 16,
+                ErrorCode.PARAMS_ERROR, "汉明距离需在 0 ~ 16 之间");
+        Picture picture = getPictureWithFeatures(pictureId);
+        ThrowUtils.throwIf(ObjectUtil.isNull(picture), ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+        // 2. 私有空间仅空间管理员可查
+        Long spaceId = picture.getSpaceId();
+        if (ObjectUtil.isNotNull(spaceId)) {
+            checkPictureAuth(loginUser, picture);
+        }
+        // 3. 历史图片没有感知哈希时补算并写回
+        if (ObjectUtil.isNull(picture.getPicPhash())) {
+            backfillPictureFeatures(picture);
+        }
+        Long picPhash = picture.getPicPhash();
+        // 4. 查询内存索引
+        List<HammingIndex.Match> matches = pictureHashIndex.search(spaceId, picPhash, maxDistance).stream()
+                .filter(match -> match.getId() != pictureId)
+                .limit(NEAR_DUPLICATE_LIMIT)
+                .collect(Collectors.toList());
+        if (CollUtil.isEmpty(matches)) {
+            return Collections.emptyList();
+        }
+        // 5. 回表并保持距离顺序，公共图库只返回审核通过的图片
+        Map<Long, Picture> pictureMap = this.listByIds(matches.stream().map(HammingIndex.Match::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Picture::getId, item -> item));
+        return matches.stream()
+                .map(match -> pictureMap.get(match.getId()))
+                .filter(Objects::nonNull)
+                .filter(item -> ObjectUtil.isNotNull(spaceId)
+                        || Objects.equals(PictureReviewStatusEnum.PASS.getValue(), item.getReviewStatus()))
                 .map(PictureVO::objToVo)
                 .collect(Collectors.toList());
     }
@@ -491,10 +797,26 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
             }
             pictureVO.setUser(userService.getUserVO(user));
         });
+        // 3. 批量填充当前用户的点赞、收藏状态（不传请求对象时不填充，如跨用户共享的缓存）
+        if (request != null) {
+            fillViewerState(pictureVOList, request);
+        }
         pictureVOPage.setRecords(pictureVOList);
         return pictureVOPage;
     }
 
+    /**
+     * 批量填充当前用户的点赞、收藏状态，未登录时均为未点赞、未收藏
+     *
+     * @param pictureVOList 图片封装类
+     * @param request       请求对象
+     */
+    private void fillViewerState(List<PictureVO> pictureVOList, HttpServletRequest request) {
+        User loginUser = userService.getLoginUserPermitNull(request);
+        List<Long> pictureIds = pictureVOList.stream().map(PictureVO::getId).collect(Collectors.toList());
+        pictureViewerStateLoader.load(loginUser == null ? null : loginUser.getId(), pictureIds).apply(pictureVOList);
+    }
+
 
     /**
      * 校验图片信息
@@ -551,6 +873,11 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
         updatePicture.setReviewTime(LocalDateTime.now());
         boolean result = this.saveOrUpdate(updatePicture);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "图片审核失败");
+        pictureNeighborCache.invalidate(oldPicture.getSpaceId());
+        invalidateListCache(oldPicture.getSpaceId(), oldPicture.getCategory());
+        if (!PictureReviewStatusEnum.PASS.equals(reviewStatusEnum)) {
+            pictureRankingManager.remove(Collections.singletonList(id));
+        }
     }
 
 
@@ -576,321 +903,215 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
 
 
     /**
-     * 通用的抓取图片逻辑
+     * 根据不同源抓取图片（并发导入，等待任务完成后返回）
      *
-     * @param fetcher    图片抓取器
-     * @param searchText 搜索关键词
-     * @param count      抓取数量
-     * @param loginUser  登录用户
-     * @param namePrefix 图片名称前缀
-     * @param source     数据源名称
-     * @return 成功抓取的图片数量
+     * @param requestParam 批量抓取请求参数
+     * @param loginUser    登录用户
+     * @return 上传数量
      */
-    public Integer fetchImages(ImageFetcher fetcher, String searchText, Integer count, User loginUser,
-                               String namePrefix, String source) {
-        int uploadCount = 0;
-        int page = 1;
-        int pageSize = 10;
-
-        // 获取已抓取的 URL 列表
-        Set<String> fetchedUrls = fetchedImagesService.getFetchedUrlsBySource(source);
-
-        while (uploadCount < count) {
-            // 获取当前页图片 URL 列表
-            List<String> imageUrls = fetcher.fetchImageUrls(searchText, page, pageSize);
-
-            if (imageUrls.isEmpty()) {
-                log.warn("未找到更多图片，停止抓取");
-                break;
-            }
+    @Override
+    public Integer uploadPictureByBatch(PictureUploadByBatchRequest requestParam, User loginUser) {
+        ImportJob job = doSubmitImportJob(requestParam, loginUser);
+        boolean done;
+        try {
+            done = job.awaitDone(BATCH_IMPORT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "批量抓取被中断");
+        }
+        // 超时后任务仍在后台继续执行，可按任务 id 查询进度
+        ThrowUtils.throwIf(!done, ErrorCode.OPERATION_ERROR,
+                "批量抓取超时，任务仍在后台执行，任务 id：" + job.getJobId());
+        if (ImportJobStatusEnum.FAILED.equals(job.getStatus())) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "批量抓取图片失败：" + job.getErrorMessage());
+        }
+        return job.getUploaded().get();
+    }
 
-            for (String fileUrl : imageUrls) {
-                if (fetchedUrls.contains(fileUrl)) {
-                    log.info("图片已抓取过，跳过: {}", fileUrl);
-                    continue;
-                }
 
-                // 检查文件大小
-                try {
-                    long fileSize = getFileSize(fileUrl);
-                    if (fileSize > 4 * 1024 * 1024) {
-                        log.warn("图片文件大小超过4MB，跳过: {}", fileUrl);
-                        continue;
-                    }
-                } catch (IOException e) {
-                    log.warn("无法获取文件大小，跳过: {}", fileUrl, e);
-                    continue;
-                }
+    /**
+     * 异步提交批量导入任务
+     *
+     * @param requestParam 批量抓取请求参数
+     * @param loginUser    登录用户
+     * @return 任务 id
+     */
+    @Override
+    public String submitImportJob(PictureUploadByBatchRequest requestParam, User loginUser) {
+        return doSubmitImportJob(requestParam, loginUser).getJobId();
+    }
 
-                // 上传图片
-                PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
-                pictureUploadRequest.setPicName(namePrefix + (uploadCount + 1));
 
-                try {
-                    PictureVO pictureVO = this.uploadPicture(fileUrl, pictureUploadRequest, loginUser);
-                    log.info("图片上传成功, id = {}", pictureVO.getId());
-                    uploadCount++;
-                    fetchedImagesService.saveFetchedUrl(fileUrl, source);
-                } catch (Exception e) {
-                    log.error("图片上传失败", e);
-                }
+    /**
+     * 查询批量导入任务进度
+     *
+     * @param jobId 任务 id
+     * @return 任务进度
+     */
+    @Override
+    public ImportJobVO getImportJob(String jobId) {
+        ThrowUtils.throwIf(StrUtil.isBlank(jobId), ErrorCode.PARAMS_ERROR);
+        ImportJob job = pictureImportEngine.getJob(jobId);
+        ThrowUtils.throwIf(ObjectUtil.isNull(job), ErrorCode.NOT_FOUND_ERROR, "导入任务不存在");
+        return ImportJobVO.objToVo(job);
+    }
 
-                if (uploadCount >= count) {
-                    break;
-                }
-            }
 
-            page++;
+    /**
+     * 续跑未结束的批量导入任务（服务重启或执行节点宕机后由定时任务调用）
+     */
+    @Override
+    public void resumeImportJobs() {
+        for (String jobId : importJobStore.listUnfinishedJobIds()) {
+            // 租约仍有效说明任务在其他节点正常执行
+            if (pictureImportEngine.isRunningLocally(jobId) || !importJobStore.tryAcquireLease(jobId)) {
+                continue;
+            }
+            ImportJob job = importJobStore.load(jobId);
+            if (ObjectUtil.isNull(job) || !ImportJobStatusEnum.RUNNING.equals(job.getStatus())) {
+                continue;
+            }
+            User user = userService.getById(job.getUserId());
+            if (ObjectUtil.isNull(user)) {
+                job.finish(ImportJobStatusEnum.FAILED, "发起用户不存在");
+                importJobStore.save(job);
+                continue;
+            }
+            try {
+                ImageFetcher fetcher = ImageFetcherFactory.getFetcher(job.getSource());
+                PictureImportHandler handler = buildImportHandler(job, user);
+                pictureImportEngine.resume(job, fetcher, handler);
+            } catch (Exception e) {
+                log.error("续跑导入任务失败, jobId = {}", jobId, e);
+            }
         }
-
-        return uploadCount;
     }
 
 
     /**
-     * 根据不同源抓取图片
+     * 提交批量导入任务
      *
      * @param requestParam 批量抓取请求参数
      * @param loginUser    登录用户
-     * @return 上传数量
+     * @return 导入任务
      */
-    @Override
-    public Integer uploadPictureByBatch(PictureUploadByBatchRequest requestParam, User loginUser) {
+    private ImportJob doSubmitImportJob(PictureUploadByBatchRequest requestParam, User loginUser) {
         String searchText = requestParam.getSearchText();
         Integer count = requestParam.getCount();
         String source = requestParam.getSource();
-        String namePrefix = requestParam.getNamePrefix();
-
-
-        ImageFetcher fetcher;
-        Integer uploadCount = 0;
-
-        if ("haowallpaper".equals(source)) {
-            uploadCount = fetchFromHaoWallpaper(searchText, count, loginUser, namePrefix, source);
-        }
-
-        switch (source.toLowerCase()) {
-            case "google":
-                fetcher = new GoogleImageFetcher();
-                break;
-            case "baidu":
-                fetcher = new BaiduImageFetcher();
-                break;
-            case "bing":
-                fetcher = new BingImageFetcher();
-                break;
-            case "pexels":
-                fetcher = new PexelsImageFetcher();
-                break;
-            case "wallhaven":
-                fetcher = new WallhavenImageFetcher();
-                break;
-            default:
-                throw new BusinessException(ErrorCode.PARAMS_ERROR, "未知的抓取源：" + source);
-        }
-
-        return fetchImages(fetcher, searchText, count, loginUser, namePrefix, source);
+        ThrowUtils.throwIf(StrUtil.isBlank(searchText), ErrorCode.PARAMS_ERROR, "搜索词不能为空");
+        ThrowUtils.throwIf(ObjectUtil.isNull(count) || count <= 0, ErrorCode.PARAMS_ERROR, "抓取数量不合法");
+        ImageFetcher fetcher = ImageFetcherFactory.getFetcher(source);
+        String namePrefix = StrUtil.isBlank(requestParam.getNamePrefix()) ? searchText : requestParam.getNamePrefix();
+        ImportJob job = pictureImportEngine.createJob(source, searchText, namePrefix, count, loginUser.getId());
+        job.setNearDuplicateDistance(requestParam.getNearDuplicateDistance());
+        PictureImportHandler handler = buildImportHandler(job, loginUser);
+        pictureImportEngine.submit(job, fetcher, handler);
+        return job;
     }
 
 
     /**
-     * 抓取 HaoWallpaper 图片
+     * 构造导入回调：去重判断 + 登记已抓取 URL + 上传入库
+     * 图片大小与类型由 UrlPictureUpload 校验，这里不再额外发送 HEAD 请求
      *
-     * @param searchText 关键字
-     * @param count      数量
-     * @param loginUser  登录用户
-     * @param namePrefix 名称前缀
-     * @return 上传数量
+     * @param job       导入任务
+     * @param loginUser 登录用户
+     * @return 导入回调
      */
-    public Integer fetchFromHaoWallpaper(String searchText, Integer count, User loginUser, String namePrefix, String source) {
-        int uploadCount = 0;
-        String baseUrl = "https://haowallpaper.com/homeView";
+    private PictureImportHandler buildImportHandler(ImportJob job, User loginUser) {
+        String source = job.getSource();
+        return new PictureImportHandler() {
+            @Override
+            public boolean isFetched(String url) {
+                return fetchedImagesService.isFetched(url);
+            }
 
-        try {
-            // 从数据库中获取已抓取的 URL 列表
-            Set<String> fetchedUrls = fetchedImagesService.getFetchedUrlsBySource(source);
-
-            // 分页抓取
-            int page = 1;
-            while (uploadCount < count) {
-                // 构建分页 URL
-                String fetchUrl = String.format("%s?page=%d", baseUrl, page);
-                log.info("正在抓取 URL: {}", fetchUrl);
-
-                // 获取 HTML 页面
-                Document document = Jsoup.connect(fetchUrl).get();
-
-                // 解析图片的元素
-                Elements imgElements = document.select("img");
-                if (imgElements.isEmpty()) {
-                    log.warn("未找到更多图片，停止抓取");
-                    break;
+            @Override
+            public boolean importPicture(String url, int index) {
+                // 先登记 URL：其他节点或任务已登记时跳过，避免同一 URL 被重复导入
+                if (!fetchedImagesService.claimFetchedUrl(url, source)) {
+                    log.info("图片已被抓取，跳过, url = {}", url);
+                    return false;
                 }
-
-                for (Element imgElement : imgElements) {
-                    // 提取图片 URL
-                    String fileUrl = imgElement.attr("src");
-                    // 获取 `alt` 属性值
-                    String altText = imgElement.attr("alt");
-
-                    // 检查 `alt` 属性是否包含关键词
-                    if (altText == null || !altText.contains(searchText)) {
-                        // 跳过不符合条件的图片
-                        continue;
-                    }
-
-                    if (!fileUrl.startsWith("http")) {
-                        // 补全相对路径
-                        fileUrl = "https://haowallpaper.com" + fileUrl;
-                    }
-
-                    // 检查是否已抓取过
-                    if (fetchedUrls.contains(fileUrl)) {
-                        log.info("图片已抓取过，跳过: {}", fileUrl);
-                        continue; // 跳过已抓取的图片
-                    }
-
-                    if (StrUtil.isBlank(namePrefix)) {
-                        namePrefix = searchText;
-                    }
-
-                    // **检查文件大小**
-                    long fileSize = getFileSize(fileUrl);
-                    if (fileSize > 4 * 1024 * 1024) {
-                        log.warn("图片文件大小超过4MB，跳过: {}", fileUrl);
-                        continue;
-                    }
-
-                    // 上传图片
-                    PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
-                    pictureUploadRequest.setPicName(namePrefix + (uploadCount + 1));
-
-                    try {
-                        PictureVO pictureVO = this.uploadPicture(fileUrl, pictureUploadRequest, loginUser);
-                        log.info("图片上传成功, id = {}", pictureVO.getId());
-                        uploadCount++;
-
-                        // 保存已抓取的 URL 到数据库
-                        fetchedImagesService.saveFetchedUrl(fileUrl, source);
-                    } catch (Exception e) {
-                        log.error("图片上传失败", e);
-                        continue;
-                    }
-
-                    if (uploadCount >= count) {
-                        break;
+                PictureUploadRequest pictureUploadRequest = new PictureUploadRequest();
+                pictureUploadRequest.setPicName(job.getNamePrefix() + index);
+                pictureUploadRequest.setNearDuplicateDistance(job.getNearDuplicateDistance());
+                boolean imported = true;
+                try {
+                    PictureVO pictureVO = uploadPicture(url, pictureUploadRequest, loginUser);
+                    log.info("图片上传成功, id = {}", pictureVO.getId());
+                } catch (BusinessException e) {
+                    if (e.getCode() != ErrorCode.EXIST.getCode()) {
+                        fetchedImagesService.releaseFetchedUrl(url);
+                        throw e;
                     }
+                    // 近似重复的图片保留登记，下次不再下载
+                    log.info("图片与图库中已有图片近似重复，跳过, url = {}", url);
+                    imported = false;
+                } catch (RuntimeException e) {
+                    // 导入失败时撤销登记，之后的任务可以重新抓取
+                    fetchedImagesService.releaseFetchedUrl(url);
+                    throw e;
                 }
-
-                page++; // 下一页
+                return imported;
             }
-        } catch (Exception e) {
-            log.error("批量抓取 HaoWallpaper 图片失败", e);
-            throw new BusinessException(ErrorCode.OPERATION_ERROR, "批量抓取 HaoWallpaper 图片失败");
-        }
-
-        return uploadCount;
+        };
     }
 
 
     /**
-     * 获取图片文件大小
+     * 获取图片浏览次数（数据库中已刷写的部分 + Redis 中未刷写的增量）
      *
-     * @param fileUrl 图片 URL
-     * @return 文件大小（字节）
-     * @throws IOException IO 异常
+     * @param pictureId 图片ID
+     * @return 当前图片的浏览次数
      */
-    private long getFileSize(String fileUrl) throws IOException {
-        OkHttpClient client = new OkHttpClient();
-        Request request = new Request.Builder()
-                .url(fileUrl)
-                .head() // 只获取 HTTP 头
-                .build();
-
-        Response response = client.newCall(request).execute();
-        if (!response.isSuccessful()) {
-            throw new IOException("无法获取文件大小: " + fileUrl);
+    @Override
+    public Long getViewCount(Long pictureId) {
+        Picture picture = this.lambdaQuery()
+                .select(Picture::getId, Picture::getViewCount)
+                .eq(Picture::getId, pictureId)
+                .one();
+        // 若数据库中不存在对应图片，返回 0
+        if (ObjectUtil.isNull(picture)) {
+            return 0L;
         }
-
-        String contentLength = response.header("Content-Length");
-        return contentLength != null ? Long.parseLong(contentLength) : 0;
+        return getViewCount(picture);
     }
 
 
     /**
-     * 获取图片浏览次数
+     * 获取已查询出的图片的浏览次数（数据库中已刷写的部分 + Redis 中未刷写的增量）
      *
-     * @param pictureId 图片ID
+     * @param picture 图片信息
      * @return 当前图片的浏览次数
      */
     @Override
-    public Long getViewCount(Long pictureId) {
-        String key = "picture:view_count:" + pictureId;
-        // 从 Redis 获取浏览次数
-        String viewCountStr = redisTemplate.opsForValue().get(key);
-
-        if (StrUtil.isNotBlank(viewCountStr)) {
-            return Long.parseLong(viewCountStr);
-        }
-
-        // 如果 Redis 中没有，则从数据库获取并同步到 Redis
-        Picture picture = this.getById(pictureId);
-        if (ObjectUtil.isNotNull(picture)) {
-            Long viewCount = picture.getViewCount() != null ? picture.getViewCount() : 0L;
-
-            // 将数据库的值同步到 Redis，确保不会丢失数据
-            redisTemplate.opsForValue().set(key, String.valueOf(viewCount));
-            return viewCount;
-        }
-
-        // 若数据库中也不存在对应图片，返回 0
-        return 0L;
+    public Long getViewCount(Picture picture) {
+        return ObjectUtil.defaultIfNull(picture.getViewCount(), 0L) + pictureViewCounter.getPendingCount(picture.getId());
     }
 
 
     /**
-     * 增加图片浏览次数
+     * 增加图片浏览次数（只累加 Redis 中的增量，由定时任务批量刷写到数据库）
      *
      * @param pictureId 图片ID
      */
     @Override
     public void incrementViewCount(Long pictureId) {
-        Picture picture = this.getById(pictureId);
-        if (ObjectUtil.isNotNull(picture)) {
-            picture.setViewCount(picture.getViewCount() + 1);
-            this.updateById(picture);
-        }
+        pictureViewCounter.increment(pictureId);
     }
 
 
     /**
-     * 增加图片浏览次数，缓存版本
+     * 增加图片浏览次数，并计入热门榜单
      *
-     * @param pictureId 图片ID
+     * @param picture 图片信息
      */
     @Override
-    public void incrementViewCountInCache(Long pictureId) {
-        String key = "picture:view_count:" + pictureId;
-        // 判断Redis中是否存在该键
-        Boolean hasKey = redisTemplate.hasKey(key);
-
-        if (Boolean.TRUE.equals(hasKey)) {
-            // 如果存在，直接增加浏览量
-            redisTemplate.opsForValue().increment(key, 1);
-
-            // 同时更新数据库
-            Picture picture = this.getById(pictureId);
-            if (ObjectUtil.isNotNull(picture)) {
-                picture.setViewCount(picture.getViewCount() + 1);
-                this.updateById(picture);
-            }
-        } else {
-            // 如果不存在，从数据库加载浏览量并写入Redis
-            Picture picture = this.getById(pictureId);
-            Long currentViewCount = picture != null && picture.getViewCount() != null ? picture.getViewCount() : 0L;
-            // 将数据库中的浏览量同步到Redis
-            redisTemplate.opsForValue().set(key, String.valueOf(currentViewCount + 1));
-        }
+    public void incrementViewCountInCache(Picture picture) {
+        pictureViewCounter.increment(picture.getId());
+        pictureRankingManager.recordView(picture);
     }
 
 
@@ -914,44 +1135,231 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
         // 排除私人空间图片
         requestParam.setNullSpaceId(true);
 
-        // 构建缓存 key
+        // 构建缓存 key（带命名空间版本号，失效时版本号变化即可）
         String queryCondition = JSONUtil.toJsonStr(requestParam);
         String hashKey = DigestUtils.md5DigestAsHex(queryCondition.getBytes());
-        String redisKey = "lgpicture:listPictureVOByPage:" + hashKey;
-
-        // 1. 查询本地缓存（Caffeine）
-        String cachedValue = LOCAL_CACHE.getIfPresent(redisKey);
-        if (ObjectUtil.isNotNull(cachedValue)) {
-            Page<PictureVO> cachedPage = JSONUtil.toBean(cachedValue, Page.class);
-            return cachedPage;
-        }
-
-        // 2. 查询分布式缓存（Redis）
-        ValueOperations<String, String> valueOps = stringRedisTemplate.opsForValue();
-        cachedValue = valueOps.get(redisKey);
-        if (ObjectUtil.isNotNull(cachedValue)) {
-            // 如果命中 Redis，存入本地缓存并返回
-            LOCAL_CACHE.put(redisKey, cachedValue);
-            Page<PictureVO> cachedPage = JSONUtil.toBean(cachedValue, Page.class);
-            return cachedPage;
-        }
-
-        // 3.缓存未命中，查询数据库
-        Page<Picture> picturePage = this.page(new Page<>(current, size),
-                this.getLambdaQueryWrapper(requestParam));
-        // 获得封装类
-        Page<PictureVO> pictureVOPage = this.getPictureVOPage(picturePage, request);
-        // 4. 更新缓存
-        String cacheValue = JSONUtil.toJsonStr(pictureVOPage);
-        // 更新本地缓存
-        LOCAL_CACHE.put(redisKey, cacheValue);
-        // 5 - 10 分钟随机过期，防止雪崩
-        int cacheExpireTime = 300 + RandomUtil.randomInt(0, 300);
-        valueOps.set(redisKey, cacheValue, cacheExpireTime, TimeUnit.SECONDS);
-
+        String namespace = getListCacheNamespace(requestParam.getCategory());
+        String redisKey = namespace + ":v" + cacheNamespaceManager.getVersion(LIST_CACHE_NAMESPACE)
+                + "." + cacheNamespaceManager.getVersion(namespace) + ":" + hashKey;
+
+        // 依次查询本地缓存、Redis，都未命中时查询数据库；同一 key 并发未命中时只查询一次，过期后先返回旧值再后台刷新。
+        // 列表缓存与登录用户无关，且可能在后台线程加载，因此不传入请求对象
+        Page<PictureVO> cachedPage = twoLevelCacheManager.getCache(LIST_CACHE_NAME, LIST_CACHE_TYPE).get(redisKey,
+                () -> this.getPictureVOPage(this.page(new Page<>(current, size),
+                        this.getLambdaQueryWrapper(requestParam)), null));
+        if (cachedPage == null) {
+            return null;
+        }
+        // 缓存中的对象由所有请求共享，复制后再填充当前用户的点赞、收藏状态
+        List<PictureVO> pictureVOList = cachedPage.getRecords().stream()
+                .map(pictureVO -> BeanUtil.copyProperties(pictureVO, PictureVO.class))
+                .collect(Collectors.toList());
+        fillViewerState(pictureVOList, request);
+        Page<PictureVO> pictureVOPage = new Page<>(cachedPage.getCurrent(), cachedPage.getSize(), cachedPage.getTotal());
+        pictureVOPage.setRecords(pictureVOList);
         return pictureVOPage;
     }
 
+    /**
+     * 游标分页获取图片信息流（按 (排序字段, id) 降序的键集分页，不查询总数）
+     *
+     * @param requestParam 信息流请求参数
+     * @param request      请求对象
+     * @return 当前页图片与下一页游标
+     */
+    @Override
+    public PictureFeedVO listPictureVOByFeed(PictureFeedRequest requestParam, HttpServletRequest request) {
+        // 1. 校验参数
+        int size = requestParam.getPageSize();
+        ThrowUtils.throwIf(size <= 0 || size > 20, ErrorCode.PARAMS_ERROR);
+        String sortField = StrUtil.blankToDefault(requestParam.getSortField(), FEED_SORT_CREATE_TIME);
+        ThrowUtils.throwIf(!FEED_SORT_CREATE_TIME.equals(sortField) && !FEED_SORT_VIEW_COUNT.equals(sortField),
+                ErrorCode.PARAMS_ERROR, "不支持的排序字段");
+        // 2. 复用通用查询条件，公共图库只看已过审的图片，私有空间仅空间管理员可查
+        PictureQueryRequest queryRequest = new PictureQueryRequest();
+        queryRequest.setCategory(requestParam.getCategory());
+        queryRequest.setTags(requestParam.getTags());
+        queryRequest.setSearchText(requestParam.getSearchText());
+        queryRequest.setSortField(sortField);
+        queryRequest.setSortOrder("descend");
+        Long spaceId = requestParam.getSpaceId();
+        if (ObjectUtil.isNull(spaceId)) {
+            queryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+            queryRequest.setNullSpaceId(true);
+        } else {
+            User loginUser = userService.getLoginUser(request);
+            Space space = spaceService.getById(spaceId);
+            ThrowUtils.throwIf(ObjectUtil.isNull(space), ErrorCode.NOT_FOUND_ERROR, "空间不存在");
+            if (!loginUser.getId().equals(space.getUserId())) {
+                throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "没有空间权限");
+            }
+            queryRequest.setSpaceId(spaceId);
+        }
+        LambdaQueryWrapper<Picture> queryWrapper = this.getLambdaQueryWrapper(queryRequest)
+                .orderByDesc(Picture::getId);
+        // 3. 从游标位置之后继续读取：sortValue < ? OR (sortValue = ? AND id < ?)
+        if (StrUtil.isNotBlank(requestParam.getCursor())) {
+            String[] cursor = FeedCursorUtils.decode(requestParam.getCursor(), sortField);
+            try {
+                long lastId = Long.parseLong(cursor[1]);
+                if (FEED_SORT_VIEW_COUNT.equals(sortField)) {
+                    long lastViewCount = Long.parseLong(cursor[0]);
+                    queryWrapper.and(qw -> qw.lt(Picture::getViewCount, lastViewCount)
+                            .or(w -> w.eq(Picture::getViewCount, lastViewCount).lt(Picture::getId, lastId)));
+                } else {
+                    LocalDateTime lastCreateTime = LocalDateTime.parse(cursor[0]);
+                    queryWrapper.and(qw -> qw.lt(Picture::getCreateTime, lastCreateTime)
+                            .or(w -> w.eq(Picture::getCreateTime, lastCreateTime).lt(Picture::getId, lastId)));
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标格式错误");
+            }
+        }
+        // 4. 多取一条判断是否还有下一页，不再执行 COUNT 查询
+        List<Picture> pictureList = this.list(queryWrapper.last("limit " + (size + 1)));
+        boolean hasMore = pictureList.size() > size;
+        if (hasMore) {
+            pictureList = pictureList.subList(0, size);
+        }
+        PictureFeedVO pictureFeedVO = new PictureFeedVO();
+        pictureFeedVO.setRecords(this.getPictureVOPage(new Page<Picture>(1, size, false).setRecords(pictureList), request)
+                .getRecords());
+        pictureFeedVO.setHasMore(hasMore);
+        if (hasMore) {
+            Picture last = pictureList.get(pictureList.size() - 1);
+            String sortValue = FEED_SORT_VIEW_COUNT.equals(sortField)
+                    ? String.valueOf(ObjectUtil.defaultIfNull(last.getViewCount(), 0L))
+                    : last.getCreateTime().toString();
+            pictureFeedVO.setNextCursor(FeedCursorUtils.encode(sortField, sortValue, last.getId()));
+        }
+        return pictureFeedVO;
+    }
+
+    /**
+     * 获取详情页的上一张、下一张图片
+     *
+     * @param pictureId 当前图片 id
+     * @param sortField 排序字段（createTime / viewCount）
+     * @param sortOrder 排序顺序
+     * @param from      来源（public - 主页，space - 我的空间）
+     * @param request   请求对象
+     * @return prevId、nextId，没有时为 null
+     */
+    @Override
+    public Map<String, Long> getAdjacentPictures(Long pictureId, String sortField, String sortOrder, String from,
+                                                 HttpServletRequest request) {
+        ThrowUtils.throwIf(ObjectUtil.isNull(pictureId) || pictureId <= 0, ErrorCode.PARAMS_ERROR);
+        String neighborSortField = FEED_SORT_VIEW_COUNT.equals(sortField) ? FEED_SORT_VIEW_COUNT : FEED_SORT_CREATE_TIME;
+        boolean ascend = "ascend".equals(sortOrder);
+        String neighborFrom = "space".equals(from) ? "space" : "public";
+        // 1. 连续翻页时直接命中窗口缓存
+        PictureNeighborCache.NeighborWindow window = pictureNeighborCache.get(neighborFrom, neighborSortField, ascend, pictureId);
+        if (ObjectUtil.isNull(window)) {
+            Picture currentPicture = this.getById(pictureId);
+            ThrowUtils.throwIf(ObjectUtil.isNull(currentPicture), ErrorCode.NOT_FOUND_ERROR, "图片不存在");
+            // 私有空间的图片只能在所在空间内翻页（下面会校验空间权限），公共图库的图片在公共图库内翻页
+            Long spaceId = currentPicture.getSpaceId();
+            window = loadNeighborWindow(currentPicture, spaceId, neighborSortField, ascend);
+            // 未过审的公共图片不在翻页范围内，窗口只用于本次计算，不缓存，避免其 id 被其他用户作为邻居拿到
+            boolean inScope = ObjectUtil.isNotNull(spaceId)
+                    || Objects.equals(PictureReviewStatusEnum.PASS.getValue(), currentPicture.getReviewStatus());
+            if (inScope) {
+                pictureNeighborCache.put(neighborFrom, neighborSortField, ascend, window);
+            }
+        }
+        // 2. 私有空间校验权限
+        if (ObjectUtil.isNotNull(window.getSpaceId())) {
+            User loginUser = userService.getLoginUser(request);
+            Space space = spaceService.getById(window.getSpaceId());
+            if (space == null || !loginUser.getId().equals(space.getUserId())) {
+                throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权访问该空间");
+            }
+        }
+        Map<String, Long> result = new HashMap<>();
+        result.put("prevId", window.getPrevId(pictureId));
+        result.put("nextId", window.getNextId(pictureId));
+        return result;
+    }
+
+    /**
+     * 一次查询取出当前图片前后的图片，按展示顺序组成邻居窗口
+     */
+    private PictureNeighborCache.NeighborWindow loadNeighborWindow(Picture currentPicture, Long spaceId, String sortField,
+                                                                    boolean ascend) {
+        boolean byViewCount = FEED_SORT_VIEW_COUNT.equals(sortField);
+        Comparator<Picture> comparator = (byViewCount
+                ? Comparator.comparing((Picture item) -> ObjectUtil.defaultIfNull(item.getViewCount(), 0L))
+                : Comparator.comparing(Picture::getCreateTime))
+                .thenComparing(Picture::getId);
+        Object sortValue = byViewCount ? ObjectUtil.defaultIfNull(currentPicture.getViewCount(), 0L) : currentPicture.getCreateTime();
+        List<Picture> neighborList = this.baseMapper.selectNeighborWindow(spaceId, PictureReviewStatusEnum.PASS.getValue(),
+                sortField, sortValue, currentPicture.getId(), NEIGHBOR_WINDOW_SIZE);
+        // 某一侧不足 NEIGHBOR_WINDOW_SIZE 张，说明已经到头
+        long greaterCount = neighborList.stream().filter(item -> comparator.compare(item, currentPicture) > 0).count();
+        boolean greaterComplete = greaterCount < NEIGHBOR_WINDOW_SIZE;
+        boolean lessComplete = neighborList.size() - greaterCount < NEIGHBOR_WINDOW_SIZE;
+        List<Picture> windowList = new ArrayList<>(neighborList);
+        windowList.add(currentPicture);
+        windowList.sort(ascend ? comparator : comparator.reversed());
+        List<Long> ids = windowList.stream().map(Picture::getId).collect(Collectors.toList());
+        return new PictureNeighborCache.NeighborWindow(spaceId, ids,
+                ascend ? lessComplete : greaterComplete, ascend ? greaterComplete : lessComplete);
+    }
+
+    /**
+     * 分页获取热门图片榜单（直接按排名读取 Redis 有序集合，带筛选条件时回退为按浏览量查询数据库）
+     *
+     * @param requestParam 榜单请求参数
+     * @param request      请求对象
+     * @return 分页图片信息封装类
+     */
+    @Override
+    public Page<PictureVO> listPopularPictures(PictureRankingRequest requestParam, HttpServletRequest request) {
+        long current = requestParam.getPageNum();
+        long size = requestParam.getPageSize();
+        ThrowUtils.throwIf(current <= 0 || size <= 0 || size > 20, ErrorCode.PARAMS_ERROR);
+        RankingWindowEnum window = StrUtil.isBlank(requestParam.getWindow())
+                ? RankingWindowEnum.ALL : RankingWindowEnum.getEnumByValue(requestParam.getWindow());
+        ThrowUtils.throwIf(ObjectUtil.isNull(window), ErrorCode.PARAMS_ERROR, "不支持的榜单");
+        // 有序集合只保存图片 id，按分类、标签或关键词筛选时回退为查询数据库，按浏览量降序
+        if (StrUtil.isNotBlank(requestParam.getCategory()) || CollUtil.isNotEmpty(requestParam.getTags())
+                || StrUtil.isNotBlank(requestParam.getSearchText())) {
+            ThrowUtils.throwIf(window != RankingWindowEnum.ALL, ErrorCode.PARAMS_ERROR, "按分类、标签或关键词筛选时仅支持总榜");
+            PictureQueryRequest queryRequest = new PictureQueryRequest();
+            queryRequest.setCategory(requestParam.getCategory());
+            queryRequest.setTags(requestParam.getTags());
+            queryRequest.setSearchText(requestParam.getSearchText());
+            queryRequest.setNullSpaceId(true);
+            queryRequest.setReviewStatus(PictureReviewStatusEnum.PASS.getValue());
+            queryRequest.setSortField("viewCount");
+            queryRequest.setSortOrder("descend");
+            Page<Picture> picturePage = this.page(new Page<>(current, size), getLambdaQueryWrapper(queryRequest));
+            return this.getPictureVOPage(picturePage, request);
+        }
+        // 1. 按排名取当前页的图片 id
+        Page<Picture> picturePage = new Page<>(current, size, pictureRankingManager.size(window));
+        List<Long> pictureIds = pictureRankingManager.listTopIds(window, (current - 1) * size, size);
+        if (CollUtil.isEmpty(pictureIds)) {
+            return this.getPictureVOPage(picturePage, request);
+        }
+        // 2. 回表并保持排名顺序；已删除、未过审或私有空间的图片顺带从榜单移除
+        Map<Long, Picture> pictureMap = this.listByIds(pictureIds).stream()
+                .collect(Collectors.toMap(Picture::getId, item -> item));
+        List<Picture> pictureList = new ArrayList<>(pictureIds.size());
+        List<Long> staleIds = new ArrayList<>();
+        for (Long pictureId : pictureIds) {
+            Picture picture = pictureMap.get(pictureId);
+            if (PictureRankingManager.isRankable(picture)) {
+                pictureList.add(picture);
+            } else {
+                staleIds.add(pictureId);
+            }
+        }
+        pictureRankingManager.remove(staleIds);
+        picturePage.setRecords(pictureList);
+        return this.getPictureVOPage(picturePage, request);
+    }
+
     /**
      * 管理员手动刷新缓存
      *
@@ -960,19 +1368,12 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
      */
     @Override
     public boolean refreshCache(PictureQueryRequest requestParam, HttpServletRequest request) {
-        String redisKeyPrefix = "lgpicture:listPictureVOByPage:";
         try {
-            // 获取所有符合前缀的键
-            Set<String> keys = stringRedisTemplate.keys(redisKeyPrefix + "*");
-            if (keys != null && !keys.isEmpty()) {
-                // 删除 Redis 中所有相关的键
-                stringRedisTemplate.delete(keys);
-                // 删除 Caffeine 本地缓存中相关的键
-                keys.forEach(LOCAL_CACHE::invalidate);
-                log.info("缓存刷新成功，已删除键集合：{}", keys);
-            } else {
-                log.info("未找到需要删除的缓存键");
-            }
+            // 指定分类时只失效该分类，否则失效全部列表缓存
+            String namespace = StrUtil.isNotBlank(requestParam.getCategory())
+                    ? getListCacheNamespace(requestParam.getCategory()) : LIST_CACHE_NAMESPACE;
+            cacheNamespaceManager.invalidate(Collections.singletonList(namespace));
+            log.info("缓存刷新成功，已失效命名空间：{}", namespace);
             return true;
         } catch (Exception e) {
             log.error("刷新缓存失败", e);
@@ -980,6 +1381,48 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
         }
     }
 
+    /**
+     * 列表缓存的命名空间：按分类划分，未指定分类的查询归入 all
+     */
+    private static String getListCacheNamespace(String category) {
+        return StrUtil.isBlank(category) ? LIST_CACHE_NAMESPACE + ":all" : LIST_CACHE_NAMESPACE + ":category:" + category;
+    }
+
+    /**
+     * 公共图库中的图片变化后，失效受影响的列表缓存：未指定分类的查询，以及图片变化前后所属分类的查询
+     *
+     * @param spaceId    图片所在空间，私有空间的图片不在列表缓存中
+     * @param categories 图片变化前后的分类
+     */
+    private void invalidateListCache(Long spaceId, String... categories) {
+        if (ObjectUtil.isNotNull(spaceId)) {
+            return;
+        }
+        Set<String> namespaces = new LinkedHashSet<>();
+        namespaces.add(getListCacheNamespace(null));
+        for (String category : categories) {
+            if (StrUtil.isNotBlank(category)) {
+                namespaces.add(getListCacheNamespace(category));
+            }
+        }
+        try {
+            cacheNamespaceManager.invalidate(namespaces);
+        } catch (Exception e) {
+            log.warn("列表缓存失效失败, namespaces = {}", namespaces, e);
+        }
+    }
+
+    /**
+     * 重建图片搜索索引：名称、简介、标签的全文索引（调整 ngram 分词长度或停用词后），以及标签关联表
+     */
+    @Override
+    public void rebuildSearchIndex() {
+        long start = System.currentTimeMillis();
+        this.baseMapper.rebuildTextFullTextIndex();
+        pictureTagService.rebuild();
+        log.info("图片搜索索引重建完成, cost = {} ms", System.currentTimeMillis() - start);
+    }
+
     /**
      * 编辑图片信息（用户使用）
      *
@@ -1006,9 +1449,23 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
         checkPictureAuth(loginUser, oldPicture);
         // 补充审核参数
         fillReviewParams(picture, loginUser);
-        // 操作数据库
-        boolean result = this.updateById(picture);
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        // 操作数据库，同步更新标签关联
+        transactionTemplate.executeWithoutResult(status -> {
+            boolean result = this.updateById(picture);
+            ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+            // 未传标签时 tags 列不会被更新，关联也保持不变
+            if (ObjectUtil.isNotNull(requestParam.getTags())) {
+                pictureTagService.replaceTags(Collections.singletonList(id), requestParam.getTags());
+            }
+        });
+        // 非管理员编辑后需要重新审核，会离开公共图库
+        pictureNeighborCache.invalidate(oldPicture.getSpaceId());
+        invalidateListCache(oldPicture.getSpaceId(), oldPicture.getCategory(), picture.getCategory());
+        favoriteTimelineCache.evictCards(Collections.singletonList(id));
+        // 重新审核期间不参与热门榜单，过审后按新的互动重新累计
+        if (!Objects.equals(PictureReviewStatusEnum.PASS.getValue(), picture.getReviewStatus())) {
+            pictureRankingManager.remove(Collections.singletonList(id));
+        }
     }
 
     /**
@@ -1086,6 +1543,9 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
                     ThrowUtils.throwIf(!commentsRemoved, ErrorCode.OPERATION_ERROR, "删除评论记录失败");
                 }
 
+                // 删除标签关联
+                pictureTagService.removeByPictureIds(ids);
+
                 return true;
             } catch (Exception e) {
                 status.setRollbackOnly(); // 回滚事务
@@ -1096,6 +1556,16 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
 
         // 判断事务结果
         ThrowUtils.throwIf(!transactionResult, ErrorCode.OPERATION_ERROR, "批量删除图片事务失败");
+        pictureIndexSynchronizer.remove(ids);
+        pictureNeighborCache.invalidateAll();
+        // 批量删除可能涉及多个分类，直接失效全部列表缓存
+        try {
+            cacheNamespaceManager.invalidate(Collections.singletonList(LIST_CACHE_NAMESPACE));
+        } catch (Exception e) {
+            log.warn("列表缓存失效失败", e);
+        }
+        pictureRankingManager.remove(ids);
+        favoriteTimelineCache.evictCards(ids);
     }
 
 
@@ -1154,6 +1624,8 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
                     boolean commentsRemoved = commentService.remove(commentLambdaQueryWrapper);
                     ThrowUtils.throwIf(!commentsRemoved, ErrorCode.OPERATION_ERROR, "图片评论记录删除失败");
                 }
+                // 删除标签关联
+                pictureTagService.removeByPictureIds(Collections.singletonList(id));
                 return true;
             } catch (Exception e) {
                 status.setRollbackOnly(); // 手动回滚事务
@@ -1163,6 +1635,11 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
         }));
         // 判断事务结果
         ThrowUtils.throwIf(!transactionResult, ErrorCode.OPERATION_ERROR, "图片删除事务失败");
+        pictureIndexSynchronizer.remove(Collections.singletonList(id));
+        pictureNeighborCache.invalidate(oldPicture.getSpaceId());
+        invalidateListCache(oldPicture.getSpaceId(), oldPicture.getCategory());
+        pictureRankingManager.remove(Collections.singletonList(id));
+        favoriteTimelineCache.evictCards(Collections.singletonList(id));
     }
 
     /**
@@ -1187,9 +1664,23 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
         // 补充审核参数
         User loginUser = userService.getLoginUser(request);
         this.fillReviewParams(picture, loginUser);
-        // 操作数据库
-        boolean result = this.updateById(picture);
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        // 操作数据库，同步更新标签关联
+        transactionTemplate.executeWithoutResult(status -> {
+            boolean result = this.updateById(picture);
+            ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+            // 未传标签时 tags 列不会被更新，关联也保持不变
+            if (ObjectUtil.isNotNull(requestParam.getTags())) {
+                pictureTagService.replaceTags(Collections.singletonList(id), requestParam.getTags());
+            }
+        });
+        // 非管理员编辑后需要重新审核，会离开公共图库
+        pictureNeighborCache.invalidate(oldPicture.getSpaceId());
+        invalidateListCache(oldPicture.getSpaceId(), oldPicture.getCategory(), picture.getCategory());
+        favoriteTimelineCache.evictCards(Collections.singletonList(id));
+        // 重新审核期间不参与热门榜单，过审后按新的互动重新累计
+        if (!Objects.equals(PictureReviewStatusEnum.PASS.getValue(), picture.getReviewStatus())) {
+            pictureRankingManager.remove(Collections.singletonList(id));
+        }
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -1238,6 +1729,17 @@ public class PictureServiceImpl extends ServiceImpl<PictureMapper, Picture> impl
         // 5. 批量更新
         boolean result = this.updateBatchById(pictureList);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        List<Long> editedIds = pictureList.stream().map(Picture::getId).collect(Collectors.toList());
+        if (CollUtil.isNotEmpty(tags)) {
+            pictureTagService.replaceTags(editedIds, tags);
+        }
+        // 事务提交后再删除收藏卡片缓存，避免提交前并发的读请求用旧数据回填
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                favoriteTimelineCache.evictCards(editedIds);
+            }
+        });
     }
 
 
@@ -0,0 +1,197 @@
+package org.leocoder.picture.service.impl;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.leocoder.picture.domain.Picture;
+import org.leocoder.picture.domain.PictureTag;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.leocoder.picture.mapper.PictureTagMapper;
+import org.leocoder.picture.service.PictureTagService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-14 09:45
+ * @description : 图片标签关联维护：编辑、批量编辑、删除时同步更新，表为空时由 picture.tags 自动回填
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PictureTagServiceImpl extends ServiceImpl<PictureTagMapper, PictureTag> implements PictureTagService {
+
+    /**
+     * 重建时每批读取的图片数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * 标签最大长度（与 picture_tag.tag 列一致）
+     */
+    private static final int MAX_TAG_LENGTH = 64;
+
+    private final PictureTagMapper pictureTagMapper;
+
+    private final PictureMapper pictureMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        ThreadUtil.newThread(this::backfillIfEmpty, "picture-tag-backfill", true).start();
+    }
+
+    /**
+     * 覆盖图片的标签关联
+     *
+     * @param pictureIds 图片 id
+     * @param tags       新的标签，为空表示清空
+     */
+    @Override
+    public void replaceTags(Collection<Long> pictureIds, List<String> tags) {
+        if (CollUtil.isEmpty(pictureIds)) {
+            return;
+        }
+        removeByPictureIds(pictureIds);
+        Set<String> normalizedTags = normalizeTags(tags);
+        if (normalizedTags.isEmpty()) {
+            return;
+        }
+        List<PictureTag> pictureTagList = new ArrayList<>(pictureIds.size() * normalizedTags.size());
+        for (Long pictureId : pictureIds) {
+            for (String tag : normalizedTags) {
+                pictureTagList.add(buildPictureTag(pictureId, tag));
+            }
+        }
+        insertIgnoreBatch(pictureTagList);
+    }
+
+    /**
+     * 删除图片的标签关联
+     *
+     * @param pictureIds 图片 id
+     */
+    @Override
+    public void removeByPictureIds(Collection<Long> pictureIds) {
+        if (CollUtil.isEmpty(pictureIds)) {
+            return;
+        }
+        pictureTagMapper.delete(Wrappers.lambdaQuery(PictureTag.class).in(PictureTag::getPictureId, pictureIds));
+    }
+
+    /**
+     * 按 id 游标分批读取 picture.tags，逐批覆盖标签关联；已删除图片的关联在最后统一清理
+     *
+     * @return 处理的图片数
+     */
+    @Override
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int total = 0;
+        while (true) {
+            LambdaQueryWrapper<Picture> queryWrapper = Wrappers.lambdaQuery(Picture.class)
+                    .select(Picture::getId, Picture::getTags)
+                    .gt(Picture::getId, lastId)
+                    .orderByAsc(Picture::getId)
+                    .last("limit " + REBUILD_BATCH_SIZE);
+            List<Picture> pictureList = pictureMapper.selectList(queryWrapper);
+            if (CollUtil.isEmpty(pictureList)) {
+                break;
+            }
+            List<Long> pictureIds = pictureList.stream().map(Picture::getId).collect(Collectors.toList());
+            List<PictureTag> pictureTagList = new ArrayList<>();
+            for (Picture picture : pictureList) {
+                for (String tag : normalizeTags(parseTags(picture.getTags()))) {
+                    pictureTagList.add(buildPictureTag(picture.getId(), tag));
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                removeByPictureIds(pictureIds);
+                insertIgnoreBatch(pictureTagList);
+            });
+            total += pictureList.size();
+            lastId = pictureIds.get(pictureIds.size() - 1);
+            if (pictureList.size() < REBUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+        // 清理已删除图片残留的关联
+        int orphanCount = pictureTagMapper.deleteOrphans();
+        log.info("图片标签关联重建完成, pictureCount = {}, orphanCount = {}, cost = {} ms",
+                total, orphanCount, System.currentTimeMillis() - start);
+        return total;
+    }
+
+    /**
+     * 关联表为空且存在带标签的图片时自动回填（首次上线）
+     */
+    private void backfillIfEmpty() {
+        try {
+            if (pictureTagMapper.exists(Wrappers.lambdaQuery(PictureTag.class))) {
+                return;
+            }
+            boolean hasTags = pictureMapper.exists(Wrappers.lambdaQuery(Picture.class)
+                    .isNotNull(Picture::getTags)
+                    .ne(Picture::getTags, "")
+                    .ne(Picture::getTags, "[]"));
+            if (hasTags) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("图片标签关联回填失败", e);
+        }
+    }
+
+    private void insertIgnoreBatch(List<PictureTag> pictureTagList) {
+        for (List<PictureTag> part : CollUtil.split(pictureTagList, REBUILD_BATCH_SIZE)) {
+            pictureTagMapper.insertIgnoreBatch(part);
+        }
+    }
+
+    private static PictureTag buildPictureTag(Long pictureId, String tag) {
+        return PictureTag.builder().id(IdWorker.getId()).pictureId(pictureId).tag(tag).build();
+    }
+
+    private static List<String> parseTags(String tags) {
+        if (StrUtil.isBlank(tags) || !JSONUtil.isTypeJSONArray(tags)) {
+            return Collections.emptyList();
+        }
+        return JSONUtil.toList(tags, String.class);
+    }
+
+    /**
+     * 去掉空白与过长的标签并去重
+     */
+    private static Set<String> normalizeTags(List<String> tags) {
+        Set<String> normalizedTags = new LinkedHashSet<>();
+        if (CollUtil.isEmpty(tags)) {
+            return normalizedTags;
+        }
+        for (String tag : tags) {
+            String trimmed = StrUtil.trim(tag);
+            if (StrUtil.isNotEmpty(trimmed) && trimmed.length() <= MAX_TAG_LENGTH) {
+                normalizedTags.add(trimmed);
+            }
+        }
+        return normalizedTags;
+    }
+}
@@ -7,6 +7,7 @@ import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import lombok.RequiredArgsConstructor;
 import org.leocoder.picture.domain.User;
 import org.leocoder.picture.domain.dto.user.UserInfoRequest;
 import org.leocoder.picture.domain.dto.user.UserPasswordRequest;
@@ -17,6 +18,7 @@ import org.leocoder.picture.enums.UserRoleEnum;
 import org.leocoder.picture.exception.BusinessException;
 import org.leocoder.picture.exception.ErrorCode;
 import org.leocoder.picture.exception.ThrowUtils;
+import org.leocoder.picture.manager.cache.LoginUserCache;
 import org.leocoder.picture.mapper.UserMapper;
 import org.leocoder.picture.service.UserService;
 import org.leocoder.picture.utils.PasswordUtil;
@@ -25,6 +27,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -39,8 +42,11 @@ import static org.leocoder.picture.constant.UserConstant.USER_LOGIN_STATE;
  */
 
 @Service
+@RequiredArgsConstructor
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
+    private final LoginUserCache loginUserCache;
+
     /**
      * 用户注册
      *
@@ -138,14 +144,31 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (ObjectUtil.isNull(currentUser) || currentUser.getId() == null) {
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
-        // 从数据库查询（追求性能的话可以注释，直接返回上述结果）
-        currentUser = this.getById(currentUser.getId());
+        // 同一请求内复用，跨请求走短时间的本地缓存，未命中时查询数据库
+        currentUser = loginUserCache.get(request, currentUser.getId(), this::getById);
         if (ObjectUtil.isNull(currentUser)) {
             throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
         }
         return currentUser;
     }
 
+    /**
+     * 获取当前登录用户，未登录时返回 null
+     *
+     * @param request 请求对象
+     * @return 当前登录用户
+     */
+    @Override
+    public User getLoginUserPermitNull(HttpServletRequest request) {
+        // 未登录的访客不创建会话
+        HttpSession session = request.getSession(false);
+        User currentUser = session == null ? null : (User) session.getAttribute(USER_LOGIN_STATE);
+        if (ObjectUtil.isNull(currentUser) || currentUser.getId() == null) {
+            return null;
+        }
+        return loginUserCache.get(request, currentUser.getId(), this::getById);
+    }
+
     /**
      * 获取脱敏的已登录用户信息
      *
@@ -206,6 +229,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         BeanUtils.copyProperties(requestParam, user);
         boolean result = this.updateById(user);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "修改用户信息失败");
+        loginUserCache.invalidate(loginUser.getId());
     }
 
     /**
@@ -246,6 +270,17 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         updatedUser.setUserPassword(encryptPassword);
         boolean result = this.updateById(updatedUser);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "修改密码失败");
+        loginUserCache.invalidate(loginUser.getId());
+    }
+
+    /**
+     * 失效登录用户缓存（管理员修改、删除用户后调用）
+     *
+     * @param userId 用户 id
+     */
+    @Override
+    public void invalidateLoginUser(Long userId) {
+        loginUserCache.invalidate(userId);
     }
 
     /**
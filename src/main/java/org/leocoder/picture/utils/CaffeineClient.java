@@ -1,21 +0,0 @@
-package org.leocoder.picture.utils;
-
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-
-import java.util.concurrent.TimeUnit;
-
-/**
- * @author : 程序员Leo
- * @version 1.0
- * @date 2024-12-27 16:31
- * @description :
- */
-public class CaffeineClient {
-    public static final Cache<String, String> LOCAL_CACHE =
-            Caffeine.newBuilder()
-                    .initialCapacity(1024)
-                    .maximumSize(10000L)
-                    .expireAfterWrite(5L, TimeUnit.MINUTES)
-                    .build();
-}
@@ -8,12 +8,23 @@ package org.leocoder.picture.utils;
  */
 
 import java.awt.*;
+import java.util.Arrays;
 
 /**
  * 工具类：计算颜色相似度
  */
 public class ColorSimilarUtils {
 
+    /**
+     * RGB 空间内的最大欧氏距离
+     */
+    private static final double MAX_DISTANCE = Math.sqrt(3 * Math.pow(255, 2));
+
+    /**
+     * 25 的 7 次方，CIEDE2000 公式常量
+     */
+    private static final double POW_25_7 = Math.pow(25, 7);
+
     private ColorSimilarUtils() {
         // 工具类不需要实例化
     }
@@ -54,6 +65,177 @@ public class ColorSimilarUtils {
         return calculateSimilarity(color1, color2);
     }
 
+    /**
+     * 将十六进制颜色代码解析为打包的 RGB 值（0xRRGGBB）
+     *
+     * @param hexColor 十六进制颜色代码（如 0xFF0000、#FF0000）
+     * @return RGB 值，无法解析时返回 -1
+     */
+    public static int parseRgb(String hexColor) {
+        if (hexColor == null || hexColor.trim().isEmpty()) {
+            return -1;
+        }
+        try {
+            return Integer.decode(hexColor.trim()) & 0xFFFFFF;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 调色板转为逗号分隔的十六进制字符串
+     *
+     * @param palette 打包的 RGB 颜色
+     * @return 如 0xFF0000,0x00FF00
+     */
+    public static String formatPalette(int[] palette) {
+        StringBuilder builder = new StringBuilder();
+        for (int rgb : palette) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(String.format("0x%06X", rgb));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 解析逗号分隔的调色板，忽略无法解析的颜色
+     *
+     * @param picPalette 调色板字符串
+     * @return 打包的 RGB 颜色
+     */
+    public static int[] parsePalette(String picPalette) {
+        if (picPalette == null || picPalette.isEmpty()) {
+            return new int[0];
+        }
+        String[] hexColors = picPalette.split(",");
+        int[] palette = new int[hexColors.length];
+        int size = 0;
+        for (String hexColor : hexColors) {
+            int rgb = parseRgb(hexColor);
+            if (rgb >= 0) {
+                palette[size++] = rgb;
+            }
+        }
+        return size == palette.length ? palette : Arrays.copyOf(palette, size);
+    }
+
+    /**
+     * 由 RGB 欧氏距离的平方计算相似度，与 {@link #calculateSimilarity(Color, Color)} 结果一致
+     *
+     * @param squaredDistance 距离的平方
+     * @return 相似度（0到1之间，1为完全相同）
+     */
+    public static double similarityOfSquaredDistance(int squaredDistance) {
+        return 1 - Math.sqrt(squaredDistance) / MAX_DISTANCE;
+    }
+
+    /**
+     * 将 sRGB 颜色转换为 CIELAB（D65 白点）
+     *
+     * @param rgb 打包的 RGB 值（0xRRGGBB）
+     * @return [L, a, b]
+     */
+    public static float[] toLab(int rgb) {
+        double r = linearize((rgb >> 16) & 0xFF);
+        double g = linearize((rgb >> 8) & 0xFF);
+        double b = linearize(rgb & 0xFF);
+        double x = (0.4124564 * r + 0.3575761 * g + 0.1804375 * b) / 0.95047;
+        double y = 0.2126729 * r + 0.7151522 * g + 0.0721750 * b;
+        double z = (0.0193339 * r + 0.1191920 * g + 0.9503041 * b) / 1.08883;
+        double fx = labF(x);
+        double fy = labF(y);
+        double fz = labF(z);
+        return new float[]{(float) (116 * fy - 16), (float) (500 * (fx - fy)), (float) (200 * (fy - fz))};
+    }
+
+    /**
+     * CIE76 色差的平方（Lab 空间欧氏距离的平方），排序时无需开方
+     */
+    public static float labSquaredDistance(float l1, float a1, float b1, float l2, float a2, float b2) {
+        float dl = l1 - l2;
+        float da = a1 - a2;
+        float db = b1 - b2;
+        return dl * dl + da * da + db * db;
+    }
+
+    /**
+     * CIEDE2000 色差（kL = kC = kH = 1）
+     *
+     * @return 色差 ΔE00，越小越相似
+     */
+    public static double ciede2000(double l1, double a1, double b1, double l2, double a2, double b2) {
+        double c1 = Math.sqrt(a1 * a1 + b1 * b1);
+        double c2 = Math.sqrt(a2 * a2 + b2 * b2);
+        double cMean7 = Math.pow((c1 + c2) / 2, 7);
+        double g = 0.5 * (1 - Math.sqrt(cMean7 / (cMean7 + POW_25_7)));
+        double a1p = (1 + g) * a1;
+        double a2p = (1 + g) * a2;
+        double c1p = Math.sqrt(a1p * a1p + b1 * b1);
+        double c2p = Math.sqrt(a2p * a2p + b2 * b2);
+        double h1p = hueAngle(a1p, b1);
+        double h2p = hueAngle(a2p, b2);
+
+        double deltaLp = l2 - l1;
+        double deltaCp = c2p - c1p;
+        double deltahp;
+        if (c1p * c2p == 0) {
+            deltahp = 0;
+        } else if (Math.abs(h2p - h1p) <= 180) {
+            deltahp = h2p - h1p;
+        } else if (h2p - h1p > 180) {
+            deltahp = h2p - h1p - 360;
+        } else {
+            deltahp = h2p - h1p + 360;
+        }
+        double deltaHp = 2 * Math.sqrt(c1p * c2p) * Math.sin(Math.toRadians(deltahp / 2));
+
+        double lMean = (l1 + l2) / 2;
+        double cMeanp = (c1p + c2p) / 2;
+        double hMeanp;
+        if (c1p * c2p == 0) {
+            hMeanp = h1p + h2p;
+        } else if (Math.abs(h1p - h2p) <= 180) {
+            hMeanp = (h1p + h2p) / 2;
+        } else if (h1p + h2p < 360) {
+            hMeanp = (h1p + h2p + 360) / 2;
+        } else {
+            hMeanp = (h1p + h2p - 360) / 2;
+        }
+        double t = 1 - 0.17 * Math.cos(Math.toRadians(hMeanp - 30)) + 0.24 * Math.cos(Math.toRadians(2 * hMeanp))
+                + 0.32 * Math.cos(Math.toRadians(3 * hMeanp + 6)) - 0.20 * Math.cos(Math.toRadians(4 * hMeanp - 63));
+        double lMean50 = (lMean - 50) * (lMean - 50);
+        double sl = 1 + 0.015 * lMean50 / Math.sqrt(20 + lMean50);
+        double sc = 1 + 0.045 * cMeanp;
+        double sh = 1 + 0.015 * cMeanp * t;
+        double deltaTheta = 30 * Math.exp(-Math.pow((hMeanp - 275) / 25, 2));
+        double cMeanp7 = Math.pow(cMeanp, 7);
+        double rt = -2 * Math.sqrt(cMeanp7 / (cMeanp7 + POW_25_7)) * Math.sin(Math.toRadians(2 * deltaTheta));
+
+        double lTerm = deltaLp / sl;
+        double cTerm = deltaCp / sc;
+        double hTerm = deltaHp / sh;
+        return Math.sqrt(lTerm * lTerm + cTerm * cTerm + hTerm * hTerm + rt * cTerm * hTerm);
+    }
+
+    private static double linearize(int channel) {
+        double value = channel / 255.0;
+        return value <= 0.04045 ? value / 12.92 : Math.pow((value + 0.055) / 1.055, 2.4);
+    }
+
+    private static double labF(double t) {
+        return t > 216.0 / 24389 ? Math.cbrt(t) : (24389.0 / 27 * t + 16) / 116;
+    }
+
+    private static double hueAngle(double a, double b) {
+        if (a == 0 && b == 0) {
+            return 0;
+        }
+        double angle = Math.toDegrees(Math.atan2(b, a));
+        return angle < 0 ? angle + 360 : angle;
+    }
+
     // 示例代码
     public static void main(String[] args) {
         // 测试颜色
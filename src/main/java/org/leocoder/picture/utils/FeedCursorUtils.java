@@ -0,0 +1,61 @@
+package org.leocoder.picture.utils;
+
+import org.leocoder.picture.exception.BusinessException;
+import org.leocoder.picture.exception.ErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-14 09:30
+ * @description : 信息流游标编解码工具
+ * <p>
+ * 游标由排序字段、排序值和 id 组成，以 URL 安全的 Base64 编码，对前端不透明；排序字段写入游标，
+ * 切换排序后继续使用旧游标会被拒绝
+ */
+public class FeedCursorUtils {
+
+    private static final String SEPARATOR = "|";
+
+    private static final int PART_COUNT = 3;
+
+    private FeedCursorUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param sortField 排序字段
+     * @param sortValue 最后一条记录的排序值
+     * @param id        最后一条记录的 id
+     * @return 游标
+     */
+    public static String encode(String sortField, String sortValue, long id) {
+        String raw = sortField + SEPARATOR + sortValue + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor    游标
+     * @param sortField 当前请求的排序字段
+     * @return [排序值, id]
+     */
+    public static String[] decode(String cursor, String sortField) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标格式错误");
+        }
+        String[] parts = raw.split("\\" + SEPARATOR, -1);
+        if (parts.length != PART_COUNT || !parts[0].equals(sortField) || parts[1].isEmpty() || parts[2].isEmpty()) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标格式错误");
+        }
+        return new String[]{parts[1], parts[2]};
+    }
+}
@@ -0,0 +1,92 @@
+package org.leocoder.picture.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-13 09:30
+ * @description : MySQL 全文检索（ngram 分词）布尔查询构造工具
+ * <p>
+ * 关键词只保留字母、数字（含中文）与空白，因此生成的布尔查询不含引号和反斜杠，可以安全地拼入排序表达式
+ */
+public class FullTextSearchUtils {
+
+    /**
+     * ngram 分词长度（与 MySQL 的 ngram_token_size 一致），短于该长度的词无法走全文索引
+     */
+    public static final int NGRAM_TOKEN_SIZE = 2;
+
+    /**
+     * 关键词最多拆分的词数
+     */
+    private static final int MAX_TERMS = 8;
+
+    private FullTextSearchUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * 按空白与标点拆分关键词，只保留字母、数字（含中文）
+     *
+     * @param text 关键词
+     * @return 拆分后的词
+     */
+    public static List<String> splitTerms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length() && terms.size() < MAX_TERMS; ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                term.appendCodePoint(codePoint);
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (term.length() > 0 && terms.size() < MAX_TERMS) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    /**
+     * 所有词都不短于 ngram 分词长度时才能使用全文索引，否则退化为模糊查询
+     *
+     * @param terms 拆分后的词
+     * @return 是否可以使用全文索引
+     */
+    public static boolean isIndexable(List<String> terms) {
+        if (terms.isEmpty()) {
+            return false;
+        }
+        for (String term : terms) {
+            if (term.codePointCount(0, term.length()) < NGRAM_TOKEN_SIZE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 构造布尔模式查询：每个词作为必须出现的短语，ngram 下等价于逐词子串匹配
+     *
+     * @param terms 拆分后的词
+     * @return 如 +"风景" +"sunset"
+     */
+    public static String toBooleanQuery(List<String> terms) {
+        StringBuilder query = new StringBuilder();
+        for (String term : terms) {
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append("+\"").append(term).append('"');
+        }
+        return query.toString();
+    }
+}
@@ -0,0 +1,228 @@
+package org.leocoder.picture.utils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-10 09:30
+ * @description : 图片特征向量与调色板提取（纯 Java），用于本地以图搜图与按颜色搜图
+ * 特征由 HSV 颜色直方图与分块边缘方向直方图拼接而成，两部分各自归一化后等权合并为单位向量，
+ * 因此两个特征的点积即余弦相似度
+ */
+public class ImageFeatureUtils {
+
+    /**
+     * 提取前统一缩放的边长
+     */
+    private static final int SAMPLE_SIZE = 64;
+
+    private static final int HUE_BINS = 8;
+
+    private static final int SATURATION_BINS = 3;
+
+    private static final int VALUE_BINS = 3;
+
+    private static final int COLOR_DIMENSION = HUE_BINS * SATURATION_BINS * VALUE_BINS;
+
+    private static final int ORIENTATION_BINS = 8;
+
+    /**
+     * 边缘方向直方图的空间分块（2x2）
+     */
+    private static final int GRID = 2;
+
+    private static final int EDGE_DIMENSION = ORIENTATION_BINS * GRID * GRID;
+
+    /**
+     * 调色板量化时每个通道保留的位数
+     */
+    private static final int PALETTE_BITS = 5;
+
+    /**
+     * 调色板颜色的最小像素占比
+     */
+    private static final double PALETTE_MIN_SHARE = 0.03;
+
+    /**
+     * 调色板颜色之间的最小 Lab 距离
+     */
+    private static final float PALETTE_MIN_DISTANCE = 15f;
+
+    /**
+     * 特征维度
+     */
+    public static final int DIMENSION = COLOR_DIMENSION + EDGE_DIMENSION;
+
+    private ImageFeatureUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * 提取特征向量
+     *
+     * @param image 图片（一般为缩略图）
+     * @return 单位长度的特征向量
+     */
+    public static float[] extract(BufferedImage image) {
+        int[] rgb = sample(image);
+
+        float[] feature = new float[DIMENSION];
+        float[] gray = new float[rgb.length];
+        float[] hsv = new float[3];
+        // 1. HSV 颜色直方图
+        for (int i = 0; i < rgb.length; i++) {
+            int r = (rgb[i] >> 16) & 0xFF;
+            int g = (rgb[i] >> 8) & 0xFF;
+            int b = rgb[i] & 0xFF;
+            Color.RGBtoHSB(r, g, b, hsv);
+            int h = Math.min((int) (hsv[0] * HUE_BINS), HUE_BINS - 1);
+            int s = Math.min((int) (hsv[1] * SATURATION_BINS), SATURATION_BINS - 1);
+            int v = Math.min((int) (hsv[2] * VALUE_BINS), VALUE_BINS - 1);
+            feature[(h * SATURATION_BINS + s) * VALUE_BINS + v]++;
+            gray[i] = 0.299f * r + 0.587f * g + 0.114f * b;
+        }
+        // 2. Sobel 梯度，按方向（0 ~ π）与所在分块累计梯度幅值
+        int cellSize = SAMPLE_SIZE / GRID;
+        for (int y = 1; y < SAMPLE_SIZE - 1; y++) {
+            for (int x = 1; x < SAMPLE_SIZE - 1; x++) {
+                float gx = gray[(y - 1) * SAMPLE_SIZE + x + 1] + 2 * gray[y * SAMPLE_SIZE + x + 1] + gray[(y + 1) * SAMPLE_SIZE + x + 1]
+                        - gray[(y - 1) * SAMPLE_SIZE + x - 1] - 2 * gray[y * SAMPLE_SIZE + x - 1] - gray[(y + 1) * SAMPLE_SIZE + x - 1];
+                float gy = gray[(y + 1) * SAMPLE_SIZE + x - 1] + 2 * gray[(y + 1) * SAMPLE_SIZE + x] + gray[(y + 1) * SAMPLE_SIZE + x + 1]
+                        - gray[(y - 1) * SAMPLE_SIZE + x - 1] - 2 * gray[(y - 1) * SAMPLE_SIZE + x] - gray[(y - 1) * SAMPLE_SIZE + x + 1];
+                float magnitude = (float) Math.sqrt(gx * gx + gy * gy);
+                if (magnitude == 0) {
+                    continue;
+                }
+                double angle = Math.atan2(gy, gx);
+                if (angle < 0) {
+                    angle += Math.PI;
+                }
+                int orientation = Math.min((int) (angle / Math.PI * ORIENTATION_BINS), ORIENTATION_BINS - 1);
+                int cell = (y / cellSize) * GRID + x / cellSize;
+                feature[COLOR_DIMENSION + cell * ORIENTATION_BINS + orientation] += magnitude;
+            }
+        }
+        // 3. 两部分分别归一化，再等权合并为单位向量
+        float weight = (float) Math.sqrt(0.5);
+        normalize(feature, 0, COLOR_DIMENSION, weight);
+        normalize(feature, COLOR_DIMENSION, DIMENSION, weight);
+        return feature;
+    }
+
+    /**
+     * 提取主要颜色（调色板）：按 RGB 各 5 位量化统计像素数，从占比最高的颜色开始，
+     * 依次选出与已选颜色在 Lab 空间中差异足够大的颜色
+     *
+     * @param image     图片（一般为缩略图）
+     * @param maxColors 最多返回的颜色数
+     * @return 打包的 RGB 颜色（0xRRGGBB），按占比降序
+     */
+    public static int[] extractPalette(BufferedImage image, int maxColors) {
+        int[] rgb = sample(image);
+        int binCount = 1 << (PALETTE_BITS * 3);
+        int[] counts = new int[binCount];
+        long[] sums = new long[binCount * 3];
+        int shift = 8 - PALETTE_BITS;
+        for (int pixel : rgb) {
+            int r = (pixel >> 16) & 0xFF;
+            int g = (pixel >> 8) & 0xFF;
+            int b = pixel & 0xFF;
+            int bin = ((r >> shift) << (PALETTE_BITS * 2)) | ((g >> shift) << PALETTE_BITS) | (b >> shift);
+            counts[bin]++;
+            sums[bin * 3] += r;
+            sums[bin * 3 + 1] += g;
+            sums[bin * 3 + 2] += b;
+        }
+        Integer[] bins = new Integer[binCount];
+        for (int i = 0; i < binCount; i++) {
+            bins[i] = i;
+        }
+        Arrays.sort(bins, (bin1, bin2) -> Integer.compare(counts[bin2], counts[bin1]));
+
+        int minCount = (int) (rgb.length * PALETTE_MIN_SHARE);
+        int[] palette = new int[maxColors];
+        float[][] paletteLabs = new float[maxColors][];
+        int size = 0;
+        for (int i = 0; i < binCount && size < maxColors && counts[bins[i]] >= Math.max(1, minCount); i++) {
+            int bin = bins[i];
+            int count = counts[bin];
+            int color = (int) (sums[bin * 3] / count) << 16 | (int) (sums[bin * 3 + 1] / count) << 8
+                    | (int) (sums[bin * 3 + 2] / count);
+            float[] lab = ColorSimilarUtils.toLab(color);
+            boolean distinct = true;
+            for (int j = 0; j < size && distinct; j++) {
+                distinct = ColorSimilarUtils.labSquaredDistance(lab[0], lab[1], lab[2],
+                        paletteLabs[j][0], paletteLabs[j][1], paletteLabs[j][2]) >= PALETTE_MIN_DISTANCE * PALETTE_MIN_DISTANCE;
+            }
+            if (distinct) {
+                palette[size] = color;
+                paletteLabs[size] = lab;
+                size++;
+            }
+        }
+        return Arrays.copyOf(palette, size);
+    }
+
+    /**
+     * 余弦相似度（特征已归一化，即点积）
+     */
+    public static float similarity(float[] feature1, float[] feature2) {
+        float dot = 0;
+        for (int i = 0; i < feature1.length; i++) {
+            dot += feature1[i] * feature2[i];
+        }
+        return dot;
+    }
+
+    /**
+     * 特征向量转字节（小端 float32），用于入库
+     */
+    public static byte[] toBytes(float[] feature) {
+        ByteBuffer buffer = ByteBuffer.allocate(feature.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(feature);
+        return buffer.array();
+    }
+
+    /**
+     * 字节转特征向量
+     */
+    public static float[] fromBytes(byte[] bytes) {
+        float[] feature = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(feature);
+        return feature;
+    }
+
+    /**
+     * 缩放为固定大小并读取像素
+     */
+    private static int[] sample(BufferedImage image) {
+        BufferedImage sample = new BufferedImage(SAMPLE_SIZE, SAMPLE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = sample.createGraphics();
+        try {
+            Image scaled = image.getScaledInstance(SAMPLE_SIZE, SAMPLE_SIZE, Image.SCALE_AREA_AVERAGING);
+            graphics.drawImage(scaled, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return sample.getRGB(0, 0, SAMPLE_SIZE, SAMPLE_SIZE, null, 0, SAMPLE_SIZE);
+    }
+
+    private static void normalize(float[] feature, int from, int to, float weight) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += feature[i] * feature[i];
+        }
+        if (sum == 0) {
+            return;
+        }
+        float scale = (float) (weight / Math.sqrt(sum));
+        for (int i = from; i < to; i++) {
+            feature[i] *= scale;
+        }
+    }
+}
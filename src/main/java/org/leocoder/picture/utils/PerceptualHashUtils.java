@@ -0,0 +1,59 @@
+package org.leocoder.picture.utils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-07 09:20
+ * @description : 感知哈希工具类（dHash），用于近似重复图片检测
+ */
+public class PerceptualHashUtils {
+
+    private static final int HASH_WIDTH = 9;
+
+    private static final int HASH_HEIGHT = 8;
+
+    private PerceptualHashUtils() {
+        // 工具类不需要实例化
+    }
+
+    /**
+     * 计算 64 位差异哈希：缩放为 9x8 灰度图，逐行比较相邻像素的亮度
+     * 对缩放、压缩、轻微调色不敏感，适合缩略图
+     *
+     * @param image 图片
+     * @return 64 位哈希
+     */
+    public static long dHash(BufferedImage image) {
+        BufferedImage gray = new BufferedImage(HASH_WIDTH, HASH_HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            // 先按区域平均缩小，避免直接双线性缩放时丢失大部分像素
+            Image scaled = image.getScaledInstance(HASH_WIDTH, HASH_HEIGHT, Image.SCALE_AREA_AVERAGING);
+            graphics.drawImage(scaled, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                int left = gray.getRaster().getSample(x, y, 0);
+                int right = gray.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 计算两个哈希的汉明距离
+     *
+     * @return 不同的位数（0 ~ 64），越小越相似
+     */
+    public static int hammingDistance(long hash1, long hash2) {
+        return Long.bitCount(hash1 ^ hash2);
+    }
+}
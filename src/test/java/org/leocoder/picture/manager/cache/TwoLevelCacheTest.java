@@ -0,0 +1,161 @@
+package org.leocoder.picture.manager.cache;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.leocoder.picture.config.TwoLevelCacheConfig;
+import org.leocoder.picture.domain.vo.picture.PictureVO;
+import org.leocoder.picture.domain.vo.user.UserVO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-19 11:30
+ * @description : 两级缓存测试（编码往返、并发未命中合并与过期旧值后台刷新，不连接 Redis）
+ */
+public class TwoLevelCacheTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private static final TypeReference<Page<PictureVO>> PAGE_TYPE = new TypeReference<Page<PictureVO>>() {
+    };
+
+    @Test
+    public void testEncodeRoundTrip() throws Exception {
+        TwoLevelCache<Page<PictureVO>> cache = newCache();
+        Page<PictureVO> page = new Page<>(2, 20, 135);
+        List<PictureVO> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            PictureVO pictureVO = new PictureVO();
+            pictureVO.setId(1000L + i);
+            pictureVO.setName("风景-" + i);
+            pictureVO.setTags(Arrays.asList("风景", "日落"));
+            pictureVO.setCreateTime(LocalDateTime.of(2025, 3, 19, 10, i));
+            pictureVO.setViewCount(42L);
+            UserVO userVO = new UserVO();
+            userVO.setId(7L);
+            pictureVO.setUser(userVO);
+            records.add(pictureVO);
+        }
+        page.setRecords(records);
+
+        long freshUntil = System.currentTimeMillis() + 60_000;
+        byte[] bytes = cache.encode(new TwoLevelCache.Entry<>(page, freshUntil));
+        // 超过阈值时压缩
+        assertEquals(1, bytes[0]);
+        assertTrue(bytes.length < OBJECT_MAPPER.writeValueAsBytes(page).length);
+
+        TwoLevelCache.Entry<Page<PictureVO>> entry = cache.decode(bytes);
+        assertEquals(freshUntil, entry.getFreshUntil());
+        assertFalse(entry.isStale());
+        Page<PictureVO> decoded = entry.getValue();
+        assertEquals(135, decoded.getTotal());
+        assertEquals(2, decoded.getCurrent());
+        assertEquals(20, decoded.getRecords().size());
+        PictureVO first = decoded.getRecords().get(0);
+        assertEquals(PictureVO.class, first.getClass());
+        assertEquals(records.get(0), first);
+
+        // 小值不压缩
+        Page<PictureVO> empty = new Page<>(1, 20, 0);
+        byte[] plain = cache.encode(new TwoLevelCache.Entry<>(empty, 0L));
+        assertEquals(0, plain[0]);
+        assertEquals(0, cache.decode(plain).getValue().getTotal());
+        assertTrue(cache.decode(plain).isStale());
+        // 旧格式（纯 JSON 字符串）无法识别
+        assertThrows(Exception.class, () -> cache.decode("{\"total\":1}".getBytes()));
+    }
+
+    @Test
+    public void testConcurrentMissLoadsOnce() throws Exception {
+        TwoLevelCache<Page<PictureVO>> cache = newCache();
+        int threads = 16;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Page<PictureVO>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("key", () -> {
+                        loads.incrementAndGet();
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return new Page<>(1, 20, 5);
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Page<PictureVO>> future : futures) {
+                assertEquals(5, future.get(5, TimeUnit.SECONDS).getTotal());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStats().getLoadCount());
+        assertEquals(threads - 1L, cache.getStats().getCoalescedCount());
+
+        // 失败不缓存，下次重新加载
+        assertThrows(IllegalStateException.class, () -> cache.get("failed", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals(3, cache.get("failed", () -> new Page<PictureVO>(1, 20, 3)).getTotal());
+        assertEquals(1L, cache.getStats().getLoadFailureCount());
+
+        // 按前缀清除后重新加载
+        assertEquals(5, cache.get("key", () -> new Page<PictureVO>(1, 20, 6)).getTotal());
+        cache.invalidateLocalByPrefix("ke");
+        assertEquals(6, cache.get("key", () -> new Page<PictureVO>(1, 20, 6)).getTotal());
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        // 逻辑过期时间为 0，加载后立即过期
+        TwoLevelCacheConfig.Spec spec = new TwoLevelCacheConfig.Spec();
+        spec.setRemoteExpireSeconds(0);
+        spec.setRemoteExpireJitterSeconds(0);
+        ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+        TwoLevelCache<Page<PictureVO>> cache = new TwoLevelCache<>("test", spec,
+                OBJECT_MAPPER.getTypeFactory().constructType(PAGE_TYPE), OBJECT_MAPPER, null, refreshExecutor);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, cache.get("key", () -> new Page<>(1, 20, loads.incrementAndGet())).getTotal());
+        // 旧值立即返回，同时在后台刷新
+        assertEquals(1, cache.get("key", () -> new Page<>(1, 20, loads.incrementAndGet())).getTotal());
+        refreshExecutor.shutdown();
+        assertTrue(refreshExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.get("key", () -> new Page<>(1, 20, loads.incrementAndGet())).getTotal());
+        assertEquals(2L, cache.getStats().getStaleServedCount());
+        assertEquals(1L, cache.getStats().getRefreshCount());
+    }
+
+    private static TwoLevelCache<Page<PictureVO>> newCache() {
+        return new TwoLevelCache<>("test", new TwoLevelCacheConfig.Spec(),
+                OBJECT_MAPPER.getTypeFactory().constructType(PAGE_TYPE), OBJECT_MAPPER, null, null);
+    }
+}
@@ -0,0 +1,110 @@
+package org.leocoder.picture.manager.counter;
+
+import org.junit.jupiter.api.Test;
+import org.leocoder.picture.domain.vo.cache.CounterStatsVO;
+import org.leocoder.picture.enums.InteractionCounterEnum;
+import org.leocoder.picture.mapper.CommentMapper;
+import org.leocoder.picture.mapper.PictureMapper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-22 11:00
+ * @description : 互动计数聚合器测试（并发累加与刷写时增量不丢失、刷写失败时增量保留）
+ */
+public class InteractionCounterAggregatorTest {
+
+    private static final int THREADS = 8;
+
+    private static final int ADDS_PER_THREAD = 20_000;
+
+    private static final int TARGETS = 4;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConcurrentAddAndFlush() throws Exception {
+        PictureMapper pictureMapper = mock(PictureMapper.class);
+        CommentMapper commentMapper = mock(CommentMapper.class);
+        Map<Long, Long> likeCounts = new ConcurrentHashMap<>();
+        Map<Long, Long> favoriteCounts = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            ((Map<Long, Long>) invocation.getArgument(1)).forEach((id, delta) -> likeCounts.merge(id, delta, Long::sum));
+            ((Map<Long, Long>) invocation.getArgument(2)).forEach((id, delta) -> favoriteCounts.merge(id, delta, Long::sum));
+            return 1;
+        }).when(pictureMapper).incrementInteractionCountBatch(any(), anyMap(), anyMap());
+        InteractionCounterAggregator aggregator = new InteractionCounterAggregator(pictureMapper, commentMapper);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                aggregator.flush();
+            }
+        });
+        flusher.start();
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    long pictureId = i % TARGETS;
+                    aggregator.add(InteractionCounterEnum.PICTURE_LIKE, pictureId, 1);
+                    // 收藏、取消收藏交替，最终增量为 0
+                    aggregator.add(InteractionCounterEnum.PICTURE_FAVORITE, pictureId, (i / TARGETS) % 2 == 0 ? 1 : -1);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        running.set(false);
+        flusher.join();
+        executor.shutdown();
+        aggregator.shutdown();
+
+        long expected = (long) THREADS * ADDS_PER_THREAD / TARGETS;
+        for (long pictureId = 0; pictureId < TARGETS; pictureId++) {
+            assertEquals(expected, likeCounts.get(pictureId));
+            assertEquals(0L, favoriteCounts.getOrDefault(pictureId, 0L));
+        }
+        for (CounterStatsVO stats : aggregator.getStats()) {
+            assertEquals(0L, stats.getPendingDelta());
+            assertEquals(0L, stats.getPendingTargets());
+        }
+    }
+
+    @Test
+    public void testFailedFlushKeepsDelta() {
+        PictureMapper pictureMapper = mock(PictureMapper.class);
+        CommentMapper commentMapper = mock(CommentMapper.class);
+        when(commentMapper.incrementLikeCountBatch(anyMap()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+        InteractionCounterAggregator aggregator = new InteractionCounterAggregator(pictureMapper, commentMapper);
+        aggregator.add(InteractionCounterEnum.COMMENT_LIKE, 7L, 3);
+
+        aggregator.flush();
+        assertEquals(3L, aggregator.getPending(InteractionCounterEnum.COMMENT_LIKE, 7L));
+        aggregator.flush();
+        assertEquals(0L, aggregator.getPending(InteractionCounterEnum.COMMENT_LIKE, 7L));
+        verify(commentMapper, times(2)).incrementLikeCountBatch(Map.of(7L, 3L));
+        verify(pictureMapper, never()).incrementInteractionCountBatch(any(), anyMap(), anyMap());
+
+        CounterStatsVO stats = aggregator.getStats().stream()
+                .filter(item -> InteractionCounterEnum.COMMENT_LIKE.getValue().equals(item.getCounter()))
+                .findFirst().orElseThrow(IllegalStateException::new);
+        assertEquals(1L, stats.getFlushFailureCount());
+        assertEquals(3L, stats.getFlushedDelta());
+    }
+}
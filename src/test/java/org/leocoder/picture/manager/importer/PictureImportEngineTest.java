@@ -0,0 +1,285 @@
+package org.leocoder.picture.manager.importer;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.http.HttpUtil;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.leocoder.picture.config.PictureImportConfig;
+import org.leocoder.picture.enums.ImportJobStatusEnum;
+import org.leocoder.picture.manager.image.ImageFetcher;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-04 16:10
+ * @description : 批量导入引擎测试（本地 HTTP 桩模拟抓取源与图片下载）
+ */
+public class PictureImportEngineTest {
+
+    private static final int PAGE_COUNT = 10;
+
+    private static final int PAGE_SIZE = 10;
+
+    private static HttpServer server;
+
+    private static String baseUrl;
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // 分页接口，每行一个图片地址
+        server.createContext("/page", exchange -> {
+            int page = Integer.parseInt(StrUtil.subAfter(exchange.getRequestURI().getQuery(), "p=", false));
+            StringBuilder body = new StringBuilder();
+            if (page <= PAGE_COUNT) {
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    body.append(baseUrl).append("/img/").append((page - 1) * PAGE_SIZE + i).append('\n');
+                }
+            }
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(bytes);
+            }
+        });
+        // 图片接口
+        server.createContext("/img", exchange -> {
+            byte[] bytes = new byte[10 * 1024];
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(bytes);
+            }
+        });
+        server.setExecutor(java.util.concurrent.Executors.newFixedThreadPool(16));
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testImportConcurrency() throws Exception {
+        int count = 60;
+        // 串行导入同一时刻只有一张图片在处理
+        assertEquals(1, runImport(1, count));
+        // 并发导入时恰好有 concurrency 张图片同时处理，且不超过配置的并发数
+        assertEquals(4, runImport(4, count));
+    }
+
+    @Test
+    public void testSkipFetchedAndStopAtTarget() throws Exception {
+        InMemoryImportJobStore store = new InMemoryImportJobStore();
+        PictureImportEngine engine = new PictureImportEngine(buildConfig(4), store);
+        Set<String> imported = ConcurrentHashMap.newKeySet();
+        PictureImportHandler handler = new PictureImportHandler() {
+            @Override
+            public boolean isFetched(String url) {
+                // 偶数编号视为已抓取
+                return Integer.parseInt(StrUtil.subAfter(url, "/img/", true)) % 2 == 0;
+            }
+
+            @Override
+            public boolean importPicture(String url, int index) {
+                HttpUtil.downloadBytes(url);
+                imported.add(url);
+                return true;
+            }
+        };
+        ImportJob job = engine.submit("stub", "test", "test", 15, 1L, buildFetcher(), handler);
+        assertTrue(job.awaitDone(30, TimeUnit.SECONDS));
+        engine.shutdown();
+
+        assertEquals(ImportJobStatusEnum.SUCCEED, job.getStatus());
+        assertEquals(15, job.getUploaded().get());
+        assertEquals(15, imported.size());
+        assertTrue(job.getSkipped().get() >= 15);
+        assertTrue(imported.stream().allMatch(url -> Integer.parseInt(StrUtil.subAfter(url, "/img/", true)) % 2 == 1));
+
+        // 检查点记录最终进度，页码游标停在未处理完的分页
+        ImportJob saved = store.load(job.getJobId());
+        assertEquals(ImportJobStatusEnum.SUCCEED, saved.getStatus());
+        assertEquals(15, saved.getUploaded().get());
+        assertTrue(store.listUnfinishedJobIds().isEmpty());
+        assertEquals(job.getPage(), store.getCursor("stub", "test"));
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws Exception {
+        InMemoryImportJobStore store = new InMemoryImportJobStore();
+        Set<String> imported = ConcurrentHashMap.newKeySet();
+        PictureImportHandler handler = new PictureImportHandler() {
+            @Override
+            public boolean isFetched(String url) {
+                return imported.contains(url);
+            }
+
+            @Override
+            public boolean importPicture(String url, int index) {
+                return imported.add(url);
+            }
+        };
+        // 模拟重启前已完成前 3 页的任务
+        ImportJob checkpoint = new ImportJob("resume", "stub", "test", "test", 50, 1L);
+        checkpoint.restore(4, 30, 0, 0, 30, 30, java.time.LocalDateTime.now());
+        store.save(checkpoint);
+        assertEquals(1, store.listUnfinishedJobIds().size());
+
+        PictureImportEngine engine = new PictureImportEngine(buildConfig(4), store);
+        ImportJob job = store.load("resume");
+        assertTrue(store.tryAcquireLease("resume"));
+        engine.resume(job, buildFetcher(), handler);
+        assertTrue(job.awaitDone(30, TimeUnit.SECONDS));
+        engine.shutdown();
+
+        assertEquals(ImportJobStatusEnum.SUCCEED, job.getStatus());
+        assertEquals(50, job.getUploaded().get());
+        // 只抓取第 4 页之后的图片
+        assertEquals(20, imported.size());
+        assertTrue(imported.stream().allMatch(url -> Integer.parseInt(StrUtil.subAfter(url, "/img/", true)) >= 30));
+        assertTrue(store.listUnfinishedJobIds().isEmpty());
+    }
+
+    /**
+     * 执行一次导入并返回同时处理的最大图片数
+     * <p>
+     * 前 concurrency 张图片在闸门处等待，直到 concurrency 张同时在处理才一起放行，
+     * 闸门打开说明引擎确实并发执行；引擎串行时闸门等待超时，测试失败
+     */
+    private int runImport(int concurrency, int count) throws Exception {
+        PictureImportEngine engine = new PictureImportEngine(buildConfig(concurrency), new InMemoryImportJobStore());
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch gate = new CountDownLatch(concurrency);
+        AtomicBoolean gateOpened = new AtomicBoolean(true);
+        PictureImportHandler handler = new PictureImportHandler() {
+            @Override
+            public boolean isFetched(String url) {
+                return false;
+            }
+
+            @Override
+            public boolean importPicture(String url, int index) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    gate.countDown();
+                    if (!gate.await(10, TimeUnit.SECONDS)) {
+                        gateOpened.set(false);
+                    }
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+        ImportJob job = engine.submit("stub", "test", "test", count, 1L, buildFetcher(), handler);
+        assertTrue(job.awaitDone(60, TimeUnit.SECONDS));
+        engine.shutdown();
+
+        assertTrue(gateOpened.get(), "并发处理的图片数未达到 " + concurrency);
+        assertEquals(ImportJobStatusEnum.SUCCEED, job.getStatus());
+        assertEquals(count, job.getUploaded().get());
+        assertEquals(0, job.getFailed().get());
+        return maxInFlight.get();
+    }
+
+    private PictureImportConfig buildConfig(int concurrency) {
+        PictureImportConfig config = new PictureImportConfig();
+        config.setWorkerThreads(concurrency);
+        config.setJobConcurrency(concurrency);
+        config.setJobThreads(1);
+        config.setPageSize(PAGE_SIZE);
+        config.setMaxEmptyPages(1);
+        config.setDefaultRatePerSecond(10000);
+        return config;
+    }
+
+    /**
+     * 内存检查点存储（模拟 Redis）
+     */
+    private static class InMemoryImportJobStore implements ImportJobStore {
+
+        private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+        private final Map<String, Integer> cursors = new ConcurrentHashMap<>();
+
+        private final Set<String> leases = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void save(ImportJob job) {
+            // 保存快照，模拟序列化
+            ImportJob snapshot = new ImportJob(job.getJobId(), job.getSource(), job.getSearchText(),
+                    job.getNamePrefix(), job.getCount(), job.getUserId());
+            snapshot.restore(job.getPage(), job.getFetched().get(), job.getSkipped().get(), job.getFailed().get(),
+                    job.getUploaded().get(), job.getSequence().get(), job.getStartTime());
+            snapshot.restoreFinished(job.getStatus(), job.getErrorMessage(), job.getEndTime());
+            jobs.put(job.getJobId(), snapshot);
+            cursors.put(job.getSource() + ":" + job.getSearchText(), job.getPage());
+        }
+
+        @Override
+        public ImportJob load(String jobId) {
+            return jobs.get(jobId);
+        }
+
+        @Override
+        public Set<String> listUnfinishedJobIds() {
+            Set<String> jobIds = new java.util.HashSet<>();
+            jobs.forEach((jobId, job) -> {
+                if (ImportJobStatusEnum.RUNNING.equals(job.getStatus())) {
+                    jobIds.add(jobId);
+                }
+            });
+            return jobIds;
+        }
+
+        @Override
+        public int getCursor(String source, String searchText) {
+            return cursors.getOrDefault(source + ":" + searchText, 1);
+        }
+
+        @Override
+        public boolean tryAcquireLease(String jobId) {
+            return leases.add(jobId);
+        }
+
+        @Override
+        public void renewLease(String jobId) {
+        }
+    }
+
+    private ImageFetcher buildFetcher() {
+        return (searchText, page, pageSize) -> {
+            String body = HttpUtil.get(baseUrl + "/page?p=" + page);
+            List<String> imageUrls = new ArrayList<>();
+            for (String line : StrUtil.split(body, '\n')) {
+                if (StrUtil.isNotBlank(line)) {
+                    imageUrls.add(line);
+                }
+            }
+            return imageUrls;
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package org.leocoder.picture.manager.importer;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-06 10:30
+ * @description : 已抓取 URL 布隆过滤器测试（无漏判、误判率与位数组大小）
+ */
+public class UrlBloomFilterTest {
+
+    private static final int URL_COUNT = 300_000;
+
+    private static final int QUERY_COUNT = 300_000;
+
+    private static final double FPP = 0.01;
+
+    @Test
+    public void testNoFalseNegativeAndFpp() {
+        Random random = new Random(42);
+        Set<String> inserted = new HashSet<>();
+        UrlBloomFilter bloomFilter = new UrlBloomFilter(URL_COUNT, FPP);
+        while (inserted.size() < URL_COUNT) {
+            String urlHash = DigestUtil.md5Hex(buildUrl(random.nextLong()));
+            if (inserted.add(urlHash)) {
+                bloomFilter.put(urlHash);
+            }
+        }
+        for (String urlHash : inserted) {
+            assertTrue(bloomFilter.mightContain(urlHash));
+        }
+        int falsePositives = 0;
+        int queries = 0;
+        while (queries < QUERY_COUNT) {
+            String urlHash = DigestUtil.md5Hex(buildUrl(random.nextLong()));
+            if (inserted.contains(urlHash)) {
+                continue;
+            }
+            queries++;
+            if (bloomFilter.mightContain(urlHash)) {
+                falsePositives++;
+            }
+        }
+        // 种子固定，结果可复现；30 万次查询下 1% 误判率的标准差约 0.02%，留足余量
+        double fpp = (double) falsePositives / QUERY_COUNT;
+        assertTrue(fpp < FPP * 1.2, "误判率 " + fpp + " 超出配置值");
+    }
+
+    @Test
+    public void testBitArraySize() {
+        UrlBloomFilter bloomFilter = new UrlBloomFilter(URL_COUNT, FPP);
+        long expectedBits = (long) (-URL_COUNT * Math.log(FPP) / (Math.log(2) * Math.log(2)));
+        long actualBits = bloomFilter.sizeInBytes() * Byte.SIZE;
+        // 位数组按 long 对齐，最多多出 63 位
+        assertTrue(actualBits >= expectedBits && actualBits < expectedBits + Long.SIZE);
+        // 每条 URL 约 1.2 字节，远小于保存 32 字节的 MD5 字符串
+        assertTrue(bloomFilter.sizeInBytes() * 10 < (long) URL_COUNT * 32);
+    }
+
+    private String buildUrl(long id) {
+        return "https://images.example.com/photos/" + Long.toUnsignedString(id)
+                + "/pexels-photo.jpeg?auto=compress&cs=tinysrgb&w=1260";
+    }
+}
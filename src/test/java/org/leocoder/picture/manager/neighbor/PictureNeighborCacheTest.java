@@ -0,0 +1,41 @@
+package org.leocoder.picture.manager.neighbor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-15 10:00
+ * @description : 邻居窗口缓存测试
+ */
+public class PictureNeighborCacheTest {
+
+    @Test
+    public void testWindowLookupAndInvalidate() {
+        PictureNeighborCache cache = new PictureNeighborCache();
+        // 窗口头部已经到头，尾部之后还有图片
+        PictureNeighborCache.NeighborWindow window = new PictureNeighborCache.NeighborWindow(null,
+                Arrays.asList(5L, 4L, 3L, 2L), true, false);
+        cache.put("public", "createTime", false, window);
+
+        PictureNeighborCache.NeighborWindow hit = cache.get("public", "createTime", false, 5L);
+        assertNotNull(hit);
+        assertNull(hit.getPrevId(5L));
+        assertEquals(4L, hit.getNextId(5L));
+        assertEquals(4L, cache.get("public", "createTime", false, 3L).getPrevId(3L));
+        // 尾部图片的下一张不在窗口内，不登记
+        assertNull(cache.get("public", "createTime", false, 2L));
+        // 排序方式不同的窗口互不影响
+        assertNull(cache.get("public", "createTime", true, 4L));
+
+        // 私有空间的变更不影响公共图库
+        cache.invalidate(1L);
+        assertNotNull(cache.get("public", "createTime", false, 4L));
+        cache.invalidate(null);
+        assertNull(cache.get("public", "createTime", false, 4L));
+    }
+}
@@ -0,0 +1,156 @@
+package org.leocoder.picture.manager.similarity;
+
+import org.junit.jupiter.api.Test;
+import org.leocoder.picture.enums.ColorMetricEnum;
+import org.leocoder.picture.utils.ColorSimilarUtils;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-11 11:00
+ * @description : 颜色索引测试（与原先的全量解析 + 排序方式对比结果）
+ */
+public class ColorIndexTest {
+
+    private static final int PICTURE_COUNT = 10_000;
+
+    private static final int QUERY_COUNT = 100;
+
+    private static final int TOP_K = 12;
+
+    @Test
+    public void testSearchMatchesFullSort() {
+        Random random = new Random(42);
+        List<String> picColors = new ArrayList<>();
+        ColorIndex colorIndex = new ColorIndex();
+        for (int i = 0; i < PICTURE_COUNT; i++) {
+            // COS 返回的主色调形如 0x8d0d0，高位的 0 会被省略
+            String picColor = "0x" + Integer.toHexString(random.nextInt(0x1000000));
+            picColors.add(picColor);
+            colorIndex.put(i, 1L, ColorSimilarUtils.parseRgb(picColor));
+        }
+        String[] targets = new String[QUERY_COUNT];
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            targets[q] = String.format("0x%06X", random.nextInt(0x1000000));
+        }
+
+        for (String target : targets) {
+            List<Integer> sorted = fullSort(picColors, target);
+            List<ColorIndex.Match> matches = colorIndex.search(1L, ColorSimilarUtils.parseRgb(target), TOP_K);
+
+            // 距离相同的图片顺序可能不同，比较相似度序列
+            assertEquals(TOP_K, matches.size());
+            for (int i = 0; i < TOP_K; i++) {
+                double expected = ColorSimilarUtils.calculateSimilarity(target, picColors.get(sorted.get(i)));
+                double actual = ColorSimilarUtils.similarityOfSquaredDistance((int) matches.get(i).getDistance());
+                assertEquals(expected, actual, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        ColorIndex colorIndex = new ColorIndex();
+        colorIndex.put(1, 1L, 0xFF0000);
+        colorIndex.put(2, 1L, 0x00FF00);
+        colorIndex.put(3, 2L, 0xFF0000);
+        assertEquals(1L, colorIndex.search(1L, 0xFE0101, 1).get(0).getId());
+
+        // 更新颜色
+        colorIndex.put(2, 1L, 0xFF0101);
+        assertEquals(2L, colorIndex.search(1L, 0xFF0101, 1).get(0).getId());
+
+        // 删除后不再返回
+        assertTrue(colorIndex.remove(1));
+        List<Long> ids = colorIndex.search(1L, 0xFF0000, 5).stream().map(ColorIndex.Match::getId).collect(Collectors.toList());
+        assertEquals(1, ids.size());
+        assertEquals(2L, ids.get(0));
+        assertFalse(colorIndex.remove(1));
+        assertEquals(2, colorIndex.size());
+        assertEquals(-1, ColorSimilarUtils.parseRgb("not a color"));
+    }
+
+    @Test
+    public void testRemoveKeepsPaletteSlots() {
+        Random random = new Random(7);
+        ColorIndex colorIndex = new ColorIndex();
+        Map<Long, int[]> expected = new HashMap<>();
+        for (int round = 0; round < 2_000; round++) {
+            long id = random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id) != null, colorIndex.remove(id));
+                continue;
+            }
+            // 主色调 + 0~3 个调色板颜色，删除时末尾槽位可能属于任一元素
+            int[] colors = new int[1 + random.nextInt(4)];
+            for (int i = 0; i < colors.length; i++) {
+                colors[i] = random.nextInt(0x1000000);
+            }
+            colorIndex.put(id, 1L, colors[0], null, Arrays.copyOfRange(colors, 1, colors.length));
+            expected.put(id, colors);
+        }
+        assertEquals(expected.size(), colorIndex.size());
+        // 每个元素的每个颜色都能以距离 0 查到
+        for (Map.Entry<Long, int[]> entry : expected.entrySet()) {
+            for (int color : entry.getValue()) {
+                List<ColorIndex.Match> matches = colorIndex.search(1L, color, expected.size(), ColorMetricEnum.RGB, true);
+                assertTrue(matches.stream().anyMatch(match -> match.getId() == entry.getKey() && match.getDistance() == 0));
+            }
+        }
+    }
+
+    @Test
+    public void testPaletteAndPerceptualMetrics() {
+        ColorIndex colorIndex = new ColorIndex();
+        // 主色调为灰色，调色板中含有红色
+        colorIndex.put(1, 1L, 0x808080, null, new int[]{0x808080, 0xE01010});
+        colorIndex.put(2, 1L, 0xA05050, null, null);
+        colorIndex.put(3, 1L, 0x2040C0, null, new int[]{0x2040C0, 0xD02020, 0xD82828});
+
+        // 只比较主色调时，偏红的 2 号最接近
+        assertEquals(2L, colorIndex.search(1L, 0xE01010, 1, ColorMetricEnum.LAB, false).get(0).getId());
+        // 匹配调色板时，1 号的调色板中有完全相同的颜色；3 号的两个红色只计一次
+        List<ColorIndex.Match> matches = colorIndex.search(1L, 0xE01010, 3, ColorMetricEnum.LAB, true);
+        assertEquals(3, matches.size());
+        assertEquals(1L, matches.get(0).getId());
+        assertEquals(0f, matches.get(0).getDistance(), 1e-3);
+        assertEquals(3, matches.stream().map(ColorIndex.Match::getId).distinct().count());
+
+        List<ColorIndex.Match> ciede2000 = colorIndex.search(1L, 0xE01010, 2, ColorMetricEnum.CIEDE2000, true);
+        assertEquals(2, ciede2000.size());
+        assertEquals(1L, ciede2000.get(0).getId());
+        assertTrue(ciede2000.get(0).getDistance() <= ciede2000.get(1).getDistance());
+
+        // 更新后旧的调色板颜色不再参与匹配
+        colorIndex.put(1, 1L, 0x808080, null, new int[]{0x808080});
+        assertNotEquals(1L, colorIndex.search(1L, 0xE01010, 1, ColorMetricEnum.LAB, true).get(0).getId());
+    }
+
+    /**
+     * 暴力扫描：原先的实现，比较器内解析颜色并全量排序
+     */
+    private static List<Integer> fullSort(List<String> picColors, String picColor) {
+        Color targetColor = Color.decode(picColor);
+        List<Integer> indexes = new ArrayList<>(picColors.size());
+        for (int i = 0; i < picColors.size(); i++) {
+            indexes.add(i);
+        }
+        return indexes.stream()
+                .sorted(Comparator.comparingDouble(index -> -ColorSimilarUtils.calculateSimilarity(targetColor,
+                        Color.decode(picColors.get(index)))))
+                .limit(TOP_K)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,173 @@
+package org.leocoder.picture.manager.similarity;
+
+import org.junit.jupiter.api.Test;
+import org.leocoder.picture.utils.ImageFeatureUtils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-10 10:20
+ * @description : 特征向量检索测试（近似索引相对精确扫描的召回率、特征提取）
+ */
+public class FeatureVectorStoreTest {
+
+    private static final int PICTURE_COUNT = 100_000;
+
+    private static final int CLUSTER_COUNT = 500;
+
+    private static final int QUERY_COUNT = 100;
+
+    private static final int TOP_K = 10;
+
+    @Test
+    public void testApproximateRecall() {
+        int dimension = ImageFeatureUtils.DIMENSION;
+        Random random = new Random(7);
+        // 模拟真实图库：图片特征围绕若干主题聚集
+        float[][] centers = new float[CLUSTER_COUNT][];
+        for (int c = 0; c < CLUSTER_COUNT; c++) {
+            centers[c] = randomUnitVector(random, dimension, null, 0);
+        }
+        FeatureVectorStore store = new FeatureVectorStore(dimension);
+        for (int i = 0; i < PICTURE_COUNT; i++) {
+            store.put(i, 0L, randomUnitVector(random, dimension, centers[random.nextInt(CLUSTER_COUNT)], 0.08f));
+        }
+        float[][] queries = new float[QUERY_COUNT][];
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            queries[q] = store.get(random.nextInt(PICTURE_COUNT));
+        }
+
+        // 精确扫描
+        List<Set<Long>> exactResults = new java.util.ArrayList<>();
+        for (float[] query : queries) {
+            List<FeatureVectorStore.Match> matches = store.search(0L, query, TOP_K, -1L, 0);
+            assertEquals(TOP_K, matches.size());
+            exactResults.add(matches.stream().map(FeatureVectorStore.Match::getId).collect(Collectors.toSet()));
+        }
+
+        // 训练并安装近似索引
+        FeatureVectorStore.IvfIndex ivfIndex = FeatureVectorStore.train(store.snapshot(), dimension,
+                10_000, 20_000, 8, new Random(1));
+        assertTrue(store.installApproximateIndex(ivfIndex));
+
+        int hit = 0;
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            List<FeatureVectorStore.Match> matches = store.search(0L, queries[q], TOP_K, -1L, 16);
+            Set<Long> ids = new HashSet<>();
+            matches.forEach(match -> ids.add(match.getId()));
+            ids.retainAll(exactResults.get(q));
+            hit += ids.size();
+        }
+        double recall = hit * 1.0 / (QUERY_COUNT * TOP_K);
+        assertTrue(recall >= 0.9, "近似索引召回率过低: " + recall);
+
+        // 安装后新增的图片仍可检索到
+        float[] fresh = randomUnitVector(random, dimension, null, 0);
+        store.put(PICTURE_COUNT, 0L, fresh);
+        assertEquals(PICTURE_COUNT, store.search(0L, fresh, 1, -1L, 16).get(0).getId());
+    }
+
+    @Test
+    public void testSmallGroupExactWithApproximateIndex() {
+        int dimension = ImageFeatureUtils.DIMENSION;
+        Random random = new Random(11);
+        FeatureVectorStore store = new FeatureVectorStore(dimension);
+        // 公共图库较大且集中在少数主题，私有空间图片很少且分布与公共图库无关
+        float[][] centers = new float[20][];
+        for (int c = 0; c < centers.length; c++) {
+            centers[c] = randomUnitVector(random, dimension, null, 0);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            store.put(i, 0L, randomUnitVector(random, dimension, centers[random.nextInt(centers.length)], 0.05f));
+        }
+        for (int i = 0; i < 300; i++) {
+            store.put(100_000 + i, 9L, randomUnitVector(random, dimension, null, 0));
+        }
+        float[][] queries = new float[20][];
+        List<List<FeatureVectorStore.Match>> exactResults = new java.util.ArrayList<>();
+        for (int q = 0; q < queries.length; q++) {
+            queries[q] = randomUnitVector(random, dimension, null, 0);
+            exactResults.add(store.search(9L, queries[q], TOP_K, -1L, 0));
+        }
+
+        assertTrue(store.installApproximateIndex(FeatureVectorStore.train(store.snapshot(), dimension,
+                1_000, 5_000, 4, new Random(1))));
+        for (int q = 0; q < queries.length; q++) {
+            List<FeatureVectorStore.Match> matches = store.search(9L, queries[q], TOP_K, -1L, 1);
+            assertEquals(exactResults.get(q).stream().map(FeatureVectorStore.Match::getId).collect(Collectors.toList()),
+                    matches.stream().map(FeatureVectorStore.Match::getId).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testGroupAndRemove() {
+        FeatureVectorStore store = new FeatureVectorStore(4);
+        store.put(1, 0L, new float[]{1, 0, 0, 0});
+        store.put(2, 0L, new float[]{0.8f, 0.6f, 0, 0});
+        store.put(3, 9L, new float[]{1, 0, 0, 0});
+        List<FeatureVectorStore.Match> matches = store.search(0L, new float[]{1, 0, 0, 0}, 5, 1L, 0);
+        assertEquals(1, matches.size());
+        assertEquals(2L, matches.get(0).getId());
+        assertTrue(store.remove(2));
+        assertTrue(store.search(0L, new float[]{1, 0, 0, 0}, 5, 1L, 0).isEmpty());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void testFeatureExtraction() {
+        BufferedImage sunset = drawStripes(new Color(250, 120, 40), new Color(40, 20, 90), 400, 300, false);
+        // 同一张图片缩放、轻微调色后的版本
+        BufferedImage resized = drawStripes(new Color(245, 125, 45), new Color(45, 25, 95), 200, 150, false);
+        BufferedImage forest = drawStripes(new Color(30, 140, 50), new Color(200, 230, 240), 400, 300, true);
+
+        float[] feature = ImageFeatureUtils.extract(sunset);
+        assertEquals(ImageFeatureUtils.DIMENSION, feature.length);
+        assertArrayEquals(feature, ImageFeatureUtils.fromBytes(ImageFeatureUtils.toBytes(feature)));
+
+        float similar = ImageFeatureUtils.similarity(feature, ImageFeatureUtils.extract(resized));
+        float different = ImageFeatureUtils.similarity(feature, ImageFeatureUtils.extract(forest));
+        assertTrue(similar > 0.9f);
+        assertTrue(similar > different + 0.2f);
+    }
+
+    private static float[] randomUnitVector(Random random, int dimension, float[] center, float noise) {
+        float[] vector = new float[dimension];
+        double norm = 0;
+        for (int i = 0; i < dimension; i++) {
+            float value = (float) random.nextGaussian();
+            vector[i] = center == null ? value : center[i] + value * noise;
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static BufferedImage drawStripes(Color color1, Color color2, int width, int height, boolean vertical) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        int stripes = 6;
+        for (int i = 0; i < stripes; i++) {
+            graphics.setColor(i % 2 == 0 ? color1 : color2);
+            if (vertical) {
+                graphics.fillRect(i * width / stripes, 0, width / stripes + 1, height);
+            } else {
+                graphics.fillRect(0, i * height / stripes, width, height / stripes + 1);
+            }
+        }
+        graphics.dispose();
+        return image;
+    }
+}
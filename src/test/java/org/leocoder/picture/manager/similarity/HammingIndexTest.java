@@ -0,0 +1,120 @@
+package org.leocoder.picture.manager.similarity;
+
+import org.junit.jupiter.api.Test;
+import org.leocoder.picture.utils.PerceptualHashUtils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-07 14:30
+ * @description : 多索引汉明查询测试（与线性扫描对比结果）
+ */
+public class HammingIndexTest {
+
+    private static final int PICTURE_COUNT = 200_000;
+
+    private static final int QUERY_COUNT = 200;
+
+    @Test
+    public void testSearchMatchesLinearScan() {
+        Random random = new Random(42);
+        long[] hashes = new long[PICTURE_COUNT];
+        HammingIndex hammingIndex = new HammingIndex();
+        for (int i = 0; i < PICTURE_COUNT; i++) {
+            // 每 10 张图片中有一张是前一张的近似重复（翻转少量位）
+            hashes[i] = i % 10 == 9 ? flipBits(hashes[i - 1], random, 1 + random.nextInt(8)) : random.nextLong();
+            hammingIndex.put(i, 0L, hashes[i]);
+        }
+        for (int maxDistance : new int[]{4, 10, 16}) {
+            for (int q = 0; q < QUERY_COUNT; q++) {
+                long target = hashes[random.nextInt(PICTURE_COUNT)];
+                List<Long> indexIds = hammingIndex.search(0L, target, maxDistance).stream()
+                        .map(HammingIndex.Match::getId).sorted().collect(Collectors.toList());
+                // 线性扫描作为基准
+                List<Long> scanIds = new ArrayList<>();
+                for (int i = 0; i < PICTURE_COUNT; i++) {
+                    if (PerceptualHashUtils.hammingDistance(hashes[i], target) <= maxDistance) {
+                        scanIds.add((long) i);
+                    }
+                }
+                assertEquals(scanIds, indexIds);
+            }
+        }
+    }
+
+    @Test
+    public void testGroupAndRemove() {
+        HammingIndex hammingIndex = new HammingIndex();
+        hammingIndex.put(1, 0L, 0L);
+        hammingIndex.put(2, 0L, 0L);
+        hammingIndex.put(3, 0L, 1L);
+        hammingIndex.put(4, 7L, 0L);
+        assertTrue(hammingIndex.remove(1));
+        assertFalse(hammingIndex.remove(1));
+        List<HammingIndex.Match> matches = hammingIndex.search(0L, 0L, 1);
+        assertEquals(2, matches.size());
+        assertEquals(2, matches.get(0).getId());
+        assertEquals(0, matches.get(0).getDistance());
+        assertEquals(3, matches.get(1).getId());
+        // 更新哈希后旧值不再命中
+        hammingIndex.put(2, 0L, -1L);
+        assertEquals(1, hammingIndex.search(0L, 0L, 1).size());
+        assertEquals(3, hammingIndex.size());
+    }
+
+    @Test
+    public void testCompact() {
+        HammingIndex hammingIndex = new HammingIndex();
+        for (int i = 0; i < 5000; i++) {
+            hammingIndex.put(i, 0L, i);
+        }
+        for (int i = 0; i < 4000; i++) {
+            hammingIndex.remove(i);
+        }
+        assertEquals(1000, hammingIndex.size());
+        assertEquals(1, hammingIndex.search(0L, 4500L, 0).size());
+        assertTrue(hammingIndex.search(0L, 10L, 0).isEmpty());
+    }
+
+    @Test
+    public void testDHashRobustToResize() {
+        BufferedImage image = new BufferedImage(256, 192, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.BLUE, 256, 192, Color.ORANGE));
+        graphics.fillRect(0, 0, 256, 192);
+        graphics.setColor(Color.WHITE);
+        graphics.fillOval(60, 40, 100, 80);
+        graphics.dispose();
+
+        BufferedImage resized = new BufferedImage(128, 96, BufferedImage.TYPE_INT_RGB);
+        Graphics2D resizedGraphics = resized.createGraphics();
+        resizedGraphics.drawImage(image, 0, 0, 128, 96, null);
+        resizedGraphics.dispose();
+
+        BufferedImage other = new BufferedImage(256, 192, BufferedImage.TYPE_INT_RGB);
+        Graphics2D otherGraphics = other.createGraphics();
+        otherGraphics.setPaint(new GradientPaint(256, 0, Color.RED, 0, 192, Color.GREEN));
+        otherGraphics.fillRect(0, 0, 256, 192);
+        otherGraphics.dispose();
+
+        long hash = PerceptualHashUtils.dHash(image);
+        assertTrue(PerceptualHashUtils.hammingDistance(hash, PerceptualHashUtils.dHash(resized)) <= 4);
+        assertTrue(PerceptualHashUtils.hammingDistance(hash, PerceptualHashUtils.dHash(other)) > 10);
+    }
+
+    private long flipBits(long hash, Random random, int bits) {
+        for (int i = 0; i < bits; i++) {
+            hash ^= 1L << random.nextInt(64);
+        }
+        return hash;
+    }
+}
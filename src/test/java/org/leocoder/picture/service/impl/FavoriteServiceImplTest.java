@@ -0,0 +1,129 @@
+package org.leocoder.picture.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.leocoder.picture.domain.Favorite;
+import org.leocoder.picture.domain.Picture;
+import org.leocoder.picture.domain.dto.favorite.FavoriteRequest;
+import org.leocoder.picture.enums.InteractionCounterEnum;
+import org.leocoder.picture.manager.cache.FavoriteTimelineCache;
+import org.leocoder.picture.manager.counter.InteractionCounterAggregator;
+import org.leocoder.picture.manager.ranking.PictureRankingManager;
+import org.leocoder.picture.manager.viewer.UserInteractionMembership;
+import org.leocoder.picture.mapper.FavoriteMapper;
+import org.leocoder.picture.mapper.PictureMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-27 10:00
+ * @description : 收藏服务测试（并发重复收藏只生效一次，收藏数只累加一次）
+ */
+public class FavoriteServiceImplTest {
+
+    private static final int THREADS = 8;
+
+    private static final long USER_ID = 1L;
+
+    private static final long PICTURE_ID = 100L;
+
+    @BeforeAll
+    public static void initTableInfo() {
+        // 构造查询条件时需要实体的字段映射
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Picture.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConcurrentDoubleClickFavorite() throws Exception {
+        // 以 picture_id 为唯一键模拟 user_favorite 表，插入已存在的记录时忽略
+        Map<Long, Favorite> table = new ConcurrentHashMap<>();
+        FavoriteMapper favoriteMapper = mock(FavoriteMapper.class);
+        when(favoriteMapper.selectUnfavoritedPictureIds(anyLong(), anyCollection())).thenAnswer(invocation ->
+                ((Collection<Long>) invocation.getArgument(1)).stream()
+                        .filter(pictureId -> table.containsKey(pictureId) && table.get(pictureId).getIsFavorited() == 0)
+                        .collect(Collectors.toList()));
+        when(favoriteMapper.insertIgnoreBatch(anyList())).thenAnswer(invocation -> {
+            int inserted = 0;
+            for (Favorite record : (List<Favorite>) invocation.getArgument(0)) {
+                record.setIsFavorited(1);
+                if (table.putIfAbsent(record.getPictureId(), record) == null) {
+                    inserted++;
+                }
+            }
+            return inserted;
+        });
+        when(favoriteMapper.selectBatchIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return table.values().stream().filter(record -> ids.contains(record.getId())).collect(Collectors.toList());
+        });
+
+        PictureMapper pictureMapper = mock(PictureMapper.class);
+        Picture picture = Picture.builder().id(PICTURE_ID).build();
+        when(pictureMapper.selectList(any())).thenReturn(List.of(picture));
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        PictureRankingManager rankingManager = mock(PictureRankingManager.class);
+        InteractionCounterAggregator aggregator = mock(InteractionCounterAggregator.class);
+        UserInteractionMembership membership = mock(UserInteractionMembership.class);
+        FavoriteTimelineCache timelineCache = mock(FavoriteTimelineCache.class);
+        FavoriteServiceImpl favoriteService = new FavoriteServiceImpl(pictureMapper, rankingManager, aggregator,
+                membership, timelineCache, transactionTemplate);
+        ReflectionTestUtils.setField(favoriteService, "baseMapper", favoriteMapper);
+
+        // 多个请求同时收藏同一张图片
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> {
+                start.await();
+                FavoriteRequest request = new FavoriteRequest();
+                request.setUserId(USER_ID);
+                request.setPictureId(PICTURE_ID);
+                return favoriteService.addFavorite(request);
+            });
+        }
+        List<Future<Boolean>> futures = tasks.stream().map(executor::submit).collect(Collectors.toList());
+        start.countDown();
+        int changed = 0;
+        for (Future<Boolean> future : futures) {
+            // 重复收藏不抛异常
+            if (future.get(10, TimeUnit.SECONDS)) {
+                changed++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, changed);
+        assertEquals(1, table.size());
+        verify(aggregator, times(1)).add(InteractionCounterEnum.PICTURE_FAVORITE, PICTURE_ID, 1);
+        verify(rankingManager, times(1)).recordFavorite(picture, 1);
+        verify(membership, times(1)).update(InteractionCounterEnum.PICTURE_FAVORITE, USER_ID, PICTURE_ID, true);
+        verify(favoriteMapper, never()).selectStatesForUpdate(anyLong(), anyCollection());
+    }
+}
@@ -0,0 +1,56 @@
+package org.leocoder.picture.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-12 11:00
+ * @description : 颜色换算、色差与调色板测试
+ */
+public class ColorSimilarUtilsTest {
+
+    @Test
+    public void testLabConversion() {
+        float[] red = ColorSimilarUtils.toLab(0xFF0000);
+        assertEquals(53.24, red[0], 0.05);
+        assertEquals(80.09, red[1], 0.05);
+        assertEquals(67.20, red[2], 0.05);
+        float[] white = ColorSimilarUtils.toLab(0xFFFFFF);
+        assertEquals(100, white[0], 0.01);
+        assertEquals(0, white[1], 0.01);
+        assertEquals(0, white[2], 0.01);
+    }
+
+    @Test
+    public void testCiede2000() {
+        // Sharma 等人发布的 CIEDE2000 测试数据
+        assertEquals(2.0425, ColorSimilarUtils.ciede2000(50, 2.6772, -79.7751, 50, 0, -82.7485), 1e-4);
+        assertEquals(2.3669, ColorSimilarUtils.ciede2000(50, 0, 0, 50, -1, 2), 1e-4);
+        assertEquals(27.1492, ColorSimilarUtils.ciede2000(50, 2.5, 0, 73, 25, -18), 1e-4);
+        assertEquals(1.2644, ColorSimilarUtils.ciede2000(60.2574, -34.0099, 36.2677, 60.4626, -34.1751, 39.4387), 1e-4);
+        assertEquals(0, ColorSimilarUtils.ciede2000(50, 10, 10, 50, 10, 10), 1e-9);
+    }
+
+    @Test
+    public void testPalette() {
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(0x2060C0));
+        graphics.fillRect(0, 0, 100, 70);
+        graphics.setColor(new Color(0xF0D020));
+        graphics.fillRect(0, 70, 100, 30);
+        graphics.dispose();
+
+        int[] palette = ImageFeatureUtils.extractPalette(image, 5);
+        assertEquals(2, palette.length);
+        assertTrue(ColorSimilarUtils.calculateSimilarity(new Color(palette[0]), new Color(0x2060C0)) > 0.98);
+        assertTrue(ColorSimilarUtils.calculateSimilarity(new Color(palette[1]), new Color(0xF0D020)) > 0.98);
+        assertArrayEquals(palette, ColorSimilarUtils.parsePalette(ColorSimilarUtils.formatPalette(palette)));
+    }
+}
@@ -0,0 +1,37 @@
+package org.leocoder.picture.utils;
+
+import org.junit.jupiter.api.Test;
+import org.leocoder.picture.exception.BusinessException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-14 10:00
+ * @description : 信息流游标编解码测试
+ */
+public class FeedCursorUtilsTest {
+
+    @Test
+    public void testRoundTrip() {
+        LocalDateTime createTime = LocalDateTime.of(2025, 3, 14, 9, 30);
+        String cursor = FeedCursorUtils.encode("createTime", createTime.toString(), 1899012345678901234L);
+        // URL 安全，可直接放在查询参数中
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+        String[] parts = FeedCursorUtils.decode(cursor, "createTime");
+        assertEquals(createTime, LocalDateTime.parse(parts[0]));
+        assertEquals(1899012345678901234L, Long.parseLong(parts[1]));
+    }
+
+    @Test
+    public void testRejectInvalidCursor() {
+        String cursor = FeedCursorUtils.encode("viewCount", "42", 7L);
+        // 排序字段与游标不一致
+        assertThrows(BusinessException.class, () -> FeedCursorUtils.decode(cursor, "createTime"));
+        assertThrows(BusinessException.class, () -> FeedCursorUtils.decode("not base64!", "viewCount"));
+        assertThrows(BusinessException.class, () -> FeedCursorUtils.decode("YWJj", "viewCount"));
+    }
+}
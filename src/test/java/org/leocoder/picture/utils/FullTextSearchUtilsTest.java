@@ -0,0 +1,41 @@
+package org.leocoder.picture.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author : 程序员Leo
+ * @version 1.0
+ * @date 2025-03-13 10:30
+ * @description : 全文检索布尔查询构造测试
+ */
+public class FullTextSearchUtilsTest {
+
+    @Test
+    public void testSplitTerms() {
+        assertEquals(Arrays.asList("海边", "日落", "sunset"), FullTextSearchUtils.splitTerms(" 海边，日落 sunset! "));
+        assertTrue(FullTextSearchUtils.splitTerms("\"'\\%").isEmpty());
+    }
+
+    @Test
+    public void testBooleanQueryIsSafe() {
+        List<String> terms = FullTextSearchUtils.splitTerms("风景' OR 1=1 -- \"x\"");
+        String query = FullTextSearchUtils.toBooleanQuery(terms);
+        assertEquals("+\"风景\" +\"OR\" +\"1\" +\"1\" +\"x\"", query);
+        // 生成的查询中不含单引号与反斜杠，可以拼入排序表达式
+        assertFalse(query.contains("'") || query.contains("\\"));
+    }
+
+    @Test
+    public void testShortTermsFallBack() {
+        assertTrue(FullTextSearchUtils.isIndexable(FullTextSearchUtils.splitTerms("风景 照片")));
+        // 单字无法命中 ngram 分词，退化为模糊查询
+        assertFalse(FullTextSearchUtils.isIndexable(FullTextSearchUtils.splitTerms("猫")));
+        assertFalse(FullTextSearchUtils.isIndexable(FullTextSearchUtils.splitTerms("风景 a")));
+        assertFalse(FullTextSearchUtils.isIndexable(FullTextSearchUtils.splitTerms("")));
+    }
+}